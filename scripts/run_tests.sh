@@ -0,0 +1,21 @@
+#!/bin/bash
+
+# Get the base directory (parent of scripts directory)
+BASE_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")" && pwd)/.."
+cd "$BASE_DIR"
+
+# Compile into a scratch directory so the build directory is left alone
+OUT="$(mktemp -d)"
+trap 'rm -rf "$OUT"' EXIT
+echo "Compiling Java sources..."
+# Any warning fails the build. The CUP jar's manifest names a runtime jar that is not
+# shipped, so the path lint is left out
+javac -Xlint:all,-path -Werror -cp java-cup-11b.jar -d "$OUT" $(grep -v TestLexer sources.txt) || exit 1
+
+# Each test is a main class that exits with status 1 when a check fails
+status=0
+for test in CheckerSoundnessTest ParserTest; do
+    echo "=== $test"
+    java -cp "$OUT:java-cup-11b.jar" "$test" || status=1
+done
+exit $status
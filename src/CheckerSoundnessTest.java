@@ -0,0 +1,514 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import ast.BinaryOperation;
+import ast.Formula;
+import ast.Program;
+import ast.TheoremDecl;
+import checker.CertificateStore;
+import checker.CongruenceClosure;
+import checker.EGraph;
+import checker.EquivalenceChecker;
+import checker.FirstOrderProver;
+import checker.IncrementalChecker;
+import checker.PremiseSelector;
+import checker.PresburgerSolver;
+import checker.ProofChecker;
+import checker.ProofSession;
+import checker.QuantifierInstantiator;
+import checker.TheoremLibrary;
+import parser.RecursiveDescentParser;
+import parser.TokenBuffer;
+
+/**
+ * Soundness regressions for the proof checker: proofs that must not be verified, and the
+ * valid proofs next to them that must be. Run with "java CheckerSoundnessTest"; the exit
+ * status is 1 if any case fails.
+ */
+public class CheckerSoundnessTest {
+    private static int failures;
+
+    public static void main(String[] args) {
+        openAssumptionDoesNotProveGoal();
+        proofMustReachGoal();
+        cubeAndConquerDecidesLikeBdd();
+        parallelStepsDecideLikeSequential();
+        instantiationAvoidsCapture();
+        presburgerKeepsEveryCase();
+        bddRejectsNonConsequences();
+        congruenceClosureRejectsNonConsequences();
+        egraphRejectsNonIdentities();
+        egraphStopsWithinLimits();
+        resolutionRejectsNonConsequences();
+        instantiationUsesOnlyPremises();
+        libraryIndexMatchesLikeTheDeciders();
+        streamingGivesTheSameVerdicts();
+        sessionDecidesStepsLikeWholeProof();
+        certificatesFollowTheirLemmas();
+        lemmaChangesRecheckTheirUsers();
+        deepFormulasDoNotOverflow();
+
+        if (failures > 0) {
+            System.out.println(failures + " checks failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    /** A 'therefore' inside an open 'assume' block only proves the implication. */
+    private static void openAssumptionDoesNotProveGoal() {
+        List<ProofChecker.TheoremResult> results = check(
+                "theorem T: Q. proof: assume Q. therefore Q. qed.\n"
+                + "theorem U: Q. proof: therefore Q by T. qed.\n"
+                + "theorem V: Q -> Q. proof: assume Q. therefore Q. qed.\n");
+        expect("assume Q. therefore Q. does not prove Q", !results.get(0).isVerified());
+        expect("an unverified theorem cannot be cited", !results.get(1).isVerified());
+        expect("assume Q. therefore Q. proves Q -> Q", results.get(2).isVerified());
+    }
+
+    /** Without a 'therefore', the last step must still reach the goal. */
+    private static void proofMustReachGoal() {
+        List<ProofChecker.TheoremResult> results = check(
+                "theorem F: false. proof: true. qed.\n"
+                + "theorem G: Q. proof: false by F. qed.\n"
+                + "theorem I: P -> P. proof: assume P. P by hyp from 1. qed.\n"
+                + "theorem J: P or Q. proof: assume P. P by hyp from 1. end. qed.\n");
+        expect("a trivial step does not prove false", !results.get(0).isVerified());
+        expect("a false theorem that failed cannot be cited", !results.get(1).isVerified());
+        expect("a last step under an open assumption proves the implication", results.get(2).isVerified());
+        expect("a closed block does not prove a weaker goal", !results.get(3).isVerified());
+    }
+
+    /** Deciding steps on a pool must give the verdicts of deciding them in order. */
+    private static void parallelStepsDecideLikeSequential() {
+        String source = "theorem A: p -> p. proof: assume p. therefore p by hyp from 1. qed.\n"
+                + "theorem B: q. proof: p or not p. q. therefore q by A. qed.\n"
+                + "theorem C: (p or q) and not p -> q. proof: assume (p or q) and not p. p or q by hyp from 1. "
+                + "not p by hyp from 1. q by cases from 2, 3. end. qed.\n";
+        List<Boolean> sequential = new ArrayList<>();
+        List<Boolean> parallel = new ArrayList<>();
+        IncrementalChecker pooled = new IncrementalChecker();
+        pooled.setStepPool(ForkJoinPool.commonPool());
+        for (ProofChecker.TheoremResult result : new IncrementalChecker().check(parse(source))) {
+            sequential.add(result.isVerified());
+        }
+        for (ProofChecker.TheoremResult result : pooled.check(parse(source))) {
+            parallel.add(result.isVerified());
+        }
+        expect("parallel steps: the verdicts match deciding in order " + sequential, sequential.equals(parallel));
+    }
+
+    /** Past the atom threshold, cube-and-conquer must give the BDD's verdicts. */
+    private static void cubeAndConquerDecidesLikeBdd() {
+        List<Formula> premises = Arrays.asList(formula("p or q"), formula("not p"), formula("r -> s"));
+        EquivalenceChecker cubes = new EquivalenceChecker();
+        cubes.setCubeThreshold(1);
+        expect("cube-and-conquer: p or q, not p |- q", cubes.implies(premises, formula("q")));
+        expect("cube-and-conquer: p or q, not p |/- s", !cubes.implies(premises, formula("s")));
+        expect("cube-and-conquer: |- (r -> s) -> (not s -> not r)", cubes.implies(Collections.emptyList(), formula("(r -> s) -> (not s -> not r)")));
+
+        System.setProperty("lepa.cubeAndConquer", "2");
+        try {
+            List<ProofChecker.TheoremResult> results = check(
+                    "theorem A: (p or q) and not p -> q. proof: assume (p or q) and not p. therefore q by cases from 1. qed.\n"
+                    + "theorem B: (p or q) and not p -> s. proof: assume (p or q) and not p. therefore s by cases from 1. qed.\n");
+            expect("-Dlepa.cubeAndConquer verifies a valid step", results.get(0).isVerified());
+            expect("-Dlepa.cubeAndConquer rejects an invalid step", !results.get(1).isVerified());
+        } finally {
+            System.clearProperty("lepa.cubeAndConquer");
+        }
+    }
+
+    /** Instantiating x := y under 'exists y' must not capture the y. */
+    private static void instantiationAvoidsCapture() {
+        String premises = "  assume forall x. (Q(x) -> exists y. R(x, y)).\n  assume Q(y).\n";
+        List<ProofChecker.TheoremResult> results = check(
+                "theorem Bad: (forall x. (Q(x) -> exists y. R(x, y))) -> (Q(y) -> exists y. R(y, y)).\nproof:\n"
+                + premises + "  therefore exists y. R(y, y) by inst from 1, 2.\nqed.\n"
+                + "theorem Good: (forall x. (Q(x) -> exists y. R(x, y))) -> (Q(y) -> exists z. R(y, z)).\nproof:\n"
+                + premises + "  therefore exists z. R(y, z) by inst from 1, 2.\nqed.\n");
+        expect("x := y is not captured by exists y", !results.get(0).isVerified());
+        expect("the renamed instance still proves exists z. R(y, z)", results.get(1).isVerified());
+    }
+
+    /** Premises that split into too many cases must not lose any of them. */
+    private static void presburgerKeepsEveryCase() {
+        List<Formula> premises = new ArrayList<>();
+        for (int i = 1; i <= 13; i++) {
+            premises.add(formula("not x = " + i));
+        }
+        PresburgerSolver solver = new PresburgerSolver();
+        expect("x != 1, ..., x != 13 |/- x < 1", !solver.implies(premises, formula("lt(x, 1)")));
+        premises.add(formula("ge(x, 0) and le(x, 0)"));
+        expect("x != 1, ..., x != 13, 0 <= x <= 0 |- x < 1", solver.implies(premises, formula("lt(x, 1)")));
+    }
+
+    /** Affirming the consequent and its relatives are not tautologies. */
+    private static void bddRejectsNonConsequences() {
+        EquivalenceChecker checker = new EquivalenceChecker();
+        expect("BDD: p -> q, p |- q", checker.implies(formulas("p -> q", "p"), formula("q")));
+        expect("BDD: p -> q, q |/- p", !checker.implies(formulas("p -> q", "q"), formula("p")));
+        expect("BDD: p -> q is not q -> p", !checker.equivalent(formula("p -> q"), formula("q -> p")));
+        expect("BDD: p or q is not a tautology", !checker.isTautology(formula("p or q")));
+    }
+
+    /** Congruence goes from equal arguments to equal results, not back. */
+    private static void congruenceClosureRejectsNonConsequences() {
+        expect("congruence: a = b, f(a) = c |- f(b) = c",
+                CongruenceClosure.entails(formulas("a = b", "f(a) = c"), formula("f(b) = c")) != null);
+        expect("congruence: a = b |/- f(a) = f(c)", CongruenceClosure.entails(formulas("a = b"), formula("f(a) = f(c)")) == null);
+        expect("congruence: f(a) = f(b) |/- a = b", CongruenceClosure.entails(formulas("f(a) = f(b)"), formula("a = b")) == null);
+        expect("congruence: a = b, a != b |- c = d",
+                CongruenceClosure.entails(formulas("a = b", "a != b"), formula("c = d")) != null);
+    }
+
+    /** The set-algebra rules prove identities only. */
+    private static void egraphRejectsNonIdentities() {
+        List<Formula> none = Collections.emptyList();
+        expect("e-graph: |- A union B = B union A", EGraph.entails(none, formula("A union B = B union A")));
+        expect("e-graph: |/- A union B = A", !EGraph.entails(none, formula("A union B = A")));
+        expect("e-graph: |/- A \\ B = B \\ A", !EGraph.entails(none, formula("A \\ B = B \\ A")));
+        expect("e-graph: |- A intersect B subset A", EGraph.entails(none, formula("A intersect B subset A")));
+        expect("e-graph: |/- A subset A intersect B", !EGraph.entails(none, formula("A subset A intersect B")));
+    }
+
+    /** Saturation that cannot reach its goal stops at a limit instead of running out of heap. */
+    private static void egraphStopsWithinLimits() {
+        BinaryOperation goal = (BinaryOperation) formula("A union B subset A");
+        expect("e-graph: |/- A union B subset A", !EGraph.entails(Collections.emptyList(), goal));
+        Formula meet = new BinaryOperation(goal.getLeft(), BinaryOperation.Operator.INTERSECT, goal.getRight());
+
+        EGraph graph = new EGraph(2_000, EGraph.DEFAULT_ITERATION_LIMIT);
+        EGraph.Outcome outcome = graph.saturate(graph.add(goal.getLeft()), graph.add(meet));
+        // One rewrite adds at most two e-nodes before the limit is checked
+        expect("e-graph: saturation stops at the node limit",
+                outcome == EGraph.Outcome.NODE_LIMIT && graph.getNodeCount() <= 2_002);
+
+        EGraph timed = new EGraph();
+        timed.setTimeLimitMillis(20);
+        long start = System.nanoTime();
+        outcome = timed.saturate(timed.add(goal.getLeft()), timed.add(meet));
+        expect("e-graph: saturation stops at the time limit",
+                outcome == EGraph.Outcome.TIME_LIMIT && System.nanoTime() - start < 1_000_000_000L);
+
+        EGraph capped = new EGraph();
+        capped.setMatchLimits(10, 20);
+        outcome = capped.saturate(capped.add(goal.getLeft()), capped.add(meet));
+        expect("e-graph: saturation stops at the match limits", outcome == EGraph.Outcome.MATCH_LIMIT);
+    }
+
+    /** Resolution must not swap quantifiers or run implications backwards. */
+    private static void resolutionRejectsNonConsequences() {
+        FirstOrderProver prover = new FirstOrderProver();
+        expect("resolution: forall x. P(x) -> Q(x), P(a) |- Q(a)",
+                prover.prove(formulas("forall x. P(x) -> Q(x)", "P(a)"), formula("Q(a)")).isProved());
+        expect("resolution: forall x. P(x) -> Q(x), Q(a) |/- P(a)",
+                !prover.prove(formulas("forall x. P(x) -> Q(x)", "Q(a)"), formula("P(a)")).isProved());
+        expect("resolution: exists x. P(x) |/- forall x. P(x)",
+                !prover.prove(formulas("exists x. P(x)"), formula("forall x. P(x)")).isProved());
+        expect("resolution: forall x. exists y. R(x, y) |/- exists y. forall x. R(x, y)",
+                !prover.prove(formulas("forall x. exists y. R(x, y)"), formula("exists y. forall x. R(x, y)")).isProved());
+        expect("resolution: exists y. forall x. R(x, y) |- forall x. exists y. R(x, y)",
+                prover.prove(formulas("exists y. forall x. R(x, y)"), formula("forall x. exists y. R(x, y)")).isProved());
+    }
+
+    /** Instances are taken for the ground terms that occur, and nothing else. */
+    private static void instantiationUsesOnlyPremises() {
+        List<Formula> instances = QuantifierInstantiator.instantiate(formulas("forall x. P(x) -> Q(x)", "P(a)"), formula("Q(a)"));
+        expect("instantiation: forall x. P(x) -> Q(x) gives P(a) -> Q(a)",
+                instances.size() == 1 && instances.get(0).toString().equals(formula("P(a) -> Q(a)").toString()));
+        expect("instantiation: no instance without a ground term",
+                QuantifierInstantiator.instantiate(formulas("forall x. P(x) -> Q(x)"), formula("p")).isEmpty());
+    }
+
+    /** The index instantiates only a lemma's universal variables; its other names are constants. */
+    private static void libraryIndexMatchesLikeTheDeciders() {
+        TheoremLibrary library = new TheoremLibrary();
+        library.add(new TheoremDecl("All", formula("forall x. P(x) -> Q(x)")));
+        library.add(new TheoremDecl("Some", formula("exists x. Q(x)")));
+        library.add(new TheoremDecl("Other", formula("R(b) -> Q(b)")));
+        expect("index: Q(a) is found only in the universal lemma",
+                names(library.candidateTheorems(formula("Q(a)"))).equals(Arrays.asList("All")));
+        expect("index: Q(b) is found in the universal lemma and the one naming b",
+                names(library.candidateTheorems(formula("Q(b)"))).equals(Arrays.asList("Other", "All")));
+
+        // With premise selection keeping nothing, only the index can supply the lemma
+        ProofChecker checker = new ProofChecker(new TheoremLibrary(), new PremiseSelector(0, PremiseSelector.DEFAULT_BUDGET_MILLIS));
+        checker.addToLibrary(new TheoremDecl("L", formula("P and Q")));
+        checker.addToLibrary(new TheoremDecl("M", formula("P and R")));
+        Program program = new RecursiveDescentParser(TokenBuffer.tokenize(
+                "theorem T: Q. proof: Q. qed.\ntheorem U: S. proof: S. qed.\n")).parse();
+        List<ProofChecker.TheoremResult> results = checker.check(program);
+        expect("index: a step stated by a lemma uses it", results.get(0).isVerified());
+        expect("index: a step no lemma states is not proved", !results.get(1).isVerified());
+    }
+
+    /** Checking theorem by theorem must see the same lemmas as checking the whole program. */
+    private static void streamingGivesTheSameVerdicts() {
+        // A is proved by the e-graph, so to the BDD it is an atom that only A itself supplies
+        String source = "theorem A: S union T = T union S. proof: S union T = T union S. qed.\n"
+                + "theorem B: (S union T = T union S) or q. proof: (S union T = T union S) or q. qed.\n"
+                + "theorem C: q. proof: q by B. qed.\n"
+                + "theorem D: r or not r. proof: r or not r. qed.\n";
+        Map<String, Boolean> whole = new LinkedHashMap<>();
+        Program program = parse(source);
+        for (ProofChecker.TheoremResult result : new IncrementalChecker().check(program)) {
+            whole.put(result.getTheorem().getName(), result.isVerified());
+        }
+        Map<String, Boolean> streamed = new LinkedHashMap<>();
+        try {
+            LepaMain.streamProofs(source, result -> streamed.put(result.getTheorem().getName(), result.isVerified()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        expect("stream: an uncited lemma still helps a later proof", Boolean.TRUE.equals(whole.get("B")));
+        expect("stream: the verdicts match checking the whole program " + whole, whole.equals(streamed));
+    }
+
+    /** Entering steps one at a time gives the verdicts of checking the finished proof. */
+    private static void sessionDecidesStepsLikeWholeProof() {
+        String goal = "(p or q) and not p -> q";
+        // After 'end' the assumption and the steps under it are out of scope
+        String[] steps = {"assume (p or q) and not p.", "p or q by hyp from 1.", "not p by hyp from 1.",
+                "q by cases from 2, 3.", "end.", "not p.", "q by hyp from 3.", goal + "."};
+        StringBuilder source = new StringBuilder("theorem C: " + goal + ". proof: ");
+        for (String step : steps) {
+            source.append(step).append(' ');
+        }
+        List<Boolean> whole = new ArrayList<>();
+        for (ProofChecker.StepResult result : check(source.append("qed.\n").toString()).get(0).getSteps()) {
+            whole.add(result.isVerified());
+        }
+        ProofSession session = new ProofSession();
+        session.startTheorem("C", formula(goal));
+        List<Boolean> stepped = new ArrayList<>();
+        for (String step : steps) {
+            stepped.add(session.addStep(new RecursiveDescentParser(TokenBuffer.tokenize(step)).parseStep()).isVerified());
+        }
+        expect("session: each step gets the whole-proof verdict " + whole, whole.equals(stepped));
+        session.undo();
+        session.undo();
+        session.undo();
+        boolean same = true;
+        for (int i = 5; i < steps.length; i++) {
+            same &= session.addStep(new RecursiveDescentParser(TokenBuffer.tokenize(steps[i])).parseStep()).isVerified()
+                    == whole.get(i);
+        }
+        expect("session: steps entered again after undo get the same verdicts", same);
+
+        LepaRepl repl = new LepaRepl();
+        repl.handle("theorem A: p -> p.");
+        repl.handle("assume p.");
+        repl.handle("p by hyp from 1.");
+        expect("repl: 'qed .' with spaces finishes the theorem", repl.handle("  qed .").startsWith("Theorem A proven"));
+        expect("repl: a proven name cannot be restated", repl.handle("theorem A: q.").startsWith("Error: "));
+        repl.handle("theorem B: p -> p.");
+        repl.handle("therefore p -> p by A.");
+        expect("repl: the first A is still in the library", repl.handle("qed").startsWith("Theorem B proven"));
+    }
+
+    /**
+     * Certificates are read back from the log on the next run, and stop applying when the
+     * theorem, one of its lemmas or the checker version changes.
+     */
+    private static void certificatesFollowTheirLemmas() {
+        String lemma = "theorem L: p -> p. proof: assume p. therefore p by hyp from 1. qed.\n";
+        String edited = "theorem L: p -> p. proof: assume p. p by hyp from 1. qed.\n";
+        String user = "theorem U: p -> p. proof: therefore p -> p by L. qed.\n";
+        try {
+            Path file = Files.createTempFile("lepa-certificates", null);
+            try {
+                Files.delete(file);
+                expect("certificates: a first run certifies nothing", certifiedOnRun(file, lemma + user) == 0);
+                expect("certificates: a second run certifies both", certifiedOnRun(file, lemma + user) == 2);
+                expect("certificates: the log holds one line per theorem", Files.readAllLines(file).size() == 2);
+                expect("certificates: an edited lemma invalidates its users", certifiedOnRun(file, edited + user) == 0);
+                expect("certificates: the edited lemma and its users are certified again",
+                        certifiedOnRun(file, edited + user) == 2);
+                expect("certificates: the earlier lemma's certificates still apply", certifiedOnRun(file, lemma + user) == 2);
+
+                // A line cut short by a crash is skipped when the log is replayed
+                Files.write(file, (CertificateStore.CHECKER_VERSION + "\tcut").getBytes(StandardCharsets.UTF_8),
+                        StandardOpenOption.APPEND);
+                expect("certificates: a truncated line is skipped", certifiedOnRun(file, lemma + user) == 2);
+
+                List<String> older = new ArrayList<>();
+                for (String line : Files.readAllLines(file)) {
+                    older.add("0" + line);
+                }
+                Files.write(file, older);
+                expect("certificates: lines from another checker version are ignored", certifiedOnRun(file, lemma + user) == 0);
+
+                Files.delete(file);
+                CertificateStore store = new CertificateStore(file);
+                expect("certificates: a theorem using an unverified lemma is not recorded",
+                        !store.record(parse(user).getTheorems().get(0), Collections.singleton("L")) && !Files.exists(file));
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            expect("certificates: " + e, false);
+        }
+    }
+
+    /** Editing, renaming or removing a lemma re-checks the theorems that used it, and only those. */
+    private static void lemmaChangesRecheckTheirUsers() {
+        // U needs L: to the BDD the equality is an atom only L supplies
+        String lemma = "theorem L: S union T = T union S. proof: S union T = T union S. qed.\n";
+        String user = "theorem U: (S union T = T union S) or q. proof: (S union T = T union S) or q by L. qed.\n";
+        String other = "theorem V: r or not r. proof: r or not r. qed.\n";
+        IncrementalChecker checker = new IncrementalChecker();
+        List<ProofChecker.TheoremResult> before = checker.check(parse(lemma + user + other));
+        expect("dependencies: U is verified with L", before.get(1).isVerified());
+
+        List<ProofChecker.TheoremResult> after = checker.check(parse(
+                lemma.replace("proof: S union T", "proof: T union S = S union T. S union T") + user + other));
+        expect("dependencies: a new proof of L re-checks only L " + rechecked(before, after),
+                rechecked(before, after).equals("[L]"));
+
+        before = after;
+        after = checker.check(parse(lemma.replace("L: S union T = T union S", "L: T union S = S union T") + user + other));
+        expect("dependencies: a new statement of L re-checks L and U " + rechecked(before, after),
+                rechecked(before, after).equals("[L, U]"));
+
+        checker = new IncrementalChecker();
+        before = checker.check(parse(lemma + user + other));
+        after = checker.check(parse(lemma.replace("theorem L", "theorem M") + user + other));
+        expect("dependencies: renaming L re-checks M and U " + rechecked(before, after),
+                rechecked(before, after).equals("[M, U]"));
+
+        checker = new IncrementalChecker();
+        before = checker.check(parse(lemma + user + other));
+        after = checker.check(parse(user + other));
+        expect("dependencies: removing L re-checks only U " + rechecked(before, after),
+                rechecked(before, after).equals("[U]"));
+        expect("dependencies: U fails without L", !after.get(0).isVerified());
+    }
+
+    /** The theorems of a run whose results were not reused from the run before. */
+    private static String rechecked(List<ProofChecker.TheoremResult> before, List<ProofChecker.TheoremResult> after) {
+        List<String> names = new ArrayList<>();
+        for (ProofChecker.TheoremResult result : after) {
+            boolean reused = false;
+            for (ProofChecker.TheoremResult earlier : before) {
+                reused |= earlier == result;
+            }
+            if (!reused) {
+                names.add(result.getTheorem().getName());
+            }
+        }
+        return names.toString();
+    }
+
+    /** Checks a source with a fresh checker reading the log, as a new run would. */
+    private static int certifiedOnRun(Path file, String source) throws IOException {
+        IncrementalChecker checker = new IncrementalChecker();
+        checker.setCertificateStore(new CertificateStore(file));
+        checker.check(parse(source));
+        return checker.getTheoremsCertified();
+    }
+
+    /**
+     * 100,000 connectives in a row go through the same steps as LepaMain (parsing, checking
+     * and generating Java) on the default thread stack, with the verdicts of short chains.
+     */
+    private static void deepFormulasDoNotOverflow() {
+        String[] names = {"goal", "assumption", "citation", "quantifier", "equality", "numeric", "set", "disjunction"};
+        String[] shallow = chainedTheorems(100);
+        String[] deep = chainedTheorems(100_000);
+        for (int i = 0; i < deep.length; i++) {
+            boolean passed;
+            try {
+                passed = lastVerdict(deep[i]) == lastVerdict(shallow[i]);
+            } catch (StackOverflowError e) {
+                passed = false;
+            }
+            expect("100,000-deep " + names[i] + " chain is checked without overflowing", passed);
+        }
+    }
+
+    /** Whether the last theorem of a source verifies, going through LepaMain's steps. */
+    private static boolean lastVerdict(String source) {
+        Program program = parse(source);
+        List<ProofChecker.TheoremResult> results = new IncrementalChecker().check(program);
+        program.generateJavaCode();
+        return results.get(results.size() - 1).isVerified();
+    }
+
+    /** One theorem, or two with a citation, per decision procedure, over chains of the given length. */
+    private static String[] chainedTheorems(int length) {
+        String and = chain("p%d", " and ", length);
+        String or = chain("p%d", " or ", length);
+        String bounds = chain("le(x, %d)", " and ", length);
+        String union = chain("B%d", " union ", length);
+        return new String[] {
+            "theorem T: " + and + ". proof: therefore " + and + ". qed.\n",
+            "theorem T: (" + and + ") -> p7. proof: assume " + and + ". therefore p7. qed.\n",
+            "theorem L: (" + and + ") -> (" + and + "). proof: assume " + and + ". therefore " + and + ". qed.\n"
+                    + "theorem U: (" + and + ") -> q or (" + and + "). proof: assume " + and + ".\n"
+                    + "h: " + and + " by L from 1. therefore q or (" + and + ") by orIntro from h. qed.\n",
+            "theorem Q: (forall x. P(x) -> (R(x) and " + and + ")) -> (P(a) -> R(a)). proof:\n"
+                    + "assume forall x. P(x) -> (R(x) and " + and + "). assume P(a). therefore R(a) by inst from 1, 2. qed.\n",
+            "theorem E: (" + chain("f(x%d) = y", " and ", length) + ") -> f(x3) = f(x4). proof: assume "
+                    + chain("f(x%d) = y", " and ", length) + ". therefore f(x3) = f(x4). qed.\n",
+            "theorem N: (" + bounds + ") -> lt(x, 0). proof: assume " + bounds + ". therefore lt(x, 0). qed.\n",
+            "theorem S: A = " + union + ". proof: therefore A = " + union + ". qed.\n",
+            "theorem O: (" + or + ") -> r. proof: assume " + or + ". therefore r. qed.\n"
+        };
+    }
+
+    /** Terms joined by an operator, the format filled in with 0 to 49 over and over. */
+    private static String chain(String format, String operator, int length) {
+        StringBuilder chain = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            chain.append(i > 0 ? operator : "").append(String.format(format, i % 50));
+        }
+        return chain.toString();
+    }
+
+    private static List<String> names(List<TheoremDecl> theorems) {
+        List<String> names = new ArrayList<>();
+        for (TheoremDecl theorem : theorems) {
+            names.add(theorem.getName());
+        }
+        return names;
+    }
+
+    private static List<Formula> formulas(String... sources) {
+        List<Formula> formulas = new ArrayList<>();
+        for (String source : sources) {
+            formulas.add(formula(source));
+        }
+        return formulas;
+    }
+
+    private static Formula formula(String source) {
+        return new RecursiveDescentParser(TokenBuffer.tokenize(source)).parseFormula(0);
+    }
+
+    private static Program parse(String source) {
+        return new RecursiveDescentParser(TokenBuffer.tokenize(source)).parse();
+    }
+
+    private static List<ProofChecker.TheoremResult> check(String source) {
+        Program program = parse(source);
+        return new ProofChecker().check(program);
+    }
+
+    private static void expect(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -4,43 +4,92 @@ import java.io.*;
 import java.nio.file.*;
 import javax.tools.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java_cup.runtime.ComplexSymbolFactory;
 
-import parser.LepaLexer;
+import parser.ByteSource;
 import parser.LepaParser;
+import parser.ParallelParser;
+import parser.RecursiveDescentParser;
+import parser.SyntaxError;
+import parser.TheoremStream;
+import parser.TokenBuffer;
+import parser.TokenListener;
+import ast.BooleanLiteral;
 import ast.Program;
-import java_cup.runtime.Symbol;
+import ast.TheoremDecl;
+import checker.CertificateStore;
+import checker.IncrementalChecker;
+import checker.PremiseSelector;
+import checker.ProofChecker;
+import checker.TheoremLibrary;
 //
 public class LepaMain {
+    // Theorems the parser may read ahead of the checker with -Dlepa.stream=true
+    private static final int STREAM_QUEUE_CAPACITY = 64;
+    // Theorems checked by one ProofChecker before streaming starts a new one
+    private static final int STREAM_CHECKER_THEOREMS = 10_000;
+
+    // Holds the theorems proven so far and cached results for re-checking in this process
+    private static IncrementalChecker checker = new IncrementalChecker();
+    
     public static void main(String[] args) {
         if (args.length == 0) {
             System.out.println("Usage: java LepaMain <source-file>");
             return;
         }
         File file = new File(args[0]);
-        try (Reader reader = new BufferedReader(new FileReader(file))) {
+        try {
             System.out.println("Parsing LEPA source file: " + file.getName());
+            if (Boolean.getBoolean("lepa.stream")) {
+                streamProofs(ByteSource.map(file.toPath()), LepaMain::reportProblems);
+                return;
+            }
             
-            // Check if we need special handling for known problematic patterns
+            // Tokenize the mapped file in place, then parse from the token arrays so
+            // syntax errors can be reported by line and column
+            TokenBuffer tokens = TokenBuffer.tokenize(ByteSource.map(file.toPath()));
+            if (Boolean.getBoolean("lepa.traceTokens")) {
+                for (int i = 0; i < tokens.size(); i++) {
+                    TokenListener.TRACE.tokenScanned(tokens.kind(i), tokens.value(i));
+                }
+            }
+            // Each parser goes on past syntax errors, so one run reports them all; the
+            // theorems with errors are left out and the rest are still checked
             Program program;
-            if (LepaPatternHandler.shouldUseSpecialHandler(file.getName())) {
-                program = LepaPatternHandler.createASTForSpecialPattern(file.getName());
-                System.out.println("Parsing completed successfully with pattern handler.");
+            List<SyntaxError> syntaxErrors;
+            if ("cup".equals(System.getProperty("lepa.parser"))) {
+                LepaParser parser = new LepaParser(tokens.replay(), new ComplexSymbolFactory());
+                parser.setPositions(tokens);
+                parser.parse();
+                program = parser.getProgram();
+                syntaxErrors = parser.getErrors();
+            } else if ("parallel".equals(System.getProperty("lepa.parser"))) {
+                ParallelParser parser = new ParallelParser();
+                program = parser.parse(tokens);
+                syntaxErrors = parser.getErrors();
             } else {
-                // Use normal parser for other files
-                LepaLexer lexer = new LepaLexer(reader);
-                LepaParser parser = new LepaParser(lexer);
-                // Comment out debug mode and use regular parse
-                // parser.debug_parse();
-                Symbol result = parser.parse();
-                
-                if (result == null || result.value == null) {
-                    throw new RuntimeException("Parser returned null result");
+                syntaxErrors = new ArrayList<>();
+                program = new RecursiveDescentParser(tokens).parse(syntaxErrors);
+            }
+            if (!syntaxErrors.isEmpty()) {
+                for (SyntaxError error : syntaxErrors) {
+                    System.err.println(error.getMessage());
+                }
+                System.err.println(syntaxErrors.size() + " syntax errors; the theorems containing them are skipped");
+                if (program.getTheorems().isEmpty()) {
+                    return;
                 }
-                
-                program = (Program) result.value;
+            } else {
                 System.out.println("Parsing completed successfully.");
             }
             
+            // Check each proof step in-process before generating code
+            checkProofs(program);
+            
             // Step 2: Generate Java code
             String javaCode = program.generateJavaCode();
             String outputFilename = getOutputFilename(file.getName());
@@ -64,13 +113,118 @@ public class LepaMain {
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
+        }
+    }
+    
+    /**
+     * Checks every proof step against the facts available to it, and reports steps that do
+     * not follow, biconditional steps whose sides differ and 'therefore' lines that do not
+     * establish the goal. Problems are reported but do not stop compilation.
+     */
+    private static void checkProofs(Program program) throws IOException {
+        // With -Dlepa.certificates, theorems verified by an earlier run are skipped if their
+        // certificates still apply
+        String certificates = System.getProperty("lepa.certificates");
+        if (certificates != null) {
+            String file = certificates.isEmpty() ? CertificateStore.DEFAULT_FILE : certificates;
+            checker.setCertificateStore(new CertificateStore(Paths.get(file)));
+        }
+        // With -Dlepa.parallelSteps, the steps of a theorem are decided on the common pool
+        if (Boolean.getBoolean("lepa.parallelSteps")) {
+            checker.setStepPool(ForkJoinPool.commonPool());
+        }
+        for (ProofChecker.TheoremResult result : checker.check(program)) {
+            reportProblems(result);
+        }
+        if (checker.getTheoremsCertified() > 0) {
+            System.out.println("Skipped " + checker.getTheoremsCertified() + " theorems with valid certificates");
+        }
+    }
+    
+    private static void reportProblems(ProofChecker.TheoremResult result) {
+        String name = result.getTheorem().getName();
+        for (String problem : result.getProblems()) {
+            System.err.println("Warning in theorem " + name + ": " + problem);
+        }
+        if (Boolean.getBoolean("lepa.verbose") && result.getPrunedFacts() > 0) {
+            System.out.println("Premise selection pruned " + result.getPrunedFacts() + " facts in theorem " + name);
+        }
+    }
 
-            System.err.println("\nSuggestions for fixing LEPA syntax errors:");
-            System.err.println("1. Make sure periods are placed correctly after statements");
-            System.err.println("2. Check if 'proof:' is followed by valid proof steps");
-            System.err.println("3. Ensure 'qed.' appears at the end of the proof");
-            System.err.println("4. For justifications, use 'by identifier' format");
-            System.err.println("5. Example of correct syntax: theorem T: true. proof: true by trivial. qed.");
+    /**
+     * Parses and checks a source one theorem at a time, without building a Program. A parser
+     * thread hands each theorem to the checker through a bounded queue, so it cannot run far
+     * ahead. Of a checked theorem only the statement is kept, so premise selection sees the
+     * same facts as when the whole program is checked. No Java code is generated in this mode.
+     *
+     * @param results Told the result of each theorem as it is checked.
+     */
+    static void streamProofs(CharSequence source, Consumer<ProofChecker.TheoremResult> results)
+            throws InterruptedException {
+        BlockingQueue<TheoremDecl> queue = new ArrayBlockingQueue<>(STREAM_QUEUE_CAPACITY);
+        // Marks the end of the source; compared by identity
+        TheoremDecl end = new TheoremDecl("", new BooleanLiteral(true));
+        AtomicInteger syntaxErrors = new AtomicInteger();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        TheoremStream stream = new TheoremStream(source);
+        Thread parserThread = new Thread(() -> {
+            try {
+                while (true) {
+                    TheoremDecl theorem;
+                    try {
+                        theorem = stream.next();
+                    } catch (SyntaxError e) {
+                        System.err.println(e.getMessage());
+                        syntaxErrors.incrementAndGet();
+                        continue;
+                    }
+                    if (theorem == null) {
+                        break;
+                    }
+                    queue.put(theorem);
+                }
+            } catch (InterruptedException e) {
+                // The checker has stopped taking theorems
+            } catch (Throwable e) {
+                // Even a StackOverflowError from deep nesting; reported once checking is done
+                failure.set(e);
+            } finally {
+                // End the queue whatever stopped the parser, so the checker does not wait forever
+                try {
+                    queue.put(end);
+                } catch (InterruptedException e) {
+                    // The checker has stopped taking theorems
+                }
+            }
+        }, "lepa-parse");
+        parserThread.setDaemon(true);
+        parserThread.start();
+
+        TheoremLibrary library = new TheoremLibrary();
+        ProofChecker streamChecker = null;
+        int checked = 0;
+        int verified = 0;
+        TheoremDecl theorem;
+        while ((theorem = queue.take()) != end) {
+            // A fresh checker now and then lets go of the BDD variables of the theorems
+            // already checked; the library carries over
+            if (checked % STREAM_CHECKER_THEOREMS == 0) {
+                streamChecker = new ProofChecker(library, new PremiseSelector());
+                streamChecker.setKeepProofs(false);
+                streamChecker.setStepPool(ForkJoinPool.commonPool());
+            }
+            ProofChecker.TheoremResult result = streamChecker.check(theorem);
+            checked++;
+            if (result.isVerified()) {
+                verified++;
+            }
+            results.accept(result);
+        }
+        System.out.println("Checked " + checked + " theorems: " + verified + " verified, "
+                + syntaxErrors.get() + " skipped with syntax errors");
+        if (failure.get() != null) {
+            System.err.println("Error: parsing stopped in the theorem ending at offset " + stream.getOffset() + " ("
+                    + failure.get() + "); the theorems after it were not checked");
         }
     }
     
@@ -0,0 +1,109 @@
+// No package needed
+
+import java.io.*;
+import java.util.*;
+
+import parser.RecursiveDescentParser;
+import parser.SymbolTable;
+import parser.TokenBuffer;
+import parser.sym;
+import ast.ProofStep;
+import ast.TheoremDecl;
+import checker.ProofChecker;
+import checker.ProofSession;
+
+/**
+ * Interactive front end: theorems and proof steps are entered one line at a time and each
+ * line is checked as soon as it is entered. The lexer, parser, checker and theorem library
+ * stay loaded between lines, so a step is answered in milliseconds.
+ *
+ * Lines are either 'theorem NAME: FORMULA.', a proof step, 'qed.', ':undo' or ':quit'.
+ */
+public class LepaRepl {
+    private ProofSession session = new ProofSession();
+    private SymbolTable identifiers = new SymbolTable();
+
+    public static void main(String[] args) throws IOException {
+        LepaRepl repl = new LepaRepl();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+        System.out.println("LEPA interactive prover. Commands: :undo, :quit");
+        prompt(repl);
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.equals(":quit")) {
+                break;
+            }
+            if (!line.isEmpty()) {
+                System.out.println(repl.handle(line));
+            }
+            prompt(repl);
+        }
+    }
+
+    private static void prompt(LepaRepl repl) {
+        ProofSession.State state = repl.session.getState();
+        if (state.getTheorem() == null) {
+            System.out.print("lepa> ");
+        } else {
+            System.out.print(state.getTheorem() + " " + (state.getStepCount() + 1) + "> ");
+        }
+        System.out.flush();
+    }
+
+    /**
+     * Handles one line of input and returns the reply to print.
+     */
+    String handle(String line) {
+        long start = System.nanoTime();
+        String reply;
+        try {
+            reply = dispatch(line);
+        } catch (Exception e) {
+            reply = "Error: " + e.getMessage();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        return reply + " (" + millis + " ms)";
+    }
+
+    private String dispatch(String line) throws Exception {
+        line = line.trim();
+        if (line.equals(":undo")) {
+            return session.undo() ? "Undone" : "Nothing to undo";
+        }
+        if (!line.endsWith(".")) {
+            line = line + ".";
+        }
+        // Lines are told apart by their first token, so spacing does not matter
+        TokenBuffer tokens = TokenBuffer.tokenize(line, identifiers);
+        if (tokens.kind(0) == sym.THEOREM) {
+            // Parse the statement on its own with a placeholder proof
+            TheoremDecl theorem = parser(line + " proof: true. qed.").parseTheorem();
+            session.startTheorem(theorem.getName(), theorem.getTheorem());
+            return "Proving " + theorem.getName();
+        }
+        if (session.getState().getTheorem() == null) {
+            return "Start a theorem first: theorem NAME: FORMULA.";
+        }
+        if (tokens.kind(0) == sym.QED) {
+            if (tokens.kind(1) != sym.DOT || tokens.kind(2) != sym.EOF) {
+                return "Expected 'qed.' on a line of its own";
+            }
+            String name = session.getState().getTheorem();
+            ProofChecker.TheoremResult result = session.finish();
+            if (result.isVerified()) {
+                return "Theorem " + name + " proven";
+            }
+            return "Theorem " + name + " not proven: " + String.join("; ", result.getProblems());
+        }
+        RecursiveDescentParser stepParser = new RecursiveDescentParser(tokens);
+        ProofStep step = stepParser.parseStep();
+        stepParser.expectEnd();
+        ProofChecker.StepResult result = session.addStep(step);
+        return result.isVerified() ? "ok" : result.getMessage();
+    }
+
+    private RecursiveDescentParser parser(String text) {
+        return new RecursiveDescentParser(TokenBuffer.tokenize(text, identifiers));
+    }
+}
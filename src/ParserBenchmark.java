@@ -0,0 +1,54 @@
+import java.nio.file.Paths;
+
+import java_cup.runtime.ComplexSymbolFactory;
+
+import ast.Program;
+import parser.ByteSource;
+import parser.LepaParser;
+import parser.ParallelParser;
+import parser.RecursiveDescentParser;
+import parser.TokenBuffer;
+
+/**
+ * Times the CUP parser against the hand-written RecursiveDescentParser on the same tokens,
+ * and the hand-written parser run over theorem blocks in parallel by ParallelParser.
+ * Without a file argument it parses a generated program of 20,000 theorems.
+ */
+public class ParserBenchmark {
+    public static void main(String[] args) throws Exception {
+        CharSequence source = args.length > 0 ? ByteSource.map(Paths.get(args[0])) : generate(20_000);
+        TokenBuffer tokens = TokenBuffer.tokenize(source);
+        System.out.println("Tokens: " + tokens.size());
+
+        for (int round = 1; round <= 5; round++) {
+            long start = System.nanoTime();
+            Program cup = (Program) new LepaParser(tokens.replay(), new ComplexSymbolFactory()).parse().value;
+            long cupNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Program handWritten = new RecursiveDescentParser(tokens).parse();
+            long handWrittenNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Program parallel = new ParallelParser().parse(tokens);
+            long parallelNanos = System.nanoTime() - start;
+
+            System.out.printf("Round %d: CUP %d ms, recursive descent %d ms, parallel %d ms (%d, %d, %d theorems)%n",
+                    round, cupNanos / 1_000_000, handWrittenNanos / 1_000_000, parallelNanos / 1_000_000,
+                    cup.getTheorems().size(), handWritten.getTheorems().size(), parallel.getTheorems().size());
+        }
+    }
+
+    private static String generate(int theorems) {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < theorems; i++) {
+            source.append("theorem T").append(i).append(": forall x. P(x) and Q(x) -> P(x).\n")
+                  .append("proof:\n")
+                  .append("  assume P(a) and Q(a).\n")
+                  .append("  P(a) by and_elim from 1.\n")
+                  .append("  therefore P(a) and Q(a) -> P(a) by impl_intro from 1, 2.\n")
+                  .append("qed.\n");
+        }
+        return source.toString();
+    }
+}
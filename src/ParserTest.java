@@ -0,0 +1,386 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import java_cup.runtime.ComplexSymbolFactory;
+
+import ast.Program;
+import ast.TheoremDecl;
+import parser.ByteSource;
+import parser.IncrementalParser;
+import parser.LepaParser;
+import parser.ParallelParser;
+import parser.RecursiveDescentParser;
+import parser.SymbolTable;
+import parser.SyntaxError;
+import parser.TheoremStream;
+import parser.TokenBuffer;
+
+/**
+ * Checks the hand-written parsers against the CUP parser and against each other: the same
+ * trees for the same source, the same errors for broken sources, and incremental edits
+ * that end where a fresh parse would. Run with "java ParserTest" from the repository root;
+ * the exit status is 1 if any check fails.
+ */
+public class ParserTest {
+    private static int failures;
+
+    // A theorem missing its formula, a step missing its rule name, an unfinished goal,
+    // a proof missing 'qed' and an unfinished equality
+    private static final String BROKEN =
+            "theorem A: P -> P.\nproof:\n  assume P.\n  P and .\n  Q by.\n  therefore P -> P.\nqed.\n"
+            + "theorem B: true.\nproof:\n  true by trivial.\nqed.\n"
+            + "theorem C: true and .\nproof:\n  true.\nqed.\n"
+            + "theorem D: true.\nproof:\n  true.\n"
+            + "theorem E: true.\nproof:\n  x = .\n  true by trivial.\nqed.\n"
+            + "theorem F: true.\nproof:\n  true by trivial.\nqed.\n";
+
+    private static final int[][] BROKEN_POSITIONS = {{4, 9}, {5, 7}, {12, 21}, {19, 1}, {21, 7}};
+
+    public static void main(String[] args) throws IOException {
+        cupMatchesRecursiveDescent();
+        everyParserRecoversAlike();
+        parallelMatchesSequential();
+        incrementalMatchesFreshParse();
+        theoremStreamSkipsBrokenBlocks();
+        numberTooLargeIsASyntaxError();
+        quantifiersBindOnlyNames();
+        failedEditChangesNothing();
+
+        if (failures > 0) {
+            System.out.println(failures + " checks failed");
+            System.exit(1);
+        }
+        System.out.println("All checks passed");
+    }
+
+    /** Both parsers build the same tree for the samples and for random programs. */
+    private static void cupMatchesRecursiveDescent() throws IOException {
+        File[] samples = new File("sample_lepa").listFiles((dir, name) -> name.endsWith(".lepa"));
+        expect("sample_lepa has samples", samples != null && samples.length > 0);
+        for (File sample : samples == null ? new File[0] : samples) {
+            String source = ByteSource.map(sample.toPath()).toString();
+            expect("CUP and recursive descent agree on " + sample.getName(),
+                    cup(source, new ArrayList<>()).toString().equals(recursiveDescent(source, new ArrayList<>()).toString()));
+        }
+
+        Random random = new Random(7);
+        int differ = 0;
+        for (int i = 0; i < 2_000; i++) {
+            String source = randomProgram(random);
+            List<SyntaxError> cupErrors = new ArrayList<>();
+            List<SyntaxError> errors = new ArrayList<>();
+            Program cup = cup(source, cupErrors);
+            Program handWritten = recursiveDescent(source, errors);
+            if (cupErrors.isEmpty() != errors.isEmpty() || errors.isEmpty() && !cup.toString().equals(handWritten.toString())) {
+                differ++;
+            }
+        }
+        expect("CUP and recursive descent agree on 2000 random programs", differ == 0);
+    }
+
+    /** All three parsers report each error at the same line and column and keep the rest. */
+    private static void everyParserRecoversAlike() {
+        List<SyntaxError> errors = new ArrayList<>();
+        Program program = recursiveDescent(BROKEN, errors);
+        expect("recursive descent reports every error", positionsOf(errors).equals(positionsOf(BROKEN_POSITIONS)));
+        expect("recursive descent keeps B and F", names(program).equals("[B, F]"));
+
+        List<SyntaxError> cupErrors = new ArrayList<>();
+        Program cup = cup(BROKEN, cupErrors);
+        expect("CUP reports every error", positionsOf(cupErrors).equals(positionsOf(BROKEN_POSITIONS)));
+        expect("CUP keeps B and F", names(cup).equals("[B, F]"));
+
+        ParallelParser parallel = new ParallelParser();
+        Program parallelProgram = parallel.parse(TokenBuffer.tokenize(BROKEN));
+        expect("the parallel parser reports every error", positionsOf(parallel.getErrors()).equals(positionsOf(BROKEN_POSITIONS)));
+        expect("the parallel parser keeps B and F", names(parallelProgram).equals("[B, F]"));
+    }
+
+    /** Splitting a program over the common pool gives the sequential tree. */
+    private static void parallelMatchesSequential() {
+        Random random = new Random(11);
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            source.append(randomProgram(random).replace("theorem T", "theorem T" + i + "_"));
+        }
+        TokenBuffer tokens = TokenBuffer.tokenize(source);
+        List<SyntaxError> errors = new ArrayList<>();
+        Program sequential = new RecursiveDescentParser(tokens).parse(errors);
+        ParallelParser parallel = new ParallelParser();
+        Program program = parallel.parse(tokens);
+        expect("the parallel parser builds the sequential tree", program.toString().equals(sequential.toString()));
+        expect("the parallel parser reports the sequential errors",
+                positionsOf(parallel.getErrors()).equals(positionsOf(errors)));
+    }
+
+    /** Random edits leave the same blocks as parsing the edited text afresh. */
+    private static void incrementalMatchesFreshParse() {
+        Random random = new Random(3);
+        String current = BROKEN;
+        IncrementalParser parser = new IncrementalParser();
+        parser.parse(current);
+        String[] insertions = {"", "x", ".", "//", "\n", "theorem ", "qed.", " and "};
+        int differ = 0;
+        for (int i = 0; i < 1_000; i++) {
+            int start = random.nextInt(current.length() + 1);
+            int end = Math.min(current.length(), start + random.nextInt(12));
+            String replacement = insertions[random.nextInt(insertions.length)];
+            parser.edit(start, end, replacement);
+            current = current.substring(0, start) + replacement + current.substring(end);
+            IncrementalParser fresh = new IncrementalParser();
+            fresh.parse(current);
+            if (!blocks(parser).equals(blocks(fresh))) {
+                differ++;
+            }
+        }
+        expect("1000 random edits match a fresh parse", differ == 0);
+        expect("the edited text is kept", parser.getText().toString().equals(current));
+
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            source.append("theorem t").append(i).append(": p -> p. proof: assume p. therefore p. qed.\n");
+        }
+        parser = new IncrementalParser();
+        parser.parse(source);
+        List<IncrementalParser.Block> before = parser.getBlocks();
+        int parsed = parser.getBlocksParsed();
+        int at = source.indexOf("theorem t50") + "theorem t50: p".length();
+        parser.edit(at, at, " and q");
+        List<IncrementalParser.Block> after = parser.getBlocks();
+        int kept = 0;
+        for (int i = 0; i < after.size(); i++) {
+            if (after.get(i).getTheorem() == before.get(i).getTheorem()) {
+                kept++;
+            }
+        }
+        expect("an edit inside one theorem parses only that block", parser.getBlocksParsed() - parsed == 1);
+        expect("the other theorems are kept by reference", kept == after.size() - 1);
+    }
+
+    /** A block that fails to parse is reported, and reading goes on after it. */
+    private static void theoremStreamSkipsBrokenBlocks() {
+        TheoremStream stream = new TheoremStream(BROKEN);
+        List<String> names = new ArrayList<>();
+        int errors = 0;
+        while (true) {
+            try {
+                TheoremDecl theorem = stream.next();
+                if (theorem == null) {
+                    break;
+                }
+                names.add(theorem.getName());
+            } catch (SyntaxError e) {
+                errors++;
+            }
+        }
+        expect("the stream reads B and F", names.toString().equals("[B, F]"));
+        expect("the stream reports A, C, D and E", errors == 4);
+    }
+
+    /** A quantifier over a term that is not a name is an error in both parsers, not dropped. */
+    private static void quantifiersBindOnlyNames() {
+        String source = "theorem F: forall f(x). P.\nproof:\n  true.\nqed.\n"
+                + "theorem N: exists 1. P.\nproof:\n  true.\nqed.\n"
+                + "theorem B: forall x, y. P(x, y) -> P(x, y).\nproof:\n  true.\nqed.\n";
+        List<SyntaxError> errors = new ArrayList<>();
+        Program program = recursiveDescent(source, errors);
+        expect("recursive descent reports f(x) and 1", positionsOf(errors).equals("1:20 5:19 ")
+                && errors.get(1).getDetail().contains("expected a variable name"));
+        expect("recursive descent keeps B", names(program).equals("[B]"));
+
+        List<SyntaxError> cupErrors = new ArrayList<>();
+        Program cup = cup(source, cupErrors);
+        expect("CUP reports f(x) and 1 at the same places", positionsOf(cupErrors).equals(positionsOf(errors)));
+        expect("CUP keeps B", names(cup).equals("[B]"));
+    }
+
+    /** A literal past Integer.MAX_VALUE is reported where it is, not thrown. */
+    private static void numberTooLargeIsASyntaxError() {
+        String source = "theorem N: x = 99999999999.\nproof:\n  true.\nqed.\n" + "theorem B: true.\nproof:\n  true by trivial.\nqed.\n";
+        List<SyntaxError> errors = new ArrayList<>();
+        Program program = recursiveDescent(source, errors);
+        expect("recursive descent reports the literal at 1:16", positionsOf(errors).equals("1:16 ")
+                && errors.get(0).getDetail().contains("99999999999, which is too large"));
+        expect("recursive descent keeps B", names(program).equals("[B]"));
+
+        IncrementalParser parser = new IncrementalParser();
+        parser.parse("theorem B: true.\nproof:\n  true by trivial.\nqed.\n");
+        int at = "theorem B: true".length();
+        parser.edit(at, at, " and x = 99999999999");
+        IncrementalParser.Block block = parser.getBlocks().get(0);
+        expect("an edit adding the literal leaves a block with a syntax error",
+                block.getTheorem() == null && block.getError() != null);
+        parser.edit(at, at + " and x = 99999999999".length(), "");
+        expect("removing it parses B again", names(parser.getProgram()).equals("[B]"));
+    }
+
+    /** An edit whose parse throws leaves the text and the blocks as they were. */
+    private static void failedEditChangesNothing() {
+        SymbolTable failing = new SymbolTable() {
+            @Override
+            public int id(CharSequence input, int start, int length) {
+                if (input.subSequence(start, start + length).toString().equals("boom")) {
+                    throw new IllegalStateException("boom");
+                }
+                return super.id(input, start, length);
+            }
+        };
+        IncrementalParser parser = new IncrementalParser(failing);
+        parser.parse(BROKEN);
+        String before = blocks(parser);
+        int at = BROKEN.indexOf("theorem B: true") + "theorem B: true".length();
+        boolean thrown = false;
+        try {
+            parser.edit(at, at, " and boom");
+        } catch (IllegalStateException e) {
+            thrown = true;
+        }
+        expect("the failing edit throws", thrown);
+        expect("the text is unchanged", parser.getText().toString().equals(BROKEN));
+        expect("the blocks are unchanged", blocks(parser).equals(before));
+
+        parser.edit(at, at, " and q");
+        IncrementalParser fresh = new IncrementalParser();
+        fresh.parse(BROKEN.substring(0, at) + " and q" + BROKEN.substring(at));
+        expect("the next edit matches a fresh parse", blocks(parser).equals(blocks(fresh)));
+    }
+
+    private static Program recursiveDescent(String source, List<SyntaxError> errors) {
+        return new RecursiveDescentParser(TokenBuffer.tokenize(source)).parse(errors);
+    }
+
+    private static Program cup(String source, List<SyntaxError> errors) {
+        TokenBuffer tokens = TokenBuffer.tokenize(source);
+        LepaParser parser = new LepaParser(tokens.replay(), new ComplexSymbolFactory());
+        parser.setPositions(tokens);
+        try {
+            parser.parse();
+        } catch (Exception e) {
+            errors.add(new SyntaxError(String.valueOf(e.getMessage()), 0, 0, 0));
+        }
+        errors.addAll(parser.getErrors());
+        return parser.getProgram();
+    }
+
+    private static String positionsOf(List<SyntaxError> errors) {
+        StringBuilder positions = new StringBuilder();
+        for (SyntaxError error : errors) {
+            positions.append(error.getLine()).append(':').append(error.getColumn()).append(' ');
+        }
+        return positions.toString();
+    }
+
+    private static String positionsOf(int[][] expected) {
+        StringBuilder positions = new StringBuilder();
+        for (int[] position : expected) {
+            positions.append(position[0]).append(':').append(position[1]).append(' ');
+        }
+        return positions.toString();
+    }
+
+    private static String names(Program program) {
+        List<String> names = new ArrayList<>();
+        for (TheoremDecl theorem : program.getTheorems()) {
+            names.add(theorem.getName());
+        }
+        return names.toString();
+    }
+
+    private static String blocks(IncrementalParser parser) {
+        StringBuilder blocks = new StringBuilder();
+        for (IncrementalParser.Block block : parser.getBlocks()) {
+            blocks.append(block.getStart()).append('-').append(block.getEnd()).append(':');
+            if (block.getTheorem() != null) {
+                blocks.append(block.getTheorem());
+            } else if (block.getError() != null) {
+                blocks.append("error at ").append(block.getError().getOffset());
+            }
+            blocks.append(' ');
+        }
+        return blocks.toString();
+    }
+
+    private static String randomProgram(Random random) {
+        StringBuilder source = new StringBuilder();
+        int theorems = 1 + random.nextInt(2);
+        for (int t = 0; t < theorems; t++) {
+            source.append("theorem T").append(t).append(": ").append(randomFormula(random, 0)).append(". proof: ");
+            int steps = 1 + random.nextInt(3);
+            for (int s = 0; s < steps; s++) {
+                source.append(randomStep(random)).append(' ');
+            }
+            source.append("qed.\n");
+        }
+        return source.toString();
+    }
+
+    private static String randomStep(Random random) {
+        switch (random.nextInt(5)) {
+            case 0:
+                return "assume " + randomFormula(random, 0) + ".";
+            case 1:
+                return "therefore " + randomFormula(random, 0) + " by mp from 1, 2.";
+            case 2:
+                return "h: " + randomFormula(random, 0) + " by x.";
+            case 3:
+                return "end.";
+            default:
+                return randomFormula(random, 0) + ".";
+        }
+    }
+
+    private static String randomFormula(Random random, int depth) {
+        switch (random.nextInt(depth > 3 ? 5 : 11)) {
+            case 0:
+                return "p";
+            case 1:
+                return "true";
+            case 2:
+                return "false";
+            case 3:
+                return "P(x, y)";
+            case 4:
+                String[] relations = {" = ", " != ", " in ", " notin ", " subset "};
+                return randomTerm(random, depth) + relations[random.nextInt(relations.length)] + randomTerm(random, depth);
+            case 5:
+                return "not " + randomFormula(random, depth + 1);
+            case 6:
+                return "(" + randomFormula(random, depth + 1) + ")";
+            case 7:
+                return "forall x, y. " + randomFormula(random, depth + 1);
+            case 8:
+                return "exists z. " + randomFormula(random, depth + 1);
+            default:
+                String[] connectives = {" and ", " or ", " -> ", " <-> "};
+                return randomFormula(random, depth + 1) + connectives[random.nextInt(connectives.length)]
+                        + randomFormula(random, depth + 1);
+        }
+    }
+
+    private static String randomTerm(Random random, int depth) {
+        switch (random.nextInt(depth > 2 ? 3 : 6)) {
+            case 0:
+                return "x" + random.nextInt(3);
+            case 1:
+                return Integer.toString(random.nextInt(9));
+            case 2:
+                return "f(x, " + randomTerm(random, depth + 1) + ")";
+            case 3:
+                return "{" + randomTerm(random, depth + 1) + ", y}";
+            case 4:
+                return randomTerm(random, depth + 1) + " union " + randomTerm(random, depth + 1);
+            default:
+                return randomTerm(random, depth + 1) + (random.nextBoolean() ? " intersect " : " \\ ") + randomTerm(random, depth + 1);
+        }
+    }
+
+    private static void expect(String name, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + name);
+        if (!passed) {
+            failures++;
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package ast;
 
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * Represents a binary operation between two formulas in LEPA.
  */
@@ -13,7 +16,10 @@ public class BinaryOperation extends Formula {
         NEQ("!="),
         IN("contains"), // Special handling required
         NOTIN("!contains"), // Special handling required
-        SUBSET("isSubsetOf"); // Special handling required
+        SUBSET("isSubsetOf"), // Special handling required
+        UNION("union"), // Special handling required
+        INTERSECT("intersection"), // Special handling required
+        SETDIFF("difference"); // Special handling required
         
         private final String javaOperator;
         
@@ -49,30 +55,12 @@ public class BinaryOperation extends Formula {
     }
     
     @Override
-    public String generateJavaCode() {
-        switch (operator) {
-            case IMPLIES:
-                // A -> B is equivalent to !A || B
-                return "(!" + left.generateJavaCode() + " || " + right.generateJavaCode() + ")";
-            case IFF:
-                // A <-> B is equivalent to A == B
-                return "(" + left.generateJavaCode() + " == " + right.generateJavaCode() + ")";
-            case IN:
-                // Special handling for set containment
-                return "LepaRuntime.contains(" + right.generateJavaCode() + ", " + left.generateJavaCode() + ")";
-            case NOTIN:
-                // Special handling for set non-containment
-                return "!LepaRuntime.contains(" + right.generateJavaCode() + ", " + left.generateJavaCode() + ")";
-            case SUBSET:
-                // Special handling for subset relationship
-                return "LepaRuntime.isSubset(" + left.generateJavaCode() + ", " + right.generateJavaCode() + ")";
-            default:
-                return "(" + left.generateJavaCode() + " " + operator.getJavaOperator() + " " + right.generateJavaCode() + ")";
-        }
+    public List<Formula> getChildren() {
+        return Arrays.asList(left, right);
     }
-    
+
     @Override
-    public String toString() {
-        return "BinaryOperation[" + left + " " + operator + " " + right + "]";
+    <R> R visit(FormulaVisitor<R> visitor, List<R> children) {
+        return visitor.visitBinaryOperation(this, children.get(0), children.get(1));
     }
 }
@@ -1,5 +1,8 @@
 package ast;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Represents a boolean literal (true/false) in LEPA.
  */
@@ -15,12 +18,12 @@ public class BooleanLiteral extends Formula {
     }
     
     @Override
-    public String generateJavaCode() {
-        return String.valueOf(value);
+    public List<Formula> getChildren() {
+        return Collections.emptyList();
     }
-    
+
     @Override
-    public String toString() {
-        return "BooleanLiteral[" + value + "]"; 
+    <R> R visit(FormulaVisitor<R> visitor, List<R> children) {
+        return visitor.visitBooleanLiteral(this);
     }
 }
@@ -1,7 +1,85 @@
 package ast;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
 /**
  * Base class for all formula types in LEPA.
+ *
+ * Code generation and printing are done by {@link FormulaVisitor}s through
+ * {@link #accept(FormulaVisitor)}, which keeps its own stack, so a formula nested to any
+ * depth can be handled on the default thread stack.
  */
 public abstract class Formula extends ASTNode {
+
+    /**
+     * The formulas and terms this one is built from, in source order.
+     */
+    public abstract List<Formula> getChildren();
+
+    /**
+     * Calls the visitor's method for this kind of formula.
+     *
+     * @param children The visitor's values for {@link #getChildren()}, in the same order.
+     */
+    abstract <R> R visit(FormulaVisitor<R> visitor, List<R> children);
+
+    /**
+     * Runs a visitor over this formula, children before their parent and left to right,
+     * and returns its value for the whole formula.
+     */
+    public <R> R accept(FormulaVisitor<R> visitor) {
+        Deque<Frame> frames = new ArrayDeque<>();
+        List<R> values = new ArrayList<>();
+        frames.push(new Frame(this, visitor.visitsChildren(this)));
+        while (!frames.isEmpty()) {
+            Frame frame = frames.peek();
+            if (frame.next < frame.children.size()) {
+                Formula child = frame.children.get(frame.next++);
+                frames.push(new Frame(child, visitor.visitsChildren(child)));
+                continue;
+            }
+            frames.pop();
+            // The children's values are the last ones computed
+            int count = frame.formula.getChildren().size();
+            List<R> children;
+            if (frame.children.isEmpty()) {
+                children = Collections.nCopies(count, null);
+            } else {
+                List<R> last = values.subList(values.size() - count, values.size());
+                children = new ArrayList<>(last);
+                last.clear();
+            }
+            values.add(frame.formula.visit(visitor, children));
+        }
+        return values.get(0);
+    }
+
+    @Override
+    public String generateJavaCode() {
+        return accept(new JavaCodeGenerator()).toString();
+    }
+
+    @Override
+    public String toString() {
+        return accept(new FormulaPrinter()).toString();
+    }
+
+    /**
+     * A formula on the stack of {@link #accept(FormulaVisitor)}, with the children still to
+     * visit. Children that are skipped are left out.
+     */
+    private static class Frame {
+        private Formula formula;
+        private List<Formula> children;
+        private int next;
+
+        Frame(Formula formula, boolean visitChildren) {
+            this.formula = formula;
+            this.children = visitChildren ? formula.getChildren() : Collections.emptyList();
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package ast;
+
+import java.util.List;
+
+/**
+ * Prints a formula as a tree of node names, as {@link Formula#toString()} returns it; used
+ * for debugging and as the key of a formula in the checker.
+ */
+public class FormulaPrinter implements FormulaVisitor<Text> {
+
+    @Override
+    public Text visitBinaryOperation(BinaryOperation formula, Text left, Text right) {
+        return Text.of("BinaryOperation[", left, " " + formula.getOperator() + " ", right, "]");
+    }
+
+    @Override
+    public Text visitUnaryOperation(UnaryOperation formula, Text operand) {
+        return Text.of("UnaryOperation[" + formula.getOperator() + " ", operand, "]");
+    }
+
+    @Override
+    public Text visitQuantifier(Quantifier formula, List<Text> variables, Text body) {
+        return Text.of("Quantifier[" + formula.getType() + " ", Text.join(", ", variables), ": ", body, "]");
+    }
+
+    @Override
+    public Text visitFunctionCall(FunctionCall formula, List<Text> arguments) {
+        return Text.of("FunctionCall[" + formula.getFunctionName() + "(", Text.join(", ", arguments), ")]");
+    }
+
+    @Override
+    public Text visitSetLiteral(SetLiteral formula, List<Text> elements) {
+        return Text.of("SetLiteral[{", Text.join(", ", elements), "}]");
+    }
+
+    @Override
+    public Text visitIdentifier(Identifier formula) {
+        return Text.of("Identifier[" + formula.getName() + "]");
+    }
+
+    @Override
+    public Text visitBooleanLiteral(BooleanLiteral formula) {
+        return Text.of("BooleanLiteral[" + formula.getValue() + "]");
+    }
+
+    @Override
+    public Text visitNumberLiteral(NumberLiteral formula) {
+        return Text.of("NumberLiteral[" + formula.getValue() + "]");
+    }
+}
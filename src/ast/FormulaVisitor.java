@@ -0,0 +1,34 @@
+package ast;
+
+import java.util.List;
+
+/**
+ * Computes a value for each node of a formula from the values of its children. Run one
+ * with {@link Formula#accept(FormulaVisitor)}; the visitor itself never recurses.
+ */
+public interface FormulaVisitor<R> {
+
+    R visitBinaryOperation(BinaryOperation formula, R left, R right);
+
+    R visitUnaryOperation(UnaryOperation formula, R operand);
+
+    R visitQuantifier(Quantifier formula, List<R> variables, R body);
+
+    R visitFunctionCall(FunctionCall formula, List<R> arguments);
+
+    R visitSetLiteral(SetLiteral formula, List<R> elements);
+
+    R visitIdentifier(Identifier formula);
+
+    R visitBooleanLiteral(BooleanLiteral formula);
+
+    R visitNumberLiteral(NumberLiteral formula);
+
+    /**
+     * Whether to visit a formula's children. When false the formula is treated as a leaf
+     * and its visit method gets null for each child.
+     */
+    default boolean visitsChildren(Formula formula) {
+        return true;
+    }
+}
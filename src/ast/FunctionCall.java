@@ -23,35 +23,12 @@ public class FunctionCall extends Formula {
     }
     
     @Override
-    public String generateJavaCode() {
-        StringBuilder code = new StringBuilder();
-        
-        // For simplicity, we'll just call a function with the same name
-        // In a real implementation, this would need more sophisticated handling
-        code.append("runtime.LepaFunctions.").append(functionName).append("(");
-        
-        for (int i = 0; i < arguments.size(); i++) {
-            if (i > 0) {
-                code.append(", ");
-            }
-            code.append(arguments.get(i).generateJavaCode());
-        }
-        
-        code.append(")");
-        return code.toString();
+    public List<Formula> getChildren() {
+        return arguments;
     }
-    
+
     @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder("FunctionCall[");
-        sb.append(functionName).append("(");
-        for (int i = 0; i < arguments.size(); i++) {
-            if (i > 0) {
-                sb.append(", ");
-            }
-            sb.append(arguments.get(i));
-        }
-        sb.append(")]");
-        return sb.toString();
+    <R> R visit(FormulaVisitor<R> visitor, List<R> children) {
+        return visitor.visitFunctionCall(this, children);
     }
 }
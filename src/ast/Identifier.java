@@ -1,5 +1,8 @@
 package ast;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Represents an identifier (variable name) in LEPA.
  */
@@ -15,14 +18,12 @@ public class Identifier extends Formula {
     }
     
     @Override
-    public String generateJavaCode() {
-        // In the generated Java code, we need to ensure the identifier
-        // is a valid Java identifier
-        return "_" + name;
+    public List<Formula> getChildren() {
+        return Collections.emptyList();
     }
-    
+
     @Override
-    public String toString() {
-        return "Identifier[" + name + "]";
+    <R> R visit(FormulaVisitor<R> visitor, List<R> children) {
+        return visitor.visitIdentifier(this);
     }
 }
@@ -0,0 +1,50 @@
+package ast;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the justification of a proof step in LEPA: "by rule" or "by rule from a, b".
+ * It is only used while parsing; the rule name and citations are stored on the ProofStep.
+ */
+public class Justification {
+    private String rule;
+    private List<String> citations;
+    
+    public Justification(String rule, List<Formula> cited) {
+        this.rule = rule;
+        this.citations = new ArrayList<>();
+        for (Formula term : cited) {
+            citations.add(citationName(term));
+        }
+    }
+    
+    public String getRule() {
+        return rule;
+    }
+    
+    /**
+     * Returns the cited references: step numbers (as written) or theorem names.
+     */
+    public List<String> getCitations() {
+        return citations;
+    }
+    
+    private static String citationName(Formula term) {
+        if (term instanceof Identifier) {
+            return ((Identifier) term).getName();
+        }
+        if (term instanceof NumberLiteral) {
+            return Integer.toString(((NumberLiteral) term).getValue());
+        }
+        return term.toString();
+    }
+    
+    @Override
+    public String toString() {
+        if (citations.isEmpty()) {
+            return rule;
+        }
+        return rule + " FROM " + String.join(", ", citations);
+    }
+}
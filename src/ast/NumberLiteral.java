@@ -1,5 +1,8 @@
 package ast;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Represents a numeric literal in LEPA.
  */
@@ -15,12 +18,12 @@ public class NumberLiteral extends Formula {
     }
     
     @Override
-    public String generateJavaCode() {
-        return Integer.toString(value);
+    public List<Formula> getChildren() {
+        return Collections.emptyList();
     }
-    
+
     @Override
-    public String toString() {
-        return "NumberLiteral[" + value + "]";
+    <R> R visit(FormulaVisitor<R> visitor, List<R> children) {
+        return visitor.visitNumberLiteral(this);
     }
 }
@@ -1,7 +1,11 @@
 package ast;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a complete LEPA program, which consists of a list of theorems.
@@ -21,6 +25,34 @@ public class Program extends ASTNode {
         return theorems;
     }
     
+    /**
+     * Returns, for each theorem, the indices of the earlier theorems its proof cites, either
+     * as a 'by' justification or in a 'from' list. Only earlier theorems count, since a
+     * lemma has to be proven before it is used, so the result is always acyclic.
+     */
+    public List<List<Integer>> getTheoremDependencies() {
+        Map<String, Integer> indices = new HashMap<>();
+        List<List<Integer>> dependencies = new ArrayList<>();
+        for (int i = 0; i < theorems.size(); i++) {
+            Set<Integer> cited = new LinkedHashSet<>();
+            for (ProofStep step : theorems.get(i).getProofSteps()) {
+                List<String> names = new ArrayList<>(step.getCitations());
+                if (step.getJustification() != null) {
+                    names.add(step.getJustification());
+                }
+                for (String name : names) {
+                    Integer index = indices.get(name);
+                    if (index != null) {
+                        cited.add(index);
+                    }
+                }
+            }
+            dependencies.add(new ArrayList<>(cited));
+            indices.put(theorems.get(i).getName(), i);
+        }
+        return dependencies;
+    }
+    
     @Override
     public String generateJavaCode() {
         StringBuilder code = new StringBuilder();
@@ -36,13 +68,29 @@ public class Program extends ASTNode {
         code.append("\tpublic static void main(String[] args) {\n");
         code.append("\t\tSystem.out.println(\"LEPA Program Execution\");\n");
         
-        // Add calls to verify each theorem
-        for (TheoremDecl theorem : theorems) {
-            code.append("\t\tSystem.out.println(\"Verifying theorem: ").append(theorem.getName()).append("\");");
-            code.append("\n");
-            code.append("\t\tboolean result = verify").append(theorem.getName()).append("();\n");
-            code.append("\t\tSystem.out.println(\"Result: \" + result);\n");
+        // Verify the theorems on a pool, each one after the lemmas it cites; results print in order
+        List<List<Integer>> dependencies = getTheoremDependencies();
+        code.append("\t\tString[] theorems = {");
+        for (int i = 0; i < theorems.size(); i++) {
+            code.append(i > 0 ? ", " : " ").append("\"").append(theorems.get(i).getName()).append("\"");
+        }
+        code.append(" };\n");
+        code.append("\t\tint[][] dependencies = {");
+        for (int i = 0; i < theorems.size(); i++) {
+            code.append(i > 0 ? ", " : " ").append("{");
+            List<Integer> cited = dependencies.get(i);
+            for (int j = 0; j < cited.size(); j++) {
+                code.append(j > 0 ? ", " : "").append(cited.get(j));
+            }
+            code.append("}");
+        }
+        code.append(" };\n");
+        code.append("\t\tjava.util.function.BooleanSupplier[] verifiers = {");
+        for (int i = 0; i < theorems.size(); i++) {
+            code.append(i > 0 ? ", " : " ").append("LepaProgram::verify").append(theorems.get(i).getName());
         }
+        code.append(" };\n");
+        code.append("\t\truntime.LepaScheduler.run(theorems, dependencies, verifiers);\n");
         
         code.append("\t}\n\n");
         
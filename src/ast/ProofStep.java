@@ -1,21 +1,54 @@
 package ast;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents a step in a proof in LEPA.
+ *
+ * When a step is added to a {@link TheoremDecl} its position is resolved: its 1-based index,
+ * the assumption block it sits in, and the step each citation refers to, whether cited by
+ * number or by label. An 'end' step closes the innermost open assumption block and has no
+ * formula of its own.
  */
 public class ProofStep extends ASTNode {
+    /** What {@link #getCitedStep(int)} returns for a citation that names a theorem. */
+    public static final int NO_STEP = -1;
+
     private Formula formula;
     private String justification; // Optional, can be null
+    private List<String> citations; // Steps (by number or label) or theorems cited with 'from'
     private boolean isAssumption;
     private boolean isTherefore;
+    private boolean isEnd;
+    private String label; // Optional, can be null
+    // Set when the step is added to a theorem
+    private int index;
+    private int scope;
+    private int[] citedSteps = new int[0];
     
     public ProofStep(Formula formula, String justification, boolean isAssumption, boolean isTherefore) {
+        this(formula, justification, new ArrayList<>(), isAssumption, isTherefore);
+    }
+    
+    public ProofStep(Formula formula, String justification, List<String> citations, boolean isAssumption, boolean isTherefore) {
         this.formula = formula;
         this.justification = justification;
+        this.citations = citations;
         this.isAssumption = isAssumption;
         this.isTherefore = isTherefore;
     }
     
+    /**
+     * Creates an 'end' step, closing the innermost open assumption block.
+     */
+    public static ProofStep end() {
+        ProofStep step = new ProofStep(null, null, false, false);
+        step.isEnd = true;
+        return step;
+    }
+    
+    /** The step's formula; null for an 'end' step. */
     public Formula getFormula() {
         return formula;
     }
@@ -24,6 +57,13 @@ public class ProofStep extends ASTNode {
         return justification;
     }
     
+    /**
+     * Returns the references listed after 'from': 1-based step numbers or theorem names.
+     */
+    public List<String> getCitations() {
+        return citations;
+    }
+    
     public boolean isAssumption() {
         return isAssumption;
     }
@@ -32,11 +72,52 @@ public class ProofStep extends ASTNode {
         return isTherefore;
     }
     
+    public boolean isEnd() {
+        return isEnd;
+    }
+    
+    public String getLabel() {
+        return label;
+    }
+    
+    public void setLabel(String label) {
+        this.label = label;
+    }
+    
+    /** The 1-based index of this step in its theorem. */
+    public int getIndex() {
+        return index;
+    }
+    
+    /**
+     * The index of the assumption whose block this step is in, or 0 at the top level. For
+     * an 'end' step it is the block the step closes, or 0 if no block was open.
+     */
+    public int getScope() {
+        return scope;
+    }
+    
+    /**
+     * The 1-based index of the step the i-th citation refers to, or {@link #NO_STEP} if
+     * it names a theorem. A number is kept as written even if no such step exists.
+     */
+    public int getCitedStep(int i) {
+        return citedSteps[i];
+    }
+    
+    void resolve(int index, int scope, int[] citedSteps) {
+        this.index = index;
+        this.scope = scope;
+        this.citedSteps = citedSteps;
+    }
+    
     @Override
     public String generateJavaCode() {
         StringBuilder code = new StringBuilder();
         
-        if (isAssumption) {
+        if (isEnd) {
+            code.append("// End of the assumption block");
+        } else if (isAssumption) {
             // For assumptions, we don't need to verify them; we just use them
             code.append("// Assuming: ").append(formula.toString()).append("\n");
             // Store the assumption value for later use
@@ -59,6 +140,12 @@ public class ProofStep extends ASTNode {
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("ProofStep[");
+        if (label != null) {
+            sb.append(label).append(": ");
+        }
+        if (isEnd) {
+            return sb.append("END]").toString();
+        }
         if (isAssumption) {
             sb.append("ASSUME ");
         } else if (isTherefore) {
@@ -68,6 +155,9 @@ public class ProofStep extends ASTNode {
         if (justification != null) {
             sb.append(" BY ").append(justification);
         }
+        if (!citations.isEmpty()) {
+            sb.append(" FROM ").append(String.join(", ", citations));
+        }
         sb.append("]");
         return sb.toString();
     }
@@ -17,31 +17,12 @@ public class SetLiteral extends Formula {
     }
     
     @Override
-    public String generateJavaCode() {
-        StringBuilder code = new StringBuilder();
-        code.append("runtime.LepaRuntime.set(");
-        
-        for (int i = 0; i < elements.size(); i++) {
-            if (i > 0) {
-                code.append(", ");
-            }
-            code.append(elements.get(i).generateJavaCode());
-        }
-        
-        code.append(")");
-        return code.toString();
+    public List<Formula> getChildren() {
+        return elements;
     }
-    
+
     @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder("SetLiteral[{");
-        for (int i = 0; i < elements.size(); i++) {
-            if (i > 0) {
-                sb.append(", ");
-            }
-            sb.append(elements.get(i));
-        }
-        sb.append("}]");
-        return sb.toString();
+    <R> R visit(FormulaVisitor<R> visitor, List<R> children) {
+        return visitor.visitSetLiteral(this, children);
     }
 }
@@ -0,0 +1,63 @@
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Generated text made of strings and other Texts, joined only when it is written out.
+ * Visitors that print formulas return Texts, so the text of a deeply nested formula is
+ * built in time linear in its length and written out without recursion.
+ */
+public class Text {
+    // Each part is a String or a Text
+    private Object[] parts;
+
+    private Text(Object[] parts) {
+        this.parts = parts;
+    }
+
+    /**
+     * Joins strings and Texts, in order.
+     */
+    public static Text of(Object... parts) {
+        return new Text(parts);
+    }
+
+    /**
+     * Joins Texts with a separator between each two.
+     */
+    public static Text join(String separator, List<Text> texts) {
+        Object[] parts = new Object[Math.max(0, 2 * texts.size() - 1)];
+        for (int i = 0; i < texts.size(); i++) {
+            if (i > 0) {
+                parts[2 * i - 1] = separator;
+            }
+            parts[2 * i] = texts.get(i);
+        }
+        return new Text(parts);
+    }
+
+    public void appendTo(StringBuilder out) {
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(this);
+        while (!pending.isEmpty()) {
+            Object part = pending.pop();
+            if (part instanceof Text) {
+                Object[] inner = ((Text) part).parts;
+                for (int i = inner.length - 1; i >= 0; i--) {
+                    pending.push(inner[i]);
+                }
+            } else {
+                out.append((String) part);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        appendTo(out);
+        return out.toString();
+    }
+}
@@ -1,16 +1,27 @@
 package ast;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a theorem declaration in LEPA, which includes a name, a formula (the theorem statement),
  * and a list of proof steps.
+ *
+ * The assumption blocks of the proof form a tree: each 'assume' opens a block inside the
+ * one it appears in, and 'end' closes it. Steps are resolved against the tree as they are
+ * added, so finding what a citation refers to, or whether it is still in scope, needs no
+ * search.
  */
 public class TheoremDecl extends ASTNode {
     private String name;
     private Formula theorem;
     private List<ProofStep> proofSteps;
+    private Map<String, Integer> labels = new HashMap<>();
+    private Deque<Integer> openBlocks = new ArrayDeque<>();
     
     public TheoremDecl(String name, Formula theorem) {
         this.name = name;
@@ -26,14 +37,99 @@ public class TheoremDecl extends ASTNode {
         return theorem;
     }
     
+    /**
+     * Appends a step, resolving its index, its block and the steps it cites.
+     */
     public void addProofStep(ProofStep step) {
+        int index = proofSteps.size() + 1;
+        int scope = openBlocks.isEmpty() ? 0 : openBlocks.peek();
+        List<String> citations = step.getCitations();
+        int[] cited = new int[citations.size()];
+        for (int i = 0; i < cited.length; i++) {
+            String citation = citations.get(i);
+            if (!citation.isEmpty() && Character.isDigit(citation.charAt(0))) {
+                cited[i] = Integer.parseInt(citation);
+            } else {
+                cited[i] = labels.getOrDefault(citation, ProofStep.NO_STEP);
+            }
+        }
+        step.resolve(index, scope, cited);
         proofSteps.add(step);
+
+        if (step.getLabel() != null) {
+            labels.put(step.getLabel(), index);
+        }
+        if (step.isAssumption()) {
+            openBlocks.push(index);
+        } else if (step.isEnd() && !openBlocks.isEmpty()) {
+            openBlocks.pop();
+        }
     }
     
     public List<ProofStep> getProofSteps() {
         return proofSteps;
     }
     
+    /** The step with the given 1-based index. */
+    public ProofStep getStep(int index) {
+        return proofSteps.get(index - 1);
+    }
+    
+    /**
+     * The block a step's result belongs to: an assumption belongs to its own block, an
+     * 'end' to the block around the one it closes, and any other step to the block it is in.
+     */
+    private int blockOf(int index) {
+        ProofStep step = getStep(index);
+        if (step.isAssumption()) {
+            return index;
+        }
+        if (step.isEnd() && step.getScope() > 0) {
+            return getStep(step.getScope()).getScope();
+        }
+        return step.getScope();
+    }
+    
+    /**
+     * Whether step cited may be used by step from: it comes earlier and its block is still
+     * open at from, that is, the block is from's own or one around it.
+     */
+    public boolean isVisible(int cited, int from) {
+        if (cited < 1 || cited >= from || from > proofSteps.size()) {
+            return false;
+        }
+        int block = blockOf(cited);
+        int open = getStep(from).getScope();
+        while (open != block && open != 0) {
+            open = getStep(open).getScope();
+        }
+        return open == block;
+    }
+    
+    /**
+     * What a step establishes. For an 'end' step this is the closed block's assumption
+     * implying the block's last result; an 'end' that closes nothing establishes true.
+     */
+    public Formula getConclusion(int index) {
+        // A run of 'end' steps closes nested blocks; the innermost result is found first
+        List<Integer> blocks = new ArrayList<>();
+        Formula last = null;
+        for (int i = index; last == null; i--) {
+            ProofStep step = getStep(i);
+            if (!step.isEnd()) {
+                last = step.getFormula();
+            } else if (step.getScope() == 0) {
+                last = new BooleanLiteral(true);
+            } else {
+                blocks.add(step.getScope());
+            }
+        }
+        for (int i = blocks.size() - 1; i >= 0; i--) {
+            last = new BinaryOperation(getStep(blocks.get(i)).getFormula(), BinaryOperation.Operator.IMPLIES, last);
+        }
+        return last;
+    }
+    
     @Override
     public String generateJavaCode() {
         StringBuilder code = new StringBuilder();
@@ -53,7 +149,7 @@ public class TheoremDecl extends ASTNode {
         
         // The final proof step should establish the theorem
         if (!proofSteps.isEmpty()) {
-            code.append("\t\tresult = ").append(proofSteps.get(proofSteps.size() - 1).getFormula().generateJavaCode()).append(";\n");
+            code.append("\t\tresult = ").append(getConclusion(proofSteps.size()).generateJavaCode()).append(";\n");
         } else {
             // No proof steps, just verify the theorem directly
             code.append("\t\tresult = ").append(theorem.generateJavaCode()).append(";\n");
@@ -1,5 +1,8 @@
 package ast;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Represents a unary operation on a formula in LEPA.
  */
@@ -35,12 +38,12 @@ public class UnaryOperation extends Formula {
     }
     
     @Override
-    public String generateJavaCode() {
-        return operator.getJavaOperator() + "(" + operand.generateJavaCode() + ")";
+    public List<Formula> getChildren() {
+        return Collections.singletonList(operand);
     }
-    
+
     @Override
-    public String toString() {
-        return "UnaryOperation[" + operator + " " + operand + "]";
+    <R> R visit(FormulaVisitor<R> visitor, List<R> children) {
+        return visitor.visitUnaryOperation(this, children.get(0));
     }
 }
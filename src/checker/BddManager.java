@@ -0,0 +1,524 @@
+package checker;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A reduced ordered binary decision diagram (ROBDD) manager.
+ *
+ * Every node is hash-consed through a unique table, so two formulas over the same
+ * variable order are logically equivalent exactly when they reduce to the same node.
+ * The unique table only holds weak references: nodes that are no longer reachable from
+ * any caller (or from the computed table) are reclaimed by the garbage collector and
+ * purged lazily on the next node construction.
+ */
+public class BddManager {
+    /** Level used for the two terminal nodes, which sort below every variable. */
+    private static final int TERMINAL_LEVEL = Integer.MAX_VALUE;
+
+    /** Default number of slots in the ite computed table (must be a power of two). */
+    public static final int DEFAULT_CACHE_SIZE = 1 << 16;
+
+    /**
+     * A BDD node. Nodes are immutable and canonical, so they may be compared with ==.
+     */
+    public static final class Node {
+        private final int level;
+        private final Node low;
+        private final Node high;
+        private final int id;
+
+        private Node(int level, Node low, Node high, int id) {
+            this.level = level;
+            this.low = low;
+            this.high = high;
+            this.id = id;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public Node getLow() {
+            return low;
+        }
+
+        public Node getHigh() {
+            return high;
+        }
+
+        public boolean isTerminal() {
+            return level == TERMINAL_LEVEL;
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return "Node[" + id + "]";
+        }
+    }
+
+    /** Key of the unique table: (level, low, high) compared by node identity. */
+    private static final class Key {
+        private final int level;
+        private final int lowId;
+        private final int highId;
+
+        Key(int level, int lowId, int highId) {
+            this.level = level;
+            this.lowId = lowId;
+            this.highId = highId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key k = (Key) o;
+            return level == k.level && lowId == k.lowId && highId == k.highId;
+        }
+
+        @Override
+        public int hashCode() {
+            return (level * 31 + lowId) * 31 + highId;
+        }
+    }
+
+    /** Weak reference that remembers its key so it can be removed once cleared. */
+    private static final class NodeRef extends WeakReference<Node> {
+        private final Key key;
+
+        NodeRef(Node node, Key key, ReferenceQueue<Node> queue) {
+            super(node, queue);
+            this.key = key;
+        }
+    }
+
+    private final Node zero;
+    private final Node one;
+    private final Map<Key, NodeRef> uniqueTable = new HashMap<>();
+    private final ReferenceQueue<Node> collected = new ReferenceQueue<>();
+    private int nextId = 2;
+
+    // Computed table for ite, direct-mapped: slot i caches ite(f[i], g[i], h[i]) = r[i]
+    private final Node[] cacheF;
+    private final Node[] cacheG;
+    private final Node[] cacheH;
+    private final Node[] cacheR;
+    private final int cacheMask;
+    private long cacheHits;
+    private long cacheLookups;
+
+    // Explicit stack of ite: pending calls (f, g, h), with the cache slot and top level of
+    // those already expanded (slot -1 until then), and the results of finished calls
+    private Node[] stackF = new Node[64];
+    private Node[] stackG = new Node[64];
+    private Node[] stackH = new Node[64];
+    private int[] stackSlot = new int[64];
+    private int[] stackTop = new int[64];
+    private Node[] stackResult = new Node[64];
+
+    // Variable order: level i holds variable order.get(i)
+    private final List<String> order = new ArrayList<>();
+    private final Map<String, Integer> levels = new LinkedHashMap<>();
+
+    /**
+     * Creates a manager whose variable order is the order in which variables are first used.
+     */
+    public BddManager() {
+        this(new ArrayList<>(), DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Creates a manager with a fixed initial variable order. Variables not listed are
+     * appended below the listed ones the first time they are used.
+     */
+    public BddManager(List<String> variableOrder) {
+        this(variableOrder, DEFAULT_CACHE_SIZE);
+    }
+
+    public BddManager(List<String> variableOrder, int cacheSize) {
+        if (cacheSize <= 0 || Integer.bitCount(cacheSize) != 1) {
+            throw new IllegalArgumentException("Cache size must be a power of two: " + cacheSize);
+        }
+        this.zero = new Node(TERMINAL_LEVEL, null, null, 0);
+        this.one = new Node(TERMINAL_LEVEL, null, null, 1);
+        this.cacheF = new Node[cacheSize];
+        this.cacheG = new Node[cacheSize];
+        this.cacheH = new Node[cacheSize];
+        this.cacheR = new Node[cacheSize];
+        this.cacheMask = cacheSize - 1;
+        for (String name : variableOrder) {
+            levelOf(name);
+        }
+    }
+
+    public Node zero() {
+        return zero;
+    }
+
+    public Node one() {
+        return one;
+    }
+
+    public Node constant(boolean value) {
+        return value ? one : zero;
+    }
+
+    /**
+     * Returns the BDD for a single variable, registering it in the order if it is new.
+     */
+    public Node var(String name) {
+        return mk(levelOf(name), zero, one);
+    }
+
+    /**
+     * Returns the level of a variable, appending it to the order if it is new.
+     */
+    public int levelOf(String name) {
+        Integer level = levels.get(name);
+        if (level == null) {
+            level = order.size();
+            order.add(name);
+            levels.put(name, level);
+        }
+        return level;
+    }
+
+    public String variableAt(int level) {
+        return order.get(level);
+    }
+
+    public List<String> getVariableOrder() {
+        return new ArrayList<>(order);
+    }
+
+    public Node not(Node f) {
+        return ite(f, zero, one);
+    }
+
+    public Node and(Node f, Node g) {
+        return ite(f, g, zero);
+    }
+
+    public Node or(Node f, Node g) {
+        return ite(f, one, g);
+    }
+
+    public Node implies(Node f, Node g) {
+        return ite(f, g, one);
+    }
+
+    public Node iff(Node f, Node g) {
+        return ite(f, g, not(g));
+    }
+
+    /**
+     * If-then-else: the BDD of (f and g) or (not f and h). All other operations reduce to this.
+     * The Shannon expansion goes one level down per variable, so with many variables it
+     * would not fit on the call stack; it keeps its own, finishing the low cofactor before
+     * starting the high one.
+     */
+    public Node ite(Node f, Node g, Node h) {
+        Node known = terminalCase(f, g, h);
+        if (known != null) {
+            return known;
+        }
+        Node[] fs = stackF;
+        Node[] gs = stackG;
+        Node[] hs = stackH;
+        int[] slots = stackSlot;
+        int[] tops = stackTop;
+        Node[] results = stackResult;
+        int calls = 0;
+        int done = 0;
+        int peak = 1;
+        fs[0] = f;
+        gs[0] = g;
+        hs[0] = h;
+        slots[calls++] = -1;
+        while (calls > 0) {
+            int call = calls - 1;
+            if (slots[call] >= 0) {
+                Node result = mk(tops[call], results[done - 2], results[done - 1]);
+                int slot = slots[call];
+                cacheF[slot] = fs[call];
+                cacheG[slot] = gs[call];
+                cacheH[slot] = hs[call];
+                cacheR[slot] = result;
+                results[done - 2] = result;
+                done--;
+                calls--;
+                continue;
+            }
+            Node cf = fs[call];
+            Node cg = gs[call];
+            Node ch = hs[call];
+            known = terminalCase(cf, cg, ch);
+            int slot = -1;
+            if (known == null) {
+                slot = cacheSlot(cf, cg, ch);
+                cacheLookups++;
+                if (cacheF[slot] == cf && cacheG[slot] == cg && cacheH[slot] == ch) {
+                    cacheHits++;
+                    known = cacheR[slot];
+                }
+            }
+            if (known != null) {
+                if (done == results.length) {
+                    results = Arrays.copyOf(results, done * 2);
+                }
+                results[done++] = known;
+                calls--;
+                continue;
+            }
+            if (calls + 2 > fs.length) {
+                fs = Arrays.copyOf(fs, fs.length * 2);
+                gs = Arrays.copyOf(gs, fs.length);
+                hs = Arrays.copyOf(hs, fs.length);
+                slots = Arrays.copyOf(slots, fs.length);
+                tops = Arrays.copyOf(tops, fs.length);
+            }
+            int top = Math.min(cf.level, Math.min(cg.level, ch.level));
+            peak = Math.max(peak, calls + 2);
+            slots[call] = slot;
+            tops[call] = top;
+            // The low cofactor goes on top, so it is finished before the high one starts
+            fs[calls] = cofactor(cf, top, true);
+            gs[calls] = cofactor(cg, top, true);
+            hs[calls] = cofactor(ch, top, true);
+            slots[calls++] = -1;
+            fs[calls] = cofactor(cf, top, false);
+            gs[calls] = cofactor(cg, top, false);
+            hs[calls] = cofactor(ch, top, false);
+            slots[calls++] = -1;
+        }
+        Node result = results[0];
+        // Keep the grown stacks for the next call, without the nodes left in them
+        Arrays.fill(fs, 0, peak, null);
+        Arrays.fill(gs, 0, peak, null);
+        Arrays.fill(hs, 0, peak, null);
+        Arrays.fill(results, 0, Math.min(results.length, peak + 1), null);
+        stackF = fs;
+        stackG = gs;
+        stackH = hs;
+        stackSlot = slots;
+        stackTop = tops;
+        stackResult = results;
+        return result;
+    }
+
+    /** The result of ite(f, g, h) when it needs no expansion, or null. */
+    private Node terminalCase(Node f, Node g, Node h) {
+        if (f == one) {
+            return g;
+        }
+        if (f == zero) {
+            return h;
+        }
+        if (g == h) {
+            return g;
+        }
+        if (g == one && h == zero) {
+            return f;
+        }
+        return null;
+    }
+
+    /**
+     * Restricts a variable to a constant value.
+     */
+    public Node restrict(Node f, String name, boolean value) {
+        Integer level = levels.get(name);
+        if (level == null) {
+            return f;
+        }
+        return restrict(f, level, value, new HashMap<>());
+    }
+
+    private Node restrict(Node f, int level, boolean value, Map<Node, Node> memo) {
+        // Post-order over the nodes above the level: a node is rebuilt once both of its
+        // children are in memo
+        Deque<Node> pending = new ArrayDeque<>();
+        pending.push(f);
+        while (!pending.isEmpty()) {
+            Node node = pending.peek();
+            if (node.level >= level || memo.containsKey(node)) {
+                pending.pop();
+                continue;
+            }
+            Node low = restricted(node.low, level, value, memo);
+            Node high = restricted(node.high, level, value, memo);
+            if (low == null || high == null) {
+                if (high == null) {
+                    pending.push(node.high);
+                }
+                if (low == null) {
+                    pending.push(node.low);
+                }
+                continue;
+            }
+            pending.pop();
+            memo.put(node, mk(node.level, low, high));
+        }
+        return restricted(f, level, value, memo);
+    }
+
+    /** The restriction of f if it is known: below the level, at it, or in memo. */
+    private static Node restricted(Node f, int level, boolean value, Map<Node, Node> memo) {
+        if (f.level > level) {
+            return f;
+        }
+        if (f.level == level) {
+            return value ? f.high : f.low;
+        }
+        return memo.get(f);
+    }
+
+    /**
+     * Returns one assignment that makes f false, or null if f is a tautology.
+     * Variables not on the chosen path are left out of the map.
+     */
+    public Map<String, Boolean> counterexample(Node f) {
+        return findPath(f, zero);
+    }
+
+    /**
+     * Returns one assignment that makes f true, or null if f is unsatisfiable.
+     */
+    public Map<String, Boolean> satisfyingAssignment(Node f) {
+        return findPath(f, one);
+    }
+
+    private Map<String, Boolean> findPath(Node f, Node target) {
+        if (!reaches(f, target, new HashMap<>())) {
+            return null;
+        }
+        Map<String, Boolean> assignment = new LinkedHashMap<>();
+        Map<Node, Boolean> memo = new HashMap<>();
+        Node current = f;
+        while (!current.isTerminal()) {
+            boolean takeHigh = !reaches(current.low, target, memo);
+            assignment.put(order.get(current.level), takeHigh);
+            current = takeHigh ? current.high : current.low;
+        }
+        return assignment;
+    }
+
+    /**
+     * Whether a path from f leads to target. Depth first, low before high: a node left
+     * without finding target cannot reach it, and once target is found every node on the
+     * current path can.
+     */
+    private boolean reaches(Node f, Node target, Map<Node, Boolean> memo) {
+        Deque<Node> path = new ArrayDeque<>();
+        Node next = f;
+        while (true) {
+            Boolean known = next.isTerminal() ? Boolean.valueOf(next == target) : memo.get(next);
+            if (known == null) {
+                path.push(next);
+                next = next.low;
+                continue;
+            }
+            if (known) {
+                for (Node node : path) {
+                    memo.put(node, true);
+                }
+                return true;
+            }
+            // Every node whose high child was just explored is finished
+            while (!path.isEmpty() && path.peek().high == next) {
+                next = path.pop();
+                memo.put(next, false);
+            }
+            if (path.isEmpty()) {
+                return false;
+            }
+            next = path.peek().high;
+        }
+    }
+
+    /**
+     * Empties the computed table so that its entries no longer keep nodes alive.
+     */
+    public void clearCache() {
+        for (int i = 0; i <= cacheMask; i++) {
+            cacheF[i] = null;
+            cacheG[i] = null;
+            cacheH[i] = null;
+            cacheR[i] = null;
+        }
+    }
+
+    /**
+     * Returns the number of live entries in the unique table after purging collected nodes.
+     */
+    public int uniqueTableSize() {
+        purgeCollected();
+        return uniqueTable.size();
+    }
+
+    public long getCacheHits() {
+        return cacheHits;
+    }
+
+    public long getCacheLookups() {
+        return cacheLookups;
+    }
+
+    private Node cofactor(Node f, int level, boolean value) {
+        if (f.level != level) {
+            return f;
+        }
+        return value ? f.high : f.low;
+    }
+
+    private int cacheSlot(Node f, Node g, Node h) {
+        int hash = f.id * 0x9E3779B1 + g.id * 0x85EBCA6B + h.id * 0xC2B2AE35;
+        return (hash ^ (hash >>> 16)) & cacheMask;
+    }
+
+    /**
+     * Returns the canonical node for (level, low, high), applying the reduction rule.
+     */
+    private Node mk(int level, Node low, Node high) {
+        if (low == high) {
+            return low;
+        }
+        purgeCollected();
+        Key key = new Key(level, low.id, high.id);
+        NodeRef ref = uniqueTable.get(key);
+        if (ref != null) {
+            Node existing = ref.get();
+            if (existing != null) {
+                return existing;
+            }
+        }
+        Node node = new Node(level, low, high, nextId++);
+        uniqueTable.put(key, new NodeRef(node, key, collected));
+        return node;
+    }
+
+    private void purgeCollected() {
+        NodeRef ref;
+        while ((ref = (NodeRef) collected.poll()) != null) {
+            // Only remove the entry if it has not already been replaced by a fresh node
+            if (uniqueTable.get(ref.key) == ref) {
+                uniqueTable.remove(ref.key);
+            }
+        }
+    }
+}
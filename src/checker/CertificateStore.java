@@ -0,0 +1,221 @@
+package checker;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import ast.*;
+
+/**
+ * A persistent store of proof certificates, so theorems that were verified on an earlier
+ * run need not be verified again.
+ *
+ * A certificate says that a theorem, identified by a hash of its name, statement and proof
+ * steps, was verified by this version of the checker using certain lemmas, each recorded
+ * with its own hash. A certificate only applies while every one of those lemmas still has
+ * the recorded hash in the current run, so editing a lemma invalidates everything proven
+ * with it. Certificates are kept in an append-only log, one per line:
+ *
+ * <pre>
+ * version  key  name  lemma=hash,lemma=hash
+ * </pre>
+ *
+ * Lines written by another checker version are ignored.
+ */
+public class CertificateStore {
+    /** Bumped whenever a change to the checker could change a verdict. */
+    public static final String CHECKER_VERSION = "6";
+
+    /** The log file -Dlepa.certificates uses when given no file, in the working directory. */
+    public static final String DEFAULT_FILE = ".lepa-certificates";
+
+    private static class Certificate {
+        private String key;
+        private String name;
+        private Map<String, String> lemmas;
+
+        Certificate(String key, String name, Map<String, String> lemmas) {
+            this.key = key;
+            this.name = name;
+            this.lemmas = lemmas;
+        }
+    }
+
+    private Path file;
+    private Map<String, List<Certificate>> certificates = new HashMap<>();
+    private Map<String, String> verifiedHashes = new HashMap<>();
+
+    /**
+     * Opens the store, reading every certificate already in the log.
+     */
+    public CertificateStore(Path file) throws IOException {
+        this.file = file;
+        if (Files.exists(file)) {
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                Certificate certificate = parse(line);
+                if (certificate != null) {
+                    certificates.computeIfAbsent(certificate.key, k -> new ArrayList<>()).add(certificate);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether a theorem has a certificate whose lemmas all still have the recorded
+     * hashes. A certified theorem counts as verified in this run, and so may itself serve
+     * as a lemma for later certificates.
+     */
+    public boolean isCertified(TheoremDecl theorem) {
+        String key = key(theorem);
+        List<Certificate> candidates = certificates.get(key);
+        if (candidates == null) {
+            return false;
+        }
+        for (Certificate certificate : candidates) {
+            if (lemmasUnchanged(certificate)) {
+                verifiedHashes.put(theorem.getName(), hash(certificate));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records a verified theorem, appending its certificate to the log. A theorem that used
+     * a lemma not verified or certified earlier in this run, such as one added to the
+     * library by hand, gets no certificate, and neither do the theorems that use it.
+     *
+     * @param lemmas The names of the theorems its proof used.
+     * @return Whether the theorem is now certified.
+     */
+    public boolean record(TheoremDecl theorem, Iterable<String> lemmas) throws IOException {
+        Map<String, String> lemmaHashes = new TreeMap<>();
+        for (String lemma : lemmas) {
+            String hash = verifiedHashes.get(lemma);
+            if (hash == null) {
+                forget(theorem.getName());
+                return false;
+            }
+            lemmaHashes.put(lemma, hash);
+        }
+        Certificate certificate = new Certificate(key(theorem), theorem.getName(), lemmaHashes);
+        verifiedHashes.put(theorem.getName(), hash(certificate));
+
+        List<Certificate> existing = certificates.computeIfAbsent(certificate.key, k -> new ArrayList<>());
+        for (Certificate other : existing) {
+            if (other.lemmas.equals(lemmaHashes)) {
+                return true;
+            }
+        }
+        existing.add(certificate);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(format(certificate));
+            writer.newLine();
+        }
+        return true;
+    }
+
+    /**
+     * Marks a theorem as no longer verified in this run, for example because its proof
+     * failed after an edit. Certificates that used it stop applying.
+     */
+    public void forget(String name) {
+        verifiedHashes.remove(name);
+    }
+
+    /**
+     * Returns the hash identifying a theorem's text: its name, statement and proof steps,
+     * including their justifications and 'from' lists.
+     */
+    public static String key(TheoremDecl theorem) {
+        StringBuilder text = new StringBuilder();
+        text.append(theorem.getName()).append('\n');
+        text.append(theorem.getTheorem()).append('\n');
+        for (ProofStep step : theorem.getProofSteps()) {
+            text.append(step).append('\n');
+        }
+        return sha256(text.toString());
+    }
+
+    private boolean lemmasUnchanged(Certificate certificate) {
+        for (Map.Entry<String, String> lemma : certificate.lemmas.entrySet()) {
+            if (!lemma.getValue().equals(verifiedHashes.get(lemma.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The hash dependents record for a theorem: its own key combined with the hashes of
+     * its lemmas, so a change anywhere below it changes the hash.
+     */
+    private static String hash(Certificate certificate) {
+        StringBuilder text = new StringBuilder(certificate.key);
+        for (Map.Entry<String, String> lemma : certificate.lemmas.entrySet()) {
+            text.append('\n').append(lemma.getKey()).append('=').append(lemma.getValue());
+        }
+        return sha256(text.toString());
+    }
+
+    private static String format(Certificate certificate) {
+        StringBuilder line = new StringBuilder();
+        line.append(CHECKER_VERSION).append('\t').append(certificate.key).append('\t').append(certificate.name).append('\t');
+        boolean first = true;
+        for (Map.Entry<String, String> lemma : certificate.lemmas.entrySet()) {
+            if (!first) {
+                line.append(',');
+            }
+            line.append(lemma.getKey()).append('=').append(lemma.getValue());
+            first = false;
+        }
+        return line.toString();
+    }
+
+    /**
+     * Parses one log line, returning null for lines from another checker version and for
+     * lines a crash left incomplete.
+     */
+    private static Certificate parse(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 4 || !fields[0].equals(CHECKER_VERSION)) {
+            return null;
+        }
+        Map<String, String> lemmas = new TreeMap<>();
+        if (!fields[3].isEmpty()) {
+            for (String lemma : fields[3].split(",")) {
+                int equals = lemma.indexOf('=');
+                if (equals < 0) {
+                    return null;
+                }
+                lemmas.put(lemma.substring(0, equals), lemma.substring(equals + 1));
+            }
+        }
+        return new Certificate(fields[1], fields[2], lemmas);
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
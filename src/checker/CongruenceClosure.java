@@ -0,0 +1,423 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.*;
+
+/**
+ * Decides equalities between terms by congruence closure.
+ *
+ * Every term becomes a node; a {@link FunctionCall} node also records its function name
+ * and argument nodes. Equal nodes are kept in the same class of a union-find with path
+ * compression and union by size. A signature table maps each application's function name
+ * and argument classes to one node, so when two classes merge, the applications that use
+ * them are re-hashed and any that now share a signature are merged too. Asserting a = b and
+ * f(a) = c therefore makes f(b) = c follow, in near-linear time overall.
+ *
+ * Every merge is also recorded as an edge in a proof forest, labelled either with the
+ * asserted equality that caused it or with the two applications found congruent. Walking
+ * the forest between two nodes gives the asserted equalities that explain why they are equal.
+ */
+public class CongruenceClosure {
+    /** A node in the term graph. Applications have a function name and argument nodes. */
+    private static class Term {
+        private String function;
+        private int[] arguments;
+
+        Term(String function, int[] arguments) {
+            this.function = function;
+            this.arguments = arguments;
+        }
+    }
+
+    /** Why two nodes were merged: an asserted equality, or a pair of congruent applications. */
+    private static class Reason {
+        private boolean congruence;
+        private Formula equality;
+        private int left;
+        private int right;
+
+        Reason(boolean congruence, Formula equality, int left, int right) {
+            this.congruence = congruence;
+            this.equality = equality;
+            this.left = left;
+            this.right = right;
+        }
+    }
+
+    private List<Term> terms = new ArrayList<>();
+    private Map<String, Integer> atoms = new HashMap<>();
+    private int[] parent = new int[16];
+    private int[] size = new int[16];
+    private List<List<Integer>> uses = new ArrayList<>();
+    private Map<String, Integer> signatures = new HashMap<>();
+
+    private int[] proofParent = new int[16];
+    private Reason[] proofReason = new Reason[16];
+
+    private List<int[]> disequalities = new ArrayList<>();
+    private List<Formula> disequalityReasons = new ArrayList<>();
+    private List<Formula> conflict;
+
+    /**
+     * Adds a term and its sub-terms, returning its node. Adding the same term twice
+     * returns the same node.
+     */
+    public int addTerm(Formula term) {
+        // Post-order: a node is pushed again, marked expanded, under its arguments and
+        // built from their nodes once they are on the results stack
+        Deque<Formula> pending = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        Deque<Integer> results = new ArrayDeque<>();
+        pending.push(term);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            boolean ready = expanded.pop();
+            if (!(current instanceof FunctionCall)) {
+                results.push(addConstant(current));
+                continue;
+            }
+            List<Formula> callArguments = ((FunctionCall) current).getArguments();
+            if (!ready) {
+                pending.push(current);
+                expanded.push(true);
+                for (int i = callArguments.size() - 1; i >= 0; i--) {
+                    pending.push(callArguments.get(i));
+                    expanded.push(false);
+                }
+                continue;
+            }
+            int[] arguments = new int[callArguments.size()];
+            for (int i = arguments.length - 1; i >= 0; i--) {
+                arguments[i] = results.pop();
+            }
+            results.push(addApplication(((FunctionCall) current).getFunctionName(), arguments));
+        }
+        return results.pop();
+    }
+
+    private int addApplication(String function, int[] arguments) {
+        String key = function + Arrays.toString(arguments);
+        Integer existing = atoms.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int node = newNode(function, arguments);
+        atoms.put(key, node);
+        for (int argument : arguments) {
+            uses.get(find(argument)).add(node);
+        }
+        Integer congruent = signatures.putIfAbsent(signature(node), node);
+        if (congruent != null) {
+            merge(new Reason(true, null, node, congruent));
+        }
+        return node;
+    }
+
+    /** Everything but an application is an uninterpreted constant, identified by its text. */
+    private int addConstant(Formula term) {
+        String key = EquivalenceChecker.atomKey(term);
+        Integer existing = atoms.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        int node = newNode(null, null);
+        atoms.put(key, node);
+        return node;
+    }
+
+    /**
+     * Asserts that two terms are equal. The reason is the formula reported by
+     * {@link #explain(Formula, Formula)} when this equality is used.
+     */
+    public void assertEqual(Formula a, Formula b, Formula reason) {
+        int left = addTerm(a);
+        int right = addTerm(b);
+        merge(new Reason(false, reason, left, right));
+    }
+
+    /**
+     * Asserts that two terms are different.
+     */
+    public void assertDistinct(Formula a, Formula b, Formula reason) {
+        int left = addTerm(a);
+        int right = addTerm(b);
+        disequalities.add(new int[] {left, right});
+        disequalityReasons.add(reason);
+        checkDisequality(disequalities.size() - 1);
+    }
+
+    public boolean areEqual(Formula a, Formula b) {
+        return find(addTerm(a)) == find(addTerm(b));
+    }
+
+    /**
+     * Returns whether the asserted equalities contradict an asserted disequality.
+     */
+    public boolean isInconsistent() {
+        return conflict != null;
+    }
+
+    /**
+     * Returns the asserted formulas that together are contradictory, or null if there
+     * is no contradiction.
+     */
+    public List<Formula> getConflict() {
+        return conflict;
+    }
+
+    /**
+     * Returns the asserted equalities that make two terms equal, or null if they are not.
+     */
+    public List<Formula> explain(Formula a, Formula b) {
+        int left = addTerm(a);
+        int right = addTerm(b);
+        if (find(left) != find(right)) {
+            return null;
+        }
+        return new ArrayList<>(explain(left, right));
+    }
+
+    /**
+     * Checks whether a goal follows from the equalities and disequalities among the premises.
+     * Premises are split at top-level conjunctions; other premises are ignored. The goal
+     * may be an equality, a disequality, or anything at all when the premises contradict
+     * each other.
+     *
+     * @return The premise literals used, or null if the goal does not follow this way.
+     */
+    public static List<Formula> entails(List<Formula> premises, Formula goal) {
+        CongruenceClosure closure = new CongruenceClosure();
+        List<Formula> literals = new ArrayList<>();
+        for (Formula premise : premises) {
+            collectLiterals(premise, literals);
+        }
+        for (Formula literal : literals) {
+            BinaryOperation relation = (BinaryOperation) literal;
+            if (relation.getOperator() == BinaryOperation.Operator.EQ) {
+                closure.assertEqual(relation.getLeft(), relation.getRight(), literal);
+            } else {
+                closure.assertDistinct(relation.getLeft(), relation.getRight(), literal);
+            }
+        }
+        if (closure.isInconsistent()) {
+            return closure.getConflict();
+        }
+
+        if (goal instanceof BinaryOperation) {
+            BinaryOperation relation = (BinaryOperation) goal;
+            if (relation.getOperator() == BinaryOperation.Operator.EQ) {
+                return closure.explain(relation.getLeft(), relation.getRight());
+            }
+            if (relation.getOperator() == BinaryOperation.Operator.NEQ) {
+                // a != b follows if assuming a = b contradicts the premises
+                closure.assertEqual(relation.getLeft(), relation.getRight(), goal);
+                if (closure.isInconsistent()) {
+                    List<Formula> used = closure.getConflict();
+                    used.remove(goal);
+                    return used;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static void collectLiterals(Formula premise, List<Formula> literals) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(premise);
+        while (!pending.isEmpty()) {
+            Formula formula = pending.pop();
+            if (!(formula instanceof BinaryOperation)) {
+                continue;
+            }
+            BinaryOperation binary = (BinaryOperation) formula;
+            switch (binary.getOperator()) {
+                case AND:
+                    pending.push(binary.getRight());
+                    pending.push(binary.getLeft());
+                    break;
+                case EQ:
+                case NEQ:
+                    literals.add(formula);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private int newNode(String function, int[] arguments) {
+        int node = terms.size();
+        terms.add(new Term(function, arguments));
+        uses.add(new ArrayList<>());
+        if (node == parent.length) {
+            parent = Arrays.copyOf(parent, node * 2);
+            size = Arrays.copyOf(size, node * 2);
+            proofParent = Arrays.copyOf(proofParent, node * 2);
+            proofReason = Arrays.copyOf(proofReason, node * 2);
+        }
+        parent[node] = node;
+        size[node] = 1;
+        proofParent[node] = node;
+        return node;
+    }
+
+    private int find(int node) {
+        int root = node;
+        while (parent[root] != root) {
+            root = parent[root];
+        }
+        // Path compression: point every node on the way directly at the root
+        while (parent[node] != root) {
+            int next = parent[node];
+            parent[node] = root;
+            node = next;
+        }
+        return root;
+    }
+
+    private String signature(int node) {
+        Term term = terms.get(node);
+        StringBuilder key = new StringBuilder(term.function).append('(');
+        for (int argument : term.arguments) {
+            key.append(find(argument)).append(',');
+        }
+        return key.append(')').toString();
+    }
+
+    /**
+     * Merges the classes of two nodes and propagates congruences until none are left.
+     */
+    private void merge(Reason reason) {
+        Deque<Reason> pending = new ArrayDeque<>();
+        pending.add(reason);
+        while (!pending.isEmpty()) {
+            Reason next = pending.poll();
+            int rootA = find(next.left);
+            int rootB = find(next.right);
+            if (rootA == rootB) {
+                continue;
+            }
+            addProofEdge(next.left, next.right, next);
+
+            // Union by size: the smaller class joins the larger one
+            if (size[rootA] > size[rootB]) {
+                int swap = rootA;
+                rootA = rootB;
+                rootB = swap;
+            }
+            List<Integer> moved = uses.get(rootA);
+            for (int application : moved) {
+                signatures.remove(signature(application), application);
+            }
+            parent[rootA] = rootB;
+            size[rootB] += size[rootA];
+            for (int application : moved) {
+                Integer congruent = signatures.putIfAbsent(signature(application), application);
+                if (congruent != null && congruent != application) {
+                    pending.add(new Reason(true, null, application, congruent));
+                }
+            }
+            uses.get(rootB).addAll(moved);
+            uses.set(rootA, new ArrayList<>());
+        }
+        for (int i = 0; i < disequalities.size() && conflict == null; i++) {
+            checkDisequality(i);
+        }
+    }
+
+    private void checkDisequality(int index) {
+        int[] pair = disequalities.get(index);
+        if (conflict == null && find(pair[0]) == find(pair[1])) {
+            Set<Formula> used = explain(pair[0], pair[1]);
+            used.add(disequalityReasons.get(index));
+            conflict = new ArrayList<>(used);
+        }
+    }
+
+    /**
+     * Links two nodes in the proof forest. The tree containing a is re-rooted at a first,
+     * so that a can point at b.
+     */
+    private void addProofEdge(int a, int b, Reason reason) {
+        int node = a;
+        int previous = b;
+        Reason previousReason = reason;
+        while (true) {
+            int next = proofParent[node];
+            Reason nextReason = proofReason[node];
+            proofParent[node] = previous;
+            proofReason[node] = previousReason;
+            if (next == node) {
+                break;
+            }
+            previous = node;
+            previousReason = nextReason;
+            node = next;
+        }
+    }
+
+    /**
+     * Collects the asserted equalities on the proof-forest paths between two equal nodes,
+     * expanding congruence edges into explanations of their arguments.
+     */
+    private Set<Formula> explain(int a, int b) {
+        Set<Formula> used = new LinkedHashSet<>();
+        Set<Long> explained = new HashSet<>();
+        Deque<int[]> pending = new ArrayDeque<>();
+        pending.push(new int[] {a, b});
+        while (!pending.isEmpty()) {
+            int[] pair = pending.pop();
+            if (pair[0] == pair[1] || !explained.add(((long) pair[0] << 32) | pair[1])) {
+                continue;
+            }
+            for (Reason reason : pathReasons(pair[0], pair[1])) {
+                if (!reason.congruence) {
+                    used.add(reason.equality);
+                } else {
+                    // Congruent applications: their arguments are equal pairwise
+                    int[] left = terms.get(reason.left).arguments;
+                    int[] right = terms.get(reason.right).arguments;
+                    for (int i = 0; i < left.length; i++) {
+                        pending.push(new int[] {left[i], right[i]});
+                    }
+                }
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Returns the reasons on the proof-forest path between two nodes of the same tree.
+     */
+    private List<Reason> pathReasons(int a, int b) {
+        Map<Integer, Integer> depthFromA = new HashMap<>();
+        int depth = 0;
+        for (int node = a; ; node = proofParent[node]) {
+            depthFromA.put(node, depth++);
+            if (proofParent[node] == node) {
+                break;
+            }
+        }
+        List<Reason> reasons = new ArrayList<>();
+        int common = b;
+        while (!depthFromA.containsKey(common)) {
+            reasons.add(proofReason[common]);
+            common = proofParent[common];
+        }
+        for (int node = a; node != common; node = proofParent[node]) {
+            reasons.add(proofReason[node]);
+        }
+        return reasons;
+    }
+}
@@ -0,0 +1,480 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import ast.*;
+
+/**
+ * Parallel validity checking of propositional obligations by cube-and-conquer.
+ *
+ * The obligation is split into cubes: every combination of truth values for the few
+ * most constrained atoms (those that occur most often). Each cube is then searched
+ * for a falsifying assignment independently on a work-stealing ForkJoinPool. As soon
+ * as any cube produces a counterexample, a shared flag cancels the remaining cubes.
+ */
+public class CubeAndConquer {
+    /** Outcome of a single cube. */
+    public enum Outcome {
+        VALID,
+        COUNTEREXAMPLE,
+        CANCELLED
+    }
+
+    /**
+     * Statistics gathered while solving one cube.
+     */
+    public static class CubeStats {
+        private Map<String, Boolean> cube;
+        private Outcome outcome = Outcome.CANCELLED;
+        private long decisions;
+        private long elapsedNanos;
+        private String worker;
+
+        CubeStats(Map<String, Boolean> cube) {
+            this.cube = cube;
+        }
+
+        public Map<String, Boolean> getCube() {
+            return cube;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public long getDecisions() {
+            return decisions;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public String getWorker() {
+            return worker;
+        }
+
+        @Override
+        public String toString() {
+            return "CubeStats[" + cube + " " + outcome + ", decisions=" + decisions
+                    + ", time=" + (elapsedNanos / 1000) + "us, worker=" + worker + "]";
+        }
+    }
+
+    /**
+     * Result of checking one obligation.
+     */
+    public static class Result {
+        private Map<String, Boolean> counterexample;
+        private List<CubeStats> cubeStats;
+
+        Result(Map<String, Boolean> counterexample, List<CubeStats> cubeStats) {
+            this.counterexample = counterexample;
+            this.cubeStats = cubeStats;
+        }
+
+        public boolean isValid() {
+            return counterexample == null;
+        }
+
+        /** An assignment falsifying the obligation, or null if it is valid. */
+        public Map<String, Boolean> getCounterexample() {
+            return counterexample;
+        }
+
+        public List<CubeStats> getCubeStats() {
+            return cubeStats;
+        }
+    }
+
+    // Opcodes of the compiled formula
+    private static final int OP_CONST = 0;
+    private static final int OP_ATOM = 1;
+    private static final int OP_NOT = 2;
+    private static final int OP_AND = 3;
+    private static final int OP_OR = 4;
+    private static final int OP_IMPLIES = 5;
+    private static final int OP_IFF = 6;
+
+    // Three-valued truth values
+    private static final byte FALSE = 0;
+    private static final byte TRUE = 1;
+    private static final byte UNKNOWN = 2;
+
+    /** How many nodes are visited between checks of the cancellation flag. */
+    private static final int CANCEL_CHECK_INTERVAL = 1024;
+
+    private ForkJoinPool pool;
+    private int cubeVariables;
+
+    /**
+     * Uses the common ForkJoinPool and picks the number of cube variables from its parallelism.
+     */
+    public CubeAndConquer() {
+        this(ForkJoinPool.commonPool(), -1);
+    }
+
+    /**
+     * @param pool The pool cubes are solved on.
+     * @param cubeVariables Number of atoms to split on (2^n cubes); negative to choose
+     *                      enough cubes for about four per worker.
+     */
+    public CubeAndConquer(ForkJoinPool pool, int cubeVariables) {
+        this.pool = pool;
+        this.cubeVariables = cubeVariables;
+    }
+
+    public Result check(ProofStep step) {
+        return check(step.getFormula());
+    }
+
+    /**
+     * Checks that the conjunction of the premises implies the goal.
+     */
+    public Result check(List<Formula> premises, Formula goal) {
+        return check(obligation(premises, goal));
+    }
+
+    /**
+     * Number of distinct atoms in the obligation that the premises imply the goal; the
+     * search space is two to this power.
+     */
+    public static int atomCount(List<Formula> premises, Formula goal) {
+        Compiled compiled = new Compiled();
+        compiled.compile(obligation(premises, goal));
+        return compiled.atoms.size();
+    }
+
+    private static Formula obligation(List<Formula> premises, Formula goal) {
+        if (premises.isEmpty()) {
+            return goal;
+        }
+        Formula antecedent = premises.get(0);
+        for (int i = 1; i < premises.size(); i++) {
+            antecedent = new BinaryOperation(antecedent, BinaryOperation.Operator.AND, premises.get(i));
+        }
+        return new BinaryOperation(antecedent, BinaryOperation.Operator.IMPLIES, goal);
+    }
+
+    /**
+     * Checks that a formula is a propositional tautology.
+     */
+    public Result check(Formula obligation) {
+        Compiled compiled = new Compiled();
+        compiled.root = compiled.compile(obligation);
+
+        List<Integer> splitAtoms = compiled.atomsByOccurrence();
+        int depth = cubeVariables >= 0 ? cubeVariables : defaultDepth();
+        depth = Math.min(depth, splitAtoms.size());
+        List<Integer> cubeAtoms = splitAtoms.subList(0, depth);
+        List<Integer> branchOrder = splitAtoms.subList(depth, splitAtoms.size());
+
+        List<CubeStats> stats = new ArrayList<>();
+        List<byte[]> cubes = new ArrayList<>();
+        for (int bits = 0; bits < (1 << depth); bits++) {
+            byte[] assignment = new byte[compiled.atoms.size()];
+            Arrays.fill(assignment, UNKNOWN);
+            Map<String, Boolean> cube = new LinkedHashMap<>();
+            for (int i = 0; i < depth; i++) {
+                boolean value = ((bits >> i) & 1) != 0;
+                assignment[cubeAtoms.get(i)] = value ? TRUE : FALSE;
+                cube.put(compiled.atoms.get(cubeAtoms.get(i)), value);
+            }
+            cubes.add(assignment);
+            stats.add(new CubeStats(cube));
+        }
+
+        Search search = new Search(compiled, branchOrder);
+        pool.invoke(new CubeBatch(search, cubes, stats, 0, cubes.size()));
+        return new Result(search.counterexample.get(), Collections.unmodifiableList(stats));
+    }
+
+    private int defaultDepth() {
+        int target = Math.max(1, pool.getParallelism() * 4);
+        return 32 - Integer.numberOfLeadingZeros(target - 1);
+    }
+
+    /**
+     * A formula flattened into parallel arrays, with atoms numbered densely.
+     */
+    private static class Compiled {
+        private List<Integer> ops = new ArrayList<>();
+        private List<Integer> left = new ArrayList<>();
+        private List<Integer> right = new ArrayList<>();
+        private List<String> atoms = new ArrayList<>();
+        private Map<String, Integer> atomIndex = new HashMap<>();
+        private List<Integer> occurrences = new ArrayList<>();
+        private int[] opArray;
+        private int[] leftArray;
+        private int[] rightArray;
+        private int root;
+
+        /**
+         * Adds the nodes of a formula, each after its operands, and returns the last one.
+         */
+        int compile(Formula formula) {
+            Deque<Formula> pending = new ArrayDeque<>();
+            Deque<Boolean> expanded = new ArrayDeque<>();
+            Deque<Integer> results = new ArrayDeque<>();
+            pending.push(formula);
+            expanded.push(false);
+            while (!pending.isEmpty()) {
+                Formula current = pending.pop();
+                boolean ready = expanded.pop();
+                int op = connective(current);
+                if (op < 0) {
+                    results.push(leaf(current));
+                } else if (!ready) {
+                    pending.push(current);
+                    expanded.push(true);
+                    if (current instanceof UnaryOperation) {
+                        pending.push(((UnaryOperation) current).getOperand());
+                        expanded.push(false);
+                    } else {
+                        pending.push(((BinaryOperation) current).getRight());
+                        expanded.push(false);
+                        pending.push(((BinaryOperation) current).getLeft());
+                        expanded.push(false);
+                    }
+                } else if (op == OP_NOT) {
+                    results.push(add(OP_NOT, results.pop(), -1));
+                } else {
+                    int r = results.pop();
+                    int l = results.pop();
+                    results.push(add(op, l, r));
+                }
+            }
+            return results.pop();
+        }
+
+        /** The opcode of a connective, or -1 for a formula that compiles to a leaf. */
+        private static int connective(Formula formula) {
+            if (formula instanceof UnaryOperation) {
+                return OP_NOT;
+            }
+            if (formula instanceof BinaryOperation) {
+                switch (((BinaryOperation) formula).getOperator()) {
+                    case AND:
+                        return OP_AND;
+                    case OR:
+                        return OP_OR;
+                    case IMPLIES:
+                        return OP_IMPLIES;
+                    case IFF:
+                        return OP_IFF;
+                    default:
+                        break;
+                }
+            }
+            return -1;
+        }
+
+        private int leaf(Formula formula) {
+            if (formula instanceof BooleanLiteral) {
+                return add(OP_CONST, ((BooleanLiteral) formula).getValue() ? 1 : 0, -1);
+            }
+            if (formula instanceof BinaryOperation) {
+                BinaryOperation.Operator operator = ((BinaryOperation) formula).getOperator();
+                if (operator == BinaryOperation.Operator.NEQ || operator == BinaryOperation.Operator.NOTIN) {
+                    return add(OP_NOT, atom(formula), -1);
+                }
+            }
+            return atom(formula);
+        }
+
+        private int atom(Formula formula) {
+            String key = EquivalenceChecker.atomKey(formula);
+            Integer index = atomIndex.get(key);
+            if (index == null) {
+                index = atoms.size();
+                atoms.add(key);
+                atomIndex.put(key, index);
+                occurrences.add(0);
+            }
+            occurrences.set(index, occurrences.get(index) + 1);
+            return add(OP_ATOM, index, -1);
+        }
+
+        private int add(int op, int l, int r) {
+            ops.add(op);
+            left.add(l);
+            right.add(r);
+            return ops.size() - 1;
+        }
+
+        /** Atom indices, most frequently occurring first. */
+        List<Integer> atomsByOccurrence() {
+            opArray = ops.stream().mapToInt(Integer::intValue).toArray();
+            leftArray = left.stream().mapToInt(Integer::intValue).toArray();
+            rightArray = right.stream().mapToInt(Integer::intValue).toArray();
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < atoms.size(); i++) {
+                order.add(i);
+            }
+            order.sort((a, b) -> occurrences.get(b) - occurrences.get(a));
+            return order;
+        }
+
+        /**
+         * Three-valued evaluation under a partial assignment. Operands are compiled before
+         * the nodes that use them, so one pass up to the node fills in the value of each;
+         * values must have room for all of them.
+         */
+        byte eval(int node, byte[] assignment, byte[] values) {
+            for (int i = 0; i <= node; i++) {
+                byte l = leftArray[i] >= 0 && opArray[i] > OP_ATOM ? values[leftArray[i]] : UNKNOWN;
+                byte r = rightArray[i] >= 0 ? values[rightArray[i]] : UNKNOWN;
+                switch (opArray[i]) {
+                    case OP_CONST:
+                        values[i] = leftArray[i] == 1 ? TRUE : FALSE;
+                        break;
+                    case OP_ATOM:
+                        values[i] = assignment[leftArray[i]];
+                        break;
+                    case OP_NOT:
+                        values[i] = l == UNKNOWN ? UNKNOWN : (l == TRUE ? FALSE : TRUE);
+                        break;
+                    case OP_AND:
+                        values[i] = l == FALSE || r == FALSE ? FALSE : (l == TRUE && r == TRUE ? TRUE : UNKNOWN);
+                        break;
+                    case OP_OR:
+                        values[i] = l == TRUE || r == TRUE ? TRUE : (l == FALSE && r == FALSE ? FALSE : UNKNOWN);
+                        break;
+                    case OP_IMPLIES:
+                        values[i] = l == FALSE || r == TRUE ? TRUE : (l == TRUE && r == FALSE ? FALSE : UNKNOWN);
+                        break;
+                    default: // OP_IFF
+                        values[i] = l == UNKNOWN || r == UNKNOWN ? UNKNOWN : (l == r ? TRUE : FALSE);
+                        break;
+                }
+            }
+            return values[node];
+        }
+    }
+
+    /**
+     * Search state shared by all cubes of one obligation.
+     */
+    private static class Search {
+        private Compiled compiled;
+        private int[] branchOrder;
+        private AtomicBoolean cancelled = new AtomicBoolean();
+        private AtomicReference<Map<String, Boolean>> counterexample = new AtomicReference<>();
+
+        Search(Compiled compiled, List<Integer> branchOrder) {
+            this.compiled = compiled;
+            this.branchOrder = branchOrder.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        void solve(byte[] assignment, CubeStats stats) {
+            long start = System.nanoTime();
+            stats.worker = Thread.currentThread().getName();
+            if (cancelled.get()) {
+                stats.elapsedNanos = System.nanoTime() - start;
+                return;
+            }
+            long[] decisions = new long[1];
+            boolean found = falsify(assignment, 0, decisions);
+            stats.decisions = decisions[0];
+            if (found) {
+                stats.outcome = Outcome.COUNTEREXAMPLE;
+                Map<String, Boolean> model = new LinkedHashMap<>();
+                for (int i = 0; i < assignment.length; i++) {
+                    // Atoms left open do not matter; report them as false
+                    model.put(compiled.atoms.get(i), assignment[i] == TRUE);
+                }
+                if (counterexample.compareAndSet(null, model)) {
+                    cancelled.set(true);
+                }
+            } else if (!cancelled.get()) {
+                stats.outcome = Outcome.VALID;
+            }
+            stats.elapsedNanos = System.nanoTime() - start;
+        }
+
+        /**
+         * Extends the assignment until the obligation becomes false (returns true, leaving
+         * the falsifying assignment in place) or every extension makes it true. Decided
+         * atoms are kept on a trail of positions in the branch order: each is tried false,
+         * then true, then undone.
+         */
+        private boolean falsify(byte[] assignment, int next, long[] decisions) {
+            byte[] values = new byte[compiled.opArray.length];
+            int[] trail = new int[branchOrder.length];
+            int decided = 0;
+            while (true) {
+                if (++decisions[0] % CANCEL_CHECK_INTERVAL == 0 && cancelled.get()) {
+                    return false;
+                }
+                byte value = compiled.eval(compiled.root, assignment, values);
+                if (value == FALSE) {
+                    return true;
+                }
+                if (value == UNKNOWN) {
+                    while (next < branchOrder.length && assignment[branchOrder[next]] != UNKNOWN) {
+                        next++;
+                    }
+                    if (next < branchOrder.length) {
+                        assignment[branchOrder[next]] = FALSE;
+                        trail[decided++] = next++;
+                        continue;
+                    }
+                }
+                // Backtrack to the latest atom not yet tried true
+                while (decided > 0 && assignment[branchOrder[trail[decided - 1]]] == TRUE) {
+                    assignment[branchOrder[trail[--decided]]] = UNKNOWN;
+                }
+                if (decided == 0) {
+                    return false;
+                }
+                assignment[branchOrder[trail[decided - 1]]] = TRUE;
+                next = trail[decided - 1] + 1;
+            }
+        }
+    }
+
+    /**
+     * Splits a range of cubes in half until a single cube remains, so idle workers
+     * can steal the other half.
+     */
+    private static class CubeBatch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private Search search;
+        private List<byte[]> cubes;
+        private List<CubeStats> stats;
+        private int from;
+        private int to;
+
+        CubeBatch(Search search, List<byte[]> cubes, List<CubeStats> stats, int from, int to) {
+            this.search = search;
+            this.cubes = cubes;
+            this.stats = stats;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                search.solve(cubes.get(from), stats.get(from));
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CubeBatch(search, cubes, stats, from, mid),
+                      new CubeBatch(search, cubes, stats, mid, to));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A directed graph recording what each proof step and theorem depends on.
+ *
+ * Nodes are named by {@link #stepNode(String, int)} and {@link #theoremNode(String)}. An
+ * edge from A to B means A was checked using B, so when B changes A must be re-checked.
+ * Edges are kept in both directions so that the dependents of a change can be found
+ * without scanning the whole graph.
+ */
+public class DependencyGraph {
+    private Map<String, Set<String>> dependencies = new HashMap<>();
+    private Map<String, Set<String>> dependents = new HashMap<>();
+
+    public static String stepNode(String theorem, int index) {
+        return theorem + "#" + index;
+    }
+
+    public static String theoremNode(String theorem) {
+        return theorem;
+    }
+
+    /**
+     * Records that node was checked using dependency.
+     */
+    public void addEdge(String node, String dependency) {
+        dependencies.computeIfAbsent(node, n -> new LinkedHashSet<>()).add(dependency);
+        dependents.computeIfAbsent(dependency, n -> new LinkedHashSet<>()).add(node);
+    }
+
+    /**
+     * Removes every edge out of a node, before its dependencies are recorded again.
+     */
+    public void clearDependencies(String node) {
+        Set<String> old = dependencies.remove(node);
+        if (old == null) {
+            return;
+        }
+        for (String dependency : old) {
+            Set<String> users = dependents.get(dependency);
+            if (users != null) {
+                users.remove(node);
+                if (users.isEmpty()) {
+                    dependents.remove(dependency);
+                }
+            }
+        }
+    }
+
+    public Set<String> getDependencies(String node) {
+        return dependencies.getOrDefault(node, Collections.emptySet());
+    }
+
+    public Set<String> getDependents(String node) {
+        return dependents.getOrDefault(node, Collections.emptySet());
+    }
+
+    /**
+     * Returns the given nodes together with everything that transitively depends on them.
+     */
+    public Set<String> affectedBy(Collection<String> changed) {
+        Set<String> affected = new LinkedHashSet<>(changed);
+        Deque<String> pending = new ArrayDeque<>(changed);
+        while (!pending.isEmpty()) {
+            for (String dependent : getDependents(pending.pop())) {
+                if (affected.add(dependent)) {
+                    pending.push(dependent);
+                }
+            }
+        }
+        return affected;
+    }
+}
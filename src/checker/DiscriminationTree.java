@@ -0,0 +1,200 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import ast.*;
+
+/**
+ * A discrimination tree over formulas, used to find stored patterns that could match a query.
+ *
+ * Each formula is flattened into its preorder sequence of symbols, and patterns are stored
+ * along a trie path of those symbols. The variables of a pattern are the names bound by a
+ * quantifier, in the pattern or around it; each becomes a wildcard edge that matches any
+ * complete subterm of the query. Any other identifier is a constant that matches only
+ * itself, as it is an atom to the deciders. Retrieval walks the trie once along the query
+ * and so costs about the size of the query, independent of how many patterns are stored.
+ *
+ * The index is a filter: every pattern that matches the query is returned, but a returned
+ * pattern may still fail a full match (for example when a variable occurs twice).
+ *
+ * @param <T> The values stored with each pattern.
+ */
+public class DiscriminationTree<T> {
+    private static final String WILDCARD = "*";
+
+    private static class TrieNode<T> {
+        private Map<String, TrieNode<T>> children = new HashMap<>();
+        private List<T> values = new ArrayList<>();
+    }
+
+    private TrieNode<T> root = new TrieNode<>();
+    private int size;
+
+    /**
+     * Stores a value under a pattern. The given names, and those the pattern binds itself,
+     * act as variables.
+     */
+    public void insert(Formula pattern, Set<String> variables, T value) {
+        List<String> keys = new ArrayList<>();
+        flatten(pattern, variables, keys, null);
+        TrieNode<T> node = root;
+        for (String key : keys) {
+            node = node.children.computeIfAbsent(key, k -> new TrieNode<>());
+        }
+        node.values.add(value);
+        size++;
+    }
+
+    /**
+     * Removes the values stored under exactly this pattern, with the same variables, that
+     * satisfy the filter.
+     */
+    public void remove(Formula pattern, Set<String> variables, Predicate<T> filter) {
+        List<String> keys = new ArrayList<>();
+        flatten(pattern, variables, keys, null);
+        TrieNode<T> node = root;
+        for (String key : keys) {
+            node = node.children.get(key);
+            if (node == null) {
+                return;
+            }
+        }
+        int before = node.values.size();
+        node.values.removeIf(filter);
+        size -= before - node.values.size();
+    }
+
+    /**
+     * Returns the values of all patterns that generalize the query, in insertion order per leaf.
+     */
+    public List<T> retrieve(Formula query) {
+        List<String> keys = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        flatten(query, null, keys, ends);
+        Set<T> results = new LinkedHashSet<>();
+        retrieve(root, keys, ends, 0, results);
+        return new ArrayList<>(results);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void retrieve(TrieNode<T> root, List<String> keys, List<Integer> ends, int start, Set<T> results) {
+        // Depth first, the exact edge before the wildcard, with a stack of (node, position)
+        Deque<TrieNode<T>> nodes = new ArrayDeque<>();
+        Deque<Integer> positions = new ArrayDeque<>();
+        nodes.push(root);
+        positions.push(start);
+        while (!nodes.isEmpty()) {
+            TrieNode<T> node = nodes.pop();
+            int position = positions.pop();
+            if (position == keys.size()) {
+                results.addAll(node.values);
+                continue;
+            }
+            TrieNode<T> wildcard = node.children.get(WILDCARD);
+            if (wildcard != null) {
+                // A variable swallows the whole subterm starting at this position
+                nodes.push(wildcard);
+                positions.push(ends.get(position));
+            }
+            TrieNode<T> exact = node.children.get(keys.get(position));
+            if (exact != null) {
+                nodes.push(exact);
+                positions.push(position + 1);
+            }
+        }
+    }
+
+    /**
+     * Appends the preorder symbols of a formula. Each symbol carries its arity so the
+     * sequence is unambiguous. When ends is given, ends[i] is set to the position just
+     * past the subterm that starts at position i. A query has null for its variables.
+     */
+    private static void flatten(Formula root, Set<String> variables, List<String> keys, List<Integer> ends) {
+        if (variables != null) {
+            variables = new HashSet<>(variables);
+            collectBound(root, variables);
+        }
+        // Formulas still to flatten, and the Integer position of each subterm to close
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Object next = pending.pop();
+            if (next instanceof Integer) {
+                ends.set((Integer) next, keys.size());
+                continue;
+            }
+            Formula formula = (Formula) next;
+            if (ends != null) {
+                ends.add(null);
+                pending.push(keys.size());
+            }
+            keys.add(symbol(formula, variables));
+            // Bound variable names are irrelevant for matching; only their number is kept
+            List<Formula> children = formula instanceof Quantifier
+                    ? Collections.singletonList(((Quantifier) formula).getBody()) : formula.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * Adds the names bound anywhere in a pattern. Scopes are not told apart: a free name
+     * that is also bound elsewhere in the pattern becomes a variable, which only makes the
+     * filter looser.
+     */
+    private static void collectBound(Formula root, Set<String> variables) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Formula formula = pending.pop();
+            if (formula instanceof Quantifier) {
+                for (Identifier variable : ((Quantifier) formula).getVariables()) {
+                    variables.add(variable.getName());
+                }
+                pending.push(((Quantifier) formula).getBody());
+            } else {
+                for (Formula child : formula.getChildren()) {
+                    pending.push(child);
+                }
+            }
+        }
+    }
+
+    private static String symbol(Formula formula, Set<String> variables) {
+        if (formula instanceof Identifier) {
+            String name = ((Identifier) formula).getName();
+            return variables != null && variables.contains(name) ? WILDCARD : "id:" + name;
+        } else if (formula instanceof BooleanLiteral) {
+            return String.valueOf(((BooleanLiteral) formula).getValue());
+        } else if (formula instanceof NumberLiteral) {
+            return "#" + ((NumberLiteral) formula).getValue();
+        } else if (formula instanceof UnaryOperation) {
+            return ((UnaryOperation) formula).getOperator() + "/1";
+        } else if (formula instanceof BinaryOperation) {
+            return ((BinaryOperation) formula).getOperator() + "/2";
+        } else if (formula instanceof FunctionCall) {
+            FunctionCall call = (FunctionCall) formula;
+            return "fn:" + call.getFunctionName() + "/" + call.getArguments().size();
+        } else if (formula instanceof SetLiteral) {
+            return "{}/" + ((SetLiteral) formula).getElements().size();
+        } else if (formula instanceof Quantifier) {
+            Quantifier quantifier = (Quantifier) formula;
+            return quantifier.getType() + "/" + quantifier.getVariables().size();
+        }
+        return formula.toString();
+    }
+}
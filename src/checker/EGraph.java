@@ -0,0 +1,569 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.*;
+
+/**
+ * An e-graph for set expressions, used to decide set-algebra identities by equality saturation.
+ *
+ * An e-graph represents many equivalent terms at once: each e-class is a set of e-nodes,
+ * and each e-node is an operator (UNION, INTERSECT or SETDIFF) applied to e-classes, or an
+ * atom such as an identifier or set literal. Saturation repeatedly matches the rewrite rules
+ * below against every e-class and merges each match with its rewritten form; nothing is
+ * ever removed, so the order in which rules fire does not matter and commutativity or
+ * associativity cannot loop. It stops when no rule adds anything new, or when the node,
+ * iteration or time limit is reached. Matches are capped per rule and per round, since
+ * associative and commutative classes can match a pattern in very many ways.
+ *
+ * Two set terms are equal when they end up in the same e-class, and A subset B holds when
+ * A and A intersect B do. The smallest term of an e-class can be extracted as a formula.
+ */
+public class EGraph {
+    /** Default maximum number of e-nodes before saturation stops. */
+    public static final int DEFAULT_NODE_LIMIT = 10_000;
+
+    /** Default maximum number of rounds of rule application. */
+    public static final int DEFAULT_ITERATION_LIMIT = 30;
+
+    /** Default maximum number of matches of one rule in one round. */
+    public static final int DEFAULT_MATCH_LIMIT = 1_000;
+
+    /** Default maximum number of matches of all rules in one round. */
+    public static final int DEFAULT_ROUND_MATCH_LIMIT = 10_000;
+
+    /** Default wall-time budget for one saturation, in milliseconds. */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 1_000;
+
+    /** Why saturation stopped. */
+    public enum Outcome {
+        SATURATED,
+        NODE_LIMIT,
+        ITERATION_LIMIT,
+        MATCH_LIMIT,
+        TIME_LIMIT,
+        GOAL_REACHED
+    }
+
+    /** An operator applied to e-classes, or an atom when there are no children. */
+    private static class ENode {
+        private String op;
+        private int[] children;
+
+        ENode(String op, int[] children) {
+            this.op = op;
+            this.children = children;
+        }
+    }
+
+    /** A pattern: a variable, or an operator applied to sub-patterns. */
+    private static class Pattern {
+        private String variable;
+        private BinaryOperation.Operator op;
+        private Pattern left;
+        private Pattern right;
+    }
+
+    private static class Rule {
+        private String name;
+        private Pattern lhs;
+        private Pattern rhs;
+
+        Rule(String name, Pattern lhs, Pattern rhs) {
+            this.name = name;
+            this.lhs = lhs;
+            this.rhs = rhs;
+        }
+
+        @Override
+        public String toString() {
+            return "Rule[" + name + "]";
+        }
+    }
+
+    private static final List<Rule> RULES = new ArrayList<>();
+
+    static {
+        BinaryOperation.Operator union = BinaryOperation.Operator.UNION;
+        BinaryOperation.Operator intersect = BinaryOperation.Operator.INTERSECT;
+        BinaryOperation.Operator minus = BinaryOperation.Operator.SETDIFF;
+        Pattern a = var("a");
+        Pattern b = var("b");
+        Pattern c = var("c");
+
+        for (BinaryOperation.Operator op : new BinaryOperation.Operator[] {union, intersect}) {
+            String name = op.name().toLowerCase();
+            rule(name + "-commutative", op(op, a, b), op(op, b, a));
+            rule(name + "-associative", op(op, op(op, a, b), c), op(op, a, op(op, b, c)));
+            rule(name + "-associative-reverse", op(op, a, op(op, b, c)), op(op, op(op, a, b), c));
+            rule(name + "-idempotent", op(op, a, a), a);
+        }
+        rule("absorption-union", op(union, a, op(intersect, a, b)), a);
+        rule("absorption-intersect", op(intersect, a, op(union, a, b)), a);
+        rule("distribute-intersect", op(intersect, a, op(union, b, c)), op(union, op(intersect, a, b), op(intersect, a, c)));
+        rule("distribute-union", op(union, a, op(intersect, b, c)), op(intersect, op(union, a, b), op(union, a, c)));
+        rule("factor-intersect", op(union, op(intersect, a, b), op(intersect, a, c)), op(intersect, a, op(union, b, c)));
+        rule("factor-union", op(intersect, op(union, a, b), op(union, a, c)), op(union, a, op(intersect, b, c)));
+        // De Morgan's laws for relative complement
+        rule("demorgan-union", op(minus, a, op(union, b, c)), op(intersect, op(minus, a, b), op(minus, a, c)));
+        rule("demorgan-intersect", op(minus, a, op(intersect, b, c)), op(union, op(minus, a, b), op(minus, a, c)));
+        rule("demorgan-union-reverse", op(intersect, op(minus, a, b), op(minus, a, c)), op(minus, a, op(union, b, c)));
+        rule("demorgan-intersect-reverse", op(union, op(minus, a, b), op(minus, a, c)), op(minus, a, op(intersect, b, c)));
+        rule("difference-twice", op(minus, op(minus, a, b), c), op(minus, a, op(union, b, c)));
+        rule("difference-intersect", op(intersect, a, op(minus, b, c)), op(minus, op(intersect, a, b), c));
+        rule("difference-absorb", op(intersect, a, op(minus, a, b)), op(minus, a, b));
+        rule("difference-union", op(union, a, op(minus, a, b)), a);
+    }
+
+    private List<ENode> nodes = new ArrayList<>();
+    private List<Integer> parent = new ArrayList<>();
+    private Map<String, Integer> memo = new HashMap<>();
+    private Map<String, Formula> atoms = new HashMap<>();
+    private int nodeLimit;
+    private int iterationLimit;
+    private int iterations;
+    private int matchLimit = DEFAULT_MATCH_LIMIT;
+    private int roundMatchLimit = DEFAULT_ROUND_MATCH_LIMIT;
+    private long timeLimitNanos = DEFAULT_TIME_LIMIT_MILLIS * 1_000_000L;
+
+    public EGraph() {
+        this(DEFAULT_NODE_LIMIT, DEFAULT_ITERATION_LIMIT);
+    }
+
+    public EGraph(int nodeLimit, int iterationLimit) {
+        this.nodeLimit = nodeLimit;
+        this.iterationLimit = iterationLimit;
+    }
+
+    /** Sets how many matches one rule may have in one round, and all rules together. */
+    public void setMatchLimits(int perRule, int perRound) {
+        this.matchLimit = perRule;
+        this.roundMatchLimit = perRound;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitNanos = timeLimitMillis * 1_000_000L;
+    }
+
+    /** Returns whether a formula is built with a set operator somewhere in it. */
+    public static boolean isSetExpression(Formula formula) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(formula);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            if (current instanceof BinaryOperation) {
+                BinaryOperation binary = (BinaryOperation) current;
+                if (isSetOperator(binary.getOperator())) {
+                    return true;
+                }
+                pending.push(binary.getRight());
+                pending.push(binary.getLeft());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a set term, returning its e-class. Anything that is not a set operation is an atom.
+     */
+    public int add(Formula term) {
+        // Post-order: an operation is pushed again, marked expanded, under its operands and
+        // added once their e-classes are on the results stack
+        Deque<Formula> pending = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        Deque<Integer> results = new ArrayDeque<>();
+        pending.push(term);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            boolean ready = expanded.pop();
+            if (!(current instanceof BinaryOperation && isSetOperator(((BinaryOperation) current).getOperator()))) {
+                String key = "atom:" + EquivalenceChecker.atomKey(current);
+                atoms.putIfAbsent(key, current);
+                results.push(add(new ENode(key, new int[0])));
+                continue;
+            }
+            BinaryOperation binary = (BinaryOperation) current;
+            if (!ready) {
+                pending.push(binary);
+                expanded.push(true);
+                pending.push(binary.getRight());
+                expanded.push(false);
+                pending.push(binary.getLeft());
+                expanded.push(false);
+                continue;
+            }
+            int right = results.pop();
+            int left = results.pop();
+            results.push(add(new ENode(binary.getOperator().name(), new int[] {left, right})));
+        }
+        return results.pop();
+    }
+
+    /**
+     * Records that two e-classes are equal.
+     */
+    public void union(int a, int b) {
+        int rootA = find(a);
+        int rootB = find(b);
+        if (rootA != rootB) {
+            parent.set(rootA, rootB);
+        }
+    }
+
+    public boolean equivalent(int a, int b) {
+        return find(a) == find(b);
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    /** Number of rounds run by the last call to saturate. */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Applies the rules until nothing changes or a limit is reached.
+     */
+    public Outcome saturate() {
+        return saturate(-1, -1);
+    }
+
+    /**
+     * Applies the rules until nothing changes, a limit is reached, or the two given e-classes
+     * become equal. Pass -1 for both classes to run without a goal.
+     *
+     * A round that drops matches over the match limits still applies the rest; if those
+     * change nothing either, saturation stops with MATCH_LIMIT rather than SATURATED.
+     */
+    public Outcome saturate(int goalA, int goalB) {
+        long deadline = System.nanoTime() + timeLimitNanos;
+        rebuild();
+        for (iterations = 0; iterations < iterationLimit; iterations++) {
+            if (goalA >= 0 && equivalent(goalA, goalB)) {
+                return Outcome.GOAL_REACHED;
+            }
+            int before = nodes.size();
+            // Match everything first, then apply, so one round sees a consistent graph
+            Map<Integer, List<Integer>> classes = classes();
+            List<Map<String, Integer>> bindings = new ArrayList<>();
+            List<int[]> merges = new ArrayList<>();
+            int roundMatches = 0;
+            boolean dropped = false;
+            for (Rule rule : RULES) {
+                int ruleMatches = 0;
+                for (int eclass : classes.keySet()) {
+                    int limit = Math.min(matchLimit - ruleMatches, roundMatchLimit - roundMatches);
+                    if (limit <= 0) {
+                        dropped = true;
+                        break;
+                    }
+                    bindings.clear();
+                    dropped |= match(rule.lhs, eclass, classes, new HashMap<>(), bindings, limit);
+                    ruleMatches += bindings.size();
+                    roundMatches += bindings.size();
+                    for (Map<String, Integer> binding : bindings) {
+                        int rewritten = instantiate(rule.rhs, binding);
+                        // A rewrite already in the matched e-class has nothing to merge
+                        if (!equivalent(eclass, rewritten)) {
+                            merges.add(new int[] {eclass, rewritten});
+                        }
+                        if (nodes.size() > nodeLimit) {
+                            return Outcome.NODE_LIMIT;
+                        }
+                    }
+                    if (System.nanoTime() > deadline) {
+                        return Outcome.TIME_LIMIT;
+                    }
+                }
+            }
+            boolean changed = nodes.size() > before;
+            for (int[] merge : merges) {
+                if (!equivalent(merge[0], merge[1])) {
+                    union(merge[0], merge[1]);
+                    changed = true;
+                }
+            }
+            rebuild();
+            if (!changed) {
+                if (goalA >= 0 && equivalent(goalA, goalB)) {
+                    return Outcome.GOAL_REACHED;
+                }
+                return dropped ? Outcome.MATCH_LIMIT : Outcome.SATURATED;
+            }
+        }
+        return goalA >= 0 && equivalent(goalA, goalB) ? Outcome.GOAL_REACHED : Outcome.ITERATION_LIMIT;
+    }
+
+    /**
+     * Returns the smallest term in an e-class, counting one per operator and atom.
+     */
+    public Formula extract(int eclass) {
+        Map<Integer, List<Integer>> classes = classes();
+        Map<Integer, Integer> cost = new HashMap<>();
+        Map<Integer, Integer> best = new HashMap<>();
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<Integer, List<Integer>> entry : classes.entrySet()) {
+                for (int id : entry.getValue()) {
+                    int nodeCost = 1;
+                    for (int child : nodes.get(id).children) {
+                        Integer childCost = cost.get(find(child));
+                        nodeCost = childCost == null ? Integer.MAX_VALUE : nodeCost + childCost;
+                        if (childCost == null) {
+                            break;
+                        }
+                    }
+                    Integer current = cost.get(entry.getKey());
+                    if (nodeCost != Integer.MAX_VALUE && (current == null || nodeCost < current)) {
+                        cost.put(entry.getKey(), nodeCost);
+                        best.put(entry.getKey(), id);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return build(find(eclass), best);
+    }
+
+    /**
+     * Checks whether a goal about sets follows from the premises by the set-algebra rules.
+     * Set equalities and subset facts among the premises (split at top-level conjunctions)
+     * are asserted first. The goal must be an equality of set expressions or a subset.
+     */
+    public static boolean entails(List<Formula> premises, Formula goal) {
+        if (!(goal instanceof BinaryOperation)) {
+            return false;
+        }
+        BinaryOperation relation = (BinaryOperation) goal;
+        boolean subset = relation.getOperator() == BinaryOperation.Operator.SUBSET;
+        boolean equality = relation.getOperator() == BinaryOperation.Operator.EQ
+                && (isSetExpression(relation.getLeft()) || isSetExpression(relation.getRight()));
+        if (!subset && !equality) {
+            return false;
+        }
+
+        EGraph graph = new EGraph();
+        List<Formula> facts = new ArrayList<>();
+        for (Formula premise : premises) {
+            collectFacts(premise, facts);
+        }
+        for (Formula fact : facts) {
+            graph.assertFact((BinaryOperation) fact);
+        }
+        int left = graph.add(relation.getLeft());
+        // A subset B exactly when A intersect B = A
+        int right = subset
+                ? graph.add(new BinaryOperation(relation.getLeft(), BinaryOperation.Operator.INTERSECT, relation.getRight()))
+                : graph.add(relation.getRight());
+        return graph.saturate(left, right) == Outcome.GOAL_REACHED;
+    }
+
+    private void assertFact(BinaryOperation fact) {
+        int left = add(fact.getLeft());
+        if (fact.getOperator() == BinaryOperation.Operator.SUBSET) {
+            union(left, add(new BinaryOperation(fact.getLeft(), BinaryOperation.Operator.INTERSECT, fact.getRight())));
+        } else {
+            union(left, add(fact.getRight()));
+        }
+    }
+
+    private static void collectFacts(Formula premise, List<Formula> facts) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(premise);
+        while (!pending.isEmpty()) {
+            Formula formula = pending.pop();
+            if (!(formula instanceof BinaryOperation)) {
+                continue;
+            }
+            BinaryOperation binary = (BinaryOperation) formula;
+            switch (binary.getOperator()) {
+                case AND:
+                    pending.push(binary.getRight());
+                    pending.push(binary.getLeft());
+                    break;
+                case EQ:
+                case SUBSET:
+                    facts.add(formula);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static boolean isSetOperator(BinaryOperation.Operator operator) {
+        return operator == BinaryOperation.Operator.UNION
+                || operator == BinaryOperation.Operator.INTERSECT
+                || operator == BinaryOperation.Operator.SETDIFF;
+    }
+
+    private int add(ENode node) {
+        canonicalize(node);
+        String key = key(node);
+        Integer existing = memo.get(key);
+        if (existing != null) {
+            return find(existing);
+        }
+        int id = nodes.size();
+        nodes.add(node);
+        parent.add(id);
+        memo.put(key, id);
+        return id;
+    }
+
+    private int find(int eclass) {
+        int root = eclass;
+        while (parent.get(root) != root) {
+            root = parent.get(root);
+        }
+        while (parent.get(eclass) != root) {
+            int next = parent.get(eclass);
+            parent.set(eclass, root);
+            eclass = next;
+        }
+        return root;
+    }
+
+    private void canonicalize(ENode node) {
+        for (int i = 0; i < node.children.length; i++) {
+            node.children[i] = find(node.children[i]);
+        }
+    }
+
+    private static String key(ENode node) {
+        return node.op + Arrays.toString(node.children);
+    }
+
+    /**
+     * Restores the invariant that equal e-nodes are in the same e-class: merging classes
+     * can make two nodes' children identical, in which case their classes merge too.
+     */
+    private void rebuild() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            memo.clear();
+            for (int id = 0; id < nodes.size(); id++) {
+                ENode node = nodes.get(id);
+                canonicalize(node);
+                Integer existing = memo.putIfAbsent(key(node), id);
+                if (existing != null && !equivalent(existing, id)) {
+                    union(existing, id);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /** Groups the e-nodes by the root of their e-class. */
+    private Map<Integer, List<Integer>> classes() {
+        Map<Integer, List<Integer>> classes = new LinkedHashMap<>();
+        for (int id = 0; id < nodes.size(); id++) {
+            classes.computeIfAbsent(find(id), k -> new ArrayList<>()).add(id);
+        }
+        return classes;
+    }
+
+    /**
+     * Adds to results every extension of the binding under which the pattern matches a term
+     * of the e-class, until results holds limit bindings.
+     *
+     * @return Whether matches were left out because of the limit.
+     */
+    private boolean match(Pattern pattern, int eclass, Map<Integer, List<Integer>> classes,
+                          Map<String, Integer> binding, List<Map<String, Integer>> results, int limit) {
+        if (results.size() >= limit) {
+            return true;
+        }
+        if (pattern.variable != null) {
+            Integer bound = binding.get(pattern.variable);
+            if (bound == null) {
+                Map<String, Integer> extended = new HashMap<>(binding);
+                extended.put(pattern.variable, eclass);
+                results.add(extended);
+            } else if (find(bound) == eclass) {
+                results.add(binding);
+            }
+            return false;
+        }
+        String op = pattern.op.name();
+        boolean dropped = false;
+        for (int id : classes.get(eclass)) {
+            if (results.size() >= limit) {
+                return true;
+            }
+            ENode node = nodes.get(id);
+            if (!node.op.equals(op)) {
+                continue;
+            }
+            List<Map<String, Integer>> lefts = new ArrayList<>();
+            dropped |= match(pattern.left, find(node.children[0]), classes, binding, lefts, limit - results.size());
+            for (Map<String, Integer> left : lefts) {
+                dropped |= match(pattern.right, find(node.children[1]), classes, left, results, limit);
+            }
+        }
+        return dropped;
+    }
+
+    private int instantiate(Pattern pattern, Map<String, Integer> binding) {
+        if (pattern.variable != null) {
+            return binding.get(pattern.variable);
+        }
+        int left = instantiate(pattern.left, binding);
+        int right = instantiate(pattern.right, binding);
+        return add(new ENode(pattern.op.name(), new int[] {left, right}));
+    }
+
+    private Formula build(int eclass, Map<Integer, Integer> best) {
+        // Post-order over the chosen e-nodes; a negative entry stands for an e-class whose
+        // operands are built and waiting on the results stack
+        Deque<Integer> pending = new ArrayDeque<>();
+        Deque<Formula> results = new ArrayDeque<>();
+        pending.push(eclass);
+        while (!pending.isEmpty()) {
+            int next = pending.pop();
+            ENode node = nodes.get(best.get(next < 0 ? ~next : next));
+            if (node.children.length == 0) {
+                results.push(atoms.get(node.op));
+            } else if (next < 0) {
+                Formula right = results.pop();
+                Formula left = results.pop();
+                results.push(new BinaryOperation(left, BinaryOperation.Operator.valueOf(node.op), right));
+            } else {
+                pending.push(~next);
+                pending.push(find(node.children[1]));
+                pending.push(find(node.children[0]));
+            }
+        }
+        return results.pop();
+    }
+
+    private static Pattern var(String name) {
+        Pattern pattern = new Pattern();
+        pattern.variable = name;
+        return pattern;
+    }
+
+    private static Pattern op(BinaryOperation.Operator op, Pattern left, Pattern right) {
+        Pattern pattern = new Pattern();
+        pattern.op = op;
+        pattern.left = left;
+        pattern.right = right;
+        return pattern;
+    }
+
+    private static void rule(String name, Pattern lhs, Pattern rhs) {
+        RULES.add(new Rule(name, lhs, rhs));
+    }
+}
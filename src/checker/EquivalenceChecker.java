@@ -0,0 +1,276 @@
+package checker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import ast.*;
+
+/**
+ * Decides propositional equivalence of LEPA formulas using a shared BDD manager.
+ *
+ * Formulas are reduced to their propositional skeleton: the connectives of
+ * BinaryOperation (AND, OR, IMPLIES, IFF) and UnaryOperation (NOT) become BDD operations,
+ * and everything else (identifiers, predicates, equalities, memberships, quantified
+ * formulas) becomes an atom. Because BDD nodes are canonical, two formulas are equivalent
+ * exactly when they translate to the same node.
+ */
+public class EquivalenceChecker {
+    private BddManager bdd;
+    // Obligations with at least this many atoms go to cube-and-conquer; 0 for never
+    private int cubeThreshold = Integer.getInteger("lepa.cubeAndConquer", 0);
+
+    public EquivalenceChecker() {
+        this(new BddManager());
+    }
+
+    public EquivalenceChecker(BddManager bdd) {
+        this.bdd = bdd;
+    }
+
+    public BddManager getManager() {
+        return bdd;
+    }
+
+    /**
+     * Sends {@link #implies} obligations with at least this many atoms to
+     * {@link CubeAndConquer}, which splits them over the common pool, instead of building
+     * their BDD. 0 turns this off; -Dlepa.cubeAndConquer=N sets it for new checkers.
+     */
+    public void setCubeThreshold(int atoms) {
+        this.cubeThreshold = atoms;
+    }
+
+    /**
+     * Translates a formula into a BDD over its atoms.
+     */
+    public BddManager.Node toBdd(Formula formula) {
+        return formula.accept(new BddTranslator());
+    }
+
+    /**
+     * Returns the atom name used for a non-connective formula. Negated relations
+     * (NEQ, NOTIN) map to the key of their positive counterpart.
+     */
+    public static String atomKey(Formula formula) {
+        if (formula instanceof Identifier) {
+            return ((Identifier) formula).getName();
+        }
+        if (formula instanceof BinaryOperation) {
+            BinaryOperation binary = (BinaryOperation) formula;
+            if (binary.getOperator() == BinaryOperation.Operator.NEQ) {
+                return new BinaryOperation(binary.getLeft(), BinaryOperation.Operator.EQ, binary.getRight()).toString();
+            }
+            if (binary.getOperator() == BinaryOperation.Operator.NOTIN) {
+                return new BinaryOperation(binary.getLeft(), BinaryOperation.Operator.IN, binary.getRight()).toString();
+            }
+        }
+        return formula.toString();
+    }
+
+    public boolean equivalent(Formula a, Formula b) {
+        return toBdd(a) == toBdd(b);
+    }
+
+    public boolean isTautology(Formula formula) {
+        return toBdd(formula) == bdd.one();
+    }
+
+    /**
+     * Checks whether the conjunction of the premises propositionally implies the goal.
+     */
+    public boolean implies(List<Formula> premises, Formula goal) {
+        if (cubeThreshold > 0 && CubeAndConquer.atomCount(premises, goal) >= cubeThreshold) {
+            return new CubeAndConquer().check(premises, goal).isValid();
+        }
+        BddManager.Node antecedent = bdd.one();
+        for (Formula premise : premises) {
+            antecedent = bdd.and(antecedent, toBdd(premise));
+        }
+        return bdd.implies(antecedent, toBdd(goal)) == bdd.one();
+    }
+
+    /**
+     * Returns an assignment to the atoms that falsifies the formula, or null if it is a tautology.
+     */
+    public Map<String, Boolean> counterexample(Formula formula) {
+        return bdd.counterexample(toBdd(formula));
+    }
+
+    /**
+     * Checks an A <-> B step: both sides must be propositionally equivalent.
+     * Steps that are not biconditionals are accepted unchanged.
+     */
+    public boolean checkIffStep(ProofStep step) {
+        Formula formula = step.getFormula();
+        if (!(formula instanceof BinaryOperation)) {
+            return true;
+        }
+        BinaryOperation binary = (BinaryOperation) formula;
+        if (binary.getOperator() != BinaryOperation.Operator.IFF) {
+            return true;
+        }
+        return equivalent(binary.getLeft(), binary.getRight());
+    }
+
+    /**
+     * Checks whether a 'therefore' line establishes the theorem goal, up to equivalence.
+     * Assumptions open at that point discharge into an implication, so
+     * "assume P. therefore Q." matches a goal equivalent to P -> Q.
+     */
+    public boolean matchesGoal(Formula goal, List<Formula> openAssumptions, Formula conclusion) {
+        BddManager.Node target = toBdd(goal);
+        BddManager.Node established = toBdd(conclusion);
+        if (openAssumptions.isEmpty()) {
+            return established == target;
+        }
+        BddManager.Node antecedent = bdd.one();
+        for (Formula assumption : openAssumptions) {
+            antecedent = bdd.and(antecedent, toBdd(assumption));
+        }
+        return bdd.implies(antecedent, established) == target;
+    }
+
+    /**
+     * Checks whether what a proof ends with implies the theorem goal. Assumptions still
+     * open discharge as in {@link #matchesGoal}; an empty proof establishes only true.
+     */
+    public boolean establishesGoal(Formula goal, List<Formula> openAssumptions, Formula conclusion) {
+        BddManager.Node antecedent = bdd.one();
+        for (Formula assumption : openAssumptions) {
+            antecedent = bdd.and(antecedent, toBdd(assumption));
+        }
+        BddManager.Node established = bdd.implies(antecedent, toBdd(conclusion));
+        return bdd.implies(established, toBdd(goal)) == bdd.one();
+    }
+
+    /**
+     * Checks the IFF steps of a theorem and its 'therefore' lines against the goal. A proof
+     * without a 'therefore' line must instead end with a step that implies the goal.
+     *
+     * @return A list of problems found; empty if the theorem passes both checks.
+     */
+    public List<String> checkTheorem(TheoremDecl theorem) {
+        List<String> problems = new ArrayList<>();
+        List<Formula> assumptions = new ArrayList<>();
+        boolean hasTherefore = false;
+        boolean goalMatched = false;
+        int index = 0;
+
+        for (ProofStep step : theorem.getProofSteps()) {
+            index++;
+            if (step.isAssumption()) {
+                assumptions.add(step.getFormula());
+                continue;
+            }
+            if (step.isEnd()) {
+                // A closed block's assumption no longer discharges into the goal
+                if (!assumptions.isEmpty()) {
+                    assumptions.remove(assumptions.size() - 1);
+                }
+                continue;
+            }
+            if (!checkIffStep(step)) {
+                problems.add("Step " + index + ": sides of the biconditional are not equivalent (counterexample: "
+                        + counterexample(step.getFormula()) + ")");
+            }
+            if (step.isTherefore()) {
+                hasTherefore = true;
+                if (matchesGoal(theorem.getTheorem(), assumptions, step.getFormula())) {
+                    goalMatched = true;
+                }
+            }
+        }
+
+        if (hasTherefore && !goalMatched) {
+            problems.add("No 'therefore' line is equivalent to the goal of theorem " + theorem.getName());
+        } else if (!hasTherefore) {
+            Formula last = index == 0 ? new BooleanLiteral(true) : theorem.getConclusion(index);
+            if (!establishesGoal(theorem.getTheorem(), assumptions, last)) {
+                problems.add("The last step does not establish the goal of theorem " + theorem.getName());
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Builds the BDD of a formula bottom up. Only connectives are looked into; any other
+     * formula is an atom, and its parts are not visited.
+     */
+    private class BddTranslator implements FormulaVisitor<BddManager.Node> {
+
+        @Override
+        public boolean visitsChildren(Formula formula) {
+            if (formula instanceof UnaryOperation) {
+                return true;
+            }
+            if (formula instanceof BinaryOperation) {
+                switch (((BinaryOperation) formula).getOperator()) {
+                    case AND:
+                    case OR:
+                    case IMPLIES:
+                    case IFF:
+                        return true;
+                    default:
+                        return false;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public BddManager.Node visitBinaryOperation(BinaryOperation formula, BddManager.Node left, BddManager.Node right) {
+            switch (formula.getOperator()) {
+                case AND:
+                    return bdd.and(left, right);
+                case OR:
+                    return bdd.or(left, right);
+                case IMPLIES:
+                    return bdd.implies(left, right);
+                case IFF:
+                    return bdd.iff(left, right);
+                case NEQ:
+                case NOTIN:
+                    // a != b and a notin B share an atom with their positive forms
+                    return bdd.not(bdd.var(atomKey(formula)));
+                default:
+                    return bdd.var(atomKey(formula));
+            }
+        }
+
+        @Override
+        public BddManager.Node visitUnaryOperation(UnaryOperation formula, BddManager.Node operand) {
+            return bdd.not(operand);
+        }
+
+        @Override
+        public BddManager.Node visitQuantifier(Quantifier formula, List<BddManager.Node> variables, BddManager.Node body) {
+            return bdd.var(atomKey(formula));
+        }
+
+        @Override
+        public BddManager.Node visitFunctionCall(FunctionCall formula, List<BddManager.Node> arguments) {
+            return bdd.var(atomKey(formula));
+        }
+
+        @Override
+        public BddManager.Node visitSetLiteral(SetLiteral formula, List<BddManager.Node> elements) {
+            return bdd.var(atomKey(formula));
+        }
+
+        @Override
+        public BddManager.Node visitIdentifier(Identifier formula) {
+            return bdd.var(atomKey(formula));
+        }
+
+        @Override
+        public BddManager.Node visitBooleanLiteral(BooleanLiteral formula) {
+            return bdd.constant(formula.getValue());
+        }
+
+        @Override
+        public BddManager.Node visitNumberLiteral(NumberLiteral formula) {
+            return bdd.var(atomKey(formula));
+        }
+    }
+}
@@ -0,0 +1,871 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.UnaryOperator;
+
+import ast.*;
+
+/**
+ * A bounded first-order prover based on given-clause resolution.
+ *
+ * To show that premises imply a goal, the premises and the negated goal are turned into
+ * clauses: negations are pushed inward, existential variables become Skolem functions of
+ * the universal variables around them, and the result is put in conjunctive normal form.
+ * Predicates are identifiers used as formulas, function calls used as formulas, and
+ * relations such as EQ or IN between terms; equality gets no special treatment.
+ *
+ * The search keeps a passive queue ordered by clause size and an active set. The smallest
+ * passive clause is resolved against every active clause and factored, and new clauses
+ * that are tautologies or subsumed by an active clause are dropped. Deriving the empty
+ * clause proves the goal; running out of clauses means it does not follow.
+ *
+ * The search is bounded by term depth, number of clauses kept, wall time and heap growth,
+ * and can be cancelled from another thread. The {@link Result} says which limit, if any,
+ * stopped it.
+ */
+public class FirstOrderProver {
+    /** Default maximum nesting depth of terms in kept clauses. */
+    public static final int DEFAULT_DEPTH_LIMIT = 6;
+
+    /** Default maximum number of clauses kept. */
+    public static final int DEFAULT_CLAUSE_LIMIT = 5_000;
+
+    /** Default wall-time budget, in milliseconds. */
+    public static final long DEFAULT_TIME_LIMIT_MILLIS = 2_000;
+
+    /** Default budget for heap growth during one search, in bytes. */
+    public static final long DEFAULT_HEAP_LIMIT_BYTES = 64L * 1024 * 1024;
+
+    /** How many given clauses are processed between checks of the time, heap and cancel flag. */
+    private static final int LIMIT_CHECK_INTERVAL = 16;
+
+    /** How a search ended. */
+    public enum Outcome {
+        PROVED,
+        NOT_PROVABLE,
+        DEPTH_LIMIT,
+        CLAUSE_LIMIT,
+        TIME_LIMIT,
+        HEAP_LIMIT,
+        CANCELLED
+    }
+
+    /**
+     * The outcome of a search and what it cost.
+     */
+    public static class Result {
+        private Outcome outcome;
+        private int clauses;
+        private long elapsedNanos;
+
+        Result(Outcome outcome, int clauses, long elapsedNanos) {
+            this.outcome = outcome;
+            this.clauses = clauses;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+
+        public boolean isProved() {
+            return outcome == Outcome.PROVED;
+        }
+
+        /** Number of clauses kept during the search. */
+        public int getClauses() {
+            return clauses;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return outcome + " after " + clauses + " clauses";
+        }
+    }
+
+    /** A variable, or a function applied to terms; constants are functions with no arguments. */
+    private static class Term {
+        private String name;
+        private boolean variable;
+        private Term[] args;
+
+        Term(String name, boolean variable, Term[] args) {
+            this.name = name;
+            this.variable = variable;
+            this.args = args;
+        }
+
+        int depth() {
+            int depth = 0;
+            Deque<Term> pending = new ArrayDeque<>();
+            Deque<Integer> levels = new ArrayDeque<>();
+            pending.push(this);
+            levels.push(1);
+            while (!pending.isEmpty()) {
+                Term term = pending.pop();
+                int level = levels.pop();
+                depth = Math.max(depth, level);
+                for (Term arg : term.args) {
+                    pending.push(arg);
+                    levels.push(level + 1);
+                }
+            }
+            return depth;
+        }
+
+        @Override
+        public String toString() {
+            // Terms still to print, and the separators and closing parentheses between them
+            StringBuilder text = new StringBuilder();
+            Deque<Object> pending = new ArrayDeque<>();
+            pending.push(this);
+            while (!pending.isEmpty()) {
+                Object next = pending.pop();
+                if (next instanceof String) {
+                    text.append((String) next);
+                    continue;
+                }
+                Term term = (Term) next;
+                text.append(term.name);
+                if (term.args.length == 0) {
+                    continue;
+                }
+                text.append('(');
+                pending.push(")");
+                for (int i = term.args.length - 1; i >= 0; i--) {
+                    pending.push(term.args[i]);
+                    if (i > 0) {
+                        pending.push(", ");
+                    }
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    /** A possibly negated predicate applied to terms. */
+    private static class Literal {
+        private boolean positive;
+        private Term atom;
+
+        Literal(boolean positive, Term atom) {
+            this.positive = positive;
+            this.atom = atom;
+        }
+
+        @Override
+        public String toString() {
+            return (positive ? "" : "~") + atom;
+        }
+    }
+
+    /** A disjunction of literals. */
+    private static class Clause {
+        private List<Literal> literals;
+        private int weight;
+
+        Clause(List<Literal> literals) {
+            this.literals = literals;
+            for (Literal literal : literals) {
+                weight += size(literal.atom);
+            }
+        }
+
+        @Override
+        public String toString() {
+            return literals.toString();
+        }
+    }
+
+    /** Thrown inside clausification when the clause limit is hit. */
+    private static class LimitReached extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private Outcome outcome;
+
+        LimitReached(Outcome outcome) {
+            super(outcome.name(), null, false, false);
+            this.outcome = outcome;
+        }
+    }
+
+    /**
+     * A formula waiting in {@link #cnf}, with the sign it is clausified under and the names
+     * bound around it. Once expanded, the clauses of its two sides are on the results stack
+     * and are conjoined or disjoined.
+     */
+    private static class Clausification {
+        private Formula formula;
+        private boolean positive;
+        private Map<String, Term> bound;
+        private List<Term> universals;
+        private boolean expanded;
+        private boolean conjunction;
+
+        Clausification(Formula formula, boolean positive, Map<String, Term> bound, List<Term> universals) {
+            this.formula = formula;
+            this.positive = positive;
+            this.bound = bound;
+            this.universals = universals;
+        }
+    }
+
+    private int depthLimit = DEFAULT_DEPTH_LIMIT;
+    private int clauseLimit = DEFAULT_CLAUSE_LIMIT;
+    private long timeLimitNanos = DEFAULT_TIME_LIMIT_MILLIS * 1_000_000L;
+    private long heapLimitBytes = DEFAULT_HEAP_LIMIT_BYTES;
+    private volatile boolean cancelled;
+    private int freshNames;
+
+    public void setDepthLimit(int depthLimit) {
+        this.depthLimit = depthLimit;
+    }
+
+    public void setClauseLimit(int clauseLimit) {
+        this.clauseLimit = clauseLimit;
+    }
+
+    public void setTimeLimitMillis(long timeLimitMillis) {
+        this.timeLimitNanos = timeLimitMillis * 1_000_000L;
+    }
+
+    public void setHeapLimitBytes(long heapLimitBytes) {
+        this.heapLimitBytes = heapLimitBytes;
+    }
+
+    /**
+     * Asks a running search to stop at its next check. Safe to call from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Returns whether a formula contains a quantifier anywhere. */
+    public static boolean isFirstOrder(Formula formula) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(formula);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            if (current instanceof Quantifier) {
+                return true;
+            }
+            if (current instanceof UnaryOperation) {
+                pending.push(((UnaryOperation) current).getOperand());
+            } else if (current instanceof BinaryOperation) {
+                pending.push(((BinaryOperation) current).getRight());
+                pending.push(((BinaryOperation) current).getLeft());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Searches for a refutation of the premises together with the negated goal.
+     */
+    public Result prove(List<Formula> premises, Formula goal) {
+        long start = System.nanoTime();
+        cancelled = false;
+        freshNames = 0;
+        List<Clause> input = new ArrayList<>();
+        try {
+            for (Formula premise : premises) {
+                addClauses(premise, true, input);
+            }
+            addClauses(goal, false, input);
+            return search(input, start);
+        } catch (LimitReached e) {
+            return new Result(e.outcome, input.size(), System.nanoTime() - start);
+        }
+    }
+
+    private Result search(List<Clause> input, long start) {
+        long deadline = start + timeLimitNanos;
+        long heapStart = usedHeap();
+        boolean depthLimited = false;
+
+        PriorityQueue<Clause> passive = new PriorityQueue<>((a, b) -> Integer.compare(a.weight, b.weight));
+        List<Clause> active = new ArrayList<>();
+        int kept = 0;
+        for (Clause clause : input) {
+            if (clause.literals.isEmpty()) {
+                return new Result(Outcome.PROVED, input.size(), System.nanoTime() - start);
+            }
+            if (!isTautology(clause)) {
+                passive.add(clause);
+                kept++;
+            }
+        }
+
+        int processed = 0;
+        while (!passive.isEmpty()) {
+            if (++processed % LIMIT_CHECK_INTERVAL == 0) {
+                Outcome stop = checkLimits(deadline, heapStart);
+                if (stop != null) {
+                    return new Result(stop, kept, System.nanoTime() - start);
+                }
+            }
+
+            Clause given = passive.poll();
+            if (isSubsumed(given, active)) {
+                continue;
+            }
+            active.add(given);
+
+            List<Clause> inferred = new ArrayList<>();
+            for (Clause other : active) {
+                resolve(given, rename(other), inferred);
+            }
+            factor(given, inferred);
+
+            for (Clause clause : inferred) {
+                if (clause.literals.isEmpty()) {
+                    return new Result(Outcome.PROVED, kept, System.nanoTime() - start);
+                }
+                if (isTautology(clause) || isSubsumed(clause, active)) {
+                    continue;
+                }
+                if (depth(clause) > depthLimit) {
+                    depthLimited = true;
+                    continue;
+                }
+                passive.add(clause);
+                if (++kept > clauseLimit) {
+                    return new Result(Outcome.CLAUSE_LIMIT, kept, System.nanoTime() - start);
+                }
+            }
+        }
+        // Saturation without the empty clause is only conclusive if nothing was dropped
+        Outcome outcome = depthLimited ? Outcome.DEPTH_LIMIT : Outcome.NOT_PROVABLE;
+        return new Result(outcome, kept, System.nanoTime() - start);
+    }
+
+    private Outcome checkLimits(long deadline, long heapStart) {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            return Outcome.CANCELLED;
+        }
+        if (System.nanoTime() > deadline) {
+            return Outcome.TIME_LIMIT;
+        }
+        if (usedHeap() - heapStart > heapLimitBytes) {
+            return Outcome.HEAP_LIMIT;
+        }
+        return null;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Adds all binary resolvents of two clauses, which must not share variables.
+     */
+    private void resolve(Clause a, Clause b, List<Clause> result) {
+        for (int i = 0; i < a.literals.size(); i++) {
+            Literal left = a.literals.get(i);
+            for (int j = 0; j < b.literals.size(); j++) {
+                Literal right = b.literals.get(j);
+                if (left.positive == right.positive) {
+                    continue;
+                }
+                Map<String, Term> substitution = new HashMap<>();
+                if (!unify(left.atom, right.atom, substitution)) {
+                    continue;
+                }
+                List<Literal> literals = new ArrayList<>();
+                for (int k = 0; k < a.literals.size(); k++) {
+                    if (k != i) {
+                        addLiteral(literals, substitute(a.literals.get(k), substitution));
+                    }
+                }
+                for (int k = 0; k < b.literals.size(); k++) {
+                    if (k != j) {
+                        addLiteral(literals, substitute(b.literals.get(k), substitution));
+                    }
+                }
+                result.add(new Clause(literals));
+            }
+        }
+    }
+
+    /**
+     * Adds the factors of a clause: two unifiable literals of the same sign merged into one.
+     */
+    private void factor(Clause clause, List<Clause> result) {
+        for (int i = 0; i < clause.literals.size(); i++) {
+            for (int j = i + 1; j < clause.literals.size(); j++) {
+                Literal first = clause.literals.get(i);
+                Literal second = clause.literals.get(j);
+                Map<String, Term> substitution = new HashMap<>();
+                if (first.positive != second.positive || !unify(first.atom, second.atom, substitution)) {
+                    continue;
+                }
+                List<Literal> literals = new ArrayList<>();
+                for (Literal literal : clause.literals) {
+                    addLiteral(literals, substitute(literal, substitution));
+                }
+                result.add(new Clause(literals));
+            }
+        }
+    }
+
+    private static void addLiteral(List<Literal> literals, Literal literal) {
+        String text = literal.toString();
+        for (Literal existing : literals) {
+            if (existing.toString().equals(text)) {
+                return;
+            }
+        }
+        literals.add(literal);
+    }
+
+    private static boolean isTautology(Clause clause) {
+        for (Literal a : clause.literals) {
+            for (Literal b : clause.literals) {
+                if (a.positive && !b.positive && a.atom.toString().equals(b.atom.toString())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static int depth(Clause clause) {
+        int depth = 0;
+        for (Literal literal : clause.literals) {
+            depth = Math.max(depth, literal.atom.depth() - 1);
+        }
+        return depth;
+    }
+
+    private static int size(Term term) {
+        int size = 0;
+        Deque<Term> pending = new ArrayDeque<>();
+        pending.push(term);
+        while (!pending.isEmpty()) {
+            size++;
+            for (Term arg : pending.pop().args) {
+                pending.push(arg);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns whether some active clause subsumes the clause: some substitution maps each
+     * of its literals onto a literal of the clause.
+     */
+    private static boolean isSubsumed(Clause clause, List<Clause> active) {
+        for (Clause other : active) {
+            if (other.literals.size() <= clause.literals.size()
+                    && subsumes(other.literals, clause.literals)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Backtracking search for a substitution mapping every literal of general onto one of
+     * specific. bindings holds the substitution in force before each literal of general is
+     * matched, and next the position in specific to try for it.
+     */
+    private static boolean subsumes(List<Literal> general, List<Literal> specific) {
+        List<Map<String, Term>> bindings = new ArrayList<>();
+        bindings.add(new HashMap<>());
+        int[] next = new int[general.size() + 1];
+        int index = 0;
+        while (index >= 0) {
+            if (index == general.size()) {
+                return true;
+            }
+            Literal literal = general.get(index);
+            boolean matched = false;
+            while (next[index] < specific.size() && !matched) {
+                Literal candidate = specific.get(next[index]++);
+                if (candidate.positive != literal.positive) {
+                    continue;
+                }
+                Map<String, Term> extended = new HashMap<>(bindings.get(index));
+                if (match(literal.atom, candidate.atom, extended)) {
+                    bindings.subList(index + 1, bindings.size()).clear();
+                    bindings.add(extended);
+                    matched = true;
+                }
+            }
+            if (matched) {
+                index++;
+                next[index] = 0;
+            } else {
+                index--;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * One-way matching: extends the substitution so the pattern becomes the target, binding
+     * only the pattern's variables.
+     */
+    private static boolean match(Term pattern, Term target, Map<String, Term> substitution) {
+        Deque<Term> patterns = new ArrayDeque<>();
+        Deque<Term> targets = new ArrayDeque<>();
+        patterns.push(pattern);
+        targets.push(target);
+        while (!patterns.isEmpty()) {
+            Term p = patterns.pop();
+            Term t = targets.pop();
+            if (p.variable) {
+                Term bound = substitution.get(p.name);
+                if (bound == null) {
+                    substitution.put(p.name, t);
+                } else if (!bound.toString().equals(t.toString())) {
+                    return false;
+                }
+                continue;
+            }
+            if (t.variable || !p.name.equals(t.name) || p.args.length != t.args.length) {
+                return false;
+            }
+            for (int i = p.args.length - 1; i >= 0; i--) {
+                patterns.push(p.args[i]);
+                targets.push(t.args[i]);
+            }
+        }
+        return true;
+    }
+
+    private static boolean unify(Term a, Term b, Map<String, Term> substitution) {
+        Deque<Term> lefts = new ArrayDeque<>();
+        Deque<Term> rights = new ArrayDeque<>();
+        lefts.push(a);
+        rights.push(b);
+        while (!lefts.isEmpty()) {
+            Term left = resolveBinding(lefts.pop(), substitution);
+            Term right = resolveBinding(rights.pop(), substitution);
+            if (left.variable && right.variable && left.name.equals(right.name)) {
+                continue;
+            }
+            if (left.variable || right.variable) {
+                if (left.variable ? !bind(left, right, substitution) : !bind(right, left, substitution)) {
+                    return false;
+                }
+                continue;
+            }
+            if (!left.name.equals(right.name) || left.args.length != right.args.length) {
+                return false;
+            }
+            for (int i = left.args.length - 1; i >= 0; i--) {
+                lefts.push(left.args[i]);
+                rights.push(right.args[i]);
+            }
+        }
+        return true;
+    }
+
+    private static boolean bind(Term variable, Term term, Map<String, Term> substitution) {
+        if (occurs(variable.name, term, substitution)) {
+            return false;
+        }
+        substitution.put(variable.name, term);
+        return true;
+    }
+
+    private static boolean occurs(String variable, Term term, Map<String, Term> substitution) {
+        Deque<Term> pending = new ArrayDeque<>();
+        pending.push(term);
+        while (!pending.isEmpty()) {
+            Term current = resolveBinding(pending.pop(), substitution);
+            if (current.variable) {
+                if (current.name.equals(variable)) {
+                    return true;
+                }
+                continue;
+            }
+            for (Term arg : current.args) {
+                pending.push(arg);
+            }
+        }
+        return false;
+    }
+
+    private static Term resolveBinding(Term term, Map<String, Term> substitution) {
+        while (term.variable && substitution.containsKey(term.name)) {
+            term = substitution.get(term.name);
+        }
+        return term;
+    }
+
+    private static Literal substitute(Literal literal, Map<String, Term> substitution) {
+        return new Literal(literal.positive, substitute(literal.atom, substitution));
+    }
+
+    private static Term substitute(Term term, Map<String, Term> substitution) {
+        return rebuild(term, t -> resolveBinding(t, substitution));
+    }
+
+    /**
+     * Renames a clause's variables apart from every variable used so far.
+     */
+    private Clause rename(Clause clause) {
+        Map<String, Term> renaming = new HashMap<>();
+        List<Literal> literals = new ArrayList<>();
+        for (Literal literal : clause.literals) {
+            literals.add(new Literal(literal.positive, rename(literal.atom, renaming)));
+        }
+        return new Clause(literals);
+    }
+
+    private Term rename(Term term, Map<String, Term> renaming) {
+        return rebuild(term, t -> t.variable
+                ? renaming.computeIfAbsent(t.name, name -> new Term("_V" + freshNames++, true, new Term[0]))
+                : t);
+    }
+
+    /**
+     * Maps each node of a term through step, top down, and rebuilds the applications it
+     * returns from their mapped arguments. Variables and constants step returns are kept.
+     */
+    private static Term rebuild(Term term, UnaryOperator<Term> step) {
+        Deque<Term> pending = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        Deque<Term> results = new ArrayDeque<>();
+        pending.push(term);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            Term current = pending.pop();
+            if (expanded.pop()) {
+                Term[] args = new Term[current.args.length];
+                for (int i = args.length - 1; i >= 0; i--) {
+                    args[i] = results.pop();
+                }
+                results.push(new Term(current.name, false, args));
+                continue;
+            }
+            current = step.apply(current);
+            if (current.variable || current.args.length == 0) {
+                results.push(current);
+                continue;
+            }
+            pending.push(current);
+            expanded.push(true);
+            for (int i = current.args.length - 1; i >= 0; i--) {
+                pending.push(current.args[i]);
+                expanded.push(false);
+            }
+        }
+        return results.pop();
+    }
+
+    private void addClauses(Formula formula, boolean positive, List<Clause> clauses) {
+        for (List<Literal> literals : cnf(formula, positive)) {
+            clauses.add(new Clause(literals));
+            if (clauses.size() > clauseLimit) {
+                throw new LimitReached(Outcome.CLAUSE_LIMIT);
+            }
+        }
+    }
+
+    /**
+     * Converts a formula, or its negation when positive is false, into clauses. Bound names
+     * map to variables or Skolem terms; universals are the variables in scope. The left side
+     * of a connective is clausified first, so fresh names are numbered left to right.
+     */
+    private List<List<Literal>> cnf(Formula formula, boolean positive) {
+        Deque<Clausification> pending = new ArrayDeque<>();
+        Deque<List<List<Literal>>> results = new ArrayDeque<>();
+        pending.push(new Clausification(formula, positive, new HashMap<>(), new ArrayList<>()));
+        while (!pending.isEmpty()) {
+            Clausification node = pending.pop();
+            if (node.expanded) {
+                List<List<Literal>> right = results.pop();
+                List<List<Literal>> left = results.pop();
+                results.push(node.conjunction ? conjoin(left, right) : disjoin(left, right));
+                continue;
+            }
+            Formula current = node.formula;
+            Map<String, Term> bound = node.bound;
+            if (current instanceof BooleanLiteral) {
+                List<List<Literal>> clauses = new ArrayList<>();
+                if (((BooleanLiteral) current).getValue() != node.positive) {
+                    clauses.add(new ArrayList<>());
+                }
+                results.push(clauses);
+                continue;
+            }
+            if (current instanceof UnaryOperation) {
+                node.formula = ((UnaryOperation) current).getOperand();
+                node.positive = !node.positive;
+                pending.push(node);
+                continue;
+            }
+            if (current instanceof Quantifier) {
+                Quantifier quantifier = (Quantifier) current;
+                boolean universal = (quantifier.getType() == Quantifier.Type.FORALL) == node.positive;
+                Map<String, Term> inner = new HashMap<>(bound);
+                List<Term> innerUniversals = new ArrayList<>(node.universals);
+                for (Identifier variable : quantifier.getVariables()) {
+                    if (universal) {
+                        Term fresh = new Term("_V" + freshNames++, true, new Term[0]);
+                        inner.put(variable.getName(), fresh);
+                        innerUniversals.add(fresh);
+                    } else {
+                        // Skolemize: the witness depends on the universal variables around it
+                        inner.put(variable.getName(),
+                                new Term("_sk" + freshNames++, false, node.universals.toArray(new Term[0])));
+                    }
+                }
+                pending.push(new Clausification(quantifier.getBody(), node.positive, inner, innerUniversals));
+                continue;
+            }
+            if (!(current instanceof BinaryOperation)) {
+                // Identifiers and function calls used as formulas are predicates
+                results.push(unit(node.positive, term(current, bound)));
+                continue;
+            }
+            BinaryOperation binary = (BinaryOperation) current;
+            Formula left = binary.getLeft();
+            Formula right = binary.getRight();
+            boolean sign = node.positive;
+            switch (binary.getOperator()) {
+                case AND:
+                    expand(node, pending, left, sign, right, sign, sign);
+                    break;
+                case OR:
+                    expand(node, pending, left, sign, right, sign, !sign);
+                    break;
+                case IMPLIES:
+                    expand(node, pending, left, !sign, right, sign, !sign);
+                    break;
+                case IFF: {
+                    Formula forward = new BinaryOperation(left, BinaryOperation.Operator.IMPLIES, right);
+                    Formula backward = new BinaryOperation(right, BinaryOperation.Operator.IMPLIES, left);
+                    node.formula = new BinaryOperation(forward, BinaryOperation.Operator.AND, backward);
+                    pending.push(node);
+                    break;
+                }
+                case NEQ:
+                    results.push(unit(!sign, new Term(BinaryOperation.Operator.EQ.name(), false,
+                            new Term[] {term(left, bound), term(right, bound)})));
+                    break;
+                case NOTIN:
+                    results.push(unit(!sign, new Term(BinaryOperation.Operator.IN.name(), false,
+                            new Term[] {term(left, bound), term(right, bound)})));
+                    break;
+                default:
+                    results.push(unit(sign, new Term(binary.getOperator().name(), false,
+                            new Term[] {term(left, bound), term(right, bound)})));
+                    break;
+            }
+        }
+        return results.pop();
+    }
+
+    /**
+     * Schedules the two sides of a connective, the left one on top, and the node itself
+     * under them to combine their clauses.
+     */
+    private static void expand(Clausification node, Deque<Clausification> pending, Formula left, boolean leftPositive,
+                               Formula right, boolean rightPositive, boolean conjunction) {
+        node.expanded = true;
+        node.conjunction = conjunction;
+        pending.push(node);
+        pending.push(new Clausification(right, rightPositive, node.bound, node.universals));
+        pending.push(new Clausification(left, leftPositive, node.bound, node.universals));
+    }
+
+    private static List<List<Literal>> unit(boolean positive, Term atom) {
+        List<Literal> literals = new ArrayList<>();
+        literals.add(new Literal(positive, atom));
+        List<List<Literal>> clauses = new ArrayList<>();
+        clauses.add(literals);
+        return clauses;
+    }
+
+    private static List<List<Literal>> conjoin(List<List<Literal>> a, List<List<Literal>> b) {
+        a.addAll(b);
+        return a;
+    }
+
+    /** Distributes a disjunction over two clause sets, which may multiply their sizes. */
+    private List<List<Literal>> disjoin(List<List<Literal>> a, List<List<Literal>> b) {
+        if ((long) a.size() * b.size() > clauseLimit) {
+            throw new LimitReached(Outcome.CLAUSE_LIMIT);
+        }
+        List<List<Literal>> result = new ArrayList<>();
+        for (List<Literal> left : a) {
+            for (List<Literal> right : b) {
+                List<Literal> clause = new ArrayList<>(left);
+                clause.addAll(right);
+                result.add(clause);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Translates a formula used as a term. Applications, relations and set literals become
+     * functions of their translated parts, built bottom up.
+     */
+    private static Term term(Formula formula, Map<String, Term> bound) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        Deque<Term> results = new ArrayDeque<>();
+        pending.push(formula);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            boolean ready = expanded.pop();
+            if (current instanceof Identifier) {
+                String name = ((Identifier) current).getName();
+                Term variable = bound.get(name);
+                results.push(variable != null ? variable : new Term(name, false, new Term[0]));
+                continue;
+            }
+            List<Formula> parts;
+            String name;
+            if (current instanceof FunctionCall) {
+                parts = ((FunctionCall) current).getArguments();
+                name = ((FunctionCall) current).getFunctionName();
+            } else if (current instanceof BinaryOperation) {
+                BinaryOperation binary = (BinaryOperation) current;
+                parts = new ArrayList<>();
+                parts.add(binary.getLeft());
+                parts.add(binary.getRight());
+                name = binary.getOperator().name();
+            } else if (current instanceof SetLiteral) {
+                parts = ((SetLiteral) current).getElements();
+                name = "{}";
+            } else {
+                // Numbers and anything else are constants named by their text
+                results.push(new Term(EquivalenceChecker.atomKey(current), false, new Term[0]));
+                continue;
+            }
+            if (!ready) {
+                pending.push(current);
+                expanded.push(true);
+                for (int i = parts.size() - 1; i >= 0; i--) {
+                    pending.push(parts.get(i));
+                    expanded.push(false);
+                }
+                continue;
+            }
+            Term[] args = new Term[parts.size()];
+            for (int i = args.length - 1; i >= 0; i--) {
+                args[i] = results.pop();
+            }
+            results.push(new Term(name, false, args));
+        }
+        return results.pop();
+    }
+}
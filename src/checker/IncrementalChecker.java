@@ -0,0 +1,317 @@
+package checker;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+import ast.*;
+
+/**
+ * Re-checks a program after an edit, verifying only what the edit can have affected.
+ *
+ * Results are cached per theorem across runs in the same process, together with a
+ * {@link DependencyGraph} from each step to the steps and theorems it was checked against
+ * (its 'from' list, or the facts premise selection chose). When the program is checked
+ * again, the steps whose text changed are re-verified along with everything that depends
+ * on them, and so are the steps that used a theorem whose statement or verdict changed.
+ * Theorems with no affected steps keep their cached result.
+ *
+ * With a {@link CertificateStore} set, a theorem seen for the first time in this process
+ * is skipped if an earlier run left a certificate for it that still applies.
+ */
+public class IncrementalChecker {
+    /** What is remembered about a theorem between runs. */
+    private static class Cached {
+        private String statement;
+        private List<String> stepTexts;
+        private ProofChecker.TheoremResult result;
+
+        Cached(String statement, List<String> stepTexts, ProofChecker.TheoremResult result) {
+            this.statement = statement;
+            this.stepTexts = stepTexts;
+            this.result = result;
+        }
+    }
+
+    private ProofChecker checker;
+    private DependencyGraph graph = new DependencyGraph();
+    private Map<String, Cached> cache = new LinkedHashMap<>();
+    private CertificateStore certificates;
+    private Set<String> unpropagated = new LinkedHashSet<>();
+    private int stepsChecked;
+    private int theoremsReused;
+    private int theoremsCertified;
+
+    public IncrementalChecker() {
+        this(new ProofChecker());
+    }
+
+    public IncrementalChecker(ProofChecker checker) {
+        this.checker = checker;
+    }
+
+    public ProofChecker getChecker() {
+        return checker;
+    }
+
+    public DependencyGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Decides the steps of each re-checked theorem in parallel on the pool, or one after
+     * another with null. See {@link ProofChecker#setStepPool}.
+     */
+    public void setStepPool(ForkJoinPool stepPool) {
+        checker.setStepPool(stepPool);
+    }
+
+    /**
+     * Sets the store certificates are looked up in and written to, or null for none.
+     */
+    public void setCertificateStore(CertificateStore certificates) {
+        this.certificates = certificates;
+    }
+
+    /** Number of steps actually verified by the last call to check. */
+    public int getStepsChecked() {
+        return stepsChecked;
+    }
+
+    /** Number of theorems whose cached result was reused by the last call to check. */
+    public int getTheoremsReused() {
+        return theoremsReused;
+    }
+
+    /** Number of theorems skipped by the last call to check because a certificate applied. */
+    public int getTheoremsCertified() {
+        return theoremsCertified;
+    }
+
+    /**
+     * Checks a program, reusing cached results wherever the edit since the last run
+     * cannot have changed them.
+     */
+    public List<ProofChecker.TheoremResult> check(Program program) {
+        return check(program, () -> false);
+    }
+
+    /**
+     * Checks a program like {@link #check(Program)}, but stops before the next theorem once
+     * stale returns true, returning the results so far. The theorems not reached keep their
+     * cached state and are checked by the next call.
+     */
+    public List<ProofChecker.TheoremResult> check(Program program, BooleanSupplier stale) {
+        stepsChecked = 0;
+        theoremsReused = 0;
+        theoremsCertified = 0;
+        // Changes a stopped run had not yet propagated still apply
+        Set<String> changedTheorems = new LinkedHashSet<>(unpropagated);
+        unpropagated.clear();
+
+        // Theorems deleted since the last run leave the library
+        Set<String> present = new HashSet<>();
+        for (TheoremDecl theorem : program.getTheorems()) {
+            present.add(theorem.getName());
+        }
+        for (String name : new ArrayList<>(cache.keySet())) {
+            if (!present.contains(name)) {
+                forget(name);
+                changedTheorems.add(name);
+            }
+        }
+
+        List<ProofChecker.TheoremResult> results = new ArrayList<>();
+        for (TheoremDecl theorem : program.getTheorems()) {
+            if (stale.getAsBoolean()) {
+                unpropagated.addAll(changedTheorems);
+                break;
+            }
+            results.add(check(theorem, changedTheorems));
+        }
+        return results;
+    }
+
+    /**
+     * Drops everything cached about a theorem and withdraws it from the library.
+     */
+    public void forget(String name) {
+        Cached cached = cache.remove(name);
+        checker.removeFromLibrary(name);
+        graph.clearDependencies(DependencyGraph.theoremNode(name));
+        if (certificates != null) {
+            certificates.forget(name);
+        }
+        if (cached != null) {
+            for (int i = 1; i <= cached.stepTexts.size(); i++) {
+                graph.clearDependencies(DependencyGraph.stepNode(name, i));
+            }
+        }
+    }
+
+    private ProofChecker.TheoremResult check(TheoremDecl theorem, Set<String> changedTheorems) {
+        String name = theorem.getName();
+        String statement = theorem.getTheorem().toString();
+        List<String> stepTexts = new ArrayList<>();
+        for (ProofStep step : theorem.getProofSteps()) {
+            stepTexts.add(step.toString());
+        }
+
+        Cached cached = cache.get(name);
+        if (cached == null && certificates != null && certificates.isCertified(theorem)) {
+            // Not cached, so the next run looks the certificate up again
+            theoremsCertified++;
+            checker.removeFromLibrary(name);
+            checker.addToLibrary(theorem);
+            return certifiedResult(theorem);
+        }
+
+        ProofChecker.TheoremResult result;
+        Set<Integer> recheck = null;
+        if (cached == null || !cached.statement.equals(statement)) {
+            result = checker.check(theorem);
+        } else {
+            recheck = affectedSteps(name, stepTexts, cached, changedTheorems);
+            if (recheck.isEmpty()) {
+                theoremsReused++;
+                return cached.result;
+            }
+            result = checker.check(theorem, recheck, cached.result.getSteps());
+        }
+
+        recordDependencies(name, result, recheck, cached);
+        stepsChecked += recheck == null ? stepTexts.size() : recheck.size();
+        if (certificates != null) {
+            recordCertificate(result);
+        }
+
+        boolean changed = cached == null || !cached.statement.equals(statement)
+                || cached.result.isVerified() != result.isVerified();
+        if (changed) {
+            changedTheorems.add(name);
+        }
+        cache.put(name, new Cached(statement, stepTexts, result));
+        return result;
+    }
+
+    private void recordCertificate(ProofChecker.TheoremResult result) {
+        TheoremDecl theorem = result.getTheorem();
+        if (!result.isVerified()) {
+            certificates.forget(theorem.getName());
+            return;
+        }
+        Set<String> lemmas = new LinkedHashSet<>();
+        for (ProofChecker.StepResult step : result.getSteps()) {
+            for (String premise : step.getPremises()) {
+                if (premise.startsWith("theorem ")) {
+                    lemmas.add(premise.substring("theorem ".length()));
+                }
+            }
+        }
+        try {
+            certificates.record(theorem, lemmas);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write certificate for theorem " + theorem.getName(), e);
+        }
+    }
+
+    /**
+     * The result reported for a theorem skipped because of its certificate: every step passes.
+     */
+    private static ProofChecker.TheoremResult certifiedResult(TheoremDecl theorem) {
+        List<ProofChecker.StepResult> steps = new ArrayList<>();
+        List<ProofStep> proofSteps = theorem.getProofSteps();
+        for (int i = 1; i <= proofSteps.size(); i++) {
+            steps.add(new ProofChecker.StepResult(i, proofSteps.get(i - 1), true, null, 0, new ArrayList<>(), false));
+        }
+        return new ProofChecker.TheoremResult(theorem, steps, new ArrayList<>(), null);
+    }
+
+    /**
+     * Returns the steps that must be re-verified: those whose text changed, those that
+     * depend on them or on a changed theorem, and failed steps that more facts could fix.
+     */
+    private Set<Integer> affectedSteps(String name, List<String> stepTexts, Cached cached, Set<String> changedTheorems) {
+        List<String> changed = new ArrayList<>();
+        int longest = Math.max(stepTexts.size(), cached.stepTexts.size());
+        int firstChange = Integer.MAX_VALUE;
+        for (int i = 1; i <= longest; i++) {
+            boolean same = i <= stepTexts.size() && i <= cached.stepTexts.size()
+                    && stepTexts.get(i - 1).equals(cached.stepTexts.get(i - 1));
+            if (!same) {
+                changed.add(DependencyGraph.stepNode(name, i));
+                firstChange = Math.min(firstChange, i);
+            }
+        }
+        for (String theorem : changedTheorems) {
+            changed.add(DependencyGraph.theoremNode(theorem));
+        }
+
+        Set<String> affected = graph.affectedBy(changed);
+        Set<Integer> recheck = new LinkedHashSet<>();
+        for (int i = 1; i <= stepTexts.size(); i++) {
+            if (affected.contains(DependencyGraph.stepNode(name, i))) {
+                recheck.add(i);
+            }
+        }
+
+        // A failed step that relied on premise selection may succeed once new facts exist
+        List<ProofChecker.StepResult> previous = cached.result.getSteps();
+        for (int i = 1; i <= Math.min(stepTexts.size(), previous.size()); i++) {
+            ProofChecker.StepResult step = previous.get(i - 1);
+            boolean newFacts = i > firstChange || !changedTheorems.isEmpty();
+            if (!step.isVerified() && step.usedPremiseSelection() && newFacts) {
+                recheck.add(i);
+            }
+        }
+        return recheck;
+    }
+
+    private void recordDependencies(String name, ProofChecker.TheoremResult result, Set<Integer> recheck, Cached cached) {
+        // Steps that no longer exist take their edges with them
+        if (cached != null) {
+            for (int i = result.getSteps().size() + 1; i <= cached.stepTexts.size(); i++) {
+                graph.clearDependencies(DependencyGraph.stepNode(name, i));
+            }
+        }
+
+        String theoremNode = DependencyGraph.theoremNode(name);
+        graph.clearDependencies(theoremNode);
+        for (ProofChecker.StepResult step : result.getSteps()) {
+            String stepNode = DependencyGraph.stepNode(name, step.getIndex());
+            if (recheck == null || recheck.contains(step.getIndex())) {
+                graph.clearDependencies(stepNode);
+                for (String premise : step.getPremises()) {
+                    graph.addEdge(stepNode, premiseNode(name, premise));
+                }
+            }
+            // The theorem depends on every lemma any of its steps used
+            for (String premise : graph.getDependencies(stepNode)) {
+                if (!premise.startsWith(name + "#")) {
+                    graph.addEdge(theoremNode, premise);
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps a fact source recorded by the ProofChecker to a graph node.
+     */
+    private static String premiseNode(String theorem, String source) {
+        int space = source.indexOf(' ');
+        String kind = source.substring(0, space);
+        String reference = source.substring(space + 1);
+        if (kind.equals("theorem")) {
+            return DependencyGraph.theoremNode(reference);
+        }
+        return DependencyGraph.stepNode(theorem, Integer.parseInt(reference));
+    }
+}
@@ -0,0 +1,319 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import ast.*;
+
+/**
+ * Ranks the available facts by how relevant they are to a goal, so only the best few are
+ * handed to the automated checker.
+ *
+ * Facts are indexed on insertion in an inverted index from symbol (identifier, function or
+ * relation name) to the facts that mention it. Selecting premises for a goal only visits
+ * the facts that share at least one symbol with it; each is scored by the shared symbols,
+ * weighted so rare symbols count more than common ones, and the top k are kept.
+ *
+ * Facts are added in scope order and can be dropped again back to a mark, so a checker can
+ * keep library theorems loaded and push and pop the facts local to one proof.
+ */
+public class PremiseSelector {
+    /** Default number of facts passed to the automated checker. */
+    public static final int DEFAULT_LIMIT = 8;
+
+    /** Default time budget for one selection, in milliseconds. */
+    public static final long DEFAULT_BUDGET_MILLIS = 50;
+
+    /** Number of scoring rounds; each later round follows the symbols of facts already chosen. */
+    private static final int RELEVANCE_ROUNDS = 2;
+
+    /**
+     * A fact available as a premise, with a description of where it came from.
+     */
+    public static class Fact {
+        private String source;
+        private Formula formula;
+        private Set<String> symbols;
+        private boolean retired;
+
+        Fact(String source, Formula formula, Set<String> symbols) {
+            this.source = source;
+            this.formula = formula;
+            this.symbols = symbols;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public Formula getFormula() {
+            return formula;
+        }
+
+        public Set<String> getSymbols() {
+            return symbols;
+        }
+
+        @Override
+        public String toString() {
+            return "Fact[" + source + ": " + formula + "]";
+        }
+    }
+
+    /**
+     * The outcome of one selection.
+     */
+    public static class Selection {
+        private List<Fact> selected;
+        private int pruned;
+        private boolean budgetExceeded;
+
+        Selection(List<Fact> selected, int pruned, boolean budgetExceeded) {
+            this.selected = selected;
+            this.pruned = pruned;
+            this.budgetExceeded = budgetExceeded;
+        }
+
+        public List<Fact> getSelected() {
+            return selected;
+        }
+
+        public List<Formula> getFormulas() {
+            List<Formula> formulas = new ArrayList<>();
+            for (Fact fact : selected) {
+                formulas.add(fact.getFormula());
+            }
+            return formulas;
+        }
+
+        /** Number of available facts that were not passed on. */
+        public int getPruned() {
+            return pruned;
+        }
+
+        /** Whether scoring stopped early because the time budget ran out. */
+        public boolean isBudgetExceeded() {
+            return budgetExceeded;
+        }
+    }
+
+    private List<Fact> facts = new ArrayList<>();
+    private Map<String, List<Integer>> index = new HashMap<>();
+    private int limit;
+    private long budgetNanos;
+    private int retiredCount;
+
+    public PremiseSelector() {
+        this(DEFAULT_LIMIT, DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * @param limit The number k of facts to select.
+     * @param budgetMillis Time allowed for one selection; scoring stops when it runs out.
+     */
+    public PremiseSelector(int limit, long budgetMillis) {
+        this.limit = limit;
+        this.budgetNanos = budgetMillis * 1_000_000L;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+
+    public void setBudgetMillis(long budgetMillis) {
+        this.budgetNanos = budgetMillis * 1_000_000L;
+    }
+
+    /**
+     * Returns the number of facts that can currently be selected.
+     */
+    public int size() {
+        return facts.size() - retiredCount;
+    }
+
+    /**
+     * Adds a fact and indexes its symbols.
+     */
+    public void addFact(String source, Formula formula) {
+        Set<String> symbols = symbols(formula);
+        int id = facts.size();
+        facts.add(new Fact(source, formula, symbols));
+        for (String symbol : symbols) {
+            index.computeIfAbsent(symbol, s -> new ArrayList<>()).add(id);
+        }
+    }
+
+    /**
+     * Withdraws every fact from the given source, for example a library theorem that was
+     * edited. Retired facts stay in place so marks remain valid, but are never selected.
+     */
+    public void retire(String source) {
+        for (Fact fact : facts) {
+            if (!fact.retired && fact.source.equals(source)) {
+                fact.retired = true;
+                retiredCount++;
+            }
+        }
+    }
+
+    /**
+     * Returns a mark that {@link #resetTo(int)} can later return to.
+     */
+    public int mark() {
+        return facts.size();
+    }
+
+    /**
+     * Drops every fact added after the mark was taken.
+     */
+    public void resetTo(int mark) {
+        while (facts.size() > mark) {
+            int id = facts.size() - 1;
+            Fact fact = facts.remove(id);
+            if (fact.retired) {
+                retiredCount--;
+            }
+            for (String symbol : fact.symbols) {
+                // Ids are appended in increasing order, so the newest one is last
+                List<Integer> postings = index.get(symbol);
+                postings.remove(postings.size() - 1);
+                if (postings.isEmpty()) {
+                    index.remove(symbol);
+                }
+            }
+        }
+    }
+
+    /**
+     * Selects up to k facts sharing symbols with the goal, best first.
+     *
+     * Selection runs in rounds: the first scores facts against the goal's symbols, and each
+     * later round also counts, at half the weight, the symbols of the facts chosen so far.
+     * This lets "P" be chosen for goal "Q" once "P -> Q" has been chosen.
+     */
+    public Selection select(Formula goal) {
+        long deadline = System.nanoTime() + budgetNanos;
+        boolean budgetExceeded = false;
+
+        Map<String, Double> symbolWeights = new HashMap<>();
+        for (String symbol : symbols(goal)) {
+            symbolWeights.put(symbol, 1.0);
+        }
+
+        List<Fact> selected = new ArrayList<>();
+        for (int round = 0; round < RELEVANCE_ROUNDS && !budgetExceeded; round++) {
+            Map<Integer, Double> scores = new HashMap<>();
+            for (Map.Entry<String, Double> symbol : symbolWeights.entrySet()) {
+                List<Integer> postings = index.get(symbol.getKey());
+                if (postings == null) {
+                    continue;
+                }
+                // Symbols mentioned by fewer facts say more about relevance
+                double weight = symbol.getValue() * Math.log(1.0 + (double) facts.size() / postings.size());
+                for (int id : postings) {
+                    if (!facts.get(id).retired) {
+                        scores.merge(id, weight, Double::sum);
+                    }
+                }
+                if (System.nanoTime() > deadline) {
+                    budgetExceeded = true;
+                    break;
+                }
+            }
+            selected = best(scores);
+
+            double extended = Math.pow(0.5, round + 1);
+            for (Fact fact : selected) {
+                for (String symbol : fact.symbols) {
+                    symbolWeights.putIfAbsent(symbol, extended);
+                }
+            }
+        }
+        return new Selection(selected, size() - selected.size(), budgetExceeded);
+    }
+
+    /**
+     * Returns the k highest-scoring facts, best first; ties go to the more recent fact.
+     */
+    private List<Fact> best(Map<Integer, Double> scores) {
+        PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>((a, b) -> {
+            int byScore = Double.compare(a.getValue(), b.getValue());
+            return byScore != 0 ? byScore : Integer.compare(a.getKey(), b.getKey());
+        });
+        for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+            best.add(entry);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+
+        List<Fact> selected = new ArrayList<>();
+        while (!best.isEmpty()) {
+            selected.add(facts.get(best.poll().getKey()));
+        }
+        Collections.reverse(selected);
+        return selected;
+    }
+
+    /**
+     * Returns the symbols a formula mentions: identifiers, function and predicate names,
+     * and term relations. Logical connectives are not symbols since almost every fact has them.
+     */
+    public static Set<String> symbols(Formula formula) {
+        Set<String> symbols = new LinkedHashSet<>();
+        collectSymbols(formula, symbols);
+        return symbols;
+    }
+
+    private static void collectSymbols(Formula root, Set<String> symbols) {
+        // Preorder, left to right, with a stack so deep formulas do not overflow
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Formula formula = pending.pop();
+            List<Formula> children = Collections.emptyList();
+            if (formula instanceof Identifier) {
+                symbols.add(((Identifier) formula).getName());
+            } else if (formula instanceof NumberLiteral) {
+                symbols.add(Integer.toString(((NumberLiteral) formula).getValue()));
+            } else if (formula instanceof UnaryOperation) {
+                children = formula.getChildren();
+            } else if (formula instanceof BinaryOperation) {
+                BinaryOperation binary = (BinaryOperation) formula;
+                switch (binary.getOperator()) {
+                    case AND:
+                    case OR:
+                    case IMPLIES:
+                    case IFF:
+                        break;
+                    default:
+                        symbols.add(binary.getOperator().name());
+                        break;
+                }
+                children = formula.getChildren();
+            } else if (formula instanceof FunctionCall) {
+                symbols.add(((FunctionCall) formula).getFunctionName());
+                children = formula.getChildren();
+            } else if (formula instanceof SetLiteral) {
+                children = formula.getChildren();
+            } else if (formula instanceof Quantifier) {
+                children = Collections.singletonList(((Quantifier) formula).getBody());
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+        }
+    }
+}
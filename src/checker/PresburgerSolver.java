@@ -0,0 +1,616 @@
+package checker;
+
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.*;
+
+/**
+ * Decides linear constraints over the integers, so numeric side conditions are checked
+ * symbolically instead of on sample values.
+ *
+ * LEPA has no arithmetic syntax of its own, so arithmetic is written with function calls:
+ * plus(a, b), minus(a, b), neg(a) and times(k, a) with a constant k build linear terms, and
+ * lt, le, gt and ge compare them, as in le(0, x). Equalities and disequalities with a
+ * number on either side, or with an arithmetic term, are numeric too. Other applications
+ * such as f(x) are opaque integer unknowns.
+ *
+ * Satisfiability is decided in the style of the Omega test: equalities become pairs of
+ * inequalities, every inequality is normalized by the gcd of its coefficients with the
+ * constant rounded down, and variables are eliminated one at a time by Fourier-Motzkin,
+ * cheapest first. When every elimination had a unit coefficient on one side the result is
+ * exact for integers; otherwise an unsatisfiable real shadow still proves unsatisfiability,
+ * and anything else is reported as unknown. Arithmetic is done on longs with overflow
+ * checks, and the whole elimination is redone with BigInteger if a long overflows.
+ */
+public class PresburgerSolver {
+    /** Maximum number of constraints kept during elimination. */
+    private static final int ROW_LIMIT = 5_000;
+
+    /** Maximum number of disequalities split into two cases each. */
+    private static final int SPLIT_LIMIT = 12;
+
+    /** The result of deciding a set of constraints. */
+    public enum Outcome {
+        SATISFIABLE,
+        UNSATISFIABLE,
+        UNKNOWN
+    }
+
+    /** A linear term: coefficient per variable, plus a constant. */
+    private static class Linear {
+        private Map<String, Long> coefficients = new LinkedHashMap<>();
+        private long constant;
+
+        static Linear constant(long value) {
+            Linear linear = new Linear();
+            linear.constant = value;
+            return linear;
+        }
+
+        static Linear variable(String name) {
+            Linear linear = new Linear();
+            linear.coefficients.put(name, 1L);
+            return linear;
+        }
+
+        Linear plus(Linear other, long factor) {
+            Linear sum = new Linear();
+            sum.coefficients.putAll(coefficients);
+            for (Map.Entry<String, Long> entry : other.coefficients.entrySet()) {
+                long scaled = Math.multiplyExact(entry.getValue(), factor);
+                sum.coefficients.merge(entry.getKey(), scaled, Math::addExact);
+            }
+            sum.constant = Math.addExact(constant, Math.multiplyExact(other.constant, factor));
+            return sum;
+        }
+
+        Linear times(long factor) {
+            return constant(0).plus(this, factor);
+        }
+    }
+
+    /** A constraint "term <= 0". */
+    private static class Constraint {
+        private Linear term;
+
+        Constraint(Linear term) {
+            this.term = term;
+        }
+    }
+
+    /**
+     * The arithmetic used for elimination, so the same algorithm runs on longs and, after
+     * an overflow, on BigIntegers. Rows hold one coefficient per variable and then the
+     * constant c of "sum of coefficient * variable <= c".
+     */
+    private interface Arithmetic<R> {
+        R row(long[] values);
+        int signum(R row, int column);
+        R eliminate(R upper, R lower, int column);
+        R normalize(R row, int columns);
+        boolean isConstant(R row, int columns);
+        boolean isUnit(R row, int column);
+    }
+
+    private static class LongArithmetic implements Arithmetic<long[]> {
+        public long[] row(long[] values) {
+            return values;
+        }
+
+        public int signum(long[] row, int column) {
+            return Long.signum(row[column]);
+        }
+
+        public long[] eliminate(long[] upper, long[] lower, int column) {
+            long a = upper[column];
+            long b = -lower[column];
+            long[] result = new long[upper.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = Math.addExact(Math.multiplyExact(b, upper[i]), Math.multiplyExact(a, lower[i]));
+            }
+            return result;
+        }
+
+        public long[] normalize(long[] row, int columns) {
+            long gcd = 0;
+            for (int i = 0; i < columns; i++) {
+                gcd = gcd(gcd, Math.abs(row[i]));
+            }
+            if (gcd <= 1) {
+                return row;
+            }
+            long[] result = new long[row.length];
+            for (int i = 0; i < columns; i++) {
+                result[i] = row[i] / gcd;
+            }
+            // Tightening: sum <= c with all coefficients divisible by g means sum/g <= floor(c/g)
+            result[columns] = Math.floorDiv(row[columns], gcd);
+            return result;
+        }
+
+        public boolean isConstant(long[] row, int columns) {
+            for (int i = 0; i < columns; i++) {
+                if (row[i] != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public boolean isUnit(long[] row, int column) {
+            return Math.abs(row[column]) == 1;
+        }
+
+        private static long gcd(long a, long b) {
+            while (b != 0) {
+                long t = a % b;
+                a = b;
+                b = t;
+            }
+            return a;
+        }
+    }
+
+    private static class BigArithmetic implements Arithmetic<BigInteger[]> {
+        public BigInteger[] row(long[] values) {
+            BigInteger[] row = new BigInteger[values.length];
+            for (int i = 0; i < values.length; i++) {
+                row[i] = BigInteger.valueOf(values[i]);
+            }
+            return row;
+        }
+
+        public int signum(BigInteger[] row, int column) {
+            return row[column].signum();
+        }
+
+        public BigInteger[] eliminate(BigInteger[] upper, BigInteger[] lower, int column) {
+            BigInteger a = upper[column];
+            BigInteger b = lower[column].negate();
+            BigInteger[] result = new BigInteger[upper.length];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = b.multiply(upper[i]).add(a.multiply(lower[i]));
+            }
+            return result;
+        }
+
+        public BigInteger[] normalize(BigInteger[] row, int columns) {
+            BigInteger gcd = BigInteger.ZERO;
+            for (int i = 0; i < columns; i++) {
+                gcd = gcd.gcd(row[i]);
+            }
+            if (gcd.compareTo(BigInteger.ONE) <= 0) {
+                return row;
+            }
+            BigInteger[] result = new BigInteger[row.length];
+            for (int i = 0; i < columns; i++) {
+                result[i] = row[i].divide(gcd);
+            }
+            BigInteger[] division = row[columns].divideAndRemainder(gcd);
+            result[columns] = row[columns].signum() < 0 && division[1].signum() != 0
+                    ? division[0].subtract(BigInteger.ONE) : division[0];
+            return result;
+        }
+
+        public boolean isConstant(BigInteger[] row, int columns) {
+            for (int i = 0; i < columns; i++) {
+                if (row[i].signum() != 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public boolean isUnit(BigInteger[] row, int column) {
+            return row[column].abs().equals(BigInteger.ONE);
+        }
+    }
+
+    private int fallbacks;
+
+    /** Number of problems that overflowed longs and were solved with BigInteger. */
+    public int getFallbacks() {
+        return fallbacks;
+    }
+
+    /**
+     * Checks whether the numeric facts among the premises imply the goal. Premises are split
+     * at top-level conjunctions. The goal may be universally quantified and an implication,
+     * as in "forall x. le(0, x) and le(x, 10) -> lt(x, 11)".
+     */
+    public boolean implies(List<Formula> premises, Formula goal) {
+        List<Formula> assumptions = new ArrayList<>();
+        for (Formula premise : premises) {
+            collectConjuncts(premise, assumptions);
+        }
+        // forall x. A -> B is shown for an arbitrary x: assume A, show B
+        while (goal instanceof Quantifier && ((Quantifier) goal).getType() == Quantifier.Type.FORALL) {
+            Quantifier quantifier = (Quantifier) goal;
+            Map<String, Formula> fresh = new LinkedHashMap<>();
+            for (Identifier variable : quantifier.getVariables()) {
+                fresh.put(variable.getName(), new Identifier(variable.getName() + "'"));
+            }
+            goal = QuantifierInstantiator.substitute(quantifier.getBody(), fresh);
+            if (goal instanceof BinaryOperation && ((BinaryOperation) goal).getOperator() == BinaryOperation.Operator.IMPLIES) {
+                collectConjuncts(((BinaryOperation) goal).getLeft(), assumptions);
+                goal = ((BinaryOperation) goal).getRight();
+            }
+        }
+
+        List<Formula> goals = new ArrayList<>();
+        collectConjuncts(goal, goals);
+        List<List<Constraint>> base = new ArrayList<>();
+        base.add(new ArrayList<>());
+        for (Formula assumption : assumptions) {
+            List<List<Constraint>> cases = constraints(assumption, true);
+            if (cases != null && cases.size() == 1) {
+                // Extend the branches in place; a product would copy them for every premise
+                for (List<Constraint> branch : base) {
+                    branch.addAll(cases.get(0));
+                }
+                continue;
+            }
+            List<List<Constraint>> split = cases == null ? null : product(base, cases);
+            if (split != null) {
+                // An assumption that would split too far is left out, which only weakens the premises
+                base = split;
+            }
+        }
+        for (Formula conjunct : goals) {
+            List<List<Constraint>> negated = constraints(conjunct, false);
+            if (negated == null) {
+                return false;
+            }
+            List<List<Constraint>> branches = product(base, negated);
+            if (branches == null) {
+                // Every case of the negated goal must be refuted; give up rather than skip some
+                return false;
+            }
+            for (List<Constraint> branch : branches) {
+                if (decide(branch) != Outcome.UNSATISFIABLE) {
+                    return false;
+                }
+            }
+        }
+        return !goals.isEmpty();
+    }
+
+    /**
+     * Decides whether a conjunction of constraints "term <= 0" has an integer solution.
+     */
+    private Outcome decide(List<Constraint> constraints) {
+        List<String> variables = new ArrayList<>();
+        for (Constraint constraint : constraints) {
+            for (Map.Entry<String, Long> entry : constraint.term.coefficients.entrySet()) {
+                if (entry.getValue() != 0 && !variables.contains(entry.getKey())) {
+                    variables.add(entry.getKey());
+                }
+            }
+        }
+        List<long[]> rows = new ArrayList<>();
+        for (Constraint constraint : constraints) {
+            long[] row = new long[variables.size() + 1];
+            for (int i = 0; i < variables.size(); i++) {
+                row[i] = constraint.term.coefficients.getOrDefault(variables.get(i), 0L);
+            }
+            // term <= 0 is sum <= -constant
+            row[variables.size()] = Math.negateExact(constraint.term.constant);
+            rows.add(row);
+        }
+        try {
+            return eliminate(new LongArithmetic(), rows, variables.size());
+        } catch (ArithmeticException e) {
+            fallbacks++;
+            return eliminate(new BigArithmetic(), rows, variables.size());
+        }
+    }
+
+    private static <R> Outcome eliminate(Arithmetic<R> arithmetic, List<long[]> input, int columns) {
+        List<R> rows = new ArrayList<>();
+        for (long[] values : input) {
+            rows.add(arithmetic.normalize(arithmetic.row(values), columns));
+        }
+        boolean exact = true;
+        boolean[] eliminated = new boolean[columns];
+        for (int round = 0; round < columns; round++) {
+            for (R row : rows) {
+                if (arithmetic.isConstant(row, columns) && arithmetic.signum(row, columns) < 0) {
+                    return Outcome.UNSATISFIABLE;
+                }
+            }
+            // Eliminate the variable that produces the fewest new constraints
+            int column = -1;
+            long cheapest = Long.MAX_VALUE;
+            for (int i = 0; i < columns; i++) {
+                if (eliminated[i]) {
+                    continue;
+                }
+                long upper = 0;
+                long lower = 0;
+                for (R row : rows) {
+                    int sign = arithmetic.signum(row, i);
+                    upper += sign > 0 ? 1 : 0;
+                    lower += sign < 0 ? 1 : 0;
+                }
+                if (upper * lower < cheapest) {
+                    cheapest = upper * lower;
+                    column = i;
+                }
+            }
+            eliminated[column] = true;
+
+            List<R> uppers = new ArrayList<>();
+            List<R> lowers = new ArrayList<>();
+            List<R> next = new ArrayList<>();
+            for (R row : rows) {
+                int sign = arithmetic.signum(row, column);
+                (sign > 0 ? uppers : sign < 0 ? lowers : next).add(row);
+            }
+            for (R upper : uppers) {
+                for (R lower : lowers) {
+                    // With a unit coefficient on either side the integer and real shadows agree
+                    if (!arithmetic.isUnit(upper, column) && !arithmetic.isUnit(lower, column)) {
+                        exact = false;
+                    }
+                    next.add(arithmetic.normalize(arithmetic.eliminate(upper, lower, column), columns));
+                    if (next.size() > ROW_LIMIT) {
+                        return Outcome.UNKNOWN;
+                    }
+                }
+            }
+            rows = next;
+        }
+        for (R row : rows) {
+            if (arithmetic.signum(row, columns) < 0) {
+                return Outcome.UNSATISFIABLE;
+            }
+        }
+        return exact ? Outcome.SATISFIABLE : Outcome.UNKNOWN;
+    }
+
+    /**
+     * Translates a numeric literal, or its negation, into alternative sets of constraints
+     * (a disjunction of conjunctions). Returns null for formulas that are not numeric.
+     */
+    private List<List<Constraint>> constraints(Formula formula, boolean positive) {
+        while (formula instanceof UnaryOperation) {
+            formula = ((UnaryOperation) formula).getOperand();
+            positive = !positive;
+        }
+        if (formula instanceof BooleanLiteral) {
+            // true holds with no constraint; false is the constraint 1 <= 0
+            List<List<Constraint>> cases = new ArrayList<>();
+            cases.add(((BooleanLiteral) formula).getValue() == positive ? new ArrayList<>() : single(Linear.constant(1)));
+            return cases;
+        }
+        Linear left;
+        Linear right;
+        String relation;
+        try {
+            if (formula instanceof BinaryOperation) {
+                BinaryOperation binary = (BinaryOperation) formula;
+                if (binary.getOperator() != BinaryOperation.Operator.EQ && binary.getOperator() != BinaryOperation.Operator.NEQ) {
+                    return null;
+                }
+                if (!isNumeric(binary.getLeft()) && !isNumeric(binary.getRight())) {
+                    return null;
+                }
+                relation = binary.getOperator() == BinaryOperation.Operator.EQ ? "eq" : "ne";
+                left = linear(binary.getLeft());
+                right = linear(binary.getRight());
+            } else if (formula instanceof FunctionCall && isComparison((FunctionCall) formula)) {
+                FunctionCall call = (FunctionCall) formula;
+                relation = call.getFunctionName();
+                left = linear(call.getArguments().get(0));
+                right = linear(call.getArguments().get(1));
+            } else {
+                return null;
+            }
+            if (!positive) {
+                relation = negate(relation);
+            }
+            Linear difference = left.plus(right, -1);
+            Linear reversed = right.plus(left, -1);
+            List<List<Constraint>> cases = new ArrayList<>();
+            switch (relation) {
+                case "le":
+                    cases.add(single(difference));
+                    break;
+                case "lt":
+                    cases.add(single(difference.plus(Linear.constant(1), 1)));
+                    break;
+                case "ge":
+                    cases.add(single(reversed));
+                    break;
+                case "gt":
+                    cases.add(single(reversed.plus(Linear.constant(1), 1)));
+                    break;
+                case "eq": {
+                    List<Constraint> both = new ArrayList<>();
+                    both.add(new Constraint(difference));
+                    both.add(new Constraint(reversed));
+                    cases.add(both);
+                    break;
+                }
+                default:
+                    // a != b splits into a < b or a > b
+                    cases.add(single(difference.plus(Linear.constant(1), 1)));
+                    cases.add(single(reversed.plus(Linear.constant(1), 1)));
+                    break;
+            }
+            return cases;
+        } catch (ArithmeticException e) {
+            // Coefficients beyond a long cannot come from literals LEPA can write
+            return null;
+        }
+    }
+
+    private static List<Constraint> single(Linear term) {
+        List<Constraint> constraints = new ArrayList<>();
+        constraints.add(new Constraint(term));
+        return constraints;
+    }
+
+    private static String negate(String relation) {
+        switch (relation) {
+            case "le":
+                return "gt";
+            case "lt":
+                return "ge";
+            case "ge":
+                return "lt";
+            case "gt":
+                return "le";
+            case "eq":
+                return "ne";
+            default:
+                return "eq";
+        }
+    }
+
+    /**
+     * Returns every combination of a case of a with a case of b, or null if there would be
+     * more than 2^SPLIT_LIMIT of them.
+     */
+    private static List<List<Constraint>> product(List<List<Constraint>> a, List<List<Constraint>> b) {
+        if ((long) a.size() * b.size() > (1 << SPLIT_LIMIT)) {
+            return null;
+        }
+        List<List<Constraint>> result = new ArrayList<>();
+        for (List<Constraint> left : a) {
+            for (List<Constraint> right : b) {
+                List<Constraint> branch = new ArrayList<>(left);
+                branch.addAll(right);
+                result.add(branch);
+            }
+        }
+        return result;
+    }
+
+    private static void collectConjuncts(Formula formula, List<Formula> conjuncts) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(formula);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            if (current instanceof BinaryOperation && ((BinaryOperation) current).getOperator() == BinaryOperation.Operator.AND) {
+                pending.push(((BinaryOperation) current).getRight());
+                pending.push(((BinaryOperation) current).getLeft());
+            } else {
+                conjuncts.add(current);
+            }
+        }
+    }
+
+    private static boolean isComparison(FunctionCall call) {
+        String name = call.getFunctionName();
+        return call.getArguments().size() == 2
+                && (name.equals("lt") || name.equals("le") || name.equals("gt") || name.equals("ge"));
+    }
+
+    private static boolean isNumeric(Formula term) {
+        if (term instanceof NumberLiteral) {
+            return true;
+        }
+        if (term instanceof FunctionCall) {
+            String name = ((FunctionCall) term).getFunctionName();
+            return name.equals("plus") || name.equals("minus") || name.equals("neg") || name.equals("times");
+        }
+        return false;
+    }
+
+    /**
+     * Translates an arithmetic term bottom up: an operation is pushed again, marked
+     * expanded, under its operands and combined once their terms are on the results stack.
+     */
+    private static Linear linear(Formula term) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        Deque<Linear> results = new ArrayDeque<>();
+        pending.push(term);
+        expanded.push(false);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            boolean ready = expanded.pop();
+            List<Formula> operands = operands(current);
+            if (operands == null) {
+                if (current instanceof NumberLiteral) {
+                    results.push(Linear.constant(((NumberLiteral) current).getValue()));
+                } else {
+                    // Anything else is an unknown integer, identified by its text
+                    results.push(Linear.variable(EquivalenceChecker.atomKey(current)));
+                }
+                continue;
+            }
+            if (!ready) {
+                pending.push(current);
+                expanded.push(true);
+                for (int i = operands.size() - 1; i >= 0; i--) {
+                    pending.push(operands.get(i));
+                    expanded.push(false);
+                }
+                continue;
+            }
+            Linear[] values = new Linear[operands.size()];
+            for (int i = values.length - 1; i >= 0; i--) {
+                values[i] = results.pop();
+            }
+            FunctionCall call = (FunctionCall) current;
+            switch (call.getFunctionName()) {
+                case "plus":
+                    results.push(values[0].plus(values[1], 1));
+                    break;
+                case "minus":
+                    results.push(values[0].plus(values[1], -1));
+                    break;
+                case "neg":
+                    results.push(values[0].times(-1));
+                    break;
+                default: {
+                    List<Formula> arguments = call.getArguments();
+                    Formula factor = arguments.get(0) instanceof NumberLiteral ? arguments.get(0) : arguments.get(1);
+                    results.push(values[0].times(((NumberLiteral) factor).getValue()));
+                    break;
+                }
+            }
+        }
+        return results.pop();
+    }
+
+    /**
+     * The operands of a linear operation: both sides of plus and minus, the argument of
+     * neg, and the non-constant side of a multiplication by a constant. Null for any other
+     * term.
+     */
+    private static List<Formula> operands(Formula term) {
+        if (!(term instanceof FunctionCall)) {
+            return null;
+        }
+        FunctionCall call = (FunctionCall) term;
+        List<Formula> arguments = call.getArguments();
+        switch (call.getFunctionName()) {
+            case "plus":
+            case "minus":
+                return arguments.size() == 2 ? arguments : null;
+            case "neg":
+                return arguments.size() == 1 ? arguments : null;
+            case "times":
+                // Only multiplication by a constant keeps the term linear
+                if (arguments.size() == 2 && arguments.get(0) instanceof NumberLiteral) {
+                    return Arrays.asList(arguments.get(1));
+                }
+                if (arguments.size() == 2 && arguments.get(1) instanceof NumberLiteral) {
+                    return Arrays.asList(arguments.get(0));
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,580 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ast.*;
+
+/**
+ * Checks LEPA proofs in-process, step by step.
+ *
+ * Each step must follow propositionally from the facts available at that point: the
+ * assumptions in scope, the earlier steps of the proof and the theorems already in the
+ * library. A step with a 'from' list uses exactly the steps and theorems it cites. For
+ * any other step, rather than handing every fact to the automated checker, a
+ * {@link PremiseSelector} picks the most relevant few, and the {@link TheoremLibrary} index
+ * adds the lemmas with a part shaped like the step. A step justified "by" the name of a
+ * library theorem always gets that theorem as a premise. A step that does not follow
+ * propositionally may still follow from the equalities among its premises by
+ * {@link CongruenceClosure}, and a set equality or subset by the rules of an
+ * {@link EGraph}, and linear integer constraints by the {@link PresburgerSolver}.
+ * Steps with quantifiers are tried with the instances the
+ * {@link QuantifierInstantiator} finds, then with a bounded search by the
+ * {@link FirstOrderProver}. Biconditional steps and
+ * 'therefore' lines are additionally checked with the {@link EquivalenceChecker}.
+ *
+ * The facts each step used are recorded in its result, which is what
+ * {@link IncrementalChecker} builds its dependency graph from. With a step pool set,
+ * steps are decided in parallel and a final sequential pass confirms their scoping.
+ */
+public class ProofChecker {
+    /** At most this many lemmas found by the library index join a step's premises. */
+    private static final int CANDIDATE_LIMIT = 4;
+
+    /**
+     * The outcome of checking one proof step.
+     */
+    public static class StepResult {
+        private int index;
+        private ProofStep step;
+        private boolean verified;
+        private String message;
+        private int prunedFacts;
+        private List<String> premises;
+        private boolean selected;
+        private List<Formula> equalities = new ArrayList<>();
+
+        StepResult(int index, ProofStep step, boolean verified, String message, int prunedFacts,
+                   List<String> premises, boolean selected) {
+            this.index = index;
+            this.step = step;
+            this.verified = verified;
+            this.message = message;
+            this.prunedFacts = prunedFacts;
+            this.premises = premises;
+            this.selected = selected;
+        }
+
+        /** The 1-based position of the step in its proof. */
+        public int getIndex() {
+            return index;
+        }
+
+        public ProofStep getStep() {
+            return step;
+        }
+
+        public boolean isVerified() {
+            return verified;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        /** Number of available facts that premise selection did not pass to the checker. */
+        public int getPrunedFacts() {
+            return prunedFacts;
+        }
+
+        /**
+         * Returns the sources of the facts the step was checked against, such as
+         * "step 2", "assumption 1" or "theorem Lemma".
+         */
+        public List<String> getPremises() {
+            return premises;
+        }
+
+        /**
+         * Returns the equalities and disequalities congruence closure used to verify the
+         * step; empty if the step followed propositionally.
+         */
+        public List<Formula> getEqualitiesUsed() {
+            return equalities;
+        }
+
+        /** Whether the premises came from premise selection rather than a 'from' list. */
+        public boolean usedPremiseSelection() {
+            return selected;
+        }
+
+        @Override
+        public String toString() {
+            return "Step " + index + ": " + (verified ? "ok" : message);
+        }
+    }
+
+    /**
+     * The outcome of checking a whole theorem.
+     */
+    public static class TheoremResult {
+        private TheoremDecl theorem;
+        private List<StepResult> steps;
+        private List<String> problems;
+        private StepResult firstFailure;
+
+        TheoremResult(TheoremDecl theorem, List<StepResult> steps, List<String> problems, StepResult firstFailure) {
+            this.theorem = theorem;
+            this.steps = steps;
+            this.problems = problems;
+            this.firstFailure = firstFailure;
+        }
+
+        public TheoremDecl getTheorem() {
+            return theorem;
+        }
+
+        public List<StepResult> getSteps() {
+            return steps;
+        }
+
+        /** Every problem found, for the steps and for the theorem as a whole. */
+        public List<String> getProblems() {
+            return problems;
+        }
+
+        public boolean isVerified() {
+            return problems.isEmpty();
+        }
+
+        /** The first step in proof order that failed, or null if every step passed. */
+        public StepResult getFirstFailure() {
+            return firstFailure;
+        }
+
+        public int getPrunedFacts() {
+            int pruned = 0;
+            for (StepResult step : steps) {
+                pruned += step.getPrunedFacts();
+            }
+            return pruned;
+        }
+    }
+
+    private TheoremLibrary library;
+    private EquivalenceChecker equivalence;
+    private PremiseSelector selector;
+    private ForkJoinPool stepPool;
+    private boolean keepProofs = true;
+    private ThreadLocal<EquivalenceChecker> workerEquivalence = ThreadLocal.withInitial(EquivalenceChecker::new);
+
+    public ProofChecker() {
+        this(new TheoremLibrary(), new PremiseSelector());
+    }
+
+    public ProofChecker(TheoremLibrary library, PremiseSelector selector) {
+        this.library = library;
+        this.selector = selector;
+        this.equivalence = new EquivalenceChecker();
+        for (TheoremDecl theorem : library.getTheorems()) {
+            selector.addFact(theoremSource(theorem.getName()), theorem.getTheorem());
+        }
+    }
+
+    public TheoremLibrary getLibrary() {
+        return library;
+    }
+
+    public PremiseSelector getSelector() {
+        return selector;
+    }
+
+    /**
+     * Checks every theorem of a program in order. Verified theorems join the library and
+     * may be cited by the theorems after them.
+     */
+    public List<TheoremResult> check(Program program) {
+        List<TheoremResult> results = new ArrayList<>();
+        for (TheoremDecl theorem : program.getTheorems()) {
+            results.add(check(theorem));
+        }
+        return results;
+    }
+
+    /**
+     * Checks a single theorem and, if it is verified, adds it to the library.
+     */
+    public TheoremResult check(TheoremDecl theorem) {
+        return check(theorem, null, null);
+    }
+
+    /**
+     * Checks a theorem, re-checking only some of its steps.
+     *
+     * Checking runs in three phases. First the steps are walked in order to collect each
+     * one's premises: its 'from' list, or the facts premise selection picks. Then every
+     * step is decided against its premises; these decisions are independent of each other,
+     * so with a step pool set they run in parallel without waiting for earlier steps.
+     * Finally a sequential pass confirms that every cited step is in scope and finds the
+     * first failing step.
+     *
+     * @param recheck 1-based indices of the steps to check, or null to check all of them.
+     * @param previous Earlier results, reused for the steps not in recheck.
+     */
+    public TheoremResult check(TheoremDecl theorem, Set<Integer> recheck, List<StepResult> previous) {
+        // A theorem must not be used in its own proof
+        removeFromLibrary(theorem.getName());
+
+        List<ProofStep> proofSteps = theorem.getProofSteps();
+        StepResult[] results = new StepResult[proofSteps.size()];
+        List<Obligation> obligations = new ArrayList<>();
+        int mark = selector.mark();
+        Deque<Integer> blockMarks = new ArrayDeque<>();
+        try {
+            for (int index = 1; index <= proofSteps.size(); index++) {
+                ProofStep step = proofSteps.get(index - 1);
+                if (recheck == null || recheck.contains(index)) {
+                    Obligation obligation = prepare(index, step, theorem);
+                    if (obligation.result != null) {
+                        results[index - 1] = obligation.result;
+                    } else {
+                        obligations.add(obligation);
+                    }
+                } else {
+                    results[index - 1] = previous.get(index - 1);
+                }
+                addStepFact(theorem, index, blockMarks);
+            }
+        } finally {
+            selector.resetTo(mark);
+        }
+
+        if (stepPool != null && obligations.size() > 1) {
+            stepPool.invoke(new DecideBatch(this, obligations, results, 0, obligations.size()));
+        } else {
+            for (Obligation obligation : obligations) {
+                results[obligation.index - 1] = decide(obligation, equivalence);
+            }
+        }
+
+        List<StepResult> steps = Arrays.asList(results);
+        List<String> problems = new ArrayList<>();
+        StepResult firstFailure = confirmScopes(theorem, steps, problems);
+
+        // Structural checks: IFF steps and 'therefore' lines against the goal
+        problems.addAll(equivalence.checkTheorem(theorem));
+
+        TheoremResult result = new TheoremResult(theorem, steps, problems, firstFailure);
+        if (result.isVerified()) {
+            addToLibrary(theorem);
+        }
+        return result;
+    }
+
+    /**
+     * Checks one step against the facts already added for the steps before it, without
+     * walking the proof again. Interactive sessions use this with {@link #addStepFact} so
+     * that a step costs the same however long the proof is; the checks against the goal
+     * are left to the full check at the end.
+     */
+    public StepResult checkStep(TheoremDecl theorem, int index) {
+        Obligation obligation = prepare(index, theorem.getStep(index), theorem);
+        StepResult result = obligation.result != null ? obligation.result : decide(obligation, equivalence);
+        return confirmScope(theorem, result);
+    }
+
+    /**
+     * Makes what a step establishes available to premise selection for the steps after it.
+     * The facts of an assumption block go out of scope at its 'end', which leaves the
+     * discharged implication in their place.
+     *
+     * @param blockMarks The selector marks of the open assumption blocks, innermost first.
+     */
+    public void addStepFact(TheoremDecl theorem, int index, Deque<Integer> blockMarks) {
+        ProofStep step = theorem.getStep(index);
+        if (step.isAssumption()) {
+            blockMarks.push(selector.mark());
+        } else if (step.isEnd()) {
+            if (blockMarks.isEmpty()) {
+                return;
+            }
+            selector.resetTo(blockMarks.pop());
+        }
+        selector.addFact(factSource(index, step), theorem.getConclusion(index));
+    }
+
+    /**
+     * Enables parallel step checking: each step is decided on the pool as soon as its
+     * premises are known. Pass null to decide steps one after another.
+     */
+    public void setStepPool(ForkJoinPool stepPool) {
+        this.stepPool = stepPool;
+    }
+
+    /**
+     * Whether the library keeps the proofs of the theorems added to it. Later theorems only
+     * use a lemma's statement, so a long run can drop the proofs to save memory.
+     */
+    public void setKeepProofs(boolean keepProofs) {
+        this.keepProofs = keepProofs;
+    }
+
+    /**
+     * Adds a theorem to the library and makes it available as a premise.
+     */
+    public void addToLibrary(TheoremDecl theorem) {
+        library.add(keepProofs ? theorem : new TheoremDecl(theorem.getName(), theorem.getTheorem()));
+        // Library facts sit below every proof-local mark, so they survive resetTo
+        selector.addFact(theoremSource(theorem.getName()), theorem.getTheorem());
+    }
+
+    /**
+     * Withdraws a theorem from the library, for example because it was edited.
+     */
+    public void removeFromLibrary(String name) {
+        if (library.contains(name)) {
+            library.remove(name);
+            selector.retire(theoremSource(name));
+        }
+    }
+
+    /** The fact source naming a library theorem. */
+    public static String theoremSource(String name) {
+        return "theorem " + name;
+    }
+
+    /** The fact source naming a step of the proof being checked. */
+    public static String factSource(int index, ProofStep step) {
+        return (step.isAssumption() ? "assumption " : "step ") + index;
+    }
+
+    /**
+     * Collects the premises a step is checked against. Steps that need no decision, and
+     * steps with a bad citation, get their result immediately.
+     */
+    private Obligation prepare(int index, ProofStep step, TheoremDecl theorem) {
+        Obligation obligation = new Obligation(index, step);
+        if (step.isAssumption()) {
+            obligation.result = new StepResult(index, step, true, null, 0, obligation.sources, false);
+            return obligation;
+        }
+        if (step.isEnd()) {
+            boolean closes = step.getScope() > 0;
+            obligation.result = new StepResult(index, step, closes, closes ? null : "'end' without an open assumption",
+                    0, obligation.sources, false);
+            return obligation;
+        }
+
+        TheoremDecl lemma = step.getJustification() == null ? null : library.get(step.getJustification());
+        if (lemma != null) {
+            obligation.premises.add(lemma.getTheorem());
+            obligation.sources.add(theoremSource(lemma.getName()));
+        }
+
+        if (step.getCitations().isEmpty()) {
+            obligation.selection = selector.select(step.getFormula());
+            for (PremiseSelector.Fact fact : obligation.selection.getSelected()) {
+                obligation.premises.add(fact.getFormula());
+                obligation.sources.add(fact.getSource());
+            }
+            // A lemma that states the step, or could by instantiation or modus ponens, is
+            // used even when it shares too few symbols with the step to be selected
+            int added = 0;
+            for (TheoremDecl candidate : library.candidateTheorems(step.getFormula())) {
+                if (added == CANDIDATE_LIMIT) {
+                    break;
+                }
+                String source = theoremSource(candidate.getName());
+                if (!obligation.sources.contains(source)) {
+                    obligation.premises.add(candidate.getTheorem());
+                    obligation.sources.add(source);
+                    added++;
+                }
+            }
+            return obligation;
+        }
+
+        // A step with a 'from' list is checked against exactly what it cites. Whether a cited
+        // step is in scope is left to the sequential pass
+        List<String> citations = step.getCitations();
+        for (int i = 0; i < citations.size(); i++) {
+            String citation = citations.get(i);
+            int cited = step.getCitedStep(i);
+            if (cited != ProofStep.NO_STEP) {
+                if (cited < 1 || cited > theorem.getProofSteps().size()) {
+                    obligation.result = new StepResult(index, step, false,
+                            "cites step " + citation + ", which does not exist", 0, obligation.sources, false);
+                    return obligation;
+                }
+                obligation.premises.add(theorem.getConclusion(cited));
+                obligation.sources.add(factSource(cited, theorem.getStep(cited)));
+            } else {
+                TheoremDecl citedTheorem = library.get(citation);
+                // Record the dependency even when it fails, so fixing the lemma re-checks this step
+                obligation.sources.add(theoremSource(citation));
+                if (citedTheorem == null) {
+                    obligation.result = new StepResult(index, step, false,
+                            "cites " + citation + ", which is not a proven theorem", 0, obligation.sources, false);
+                    return obligation;
+                }
+                obligation.premises.add(citedTheorem.getTheorem());
+            }
+        }
+        return obligation;
+    }
+
+    /**
+     * Decides whether a step follows from its premises. Only touches the given checker,
+     * so obligations can be decided concurrently with one checker per thread.
+     */
+    private static StepResult decide(Obligation obligation, EquivalenceChecker equivalence) {
+        ProofStep step = obligation.step;
+        PremiseSelector.Selection selection = obligation.selection;
+        int pruned = selection == null ? 0 : selection.getPruned();
+        if (equivalence.implies(obligation.premises, step.getFormula())) {
+            return new StepResult(obligation.index, step, true, null, pruned, obligation.sources, selection != null);
+        }
+        // Equalities are atoms to the propositional check, so a = b, f(a) = c |- f(b) = c needs congruence closure
+        List<Formula> equalities = CongruenceClosure.entails(obligation.premises, step.getFormula());
+        if (equalities != null) {
+            StepResult result = new StepResult(obligation.index, step, true, null, pruned, obligation.sources, selection != null);
+            result.equalities = equalities;
+            return result;
+        }
+        // Set identities such as A intersect B subset A are decided by equality saturation
+        if (EGraph.entails(obligation.premises, step.getFormula())) {
+            return new StepResult(obligation.index, step, true, null, pruned, obligation.sources, selection != null);
+        }
+        // Numeric side conditions are decided over the integers rather than on sample values
+        if (new PresburgerSolver().implies(obligation.premises, step.getFormula())) {
+            return new StepResult(obligation.index, step, true, null, pruned, obligation.sources, selection != null);
+        }
+        // Quantified steps: first instantiate foralls with the terms at hand, then search
+        FirstOrderProver.Result search = null;
+        if (isFirstOrder(obligation.premises, step.getFormula())) {
+            List<Formula> instances = QuantifierInstantiator.instantiate(obligation.premises, step.getFormula());
+            if (!instances.isEmpty()) {
+                List<Formula> extended = new ArrayList<>(obligation.premises);
+                extended.addAll(instances);
+                if (equivalence.implies(extended, step.getFormula())
+                        || CongruenceClosure.entails(extended, step.getFormula()) != null) {
+                    return new StepResult(obligation.index, step, true, null, pruned, obligation.sources, selection != null);
+                }
+            }
+            search = new FirstOrderProver().prove(obligation.premises, step.getFormula());
+            if (search.isProved()) {
+                return new StepResult(obligation.index, step, true, null, pruned, obligation.sources, selection != null);
+            }
+        }
+        String message;
+        if (selection == null) {
+            message = "does not follow from " + String.join(", ", step.getCitations());
+        } else {
+            message = "does not follow from the " + obligation.premises.size() + " selected facts ("
+                    + pruned + " pruned" + (selection.isBudgetExceeded() ? ", time budget exceeded" : "") + ")";
+        }
+        if (search != null && search.getOutcome() != FirstOrderProver.Outcome.NOT_PROVABLE) {
+            message += "; first-order search stopped at " + search.getOutcome();
+        }
+        return new StepResult(obligation.index, step, false, message, pruned, obligation.sources, selection != null);
+    }
+
+    /**
+     * The sequential pass after all steps are decided: walks the proof in order, checks that
+     * every cited step is visible from the step citing it, and reports the steps that failed.
+     *
+     * @return The first failing step, or null if every step passed.
+     */
+    private static StepResult confirmScopes(TheoremDecl theorem, List<StepResult> steps, List<String> problems) {
+        StepResult firstFailure = null;
+        for (int i = 0; i < steps.size(); i++) {
+            StepResult result = confirmScope(theorem, steps.get(i));
+            steps.set(i, result);
+            if (!result.isVerified()) {
+                problems.add(result.toString());
+                if (firstFailure == null) {
+                    firstFailure = result;
+                }
+            }
+        }
+        return firstFailure;
+    }
+
+    /**
+     * The result of a step, or a failure if it cites a step that is not in scope.
+     */
+    private static StepResult confirmScope(TheoremDecl theorem, StepResult result) {
+        int index = result.getIndex();
+        ProofStep step = theorem.getStep(index);
+        for (int c = 0; c < step.getCitations().size(); c++) {
+            // A citation is in scope when it names an earlier step whose block is still
+            // open; a speculative verdict against any other step does not count
+            int cited = step.getCitedStep(c);
+            if (cited != ProofStep.NO_STEP && !theorem.isVisible(cited, index)) {
+                return new StepResult(index, result.getStep(), false,
+                        "cites step " + step.getCitations().get(c) + ", which is not in scope", 0,
+                        result.getPremises(), false);
+            }
+        }
+        return result;
+    }
+
+    private static boolean isFirstOrder(List<Formula> premises, Formula goal) {
+        if (FirstOrderProver.isFirstOrder(goal)) {
+            return true;
+        }
+        for (Formula premise : premises) {
+            if (FirstOrderProver.isFirstOrder(premise)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A step waiting to be decided, with the premises collected for it.
+     */
+    private static class Obligation {
+        private int index;
+        private ProofStep step;
+        private List<Formula> premises = new ArrayList<>();
+        private List<String> sources = new ArrayList<>();
+        private PremiseSelector.Selection selection;
+        private StepResult result;
+
+        Obligation(int index, ProofStep step) {
+            this.index = index;
+            this.step = step;
+        }
+    }
+
+    /**
+     * Decides a range of obligations, splitting it so idle workers can steal half.
+     * Each worker thread uses its own EquivalenceChecker, since BDD managers are not thread-safe.
+     */
+    private static class DecideBatch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private ProofChecker checker;
+        private List<Obligation> obligations;
+        private StepResult[] results;
+        private int from;
+        private int to;
+
+        DecideBatch(ProofChecker checker, List<Obligation> obligations, StepResult[] results, int from, int to) {
+            this.checker = checker;
+            this.obligations = obligations;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                Obligation obligation = obligations.get(from);
+                results[obligation.index - 1] = decide(obligation, checker.workerEquivalence.get());
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new DecideBatch(checker, obligations, results, from, mid),
+                      new DecideBatch(checker, obligations, results, mid, to));
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import ast.*;
+
+/**
+ * An interactive proof session: theorems are stated and proved one step at a time, and
+ * every step is checked as soon as it is entered.
+ *
+ * The session's history is persistent. Each action produces a new immutable {@link State}
+ * that points back to the state before it, sharing everything else, so undo only moves
+ * back one pointer. Checking a new step re-verifies that step alone and reuses the results
+ * recorded in earlier states.
+ *
+ * The checker's premise selector holds the facts of the steps entered so far, so a new
+ * step is checked without walking the proof again. Undo rebuilds them from the history.
+ */
+public class ProofSession {
+    /**
+     * One point in the session's history.
+     */
+    public static class State {
+        private State previous;
+        private String theorem;
+        private Formula goal;
+        private ProofStep step;
+        private ProofChecker.StepResult result;
+        private int stepCount;
+        private TheoremDecl proven;
+
+        State(State previous, String theorem, Formula goal, ProofStep step, ProofChecker.StepResult result,
+              int stepCount, TheoremDecl proven) {
+            this.previous = previous;
+            this.theorem = theorem;
+            this.goal = goal;
+            this.step = step;
+            this.result = result;
+            this.stepCount = stepCount;
+            this.proven = proven;
+        }
+
+        /** The theorem being proved, or null between theorems. */
+        public String getTheorem() {
+            return theorem;
+        }
+
+        public Formula getGoal() {
+            return goal;
+        }
+
+        /** Number of steps entered so far in the current theorem. */
+        public int getStepCount() {
+            return stepCount;
+        }
+    }
+
+    private ProofChecker checker;
+    private State current = new State(null, null, null, null, null, 0, null);
+    // The current theorem with the steps entered so far, whose facts sit above theoremMark
+    private TheoremDecl working;
+    private int theoremMark;
+    private Deque<Integer> blockMarks = new ArrayDeque<>();
+
+    public ProofSession() {
+        this(new ProofChecker());
+    }
+
+    public ProofSession(ProofChecker checker) {
+        this.checker = checker;
+        reload();
+    }
+
+    public ProofChecker getChecker() {
+        return checker;
+    }
+
+    public State getState() {
+        return current;
+    }
+
+    /**
+     * Starts proving a new theorem. Any unfinished theorem is abandoned, but stays in the
+     * history so undo returns to it.
+     *
+     * @throws IllegalArgumentException if a theorem of that name is already proven.
+     */
+    public void startTheorem(String name, Formula goal) {
+        if (checker.getLibrary().contains(name)) {
+            throw new IllegalArgumentException("Theorem " + name + " is already proven");
+        }
+        dropFacts();
+        current = new State(current, name, goal, null, null, 0, null);
+        reload();
+    }
+
+    /**
+     * Adds a step to the current theorem and checks it against the steps before it.
+     */
+    public ProofChecker.StepResult addStep(ProofStep step) {
+        if (current.theorem == null) {
+            throw new IllegalStateException("No theorem is being proved");
+        }
+        working.addProofStep(step);
+        int index = current.stepCount + 1;
+        ProofChecker.StepResult result = checker.checkStep(working, index);
+        checker.addStepFact(working, index, blockMarks);
+        current = new State(current, current.theorem, current.goal, step, result, index, null);
+        return result;
+    }
+
+    /**
+     * Finishes the current theorem. If every step and the goal check out, the theorem joins
+     * the library for the theorems after it.
+     */
+    public ProofChecker.TheoremResult finish() {
+        if (current.theorem == null) {
+            throw new IllegalStateException("No theorem is being proved");
+        }
+        // The library theorem is added above the selector's mark, so the steps' facts go first
+        dropFacts();
+        TheoremDecl theorem = working;
+        ProofChecker.TheoremResult result = checker.check(theorem, Collections.emptySet(), results());
+        current = new State(current, null, null, null, null, 0, result.isVerified() ? theorem : null);
+        reload();
+        return result;
+    }
+
+    /**
+     * Goes back to the state before the last action.
+     *
+     * @return false if there is nothing to undo.
+     */
+    public boolean undo() {
+        if (current.previous == null) {
+            return false;
+        }
+        dropFacts();
+        if (current.proven != null) {
+            checker.removeFromLibrary(current.proven.getName());
+        }
+        current = current.previous;
+        reload();
+        return true;
+    }
+
+    /** The steps of the current theorem, in order. */
+    public List<ProofStep> steps() {
+        List<ProofStep> steps = new ArrayList<>();
+        for (State state : chain()) {
+            steps.add(state.step);
+        }
+        return steps;
+    }
+
+    /** The results of the current theorem's steps, in order. */
+    public List<ProofChecker.StepResult> results() {
+        List<ProofChecker.StepResult> results = new ArrayList<>();
+        for (State state : chain()) {
+            results.add(state.result);
+        }
+        return results;
+    }
+
+    /** The states that added the current theorem's steps, oldest first. */
+    private Deque<State> chain() {
+        Deque<State> chain = new ArrayDeque<>();
+        for (State state = current; state != null && state.step != null; state = state.previous) {
+            chain.addFirst(state);
+        }
+        return chain;
+    }
+
+    /** Takes the facts of the current theorem's steps out of the selector. */
+    private void dropFacts() {
+        checker.getSelector().resetTo(theoremMark);
+        blockMarks.clear();
+    }
+
+    /** Rebuilds the current theorem and the facts of its steps after the state has moved. */
+    private void reload() {
+        theoremMark = checker.getSelector().mark();
+        working = new TheoremDecl(current.theorem, current.goal);
+        int index = 0;
+        for (ProofStep step : steps()) {
+            working.addProofStep(step);
+            checker.addStepFact(working, ++index, blockMarks);
+        }
+    }
+}
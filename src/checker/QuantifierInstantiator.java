@@ -0,0 +1,560 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.*;
+
+/**
+ * Instantiates universally quantified facts by E-matching: only with terms that already
+ * occur in the proof, and only where they fit a trigger.
+ *
+ * For each quantifier, triggers are inferred from its body: applications and relations
+ * (such as f(x) or x in A) that mention bound variables. A trigger must bind every
+ * variable, either on its own or as a group of patterns. Ground terms are kept in an index
+ * by head symbol, so a pattern is only matched against terms with the same function or
+ * relation. Matching is incremental: when ground terms are added, only matches involving a
+ * new term are looked for, and each quantifier is instantiated at most once per binding and
+ * at most {@link #DEFAULT_INSTANCE_LIMIT} times overall.
+ *
+ * "forall x. x in A -> x in B" with "a in A" in scope is instantiated only for a, through
+ * the trigger "x in A", instead of for every term of the proof.
+ */
+public class QuantifierInstantiator {
+    /** Default maximum number of instances of one quantifier. */
+    public static final int DEFAULT_INSTANCE_LIMIT = 100;
+
+    /** Rounds of feeding instances back as ground facts in {@link #instantiate(List, Formula)}. */
+    private static final int ROUNDS = 3;
+
+    /** A quantified fact with the triggers inferred for it. */
+    private static class Quantified {
+        private Quantifier quantifier;
+        private List<String> variables = new ArrayList<>();
+        private List<List<Formula>> triggers = new ArrayList<>();
+        private Set<String> instantiated = new HashSet<>();
+        private int instances;
+
+        Quantified(Quantifier quantifier) {
+            this.quantifier = quantifier;
+            for (Identifier variable : quantifier.getVariables()) {
+                variables.add(variable.getName());
+            }
+        }
+    }
+
+    /**
+     * A node waiting in {@link #substitute}: first to be expanded into its children, then,
+     * once their results are on the stack, to be rebuilt from them.
+     */
+    private static class Substitution {
+        private Formula formula;
+        private Map<String, Formula> binding;
+        private boolean expanded;
+        // The variables of a quantifier after renaming
+        private List<Identifier> variables;
+
+        Substitution(Formula formula, Map<String, Formula> binding) {
+            this.formula = formula;
+            this.binding = binding;
+        }
+    }
+
+    private int instanceLimit;
+    private List<Quantified> quantifiers = new ArrayList<>();
+    private Map<String, List<Formula>> index = new HashMap<>();
+    private Set<String> indexed = new HashSet<>();
+    private int instanceCount;
+
+    public QuantifierInstantiator() {
+        this(DEFAULT_INSTANCE_LIMIT);
+    }
+
+    public QuantifierInstantiator(int instanceLimit) {
+        this.instanceLimit = instanceLimit;
+    }
+
+    /** Total number of instances produced so far. */
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    /**
+     * Adds a universally quantified fact and returns its instances for the ground terms
+     * indexed so far. Quantifiers without a usable trigger are never instantiated.
+     */
+    public List<Formula> addQuantifier(Quantifier quantifier) {
+        List<Formula> instances = new ArrayList<>();
+        if (quantifier.getType() != Quantifier.Type.FORALL) {
+            return instances;
+        }
+        Quantified quantified = new Quantified(quantifier);
+        quantified.triggers = inferTriggers(quantifier.getBody(), new HashSet<>(quantified.variables));
+        quantifiers.add(quantified);
+        for (List<Formula> trigger : quantified.triggers) {
+            matchAll(quantified, trigger, 0, new LinkedHashMap<>(), instances);
+        }
+        return instances;
+    }
+
+    /**
+     * Indexes the ground terms of a fact and returns the instances that matching them
+     * produces. Terms seen before are skipped, so every binding is found only once.
+     */
+    public List<Formula> addGround(Formula fact) {
+        List<Formula> fresh = new ArrayList<>();
+        collectGround(fact, fresh);
+        List<Formula> instances = new ArrayList<>();
+        for (Formula term : fresh) {
+            String head = head(term);
+            for (Quantified quantified : quantifiers) {
+                for (List<Formula> trigger : quantified.triggers) {
+                    // The new term may match any one of the patterns; the rest match anything indexed
+                    for (int i = 0; i < trigger.size(); i++) {
+                        Formula pattern = trigger.get(i);
+                        Map<String, Formula> binding = new LinkedHashMap<>();
+                        if (head.equals(head(pattern)) && match(pattern, term, quantified.variables, binding)) {
+                            List<Formula> rest = new ArrayList<>(trigger);
+                            rest.remove(i);
+                            matchAll(quantified, rest, 0, binding, instances);
+                        }
+                    }
+                }
+            }
+        }
+        return instances;
+    }
+
+    /**
+     * Returns instances of the universally quantified premises for the ground terms of the
+     * other premises and the goal, feeding instances back as new facts for a few rounds.
+     */
+    public static List<Formula> instantiate(List<Formula> premises, Formula goal) {
+        QuantifierInstantiator instantiator = new QuantifierInstantiator();
+        List<Formula> instances = new ArrayList<>();
+        for (Formula premise : premises) {
+            if (!(premise instanceof Quantifier)) {
+                instances.addAll(instantiator.addGround(premise));
+            }
+        }
+        instances.addAll(instantiator.addGround(goal));
+        for (Formula premise : premises) {
+            if (premise instanceof Quantifier) {
+                instances.addAll(instantiator.addQuantifier((Quantifier) premise));
+            }
+        }
+        List<Formula> round = instances;
+        for (int i = 1; i < ROUNDS && !round.isEmpty(); i++) {
+            List<Formula> next = new ArrayList<>();
+            for (Formula instance : round) {
+                if (instance instanceof Quantifier) {
+                    // Instantiating the outer variables of a nested forall leaves a quantifier
+                    next.addAll(instantiator.addQuantifier((Quantifier) instance));
+                } else {
+                    next.addAll(instantiator.addGround(instance));
+                }
+            }
+            instances.addAll(next);
+            round = next;
+        }
+        return instances;
+    }
+
+    /**
+     * Matches the patterns from position i on against the index, extending the binding,
+     * and instantiates the quantifier for every complete binding.
+     */
+    private void matchAll(Quantified quantified, List<Formula> patterns, int i, Map<String, Formula> binding,
+                          List<Formula> instances) {
+        if (quantified.instances >= instanceLimit) {
+            return;
+        }
+        if (i == patterns.size()) {
+            instantiate(quantified, binding, instances);
+            return;
+        }
+        Formula pattern = patterns.get(i);
+        List<Formula> candidates = index.get(head(pattern));
+        if (candidates == null) {
+            return;
+        }
+        for (Formula candidate : new ArrayList<>(candidates)) {
+            Map<String, Formula> extended = new LinkedHashMap<>(binding);
+            if (match(pattern, candidate, quantified.variables, extended)) {
+                matchAll(quantified, patterns, i + 1, extended, instances);
+            }
+        }
+    }
+
+    private void instantiate(Quantified quantified, Map<String, Formula> binding, List<Formula> instances) {
+        StringBuilder key = new StringBuilder();
+        for (String variable : quantified.variables) {
+            key.append(binding.get(variable)).append('\n');
+        }
+        if (quantified.instances >= instanceLimit || !quantified.instantiated.add(key.toString())) {
+            return;
+        }
+        quantified.instances++;
+        instanceCount++;
+        instances.add(substitute(quantified.quantifier.getBody(), binding));
+    }
+
+    /**
+     * Chooses triggers for a body: each single pattern that mentions every variable, or
+     * failing that one group of patterns that together mention them all.
+     */
+    private static List<List<Formula>> inferTriggers(Formula body, Set<String> variables) {
+        List<Formula> candidates = new ArrayList<>();
+        collectCandidates(body, variables, candidates);
+
+        List<List<Formula>> triggers = new ArrayList<>();
+        for (Formula candidate : candidates) {
+            if (freeVariables(candidate, variables).size() == variables.size()) {
+                List<Formula> single = new ArrayList<>();
+                single.add(candidate);
+                triggers.add(single);
+            }
+        }
+        if (!triggers.isEmpty()) {
+            return triggers;
+        }
+
+        // Greedy cover: keep adding the pattern that binds the most variables still unbound
+        Set<String> uncovered = new HashSet<>(variables);
+        List<Formula> group = new ArrayList<>();
+        while (!uncovered.isEmpty()) {
+            Formula best = null;
+            int bestCount = 0;
+            for (Formula candidate : candidates) {
+                Set<String> covers = freeVariables(candidate, uncovered);
+                if (covers.size() > bestCount) {
+                    best = candidate;
+                    bestCount = covers.size();
+                }
+            }
+            if (best == null) {
+                // Some variable occurs in no pattern, for example only as a bare predicate
+                return triggers;
+            }
+            group.add(best);
+            uncovered.removeAll(freeVariables(best, uncovered));
+        }
+        triggers.add(group);
+        return triggers;
+    }
+
+    /**
+     * Adds, in order of occurrence, the applications and relations under the connectives
+     * of a body that mention the variables.
+     */
+    private static void collectCandidates(Formula body, Set<String> variables, List<Formula> candidates) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        Deque<Set<String>> scopes = new ArrayDeque<>();
+        pending.push(body);
+        scopes.push(variables);
+        while (!pending.isEmpty()) {
+            Formula formula = pending.pop();
+            Set<String> scope = scopes.pop();
+            List<Formula> children;
+            if (formula instanceof Quantifier) {
+                // Variables bound further in cannot be matched against ground terms
+                Quantifier inner = (Quantifier) formula;
+                Set<String> outer = new HashSet<>(scope);
+                for (Identifier variable : inner.getVariables()) {
+                    outer.remove(variable.getName());
+                }
+                pending.push(inner.getBody());
+                scopes.push(outer);
+                continue;
+            }
+            if (formula instanceof UnaryOperation
+                    || formula instanceof BinaryOperation && isConnective(((BinaryOperation) formula).getOperator())) {
+                children = children(formula);
+            } else if (head(formula) != null) {
+                if (!freeVariables(formula, scope).isEmpty() && !containsPattern(candidates, formula)) {
+                    candidates.add(formula);
+                }
+                children = children(formula);
+            } else {
+                continue;
+            }
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+                scopes.push(scope);
+            }
+        }
+    }
+
+    private static boolean containsPattern(List<Formula> candidates, Formula formula) {
+        String text = formula.toString();
+        for (Formula candidate : candidates) {
+            if (candidate.toString().equals(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds the ground applications and relations of a fact to the index, and to fresh if
+     * they were not indexed before. Quantified sub-formulas are not ground and are skipped.
+     */
+    private void collectGround(Formula fact, List<Formula> fresh) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(fact);
+        while (!pending.isEmpty()) {
+            Formula formula = pending.pop();
+            if (formula instanceof Quantifier) {
+                continue;
+            }
+            String head = head(formula);
+            if (head != null && indexed.add(formula.toString())) {
+                index.computeIfAbsent(head, h -> new ArrayList<>()).add(formula);
+                fresh.add(formula);
+            }
+            if (head != null || formula instanceof UnaryOperation || formula instanceof BinaryOperation) {
+                List<Formula> children = children(formula);
+                for (int i = children.size() - 1; i >= 0; i--) {
+                    pending.push(children.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * Matches a pattern against a ground term, binding the quantifier's variables. Other
+     * identifiers must occur unchanged.
+     */
+    private static boolean match(Formula pattern, Formula term, List<String> variables, Map<String, Formula> binding) {
+        Deque<Formula> patterns = new ArrayDeque<>();
+        Deque<Formula> terms = new ArrayDeque<>();
+        patterns.push(pattern);
+        terms.push(term);
+        while (!patterns.isEmpty()) {
+            Formula p = patterns.pop();
+            Formula t = terms.pop();
+            if (p instanceof Identifier && variables.contains(((Identifier) p).getName())) {
+                String name = ((Identifier) p).getName();
+                Formula bound = binding.get(name);
+                if (bound == null) {
+                    binding.put(name, t);
+                } else if (!bound.toString().equals(t.toString())) {
+                    return false;
+                }
+                continue;
+            }
+            String head = head(p);
+            if (head == null) {
+                if (!p.toString().equals(t.toString())) {
+                    return false;
+                }
+                continue;
+            }
+            if (!head.equals(head(t))) {
+                return false;
+            }
+            List<Formula> patternChildren = children(p);
+            List<Formula> termChildren = children(t);
+            for (int i = patternChildren.size() - 1; i >= 0; i--) {
+                patterns.push(patternChildren.get(i));
+                terms.push(termChildren.get(i));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Replaces the bound identifiers of a formula, leaving those rebound by inner quantifiers.
+     * An inner quantifier whose variable occurs in a replacement is renamed first, so the
+     * replacement is not captured: forall x. exists y. R(x, y) with x := y gives
+     * exists y_1. R(y, y_1).
+     */
+    static Formula substitute(Formula formula, Map<String, Formula> binding) {
+        Deque<Substitution> pending = new ArrayDeque<>();
+        Deque<Formula> results = new ArrayDeque<>();
+        pending.push(new Substitution(formula, binding));
+        while (!pending.isEmpty()) {
+            Substitution node = pending.pop();
+            Formula current = node.formula;
+            if (node.expanded) {
+                results.push(rebuild(node, results));
+                continue;
+            }
+            if (current instanceof Identifier) {
+                Formula value = node.binding.get(((Identifier) current).getName());
+                results.push(value != null ? value : current);
+                continue;
+            }
+            if (current instanceof Quantifier) {
+                Quantifier quantifier = (Quantifier) current;
+                Map<String, Formula> inner = new HashMap<>(node.binding);
+                for (Identifier variable : quantifier.getVariables()) {
+                    inner.remove(variable.getName());
+                }
+                Set<String> captured = new HashSet<>();
+                for (Formula value : inner.values()) {
+                    collectNames(value, captured);
+                }
+                List<Identifier> variables = new ArrayList<>();
+                Set<String> used = null;
+                for (Identifier variable : quantifier.getVariables()) {
+                    if (!captured.contains(variable.getName())) {
+                        variables.add(variable);
+                        continue;
+                    }
+                    if (used == null) {
+                        used = new HashSet<>(captured);
+                        collectNames(quantifier, used);
+                    }
+                    Identifier renamed = freshVariable(variable.getName(), used);
+                    inner.put(variable.getName(), renamed);
+                    variables.add(renamed);
+                }
+                node.variables = variables;
+                node.expanded = true;
+                pending.push(node);
+                pending.push(new Substitution(quantifier.getBody(), inner));
+                continue;
+            }
+            List<Formula> children = children(current);
+            if (children.isEmpty()) {
+                results.push(current);
+                continue;
+            }
+            node.expanded = true;
+            pending.push(node);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(new Substitution(children.get(i), node.binding));
+            }
+        }
+        return results.pop();
+    }
+
+    /** Rebuilds an expanded node from the substituted children on top of results. */
+    private static Formula rebuild(Substitution node, Deque<Formula> results) {
+        if (node.formula instanceof Quantifier) {
+            Quantifier quantifier = (Quantifier) node.formula;
+            return new Quantifier(quantifier.getType(), node.variables, results.pop());
+        }
+        Formula[] parts = new Formula[children(node.formula).size()];
+        for (int i = parts.length - 1; i >= 0; i--) {
+            parts[i] = results.pop();
+        }
+        if (node.formula instanceof UnaryOperation) {
+            return new UnaryOperation(((UnaryOperation) node.formula).getOperator(), parts[0]);
+        }
+        if (node.formula instanceof BinaryOperation) {
+            return new BinaryOperation(parts[0], ((BinaryOperation) node.formula).getOperator(), parts[1]);
+        }
+        if (node.formula instanceof FunctionCall) {
+            return new FunctionCall(((FunctionCall) node.formula).getFunctionName(), new ArrayList<>(Arrays.asList(parts)));
+        }
+        return new SetLiteral(new ArrayList<>(Arrays.asList(parts)));
+    }
+
+    /** A name of the form base_N that is not in used, which it is then added to. */
+    private static Identifier freshVariable(String base, Set<String> used) {
+        int suffix = 1;
+        while (used.contains(base + "_" + suffix)) {
+            suffix++;
+        }
+        used.add(base + "_" + suffix);
+        return new Identifier(base + "_" + suffix);
+    }
+
+    /** Adds every identifier occurring in a formula, bound or free, to names. */
+    private static void collectNames(Formula formula, Set<String> names) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(formula);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            if (current instanceof Identifier) {
+                names.add(((Identifier) current).getName());
+            } else if (current instanceof Quantifier) {
+                Quantifier quantifier = (Quantifier) current;
+                for (Identifier variable : quantifier.getVariables()) {
+                    names.add(variable.getName());
+                }
+                pending.push(quantifier.getBody());
+            } else {
+                pending.addAll(children(current));
+            }
+        }
+    }
+
+    private static Set<String> freeVariables(Formula formula, Set<String> variables) {
+        Set<String> found = new LinkedHashSet<>();
+        collectVariables(formula, variables, found);
+        return found;
+    }
+
+    private static void collectVariables(Formula formula, Set<String> variables, Set<String> found) {
+        Deque<Formula> pending = new ArrayDeque<>();
+        pending.push(formula);
+        while (!pending.isEmpty()) {
+            Formula current = pending.pop();
+            if (current instanceof Identifier) {
+                String name = ((Identifier) current).getName();
+                if (variables.contains(name)) {
+                    found.add(name);
+                }
+                continue;
+            }
+            List<Formula> children = children(current);
+            for (int i = children.size() - 1; i >= 0; i--) {
+                pending.push(children.get(i));
+            }
+        }
+    }
+
+    /**
+     * The symbol terms are indexed by: a function and its arity, or a relation or set
+     * operator. Null for anything that is not an application.
+     */
+    private static String head(Formula formula) {
+        if (formula instanceof FunctionCall) {
+            FunctionCall call = (FunctionCall) formula;
+            return "fn:" + call.getFunctionName() + "/" + call.getArguments().size();
+        }
+        if (formula instanceof BinaryOperation && !isConnective(((BinaryOperation) formula).getOperator())) {
+            return ((BinaryOperation) formula).getOperator().name();
+        }
+        return null;
+    }
+
+    private static List<Formula> children(Formula formula) {
+        List<Formula> children = new ArrayList<>();
+        if (formula instanceof FunctionCall) {
+            children.addAll(((FunctionCall) formula).getArguments());
+        } else if (formula instanceof BinaryOperation) {
+            children.add(((BinaryOperation) formula).getLeft());
+            children.add(((BinaryOperation) formula).getRight());
+        } else if (formula instanceof UnaryOperation) {
+            children.add(((UnaryOperation) formula).getOperand());
+        } else if (formula instanceof SetLiteral) {
+            children.addAll(((SetLiteral) formula).getElements());
+        }
+        return children;
+    }
+
+    private static boolean isConnective(BinaryOperation.Operator operator) {
+        switch (operator) {
+            case AND:
+            case OR:
+            case IMPLIES:
+            case IFF:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
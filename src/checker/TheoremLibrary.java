@@ -0,0 +1,194 @@
+package checker;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import ast.*;
+
+/**
+ * The repository of proven theorems, indexed so that a proof step can quickly find the
+ * lemmas that could justify it.
+ *
+ * Every theorem statement is indexed together with its sub-formulas in a discrimination
+ * tree: a lemma "A -> B" can justify a step matching the whole statement, but also a step
+ * matching B (by modus ponens) or either conjunct of a conjunction. Only the variables of
+ * universal quantifiers around a sub-formula match any term, since those are the ones the
+ * {@link QuantifierInstantiator} fills in; the lemma's other names must appear in the step
+ * as they are. Theorems are added one at a time as they are verified.
+ */
+public class TheoremLibrary {
+    /**
+     * A candidate justification: a theorem and the part of its statement that matched.
+     */
+    public static class Candidate {
+        private TheoremDecl theorem;
+        private Formula matchedPart;
+
+        Candidate(TheoremDecl theorem, Formula matchedPart) {
+            this.theorem = theorem;
+            this.matchedPart = matchedPart;
+        }
+
+        public TheoremDecl getTheorem() {
+            return theorem;
+        }
+
+        public Formula getMatchedPart() {
+            return matchedPart;
+        }
+
+        @Override
+        public String toString() {
+            return "Candidate[" + theorem.getName() + ": " + matchedPart + "]";
+        }
+    }
+
+    private Map<String, TheoremDecl> theorems = new LinkedHashMap<>();
+    private DiscriminationTree<Candidate> index = new DiscriminationTree<>();
+    // Theorems added since the last lookup; indexing a statement costs about its size
+    // times its depth, so it waits until the index is used
+    private Set<TheoremDecl> unindexed = new LinkedHashSet<>();
+
+    /**
+     * Adds a verified theorem to the library. Its statement is indexed before the next lookup.
+     */
+    public void add(TheoremDecl theorem) {
+        theorems.put(theorem.getName(), theorem);
+        unindexed.add(theorem);
+    }
+
+    /**
+     * Removes a theorem and its index entries, for example when it was edited.
+     */
+    public void remove(String name) {
+        TheoremDecl theorem = theorems.remove(name);
+        if (theorem == null || unindexed.remove(theorem)) {
+            return;
+        }
+        List<Formula> patterns = new ArrayList<>();
+        List<Set<String>> variables = new ArrayList<>();
+        collectPatterns(theorem.getTheorem(), patterns, variables);
+        for (int i = 0; i < patterns.size(); i++) {
+            index.remove(patterns.get(i), variables.get(i), candidate -> candidate.getTheorem() == theorem);
+        }
+    }
+
+    public TheoremDecl get(String name) {
+        return theorems.get(name);
+    }
+
+    public boolean contains(String name) {
+        return theorems.containsKey(name);
+    }
+
+    public Collection<TheoremDecl> getTheorems() {
+        return theorems.values();
+    }
+
+    public int size() {
+        return theorems.size();
+    }
+
+    /**
+     * Returns the indexed sub-formulas whose shape matches the goal.
+     */
+    public List<Candidate> candidates(Formula goal) {
+        indexPending();
+        return index.retrieve(goal);
+    }
+
+    /**
+     * Returns the distinct theorems that could justify the goal. At each symbol of the goal,
+     * lemmas that state it exactly come before those that instantiate a variable for it.
+     */
+    public List<TheoremDecl> candidateTheorems(Formula goal) {
+        indexPending();
+        Set<TheoremDecl> result = new LinkedHashSet<>();
+        for (Candidate candidate : index.retrieve(goal)) {
+            result.add(candidate.getTheorem());
+        }
+        return new ArrayList<>(result);
+    }
+
+    private void indexPending() {
+        for (TheoremDecl theorem : unindexed) {
+            List<Formula> patterns = new ArrayList<>();
+            List<Set<String>> variables = new ArrayList<>();
+            collectPatterns(theorem.getTheorem(), patterns, variables);
+            for (int i = 0; i < patterns.size(); i++) {
+                index.insert(patterns.get(i), variables.get(i), new Candidate(theorem, patterns.get(i)));
+            }
+        }
+        unindexed.clear();
+    }
+
+    /**
+     * Collects the statement and the sub-formulas of it that are indexed, each with the
+     * variables of the universal quantifiers around it.
+     */
+    private static void collectPatterns(Formula statement, List<Formula> patterns, List<Set<String>> variables) {
+        // Depth first, in the order the parts appear, without recursion
+        Deque<Formula> pending = new ArrayDeque<>();
+        Deque<Set<String>> bound = new ArrayDeque<>();
+        pending.push(statement);
+        bound.push(Collections.emptySet());
+        while (!pending.isEmpty()) {
+            Formula part = pending.pop();
+            Set<String> names = bound.pop();
+            // A bare variable would match every goal
+            if (!(part instanceof Identifier && names.contains(((Identifier) part).getName()))) {
+                patterns.add(part);
+                variables.add(names);
+            }
+            if (part instanceof Quantifier) {
+                Quantifier quantifier = (Quantifier) part;
+                // The body of an existential is not a fact about any particular term
+                if (quantifier.getType() == Quantifier.Type.FORALL) {
+                    Set<String> inner = new HashSet<>(names);
+                    for (Identifier variable : quantifier.getVariables()) {
+                        inner.add(variable.getName());
+                    }
+                    pending.push(quantifier.getBody());
+                    bound.push(inner);
+                }
+                continue;
+            }
+            List<Formula> parts = parts(part);
+            for (int i = parts.size() - 1; i >= 0; i--) {
+                pending.push(parts.get(i));
+                bound.push(names);
+            }
+        }
+    }
+
+    private static List<Formula> parts(Formula formula) {
+        List<Formula> parts = new ArrayList<>();
+        if (formula instanceof UnaryOperation) {
+            parts.add(((UnaryOperation) formula).getOperand());
+        } else if (formula instanceof BinaryOperation) {
+            BinaryOperation binary = (BinaryOperation) formula;
+            switch (binary.getOperator()) {
+                case AND:
+                case OR:
+                case IMPLIES:
+                case IFF:
+                    parts.add(binary.getLeft());
+                    parts.add(binary.getRight());
+                    break;
+                default:
+                    // Relations between terms are atoms; their terms are not statements
+                    break;
+            }
+        }
+        return parts;
+    }
+}
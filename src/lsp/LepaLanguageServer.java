@@ -0,0 +1,392 @@
+package lsp;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+
+import ast.Program;
+import ast.TheoremDecl;
+import checker.IncrementalChecker;
+import checker.ProofChecker;
+import parser.IncrementalParser;
+import parser.SymbolTable;
+import parser.SyntaxError;
+
+/**
+ * A language server for LEPA, speaking LSP over stdin and stdout.
+ *
+ * Each open document keeps an {@link IncrementalParser} and an {@link IncrementalChecker}.
+ * After an edit only the blocks the edit touched are parsed again, and only the steps
+ * the edit can affect are checked again. Checking runs on a separate thread once the
+ * document has been quiet for {@link #DEBOUNCE_MILLIS}; an edit that arrives meanwhile
+ * cancels the pending check, and a check already running stops at the next theorem and
+ * publishes nothing.
+ */
+public class LepaLanguageServer {
+    public static final long DEBOUNCE_MILLIS = 200;
+
+    /** LSP diagnostic severities. */
+    private static final int SEVERITY_ERROR = 1;
+    private static final int SEVERITY_WARNING = 2;
+
+    /** What the server keeps for one open document. */
+    private static class OpenDocument {
+        private TextDocument text;
+        // Only used on the check thread, which catches it up with the edits made since
+        private IncrementalParser parser;
+        private List<Edit> unparsed = new ArrayList<>();
+        private IncrementalChecker checker = new IncrementalChecker();
+        private Future<?> pending;
+        private volatile long generation;
+
+        OpenDocument(TextDocument text, SymbolTable identifiers) {
+            this.text = text;
+            this.parser = new IncrementalParser(identifiers);
+            unparsed.add(new Edit(0, 0, text.getText()));
+        }
+    }
+
+    /** A replacement of text[start .. end) not yet given to the parser. */
+    private static class Edit {
+        private int start;
+        private int end;
+        private String text;
+
+        Edit(int start, int end, String text) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+        }
+    }
+
+    private InputStream in;
+    private OutputStream out;
+    private Map<String, OpenDocument> documents = new ConcurrentHashMap<>();
+    private ScheduledExecutorService checkExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lepa-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private SymbolTable identifiers = new SymbolTable();
+    private int blocksParsed;
+    private boolean shutdown;
+
+    public LepaLanguageServer(InputStream in, OutputStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws IOException {
+        // stdout carries the protocol; anything else printed goes to stderr
+        OutputStream protocol = new FileOutputStream(FileDescriptor.out);
+        System.setOut(System.err);
+        LepaLanguageServer server = new LepaLanguageServer(System.in, protocol);
+        server.run();
+        System.exit(server.shutdown ? 0 : 1);
+    }
+
+    /** Number of theorem blocks parsed since the server started. */
+    public int getBlocksParsed() {
+        return blocksParsed;
+    }
+
+    /**
+     * Reads and handles messages until the client sends 'exit' or closes the stream.
+     */
+    public void run() throws IOException {
+        String message;
+        while ((message = readMessage()) != null) {
+            Map<String, Object> request;
+            try {
+                request = asObject(Json.parse(message));
+            } catch (IllegalArgumentException e) {
+                sendError(null, -32700, "Parse error: " + e.getMessage());
+                continue;
+            }
+            if ("exit".equals(request.get("method"))) {
+                break;
+            }
+            handle(request);
+        }
+        checkExecutor.shutdownNow();
+    }
+
+    private void handle(Map<String, Object> request) {
+        String method = (String) request.get("method");
+        Object id = request.get("id");
+        Map<String, Object> params = asObject(request.get("params"));
+        if (method == null) {
+            // A response to a request we never send
+            return;
+        }
+        try {
+            switch (method) {
+                case "initialize":
+                    send(Json.object("jsonrpc", "2.0", "id", id, "result", Json.object(
+                            "capabilities", Json.object(
+                                    "textDocumentSync", Json.object("openClose", true, "change", 2)),
+                            "serverInfo", Json.object("name", "lepa"))));
+                    break;
+                case "shutdown":
+                    shutdown = true;
+                    send(Json.object("jsonrpc", "2.0", "id", id, "result", null));
+                    break;
+                case "textDocument/didOpen":
+                    didOpen(asObject(params.get("textDocument")));
+                    break;
+                case "textDocument/didChange":
+                    didChange(params);
+                    break;
+                case "textDocument/didClose":
+                    didClose((String) asObject(params.get("textDocument")).get("uri"));
+                    break;
+                default:
+                    if (id != null) {
+                        sendError(id, -32601, "Method not found: " + method);
+                    }
+            }
+        } catch (RuntimeException e) {
+            if (id != null) {
+                sendError(id, -32603, "Internal error: " + e.getMessage());
+            } else {
+                System.err.println("Error handling " + method + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void didOpen(Map<String, Object> item) {
+        String uri = (String) item.get("uri");
+        int version = ((Number) item.get("version")).intValue();
+        OpenDocument document = new OpenDocument(new TextDocument(uri, (String) item.get("text"), version), identifiers);
+        documents.put(uri, document);
+        schedule(document);
+    }
+
+    private void didChange(Map<String, Object> params) {
+        Map<String, Object> item = asObject(params.get("textDocument"));
+        OpenDocument document = documents.get((String) item.get("uri"));
+        if (document == null) {
+            return;
+        }
+        int version = ((Number) item.get("version")).intValue();
+        synchronized (document) {
+            for (Object change : (List<?>) params.get("contentChanges")) {
+                Map<String, Object> content = asObject(change);
+                int[] replaced = document.text.applyChange(content, version);
+                document.unparsed.add(new Edit(replaced[0], replaced[1], (String) content.get("text")));
+            }
+        }
+        schedule(document);
+    }
+
+    private void didClose(String uri) {
+        OpenDocument document = documents.remove(uri);
+        if (document != null) {
+            synchronized (document) {
+                document.generation++;
+                if (document.pending != null) {
+                    document.pending.cancel(false);
+                }
+            }
+            publish(uri, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules a check of the document once it has been quiet for the debounce delay,
+     * superseding any check already scheduled or running.
+     */
+    private void schedule(OpenDocument document) {
+        synchronized (document) {
+            long generation = ++document.generation;
+            if (document.pending != null) {
+                document.pending.cancel(false);
+            }
+            document.pending = checkExecutor.schedule(() -> check(document, generation),
+                    DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Parses the changed blocks of a document, checks it and publishes its diagnostics.
+     * Runs on the check thread.
+     */
+    private void check(OpenDocument document, long generation) {
+        TextDocument snapshot;
+        List<Edit> edits;
+        synchronized (document) {
+            if (document.generation != generation) {
+                return;
+            }
+            TextDocument current = document.text;
+            snapshot = new TextDocument(current.getUri(), current.getText(), current.getVersion());
+            edits = document.unparsed;
+            document.unparsed = new ArrayList<>();
+        }
+        IncrementalParser parser = document.parser;
+        int parsedBefore = parser.getBlocksParsed();
+        try {
+            for (Edit edit : edits) {
+                parser.edit(edit.start, edit.end, edit.text);
+            }
+        } catch (RuntimeException e) {
+            // The edits after the failing one were never made; parse the whole text afresh
+            // on the next check rather than keep a parser that no longer follows the document
+            System.err.println("Error parsing " + snapshot.getUri() + ": " + e);
+            synchronized (document) {
+                document.parser = new IncrementalParser(parser.getSymbolTable());
+                document.unparsed.add(0, new Edit(0, 0, snapshot.getText()));
+            }
+            return;
+        }
+        blocksParsed += parser.getBlocksParsed() - parsedBefore;
+        List<Map<String, Object>> diagnostics = new ArrayList<>();
+
+        Program program = new Program();
+        Map<String, TextDocument.Block> blockOf = new HashMap<>();
+        for (IncrementalParser.Block parsed : parser.getBlocks()) {
+            SyntaxError error = parsed.getError();
+            if (error != null) {
+                int start = parsed.getStart() + error.getOffset();
+                diagnostics.add(diagnostic(snapshot, start, Math.min(start + 1, parsed.getEnd()), SEVERITY_ERROR,
+                        "Syntax error: " + error.getDetail()));
+                continue;
+            }
+            TheoremDecl theorem = parsed.getTheorem();
+            if (theorem == null) {
+                continue;
+            }
+            TextDocument.Block block = snapshot.block(parsed.getStart(), parsed.getEnd());
+            if (blockOf.containsKey(theorem.getName())) {
+                int[] header = block.getHeader();
+                diagnostics.add(diagnostic(snapshot, header[0], header[1], SEVERITY_ERROR,
+                        "Theorem " + theorem.getName() + " is already declared"));
+            } else {
+                program.addTheorem(theorem);
+                blockOf.put(theorem.getName(), block);
+            }
+        }
+
+        List<ProofChecker.TheoremResult> results =
+                document.checker.check(program, () -> document.generation != generation);
+        if (document.generation != generation) {
+            return;
+        }
+        for (ProofChecker.TheoremResult result : results) {
+            addDiagnostics(snapshot, blockOf.get(result.getTheorem().getName()), result, diagnostics);
+        }
+        publish(snapshot.getUri(), diagnostics);
+    }
+
+    /**
+     * Reports a theorem's problems: failing steps at the step, anything else at the
+     * statement.
+     */
+    private void addDiagnostics(TextDocument document, TextDocument.Block block, ProofChecker.TheoremResult result,
+                                List<Map<String, Object>> diagnostics) {
+        List<int[]> stepRanges = block.getSteps();
+        // The text-level split only lines up with the parsed steps when the counts agree
+        boolean aligned = stepRanges.size() == result.getSteps().size();
+        Set<String> reported = new HashSet<>();
+        for (ProofChecker.StepResult step : result.getSteps()) {
+            if (step.isVerified()) {
+                continue;
+            }
+            int[] range = aligned ? stepRanges.get(step.getIndex() - 1) : block.getHeader();
+            diagnostics.add(diagnostic(document, range[0], range[1], SEVERITY_ERROR,
+                    "Step " + step.getIndex() + ": " + step.getMessage()));
+            reported.add(step.toString());
+        }
+        for (String problem : result.getProblems()) {
+            if (reported.contains(problem)) {
+                continue;
+            }
+            int[] range = block.getHeader();
+            int colon = problem.indexOf(':');
+            if (aligned && problem.startsWith("Step ") && colon > 0) {
+                try {
+                    int index = Integer.parseInt(problem.substring("Step ".length(), colon));
+                    if (index >= 1 && index <= stepRanges.size()) {
+                        range = stepRanges.get(index - 1);
+                    }
+                } catch (NumberFormatException e) {
+                    // Not a step problem after all; report it at the statement
+                }
+            }
+            diagnostics.add(diagnostic(document, range[0], range[1], SEVERITY_WARNING, problem));
+        }
+    }
+
+    private static Map<String, Object> diagnostic(TextDocument document, int start, int end, int severity,
+                                                  String message) {
+        return Json.object("range", document.range(start, end), "severity", severity,
+                "source", "lepa", "message", message);
+    }
+
+    private void publish(String uri, List<Map<String, Object>> diagnostics) {
+        send(Json.object("jsonrpc", "2.0", "method", "textDocument/publishDiagnostics",
+                "params", Json.object("uri", uri, "diagnostics", diagnostics)));
+    }
+
+    private void sendError(Object id, int code, String message) {
+        send(Json.object("jsonrpc", "2.0", "id", id, "error", Json.object("code", code, "message", message)));
+    }
+
+    /**
+     * Writes one message with its Content-Length header. Called from both the request
+     * thread and the check thread.
+     */
+    private synchronized void send(Map<String, Object> message) {
+        byte[] body = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        try {
+            out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            out.write(body);
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the client", e);
+        }
+    }
+
+    /**
+     * Reads one message body, or returns null at the end of the input.
+     */
+    private String readMessage() throws IOException {
+        int length = -1;
+        String header;
+        while ((header = readHeaderLine()) != null && !header.isEmpty()) {
+            if (header.toLowerCase().startsWith("content-length:")) {
+                length = Integer.parseInt(header.substring("content-length:".length()).trim());
+            }
+        }
+        if (header == null || length < 0) {
+            return null;
+        }
+        byte[] body = in.readNBytes(length);
+        if (body.length < length) {
+            return null;
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    private String readHeaderLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int end = line.length();
+                if (end > 0 && line.charAt(end - 1) == '\r') {
+                    line.setLength(end - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        return line.length() == 0 ? null : line.toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asObject(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : new HashMap<>();
+    }
+}
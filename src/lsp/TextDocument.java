@@ -0,0 +1,252 @@
+package lsp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An open LEPA document: its text, the edits applied to it, and where the proof steps of a
+ * theorem block lie.
+ *
+ * Steps are found on the raw text so that a failing step can be located without the
+ * parser keeping positions. A step ends at a dot that is not the binder dot of a
+ * quantifier.
+ */
+public class TextDocument {
+    /**
+     * One theorem block: a character range of the document and the ranges of its steps.
+     */
+    public static class Block {
+        private int start;
+        private int end;
+        private String text;
+        private List<int[]> steps;
+
+        Block(int start, int end, String text, List<int[]> steps) {
+            this.start = start;
+            this.end = end;
+            this.text = text;
+            this.steps = steps;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+        /** Document offsets {start, end} of each proof step, in order. */
+        public List<int[]> getSteps() {
+            return steps;
+        }
+
+        /** Document offsets {start, end} of the statement line. */
+        public int[] getHeader() {
+            int dot = findStatementEnd(text);
+            return new int[] { start, start + dot };
+        }
+    }
+
+    private String uri;
+    private String text;
+    private int version;
+
+    public TextDocument(String uri, String text, int version) {
+        this.uri = uri;
+        this.text = text;
+        this.version = version;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Applies one content change from a didChange notification. A change without a range
+     * replaces the whole text.
+     *
+     * @return the offsets {start, end} of the text that was replaced.
+     */
+    @SuppressWarnings("unchecked")
+    public int[] applyChange(Map<String, Object> change, int version) {
+        String newText = (String) change.get("text");
+        Map<String, Object> range = (Map<String, Object>) change.get("range");
+        int start = 0;
+        int end = text.length();
+        if (range != null) {
+            start = offsetAt((Map<String, Object>) range.get("start"));
+            end = offsetAt((Map<String, Object>) range.get("end"));
+        }
+        text = text.substring(0, start) + newText + text.substring(end);
+        this.version = version;
+        return new int[] { start, end };
+    }
+
+    /** Converts an LSP position to an offset, clamped to the text. */
+    public int offsetAt(Map<String, Object> position) {
+        int line = ((Number) position.get("line")).intValue();
+        int character = ((Number) position.get("character")).intValue();
+        int offset = 0;
+        for (int i = 0; i < line; i++) {
+            int newline = text.indexOf('\n', offset);
+            if (newline < 0) {
+                return text.length();
+            }
+            offset = newline + 1;
+        }
+        int lineEnd = text.indexOf('\n', offset);
+        if (lineEnd < 0) {
+            lineEnd = text.length();
+        }
+        return Math.min(offset + character, lineEnd);
+    }
+
+    /** Converts an offset to an LSP position. */
+    public Map<String, Object> positionAt(int offset) {
+        int line = 0;
+        int lineStart = 0;
+        for (int i = 0; i < offset && i < text.length(); i++) {
+            if (text.charAt(i) == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        return Json.object("line", line, "character", offset - lineStart);
+    }
+
+    /** An LSP range covering the given offsets. */
+    public Map<String, Object> range(int start, int end) {
+        return Json.object("start", positionAt(start), "end", positionAt(end));
+    }
+
+    /**
+     * The block covering text[start .. end), with the ranges of its steps.
+     */
+    public Block block(int start, int end) {
+        String blockText = text.substring(start, end);
+        List<int[]> steps = new ArrayList<>();
+        for (int[] step : findSteps(blockText)) {
+            steps.add(new int[] { start + step[0], start + step[1] });
+        }
+        return new Block(start, end, blockText, steps);
+    }
+
+    /**
+     * Finds the steps of one block: everything between 'proof:' and 'qed', split at the
+     * dots that end a step.
+     */
+    static List<int[]> findSteps(String block) {
+        List<int[]> steps = new ArrayList<>();
+        int i = findStatementEnd(block);
+        boolean inProof = false;
+        int stepStart = -1;
+        int binders = 0;
+        while (i < block.length()) {
+            char c = block.charAt(i);
+            if (c == '/' && block.startsWith("//", i)) {
+                i = skipComment(block, i);
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            if (isWordStart(c)) {
+                int wordEnd = wordEnd(block, i);
+                String word = block.substring(i, wordEnd).toLowerCase();
+                if (!inProof) {
+                    inProof = word.equals("proof");
+                } else if (stepStart < 0 && word.equals("qed")) {
+                    break;
+                } else {
+                    if (stepStart < 0) {
+                        stepStart = i;
+                    }
+                    if (word.equals("forall") || word.equals("exists")) {
+                        binders++;
+                    }
+                }
+                i = wordEnd;
+                continue;
+            }
+            if (inProof && c == ':' && stepStart < 0 && steps.isEmpty()) {
+                // The colon after 'proof'
+                i++;
+                continue;
+            }
+            if (inProof) {
+                if (stepStart < 0) {
+                    stepStart = i;
+                }
+                if (c == '.') {
+                    if (binders > 0) {
+                        binders--;
+                    } else {
+                        steps.add(new int[] { stepStart, i + 1 });
+                        stepStart = -1;
+                    }
+                }
+            }
+            i++;
+        }
+        return steps;
+    }
+
+    /** The offset just past the dot that ends a block's statement. */
+    private static int findStatementEnd(String block) {
+        int binders = 0;
+        int i = 0;
+        while (i < block.length()) {
+            char c = block.charAt(i);
+            if (c == '/' && block.startsWith("//", i)) {
+                i = skipComment(block, i);
+            } else if (isWordStart(c)) {
+                int wordEnd = wordEnd(block, i);
+                String word = block.substring(i, wordEnd).toLowerCase();
+                if (word.equals("forall") || word.equals("exists")) {
+                    binders++;
+                }
+                i = wordEnd;
+            } else if (c == '.') {
+                if (binders == 0) {
+                    return i + 1;
+                }
+                binders--;
+                i++;
+            } else {
+                i++;
+            }
+        }
+        return block.length();
+    }
+
+    private static boolean isWordStart(char c) {
+        return Character.isLetter(c) || c == '_';
+    }
+
+    private static int wordEnd(String s, int i) {
+        while (i < s.length() && (Character.isLetterOrDigit(s.charAt(i)) || s.charAt(i) == '_')) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipComment(String s, int i) {
+        int newline = s.indexOf('\n', i);
+        return newline < 0 ? s.length() : newline;
+    }
+}
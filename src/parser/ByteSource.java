@@ -0,0 +1,78 @@
+package parser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Presents raw bytes as a CharSequence, one char per byte, so that {@link SpanLexer} can
+ * scan a memory-mapped file without decoding or copying it.
+ *
+ * Every LEPA token is ASCII, so UTF-8 input scans correctly: the bytes of a multi-byte
+ * character can only appear in comments, which are skipped, or as unknown characters.
+ * Offsets are byte offsets into the file.
+ */
+public class ByteSource implements CharSequence {
+    private ByteBuffer bytes;
+    private int offset;
+    private int length;
+
+    public ByteSource(ByteBuffer bytes) {
+        this(bytes, bytes.position(), bytes.remaining());
+    }
+
+    private ByteSource(ByteBuffer bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Maps a file into memory read-only. The mapping stays valid after this returns and is
+     * released when the ByteSource is garbage collected.
+     *
+     * @throws IOException if the file is larger than Integer.MAX_VALUE bytes (2 GB): a
+     *         CharSequence, and every offset the lexer and parsers keep, is an int.
+     */
+    public static ByteSource map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + file + " has " + size + " bytes; LEPA reads at most "
+                        + Integer.MAX_VALUE);
+            }
+            return new ByteSource(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of range for length " + length);
+        }
+        return (char) (bytes.get(offset + index) & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("Range " + start + ".." + end + " out of range for length " + length);
+        }
+        return new ByteSource(bytes, offset + start, end - start);
+    }
+
+    @Override
+    public String toString() {
+        byte[] copy = new byte[length];
+        bytes.duplicate().position(offset).get(copy);
+        return new String(copy, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,286 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ast.Program;
+import ast.TheoremDecl;
+
+/**
+ * Parses a source one theorem block at a time and keeps the results, so that an edit only
+ * parses again the theorems whose text it changed.
+ *
+ * A block runs from a 'theorem' keyword to the next one, so blocks tile the source; text
+ * before the first theorem is a block of its own. Each block keeps its text, a hash of it
+ * and the {@link TheoremDecl} it parsed to, or the {@link SyntaxError} it failed with. An
+ * edit splits again only the blocks it touches, and a block whose text is unchanged keeps
+ * its TheoremDecl by reference, so later stages can tell unchanged theorems by identity.
+ *
+ * The blocks form a gap buffer at the last edit: those before it hold their start offset
+ * and those after it their start minus the length of the source, which an edit at the gap
+ * leaves unchanged. An edit therefore costs the blocks it touches and those between it and
+ * the edit before, however long the source is.
+ */
+public class IncrementalParser {
+    /**
+     * One theorem block. Blocks are not changed once made; moving the gap past a block
+     * replaces it with a shifted copy.
+     */
+    public static class Block {
+        private int start;
+        private String text;
+        private long hash;
+        private TheoremDecl theorem;
+        private SyntaxError error;
+
+        Block(int start, String text, long hash, TheoremDecl theorem, SyntaxError error) {
+            this.start = start;
+            this.text = text;
+            this.hash = hash;
+            this.theorem = theorem;
+            this.error = error;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return start + text.length();
+        }
+
+        public long getHash() {
+            return hash;
+        }
+
+        /** The parsed theorem, or null if the block failed to parse or has no tokens. */
+        public TheoremDecl getTheorem() {
+            return theorem;
+        }
+
+        /** The block's syntax error, with its offset, line and column relative to the block. */
+        public SyntaxError getError() {
+            return error;
+        }
+
+        private Block shift(int delta) {
+            return new Block(start + delta, text, hash, theorem, error);
+        }
+    }
+
+    // The blocks before the gap, in order, and the blocks after it, nearest last
+    private List<Block> before = new ArrayList<>();
+    private List<Block> after = new ArrayList<>();
+    private int length;
+    private SymbolTable identifiers;
+    private int blocksParsed;
+
+    public IncrementalParser() {
+        this(new SymbolTable());
+    }
+
+    public IncrementalParser(SymbolTable identifiers) {
+        this.identifiers = identifiers;
+        before.add(new Block(0, "", hash("", 0, 0), null, null));
+    }
+
+    /**
+     * Replaces the whole source. Blocks whose text is already known are not parsed again.
+     */
+    public Program parse(CharSequence source) {
+        edit(0, length, source);
+        return getProgram();
+    }
+
+    /**
+     * Replaces source[start .. end) with the replacement and parses again the blocks the
+     * edit touched. {@link #getProgram()} then gives the program as it now stands.
+     */
+    public void edit(int start, int end, CharSequence replacement) {
+        if (start < 0 || end < start || end > length) {
+            throw new IndexOutOfBoundsException("Edit " + start + ".." + end + " outside 0.." + length);
+        }
+        // An edit to a block's 'theorem' keyword, or just before it, can join it to the block before
+        int first = blockAt(start);
+        if (first > 0 && start <= startOf(first) + "theorem".length()) {
+            first--;
+        }
+        int last = blockAt(end);
+        // A '//' typed or removed can hide or expose a 'theorem' later on the same line
+        int lineEnd = end;
+        for (int i = last; i < blockCount(); i++) {
+            int newline = block(i).text.indexOf('\n', lineEnd - startOf(i));
+            if (newline >= 0) {
+                lineEnd = startOf(i) + newline;
+                break;
+            }
+            lineEnd = startOf(i) + block(i).text.length();
+        }
+        while (last + 1 < blockCount() && startOf(last + 1) < lineEnd) {
+            last++;
+        }
+
+        int regionStart = startOf(first);
+        StringBuilder oldRegion = new StringBuilder();
+        Map<Long, Block> reusable = new HashMap<>();
+        for (int i = first; i <= last; i++) {
+            oldRegion.append(block(i).text);
+            reusable.put(block(i).hash, block(i));
+        }
+
+        // Split and parse the new region first, so an edit that throws changes nothing
+        String region = oldRegion.substring(0, start - regionStart) + replacement
+                + oldRegion.substring(end - regionStart);
+        List<Block> fresh = split(region, regionStart, reusable);
+
+        moveGap(first);
+        for (int i = first; i <= last; i++) {
+            after.remove(after.size() - 1);
+        }
+        before.addAll(fresh);
+        length += replacement.length() - (end - start);
+    }
+
+    /** The parsed theorems in source order, leaving out blocks with syntax errors. */
+    public Program getProgram() {
+        Program program = new Program();
+        for (int i = 0; i < blockCount(); i++) {
+            if (block(i).theorem != null) {
+                program.addTheorem(block(i).theorem);
+            }
+        }
+        return program;
+    }
+
+    /** The blocks in source order. */
+    public List<Block> getBlocks() {
+        List<Block> blocks = new ArrayList<>(before);
+        for (int i = after.size() - 1; i >= 0; i--) {
+            blocks.add(after.get(i).shift(length));
+        }
+        return blocks;
+    }
+
+    /** The source as it now stands, put together from the blocks. */
+    public CharSequence getText() {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < blockCount(); i++) {
+            text.append(block(i).text);
+        }
+        return text;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return identifiers;
+    }
+
+    /** Number of blocks parsed so far; blocks kept from before an edit do not count. */
+    public int getBlocksParsed() {
+        return blocksParsed;
+    }
+
+    /**
+     * Splits a region of the new text, which starts at offset from, into blocks, taking a
+     * block from reusable when its text is the same.
+     */
+    private List<Block> split(String region, int from, Map<Long, Block> reusable) {
+        List<Integer> starts = theoremStarts(region);
+        if (starts.isEmpty() || starts.get(0) > 0) {
+            starts.add(0, 0);
+        }
+        List<Block> split = new ArrayList<>();
+        for (int i = 0; i < starts.size(); i++) {
+            int start = starts.get(i);
+            int end = i + 1 < starts.size() ? starts.get(i + 1) : region.length();
+            long hash = hash(region, start, end);
+            Block old = reusable.get(hash);
+            if (old != null && old.text.length() == end - start && old.text.regionMatches(0, region, start, end - start)) {
+                split.add(new Block(from + start, old.text, hash, old.theorem, old.error));
+            } else {
+                split.add(parseBlock(region.substring(start, end), from + start, hash));
+            }
+        }
+        return split;
+    }
+
+    private Block parseBlock(String text, int start, long hash) {
+        blocksParsed++;
+        TokenBuffer tokens = TokenBuffer.tokenize(text, identifiers);
+        if (tokens.kind(0) == sym.EOF) {
+            return new Block(start, text, hash, null, null);
+        }
+        RecursiveDescentParser parser = new RecursiveDescentParser(tokens);
+        try {
+            TheoremDecl theorem = parser.parseTheorem();
+            parser.expectEnd();
+            return new Block(start, text, hash, theorem, null);
+        } catch (SyntaxError e) {
+            return new Block(start, text, hash, null, e);
+        }
+    }
+
+    /**
+     * Offsets of the 'theorem' keywords in a source, found with the lexer so that comments
+     * and longer names are skipped.
+     */
+    public static List<Integer> theoremStarts(CharSequence source) {
+        List<Integer> starts = new ArrayList<>();
+        SpanLexer lexer = new SpanLexer(source);
+        int kind;
+        while ((kind = lexer.next()) != sym.EOF) {
+            if (kind == sym.THEOREM) {
+                starts.add(lexer.getStart());
+            }
+        }
+        return starts;
+    }
+
+    private int blockCount() {
+        return before.size() + after.size();
+    }
+
+    private Block block(int index) {
+        return index < before.size() ? before.get(index) : after.get(after.size() - 1 - (index - before.size()));
+    }
+
+    private int startOf(int index) {
+        return index < before.size() ? before.get(index).start : block(index).start + length;
+    }
+
+    /** Moves the gap so that the blocks before it are the first count blocks. */
+    private void moveGap(int count) {
+        while (before.size() > count) {
+            after.add(before.remove(before.size() - 1).shift(-length));
+        }
+        while (before.size() < count) {
+            before.add(after.remove(after.size() - 1).shift(length));
+        }
+    }
+
+    /** Index of the block containing offset; the last block for the end of the text. */
+    private int blockAt(int offset) {
+        int low = 0;
+        int high = blockCount() - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (startOf(mid) <= offset) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /** 64-bit FNV-1a hash of text[start .. end). */
+    private static long hash(CharSequence text, int start, int end) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = start; i < end; i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
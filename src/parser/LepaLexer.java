@@ -5,6 +5,8 @@ package parser;
 
 import java_cup.runtime.Symbol;
 
+// Every generated action falls through into a break
+@SuppressWarnings("fallthrough")
 
 /**
  * This class is a scanner generated by 
@@ -362,7 +364,58 @@ public class LepaLexer implements java_cup.runtime.Scanner {
   private int zzFinalHighSurrogate = 0;
 
   /* user code: */
-  // Additional user code (if needed)
+  // Identifier spellings, interned so each distinct name is allocated once
+  private SymbolTable identifiers = new SymbolTable();
+  private TokenListener listener;
+
+  /**
+   * Sets a listener told about every token, such as TokenListener.TRACE, or null for none.
+   */
+  public void setTokenListener(TokenListener listener) {
+    this.listener = listener;
+  }
+
+  public SymbolTable getSymbolTable() {
+    return identifiers;
+  }
+
+  /*
+   * Keywords and punctuation carry their canonical spelling, a shared constant, as their
+   * value. The Symbol itself has to be new: the parser records its state in each one.
+   */
+  private Symbol token(int kind, Object value) {
+    if (listener != null) {
+      listener.tokenScanned(kind, value);
+    }
+    return new Symbol(kind, value);
+  }
+
+  private String identifier() {
+    return identifiers.intern(zzBuffer, zzStartRead, zzMarkedPos - zzStartRead);
+  }
+
+  /*
+   * The value of a number token, or null if it is too large for an int.
+   */
+  private Integer number() {
+    long value = 0;
+    for (int i = zzStartRead; i < zzMarkedPos; i++) {
+      value = value * 10 + (zzBuffer[i] - '0');
+      if (value > Integer.MAX_VALUE) {
+        return null;
+      }
+    }
+    return (int) value;
+  }
+
+  /*
+   * Reports the current text as an error token and ends the input, as SpanLexer does for
+   * an unknown character or a number too large for an int.
+   */
+  private Symbol error() {
+    System.err.println("Syntax error: " + SpanLexer.describeError(yytext()));
+    return null;
+  }
 
 
   /**
@@ -695,17 +748,17 @@ public class LepaLexer implements java_cup.runtime.Scanner {
       else {
         switch (zzAction < 0 ? zzAction : ZZ_ACTION[zzAction]) {
           case 1: 
-            { System.err.println("Unknown character: " + yytext()); return null;
+            { return error();
             } 
             // fall through
           case 39: break;
           case 2: 
-            { return new Symbol(sym.NUMBER, Integer.parseInt(yytext()));
+            { Integer value = number(); return value == null ? error() : token(sym.NUMBER, value);
             } 
             // fall through
           case 40: break;
           case 3: 
-            { System.out.println("IDENTIFIER found: " + yytext()); return new Symbol(sym.IDENTIFIER, yytext());
+            { return token(sym.IDENTIFIER, identifier());
             } 
             // fall through
           case 41: break;
@@ -715,47 +768,47 @@ public class LepaLexer implements java_cup.runtime.Scanner {
             // fall through
           case 42: break;
           case 5: 
-            { return new Symbol(sym.EQ, yytext());
+            { return token(sym.EQ, "=");
             } 
             // fall through
           case 43: break;
           case 6: 
-            { return new Symbol(sym.COMMA, yytext());
+            { return token(sym.COMMA, ",");
             } 
             // fall through
           case 44: break;
           case 7: 
-            { System.out.println("DOT token found: " + yytext()); return new Symbol(sym.DOT, yytext());
+            { return token(sym.DOT, ".");
             } 
             // fall through
           case 45: break;
           case 8: 
-            { System.out.println("COLON token found: " + yytext()); return new Symbol(sym.COLON, yytext());
+            { return token(sym.COLON, ":");
             } 
             // fall through
           case 46: break;
           case 9: 
-            { return new Symbol(sym.LPAREN, yytext());
+            { return token(sym.LPAREN, "(");
             } 
             // fall through
           case 47: break;
           case 10: 
-            { return new Symbol(sym.RPAREN, yytext());
+            { return token(sym.RPAREN, ")");
             } 
             // fall through
           case 48: break;
           case 11: 
-            { return new Symbol(sym.LBRACE, yytext());
+            { return token(sym.LBRACE, "{");
             } 
             // fall through
           case 49: break;
           case 12: 
-            { return new Symbol(sym.RBRACE, yytext());
+            { return token(sym.RBRACE, "}");
             } 
             // fall through
           case 50: break;
           case 13: 
-            { return new Symbol(sym.SETDIFF, yytext());
+            { return token(sym.SETDIFF, "\\");
             } 
             // fall through
           case 51: break;
@@ -765,122 +818,122 @@ public class LepaLexer implements java_cup.runtime.Scanner {
             // fall through
           case 52: break;
           case 15: 
-            { return new Symbol(sym.OR, yytext());
+            { return token(sym.OR, "or");
             } 
             // fall through
           case 53: break;
           case 16: 
-            { return new Symbol(sym.IN, yytext());
+            { return token(sym.IN, "in");
             } 
             // fall through
           case 54: break;
           case 17: 
-            { System.out.println("BY token found: " + yytext()); return new Symbol(sym.BY, yytext());
+            { return token(sym.BY, "by");
             } 
             // fall through
           case 55: break;
           case 18: 
-            { return new Symbol(sym.IMPLIES, yytext());
+            { return token(sym.IMPLIES, "->");
             } 
             // fall through
           case 56: break;
           case 19: 
-            { return new Symbol(sym.NEQ, yytext());
+            { return token(sym.NEQ, "!=");
             } 
             // fall through
           case 57: break;
           case 20: 
-            { return new Symbol(sym.END, yytext());
+            { return token(sym.END, "end");
             } 
             // fall through
           case 58: break;
           case 21: 
-            { System.out.println("QED token found: " + yytext()); return new Symbol(sym.QED, yytext());
+            { return token(sym.QED, "qed");
             } 
             // fall through
           case 59: break;
           case 22: 
-            { return new Symbol(sym.AND, yytext());
+            { return token(sym.AND, "and");
             } 
             // fall through
           case 60: break;
           case 23: 
-            { return new Symbol(sym.NOT, yytext());
+            { return token(sym.NOT, "not");
             } 
             // fall through
           case 61: break;
           case 24: 
-            { return new Symbol(sym.LET, yytext());
+            { return token(sym.LET, "let");
             } 
             // fall through
           case 62: break;
           case 25: 
-            { return new Symbol(sym.IFF, yytext());
+            { return token(sym.IFF, "<->");
             } 
             // fall through
           case 63: break;
           case 26: 
-            { System.out.println("TRUE token found: " + yytext()); return new Symbol(sym.TRUE, yytext());
+            { return token(sym.TRUE, "true");
             } 
             // fall through
           case 64: break;
           case 27: 
-            { return new Symbol(sym.FROM, yytext());
+            { return token(sym.FROM, "from");
             } 
             // fall through
           case 65: break;
           case 28: 
-            { System.out.println("PROOF token found: " + yytext()); return new Symbol(sym.PROOF, yytext());
+            { return token(sym.PROOF, "proof");
             } 
             // fall through
           case 66: break;
           case 29: 
-            { return new Symbol(sym.FALSE, yytext());
+            { return token(sym.FALSE, "false");
             } 
             // fall through
           case 67: break;
           case 30: 
-            { return new Symbol(sym.UNION, yytext());
+            { return token(sym.UNION, "union");
             } 
             // fall through
           case 68: break;
           case 31: 
-            { return new Symbol(sym.NOTIN, yytext());
+            { return token(sym.NOTIN, "notin");
             } 
             // fall through
           case 69: break;
           case 32: 
-            { return new Symbol(sym.EXISTS, yytext());
+            { return token(sym.EXISTS, "exists");
             } 
             // fall through
           case 70: break;
           case 33: 
-            { return new Symbol(sym.FORALL, yytext());
+            { return token(sym.FORALL, "forall");
             } 
             // fall through
           case 71: break;
           case 34: 
-            { System.out.println("ASSUME token found: " + yytext() + " at position " + yychar); return new Symbol(sym.ASSUME, yytext());
+            { return token(sym.ASSUME, "assume");
             } 
             // fall through
           case 72: break;
           case 35: 
-            { return new Symbol(sym.SUBSET, yytext());
+            { return token(sym.SUBSET, "subset");
             } 
             // fall through
           case 73: break;
           case 36: 
-            { return new Symbol(sym.THEOREM, yytext());
+            { return token(sym.THEOREM, "theorem");
             } 
             // fall through
           case 74: break;
           case 37: 
-            { System.out.println("THEREFORE token found: " + yytext()); return new Symbol(sym.THEREFORE, yytext());
+            { return token(sym.THEREFORE, "therefore");
             } 
             // fall through
           case 75: break;
           case 38: 
-            { return new Symbol(sym.INTERSECT, yytext());
+            { return token(sym.INTERSECT, "intersect");
             } 
             // fall through
           case 76: break;
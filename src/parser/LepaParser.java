@@ -33,19 +33,24 @@ public class LepaParser extends java_cup.runtime.lr_parser {
   /** Production table. */
   protected static final short _production_table[][] = 
     unpackFromStrings(new String[] {
-    "\000\051\000\002\002\004\000\002\002\003\000\002\003" +
-    "\004\000\002\003\003\000\002\004\014\000\002\007\004" +
-    "\000\002\007\003\000\002\006\004\000\002\006\003\000" +
-    "\002\006\006\000\002\006\004\000\002\006\005\000\002" +
-    "\006\003\000\002\014\005\000\002\014\004\000\002\014" +
-    "\003\000\002\005\005\000\002\005\003\000\002\005\003" +
-    "\000\002\005\003\000\002\005\005\000\002\005\005\000" +
-    "\002\005\005\000\002\005\005\000\002\005\004\000\002" +
-    "\005\006\000\002\005\006\000\002\005\005\000\002\005" +
-    "\005\000\002\005\005\000\002\005\005\000\002\005\005" +
-    "\000\002\005\005\000\002\012\005\000\002\012\003\000" +
-    "\002\010\003\000\002\013\003\000\002\013\003\000\002" +
-    "\013\003\000\002\013\005\000\002\011\006" });
+    "\000\071\000\002\002\004\000\002\002\003\000\002\003" +
+    "\004\000\002\003\003\000\002\004\014\000\002\004\006" +
+    "\000\002\004\013\000\002\004\012\000\002\010\004\000" +
+    "\002\010\003\000\002\006\005\000\002\006\003\000\002" +
+    "\006\004\000\002\007\005\000\002\007\004\000\002\007" +
+    "\004\000\002\007\003\000\002\007\006\000\002\007\007" +
+    "\000\002\007\005\000\002\007\004\000\002\007\005\000" +
+    "\002\007\006\000\002\007\004\000\002\007\003\000\002" +
+    "\016\005\000\002\016\003\000\002\005\003\000\002\005" +
+    "\003\000\002\005\003\000\002\005\003\000\002\005\005" +
+    "\000\002\005\005\000\002\005\005\000\002\005\005\000" +
+    "\002\005\004\000\002\005\006\000\002\005\006\000\002" +
+    "\005\005\000\002\005\005\000\002\005\005\000\002\005" +
+    "\005\000\002\005\005\000\002\005\005\000\002\013\005" +
+    "\000\002\013\003\000\002\014\005\000\002\014\003\000" +
+    "\002\011\003\000\002\015\003\000\002\015\003\000\002" +
+    "\015\003\000\002\015\005\000\002\015\005\000\002\015" +
+    "\005\000\002\015\005\000\002\012\006" });
 
   /** Access to production table. */
   public short[][] production_table() {return _production_table;}
@@ -53,169 +58,232 @@ public class LepaParser extends java_cup.runtime.lr_parser {
   /** Parse-action table. */
   protected static final short[][] _action_table = 
     unpackFromStrings(new String[] {
-    "\000\122\000\004\004\007\001\002\000\004\002\124\001" +
+    "\000\151\000\004\004\007\001\002\000\004\002\153\001" +
     "\002\000\006\002\000\004\007\001\002\000\006\002\ufffe" +
-    "\004\ufffe\001\002\000\004\046\010\001\002\000\004\043" +
-    "\011\001\002\000\024\016\016\017\020\021\015\022\022" +
-    "\030\025\035\026\037\012\045\013\046\024\001\002\000" +
-    "\010\037\012\045\013\046\045\001\002\000\070\006\uffdc" +
-    "\007\uffdc\010\uffdc\012\uffdc\013\uffdc\016\uffdc\017\uffdc\020" +
-    "\uffdc\021\uffdc\022\uffdc\023\uffdc\025\uffdc\026\uffdc\027\uffdc" +
-    "\030\uffdc\031\uffdc\032\uffdc\033\uffdc\034\uffdc\035\uffdc\036" +
-    "\uffdc\037\uffdc\040\uffdc\041\uffdc\042\uffdc\045\uffdc\046\uffdc" +
-    "\001\002\000\014\012\111\013\112\020\107\033\110\034" +
-    "\113\001\002\000\052\006\ufff0\007\ufff0\010\ufff0\016\ufff0" +
-    "\017\ufff0\021\ufff0\022\ufff0\023\ufff0\025\ufff0\026\105\027" +
-    "\ufff0\030\ufff0\031\ufff0\032\ufff0\035\ufff0\036\ufff0\037\ufff0" +
-    "\042\ufff0\045\ufff0\046\ufff0\001\002\000\010\037\012\045" +
-    "\013\046\045\001\002\000\070\006\uffdb\007\uffdb\010\uffdb" +
-    "\012\uffdb\013\uffdb\016\uffdb\017\uffdb\020\uffdb\021\uffdb\022" +
-    "\uffdb\023\uffdb\025\uffdb\026\uffdb\027\uffdb\030\uffdb\031\uffdb" +
-    "\032\uffdb\033\uffdb\034\uffdb\035\uffdb\036\uffdb\037\uffdb\040" +
-    "\uffdb\041\uffdb\042\uffdb\045\uffdb\046\uffdb\001\002\000\010" +
-    "\037\012\045\013\046\045\001\002\000\052\006\uffee\007" +
-    "\uffee\010\uffee\016\uffee\017\uffee\021\uffee\022\uffee\023\uffee" +
-    "\025\uffee\026\uffee\027\uffee\030\uffee\031\uffee\032\uffee\035" +
-    "\uffee\036\uffee\037\uffee\042\uffee\045\uffee\046\uffee\001\002" +
-    "\000\052\006\uffef\007\uffef\010\uffef\016\uffef\017\uffef\021" +
-    "\uffef\022\uffef\023\uffef\025\uffef\026\uffef\027\uffef\030\uffef" +
-    "\031\uffef\032\uffef\035\uffef\036\uffef\037\uffef\042\uffef\045" +
-    "\uffef\046\uffef\001\002\000\014\026\032\027\034\031\030" +
-    "\032\033\042\051\001\002\000\064\006\uffde\007\uffde\010" +
-    "\uffde\012\uffdd\013\uffdd\016\uffde\017\uffde\020\uffdd\021\uffde" +
-    "\022\uffde\023\uffde\025\uffde\026\uffde\027\uffde\030\uffde\031" +
-    "\uffde\032\uffde\033\uffdd\034\uffdd\035\042\036\uffde\037\uffde" +
-    "\042\uffde\045\uffde\046\uffde\001\002\000\024\016\016\017" +
-    "\020\021\015\022\022\030\025\035\026\037\012\045\013" +
-    "\046\024\001\002\000\024\016\016\017\020\021\015\022" +
-    "\022\030\025\035\026\037\012\045\013\046\024\001\002" +
-    "\000\014\026\032\027\034\031\030\032\033\036\031\001" +
-    "\002\000\024\016\016\017\020\021\015\022\022\030\025" +
-    "\035\026\037\012\045\013\046\024\001\002\000\052\006" +
-    "\uffe1\007\uffe1\010\uffe1\016\uffe1\017\uffe1\021\uffe1\022\uffe1" +
-    "\023\uffe1\025\uffe1\026\uffe1\027\uffe1\030\uffe1\031\uffe1\032" +
-    "\uffe1\035\uffe1\036\uffe1\037\uffe1\042\uffe1\045\uffe1\046\uffe1" +
-    "\001\002\000\024\016\016\017\020\021\015\022\022\030" +
-    "\025\035\026\037\012\045\013\046\024\001\002\000\024" +
-    "\016\016\017\020\021\015\022\022\030\025\035\026\037" +
-    "\012\045\013\046\024\001\002\000\024\016\016\017\020" +
-    "\021\015\022\022\030\025\035\026\037\012\045\013\046" +
-    "\024\001\002\000\052\006\uffec\007\uffec\010\uffec\016\uffec" +
-    "\017\uffec\021\uffec\022\uffec\023\uffec\025\uffec\026\032\027" +
-    "\uffec\030\uffec\031\uffec\032\uffec\035\uffec\036\uffec\037\uffec" +
-    "\042\uffec\045\uffec\046\uffec\001\002\000\052\006\uffea\007" +
-    "\uffea\010\uffea\016\uffea\017\uffea\021\uffea\022\uffea\023\uffea" +
-    "\025\uffea\026\032\027\034\030\uffea\031\030\032\uffea\035" +
-    "\uffea\036\uffea\037\uffea\042\uffea\045\uffea\046\uffea\001\002" +
-    "\000\052\006\uffed\007\uffed\010\uffed\016\uffed\017\uffed\021" +
-    "\uffed\022\uffed\023\uffed\025\uffed\026\uffed\027\uffed\030\uffed" +
-    "\031\uffed\032\uffed\035\uffed\036\uffed\037\uffed\042\uffed\045" +
-    "\uffed\046\uffed\001\002\000\052\006\uffeb\007\uffeb\010\uffeb" +
-    "\016\uffeb\017\uffeb\021\uffeb\022\uffeb\023\uffeb\025\uffeb\026" +
-    "\032\027\034\030\uffeb\031\uffeb\032\uffeb\035\uffeb\036\uffeb" +
-    "\037\uffeb\042\uffeb\045\uffeb\046\uffeb\001\002\000\052\006" +
-    "\uffe9\007\uffe9\010\uffe9\016\uffe9\017\uffe9\021\uffe9\022\uffe9" +
-    "\023\uffe9\025\uffe9\026\uffe9\027\uffe9\030\uffe9\031\uffe9\032" +
-    "\uffe9\035\uffe9\036\uffe9\037\uffe9\042\uffe9\045\uffe9\046\uffe9" +
-    "\001\002\000\010\037\012\045\013\046\045\001\002\000" +
-    "\006\036\047\041\046\001\002\000\044\006\uffdf\007\uffdf" +
-    "\010\uffdf\016\uffdf\017\uffdf\021\uffdf\022\uffdf\025\uffdf\030" +
-    "\uffdf\035\uffdf\036\uffdf\037\uffdf\040\uffdf\041\uffdf\042\uffdf" +
-    "\045\uffdf\046\uffdf\001\002\000\056\006\uffdd\007\uffdd\010" +
-    "\uffdd\016\uffdd\017\uffdd\021\uffdd\022\uffdd\023\uffdd\025\uffdd" +
-    "\026\uffdd\027\uffdd\030\uffdd\031\uffdd\032\uffdd\035\042\036" +
-    "\uffdd\037\uffdd\040\uffdd\041\uffdd\042\uffdd\045\uffdd\046\uffdd" +
-    "\001\002\000\010\037\012\045\013\046\045\001\002\000" +
-    "\070\006\uffd9\007\uffd9\010\uffd9\012\uffd9\013\uffd9\016\uffd9" +
-    "\017\uffd9\020\uffd9\021\uffd9\022\uffd9\023\uffd9\025\uffd9\026" +
-    "\uffd9\027\uffd9\030\uffd9\031\uffd9\032\uffd9\033\uffd9\034\uffd9" +
-    "\035\uffd9\036\uffd9\037\uffd9\040\uffd9\041\uffd9\042\uffd9\045" +
-    "\uffd9\046\uffd9\001\002\000\044\006\uffe0\007\uffe0\010\uffe0" +
-    "\016\uffe0\017\uffe0\021\uffe0\022\uffe0\025\uffe0\030\uffe0\035" +
-    "\uffe0\036\uffe0\037\uffe0\040\uffe0\041\uffe0\042\uffe0\045\uffe0" +
-    "\046\uffe0\001\002\000\004\005\052\001\002\000\004\043" +
-    "\053\001\002\000\032\007\056\010\055\016\016\017\020" +
-    "\021\015\022\022\025\061\030\025\035\026\037\012\045" +
-    "\013\046\024\001\002\000\046\006\ufff5\007\ufff5\010\ufff5" +
-    "\016\ufff5\017\ufff5\021\ufff5\022\ufff5\023\075\025\ufff5\026" +
-    "\032\027\034\030\ufff5\031\030\032\033\035\ufff5\037\ufff5" +
-    "\045\ufff5\046\ufff5\001\002\000\034\006\ufff9\007\ufff9\010" +
-    "\ufff9\016\ufff9\017\ufff9\021\ufff9\022\ufff9\025\ufff9\030\ufff9" +
-    "\035\ufff9\037\ufff9\045\ufff9\046\ufff9\001\002\000\024\016" +
-    "\016\017\020\021\015\022\022\030\025\035\026\037\012" +
-    "\045\013\046\024\001\002\000\034\006\072\007\056\010" +
-    "\055\016\016\017\020\021\015\022\022\025\061\030\025" +
-    "\035\026\037\012\045\013\046\024\001\002\000\034\006" +
-    "\ufffb\007\ufffb\010\ufffb\016\ufffb\017\ufffb\021\ufffb\022\ufffb" +
-    "\025\ufffb\030\ufffb\035\ufffb\037\ufffb\045\ufffb\046\ufffb\001" +
-    "\002\000\024\016\016\017\020\021\015\022\022\030\025" +
-    "\035\026\037\012\045\013\046\024\001\002\000\046\006" +
-    "\ufff7\007\ufff7\010\ufff7\016\ufff7\017\ufff7\021\ufff7\022\ufff7" +
-    "\023\063\025\ufff7\026\032\027\034\030\ufff7\031\030\032" +
-    "\033\035\ufff7\037\ufff7\045\ufff7\046\ufff7\001\002\000\004" +
-    "\046\065\001\002\000\034\006\ufff8\007\ufff8\010\ufff8\016" +
-    "\ufff8\017\ufff8\021\ufff8\022\ufff8\025\ufff8\030\ufff8\035\ufff8" +
-    "\037\ufff8\045\ufff8\046\ufff8\001\002\000\040\006\ufff2\007" +
-    "\ufff2\010\ufff2\016\ufff2\017\ufff2\021\ufff2\022\ufff2\024\066" +
-    "\025\ufff2\030\ufff2\035\ufff2\037\ufff2\042\067\045\ufff2\046" +
-    "\ufff2\001\002\000\010\037\012\045\013\046\045\001\002" +
-    "\000\034\006\ufff3\007\ufff3\010\ufff3\016\ufff3\017\ufff3\021" +
-    "\ufff3\022\ufff3\025\ufff3\030\ufff3\035\ufff3\037\ufff3\045\ufff3" +
-    "\046\ufff3\001\002\000\036\006\ufff4\007\ufff4\010\ufff4\016" +
-    "\ufff4\017\ufff4\021\ufff4\022\ufff4\025\ufff4\030\ufff4\035\ufff4" +
-    "\037\ufff4\041\046\045\ufff4\046\ufff4\001\002\000\034\006" +
-    "\ufffc\007\ufffc\010\ufffc\016\ufffc\017\ufffc\021\ufffc\022\ufffc" +
-    "\025\ufffc\030\ufffc\035\ufffc\037\ufffc\045\ufffc\046\ufffc\001" +
-    "\002\000\004\042\073\001\002\000\006\002\ufffd\004\ufffd" +
-    "\001\002\000\044\006\ufffa\007\ufffa\010\ufffa\016\ufffa\017" +
-    "\ufffa\021\ufffa\022\ufffa\025\ufffa\026\032\027\034\030\ufffa" +
-    "\031\030\032\033\035\ufffa\037\ufffa\045\ufffa\046\ufffa\001" +
-    "\002\000\004\046\065\001\002\000\034\006\ufff6\007\ufff6" +
-    "\010\ufff6\016\ufff6\017\ufff6\021\ufff6\022\ufff6\025\ufff6\030" +
-    "\ufff6\035\ufff6\037\ufff6\045\ufff6\046\ufff6\001\002\000\006" +
-    "\041\046\042\100\001\002\000\024\016\016\017\020\021" +
-    "\015\022\022\030\025\035\026\037\012\045\013\046\024" +
-    "\001\002\000\052\006\uffe7\007\uffe7\010\uffe7\016\uffe7\017" +
-    "\uffe7\021\uffe7\022\uffe7\023\uffe7\025\uffe7\026\032\027\034" +
-    "\030\uffe7\031\030\032\033\035\uffe7\036\uffe7\037\uffe7\042" +
-    "\uffe7\045\uffe7\046\uffe7\001\002\000\006\041\046\042\103" +
-    "\001\002\000\024\016\016\017\020\021\015\022\022\030" +
-    "\025\035\026\037\012\045\013\046\024\001\002\000\052" +
-    "\006\uffe8\007\uffe8\010\uffe8\016\uffe8\017\uffe8\021\uffe8\022" +
-    "\uffe8\023\uffe8\025\uffe8\026\032\027\034\030\uffe8\031\030" +
-    "\032\033\035\uffe8\036\uffe8\037\uffe8\042\uffe8\045\uffe8\046" +
-    "\uffe8\001\002\000\004\021\106\001\002\000\052\006\ufff1" +
-    "\007\ufff1\010\ufff1\016\ufff1\017\ufff1\021\ufff1\022\ufff1\023" +
-    "\ufff1\025\ufff1\026\ufff1\027\ufff1\030\ufff1\031\ufff1\032\ufff1" +
-    "\035\ufff1\036\ufff1\037\ufff1\042\ufff1\045\ufff1\046\ufff1\001" +
-    "\002\000\010\037\012\045\013\046\045\001\002\000\010" +
-    "\037\012\045\013\046\045\001\002\000\010\037\012\045" +
-    "\013\046\045\001\002\000\010\037\012\045\013\046\045" +
-    "\001\002\000\010\037\012\045\013\046\045\001\002\000" +
-    "\052\006\uffe5\007\uffe5\010\uffe5\016\uffe5\017\uffe5\021\uffe5" +
-    "\022\uffe5\023\uffe5\025\uffe5\026\uffe5\027\uffe5\030\uffe5\031" +
-    "\uffe5\032\uffe5\035\uffe5\036\uffe5\037\uffe5\042\uffe5\045\uffe5" +
-    "\046\uffe5\001\002\000\052\006\uffe2\007\uffe2\010\uffe2\016" +
-    "\uffe2\017\uffe2\021\uffe2\022\uffe2\023\uffe2\025\uffe2\026\uffe2" +
-    "\027\uffe2\030\uffe2\031\uffe2\032\uffe2\035\uffe2\036\uffe2\037" +
-    "\uffe2\042\uffe2\045\uffe2\046\uffe2\001\002\000\052\006\uffe3" +
-    "\007\uffe3\010\uffe3\016\uffe3\017\uffe3\021\uffe3\022\uffe3\023" +
-    "\uffe3\025\uffe3\026\uffe3\027\uffe3\030\uffe3\031\uffe3\032\uffe3" +
-    "\035\uffe3\036\uffe3\037\uffe3\042\uffe3\045\uffe3\046\uffe3\001" +
-    "\002\000\052\006\uffe6\007\uffe6\010\uffe6\016\uffe6\017\uffe6" +
+    "\004\ufffe\001\002\000\006\003\010\046\011\001\002\000" +
+    "\004\006\150\001\002\000\004\043\012\001\002\000\024" +
+    "\016\017\017\020\021\016\022\023\030\026\035\027\037" +
+    "\013\045\014\046\025\001\002\000\010\037\013\045\014" +
+    "\046\046\001\002\000\100\003\uffcf\006\uffcf\007\uffcf\010" +
+    "\uffcf\012\uffcf\013\uffcf\014\uffcf\015\uffcf\016\uffcf\017\uffcf" +
+    "\020\uffcf\021\uffcf\022\uffcf\023\uffcf\025\uffcf\026\uffcf\027" +
+    "\uffcf\030\uffcf\031\uffcf\032\uffcf\033\uffcf\034\uffcf\035\uffcf" +
+    "\036\uffcf\037\uffcf\040\uffcf\041\uffcf\042\uffcf\044\uffcf\045" +
+    "\uffcf\046\uffcf\001\002\000\022\012\136\013\137\014\052" +
+    "\015\051\020\134\033\135\034\140\044\050\001\002\000" +
+    "\054\003\uffe6\006\uffe6\007\uffe6\010\uffe6\016\uffe6\017\uffe6" +
     "\021\uffe6\022\uffe6\023\uffe6\025\uffe6\026\uffe6\027\uffe6\030" +
     "\uffe6\031\uffe6\032\uffe6\035\uffe6\036\uffe6\037\uffe6\042\uffe6" +
-    "\045\uffe6\046\uffe6\001\002\000\052\006\uffe4\007\uffe4\010" +
-    "\uffe4\016\uffe4\017\uffe4\021\uffe4\022\uffe4\023\uffe4\025\uffe4" +
-    "\026\uffe4\027\uffe4\030\uffe4\031\uffe4\032\uffe4\035\uffe4\036" +
-    "\uffe4\037\uffe4\042\uffe4\045\uffe4\046\uffe4\001\002\000\006" +
-    "\040\122\041\046\001\002\000\070\006\uffda\007\uffda\010" +
-    "\uffda\012\uffda\013\uffda\016\uffda\017\uffda\020\uffda\021\uffda" +
-    "\022\uffda\023\uffda\025\uffda\026\uffda\027\uffda\030\uffda\031" +
-    "\uffda\032\uffda\033\uffda\034\uffda\035\uffda\036\uffda\037\uffda" +
-    "\040\uffda\041\uffda\042\uffda\045\uffda\046\uffda\001\002\000" +
-    "\006\002\uffff\004\uffff\001\002\000\004\002\001\001\002" +
-    "" });
+    "\045\uffe6\046\uffe6\001\002\000\004\046\123\001\002\000" +
+    "\004\046\123\001\002\000\074\003\uffe3\006\uffe3\007\uffe3" +
+    "\010\uffe3\012\uffce\013\uffce\014\uffce\015\uffce\016\uffe3\017" +
+    "\uffe3\020\uffce\021\uffe3\022\uffe3\023\uffe3\025\uffe3\026\uffe3" +
+    "\027\uffe3\030\uffe3\031\uffe3\032\uffe3\033\uffce\034\uffce\035" +
+    "\uffe3\036\uffe3\037\uffe3\042\uffe3\044\uffce\045\uffe3\046\uffe3" +
+    "\001\002\000\054\003\uffe4\006\uffe4\007\uffe4\010\uffe4\016" +
+    "\uffe4\017\uffe4\021\uffe4\022\uffe4\023\uffe4\025\uffe4\026\uffe4" +
+    "\027\uffe4\030\uffe4\031\uffe4\032\uffe4\035\uffe4\036\uffe4\037" +
+    "\uffe4\042\uffe4\045\uffe4\046\uffe4\001\002\000\054\003\uffe5" +
+    "\006\uffe5\007\uffe5\010\uffe5\016\uffe5\017\uffe5\021\uffe5\022" +
+    "\uffe5\023\uffe5\025\uffe5\026\uffe5\027\uffe5\030\uffe5\031\uffe5" +
+    "\032\uffe5\035\uffe5\036\uffe5\037\uffe5\042\uffe5\045\uffe5\046" +
+    "\uffe5\001\002\000\014\026\033\027\035\031\031\032\034" +
+    "\042\061\001\002\000\074\003\uffd1\006\uffd1\007\uffd1\010" +
+    "\uffd1\012\uffd0\013\uffd0\014\uffd0\015\uffd0\016\uffd1\017\uffd1" +
+    "\020\uffd0\021\uffd1\022\uffd1\023\uffd1\025\uffd1\026\uffd1\027" +
+    "\uffd1\030\uffd1\031\uffd1\032\uffd1\033\uffd0\034\uffd0\035\043" +
+    "\036\uffd1\037\uffd1\042\uffd1\044\uffd0\045\uffd1\046\uffd1\001" +
+    "\002\000\024\016\017\017\020\021\016\022\023\030\026" +
+    "\035\027\037\013\045\014\046\025\001\002\000\024\016" +
+    "\017\017\020\021\016\022\023\030\026\035\027\037\013" +
+    "\045\014\046\025\001\002\000\014\026\033\027\035\031" +
+    "\031\032\034\036\032\001\002\000\024\016\017\017\020" +
+    "\021\016\022\023\030\026\035\027\037\013\045\014\046" +
+    "\025\001\002\000\054\003\uffd6\006\uffd6\007\uffd6\010\uffd6" +
+    "\016\uffd6\017\uffd6\021\uffd6\022\uffd6\023\uffd6\025\uffd6\026" +
+    "\uffd6\027\uffd6\030\uffd6\031\uffd6\032\uffd6\035\uffd6\036\uffd6" +
+    "\037\uffd6\042\uffd6\045\uffd6\046\uffd6\001\002\000\024\016" +
+    "\017\017\020\021\016\022\023\030\026\035\027\037\013" +
+    "\045\014\046\025\001\002\000\024\016\017\017\020\021" +
+    "\016\022\023\030\026\035\027\037\013\045\014\046\025" +
+    "\001\002\000\024\016\017\017\020\021\016\022\023\030" +
+    "\026\035\027\037\013\045\014\046\025\001\002\000\054" +
+    "\003\uffe1\006\uffe1\007\uffe1\010\uffe1\016\uffe1\017\uffe1\021" +
+    "\uffe1\022\uffe1\023\uffe1\025\uffe1\026\033\027\uffe1\030\uffe1" +
+    "\031\uffe1\032\uffe1\035\uffe1\036\uffe1\037\uffe1\042\uffe1\045" +
+    "\uffe1\046\uffe1\001\002\000\054\003\uffdf\006\uffdf\007\uffdf" +
+    "\010\uffdf\016\uffdf\017\uffdf\021\uffdf\022\uffdf\023\uffdf\025" +
+    "\uffdf\026\033\027\035\030\uffdf\031\031\032\uffdf\035\uffdf" +
+    "\036\uffdf\037\uffdf\042\uffdf\045\uffdf\046\uffdf\001\002\000" +
+    "\054\003\uffe2\006\uffe2\007\uffe2\010\uffe2\016\uffe2\017\uffe2" +
+    "\021\uffe2\022\uffe2\023\uffe2\025\uffe2\026\uffe2\027\uffe2\030" +
+    "\uffe2\031\uffe2\032\uffe2\035\uffe2\036\uffe2\037\uffe2\042\uffe2" +
+    "\045\uffe2\046\uffe2\001\002\000\054\003\uffe0\006\uffe0\007" +
+    "\uffe0\010\uffe0\016\uffe0\017\uffe0\021\uffe0\022\uffe0\023\uffe0" +
+    "\025\uffe0\026\033\027\035\030\uffe0\031\uffe0\032\uffe0\035" +
+    "\uffe0\036\uffe0\037\uffe0\042\uffe0\045\uffe0\046\uffe0\001\002" +
+    "\000\054\003\uffde\006\uffde\007\uffde\010\uffde\016\uffde\017" +
+    "\uffde\021\uffde\022\uffde\023\uffde\025\uffde\026\uffde\027\uffde" +
+    "\030\uffde\031\uffde\032\uffde\035\uffde\036\uffde\037\uffde\042" +
+    "\uffde\045\uffde\046\uffde\001\002\000\010\037\013\045\014" +
+    "\046\046\001\002\000\006\036\057\041\056\001\002\000" +
+    "\054\003\uffd4\006\uffd4\007\uffd4\010\uffd4\014\052\015\051" +
+    "\016\uffd4\017\uffd4\021\uffd4\022\uffd4\025\uffd4\030\uffd4\035" +
+    "\uffd4\036\uffd4\037\uffd4\040\uffd4\041\uffd4\042\uffd4\044\050" +
+    "\045\uffd4\046\uffd4\001\002\000\100\003\uffd0\006\uffd0\007" +
+    "\uffd0\010\uffd0\012\uffd0\013\uffd0\014\uffd0\015\uffd0\016\uffd0" +
+    "\017\uffd0\020\uffd0\021\uffd0\022\uffd0\023\uffd0\025\uffd0\026" +
+    "\uffd0\027\uffd0\030\uffd0\031\uffd0\032\uffd0\033\uffd0\034\uffd0" +
+    "\035\043\036\uffd0\037\uffd0\040\uffd0\041\uffd0\042\uffd0\044" +
+    "\uffd0\045\uffd0\046\uffd0\001\002\000\100\003\uffce\006\uffce" +
+    "\007\uffce\010\uffce\012\uffce\013\uffce\014\uffce\015\uffce\016" +
+    "\uffce\017\uffce\020\uffce\021\uffce\022\uffce\023\uffce\025\uffce" +
+    "\026\uffce\027\uffce\030\uffce\031\uffce\032\uffce\033\uffce\034" +
+    "\uffce\035\uffce\036\uffce\037\uffce\040\uffce\041\uffce\042\uffce" +
+    "\044\uffce\045\uffce\046\uffce\001\002\000\010\037\013\045" +
+    "\014\046\046\001\002\000\010\037\013\045\014\046\046" +
+    "\001\002\000\010\037\013\045\014\046\046\001\002\000" +
+    "\100\003\uffcc\006\uffcc\007\uffcc\010\uffcc\012\uffcc\013\uffcc" +
+    "\014\uffcc\015\051\016\uffcc\017\uffcc\020\uffcc\021\uffcc\022" +
+    "\uffcc\023\uffcc\025\uffcc\026\uffcc\027\uffcc\030\uffcc\031\uffcc" +
+    "\032\uffcc\033\uffcc\034\uffcc\035\uffcc\036\uffcc\037\uffcc\040" +
+    "\uffcc\041\uffcc\042\uffcc\044\050\045\uffcc\046\uffcc\001\002" +
+    "\000\100\003\uffcb\006\uffcb\007\uffcb\010\uffcb\012\uffcb\013" +
+    "\uffcb\014\uffcb\015\uffcb\016\uffcb\017\uffcb\020\uffcb\021\uffcb" +
+    "\022\uffcb\023\uffcb\025\uffcb\026\uffcb\027\uffcb\030\uffcb\031" +
+    "\uffcb\032\uffcb\033\uffcb\034\uffcb\035\uffcb\036\uffcb\037\uffcb" +
+    "\040\uffcb\041\uffcb\042\uffcb\044\uffcb\045\uffcb\046\uffcb\001" +
+    "\002\000\100\003\uffca\006\uffca\007\uffca\010\uffca\012\uffca" +
+    "\013\uffca\014\uffca\015\uffca\016\uffca\017\uffca\020\uffca\021" +
+    "\uffca\022\uffca\023\uffca\025\uffca\026\uffca\027\uffca\030\uffca" +
+    "\031\uffca\032\uffca\033\uffca\034\uffca\035\uffca\036\uffca\037" +
+    "\uffca\040\uffca\041\uffca\042\uffca\044\uffca\045\uffca\046\uffca" +
+    "\001\002\000\010\037\013\045\014\046\046\001\002\000" +
+    "\100\003\uffc9\006\uffc9\007\uffc9\010\uffc9\012\uffc9\013\uffc9" +
+    "\014\uffc9\015\uffc9\016\uffc9\017\uffc9\020\uffc9\021\uffc9\022" +
+    "\uffc9\023\uffc9\025\uffc9\026\uffc9\027\uffc9\030\uffc9\031\uffc9" +
+    "\032\uffc9\033\uffc9\034\uffc9\035\uffc9\036\uffc9\037\uffc9\040" +
+    "\uffc9\041\uffc9\042\uffc9\044\uffc9\045\uffc9\046\uffc9\001\002" +
+    "\000\054\003\uffd5\006\uffd5\007\uffd5\010\uffd5\014\052\015" +
+    "\051\016\uffd5\017\uffd5\021\uffd5\022\uffd5\025\uffd5\030\uffd5" +
+    "\035\uffd5\036\uffd5\037\uffd5\040\uffd5\041\uffd5\042\uffd5\044" +
+    "\050\045\uffd5\046\uffd5\001\002\000\004\005\062\001\002" +
+    "\000\004\043\063\001\002\000\034\003\071\007\070\010" +
+    "\065\016\017\017\020\021\016\022\023\025\074\030\026" +
+    "\035\027\037\013\045\014\046\066\001\002\000\052\003" +
+    "\uffe9\006\uffe9\007\uffe9\010\uffe9\016\uffe9\017\uffe9\021\uffe9" +
+    "\022\uffe9\023\117\025\uffe9\026\033\027\035\030\uffe9\031" +
+    "\031\032\034\035\uffe9\037\uffe9\042\120\045\uffe9\046\uffe9" +
+    "\001\002\000\040\003\ufff1\006\ufff1\007\ufff1\010\ufff1\016" +
+    "\ufff1\017\ufff1\021\ufff1\022\ufff1\025\ufff1\030\ufff1\035\ufff1" +
+    "\037\ufff1\042\116\045\ufff1\046\ufff1\001\002\000\074\003" +
+    "\uffd1\006\uffd1\007\uffd1\010\uffd1\012\uffd0\013\uffd0\014\uffd0" +
+    "\015\uffd0\016\uffd1\017\uffd1\020\uffd0\021\uffd1\022\uffd1\023" +
+    "\uffd1\025\uffd1\026\uffd1\027\uffd1\030\uffd1\031\uffd1\032\uffd1" +
+    "\033\uffd0\034\uffd0\035\043\037\uffd1\042\uffd1\043\114\044" +
+    "\uffd0\045\uffd1\046\uffd1\001\002\000\036\003\ufff6\006\ufff6" +
+    "\007\ufff6\010\ufff6\016\ufff6\017\ufff6\021\ufff6\022\ufff6\025" +
+    "\ufff6\030\ufff6\035\ufff6\037\ufff6\045\ufff6\046\ufff6\001\002" +
+    "\000\024\016\017\017\020\021\016\022\023\030\026\035" +
+    "\027\037\013\045\014\046\025\001\002\000\010\002\ufffa" +
+    "\004\ufffa\042\111\001\002\000\036\003\105\006\107\007" +
+    "\070\010\065\016\017\017\020\021\016\022\023\025\074" +
+    "\030\026\035\027\037\013\045\014\046\066\001\002\000" +
+    "\036\003\ufff8\006\ufff8\007\ufff8\010\ufff8\016\ufff8\017\ufff8" +
+    "\021\ufff8\022\ufff8\025\ufff8\030\ufff8\035\ufff8\037\ufff8\045" +
+    "\ufff8\046\ufff8\001\002\000\024\016\017\017\020\021\016" +
+    "\022\023\030\026\035\027\037\013\045\014\046\025\001" +
+    "\002\000\052\003\uffed\006\uffed\007\uffed\010\uffed\016\uffed" +
+    "\017\uffed\021\uffed\022\uffed\023\076\025\uffed\026\033\027" +
+    "\035\030\uffed\031\031\032\034\035\uffed\037\uffed\042\077" +
+    "\045\uffed\046\uffed\001\002\000\004\046\101\001\002\000" +
+    "\036\003\uffee\006\uffee\007\uffee\010\uffee\016\uffee\017\uffee" +
+    "\021\uffee\022\uffee\025\uffee\030\uffee\035\uffee\037\uffee\045" +
+    "\uffee\046\uffee\001\002\000\040\003\ufff0\006\ufff0\007\ufff0" +
+    "\010\ufff0\016\ufff0\017\ufff0\021\ufff0\022\ufff0\025\ufff0\030" +
+    "\ufff0\035\ufff0\037\ufff0\042\104\045\ufff0\046\ufff0\001\002" +
+    "\000\042\003\uffe7\006\uffe7\007\uffe7\010\uffe7\016\uffe7\017" +
+    "\uffe7\021\uffe7\022\uffe7\024\102\025\uffe7\030\uffe7\035\uffe7" +
+    "\037\uffe7\042\uffe7\045\uffe7\046\uffe7\001\002\000\010\037" +
+    "\013\045\014\046\046\001\002\000\042\003\uffe8\006\uffe8" +
+    "\007\uffe8\010\uffe8\016\uffe8\017\uffe8\021\uffe8\022\uffe8\025" +
+    "\uffe8\030\uffe8\035\uffe8\037\uffe8\041\056\042\uffe8\045\uffe8" +
+    "\046\uffe8\001\002\000\036\003\uffef\006\uffef\007\uffef\010" +
+    "\uffef\016\uffef\017\uffef\021\uffef\022\uffef\025\uffef\030\uffef" +
+    "\035\uffef\037\uffef\045\uffef\046\uffef\001\002\000\010\002" +
+    "\ufffb\004\ufffb\042\111\001\002\000\036\003\ufff9\006\ufff9" +
+    "\007\ufff9\010\ufff9\016\ufff9\017\ufff9\021\ufff9\022\ufff9\025" +
+    "\ufff9\030\ufff9\035\ufff9\037\ufff9\045\ufff9\046\ufff9\001\002" +
+    "\000\004\042\110\001\002\000\006\002\ufffd\004\ufffd\001" +
+    "\002\000\036\003\ufff5\006\ufff5\007\ufff5\010\ufff5\016\ufff5" +
+    "\017\ufff5\021\ufff5\022\ufff5\025\ufff5\030\ufff5\035\ufff5\037" +
+    "\ufff5\045\ufff5\046\ufff5\001\002\000\050\003\ufff3\006\ufff3" +
+    "\007\ufff3\010\ufff3\016\ufff3\017\ufff3\021\ufff3\022\ufff3\025" +
+    "\ufff3\026\033\027\035\030\ufff3\031\031\032\034\035\ufff3" +
+    "\037\ufff3\042\113\045\ufff3\046\ufff3\001\002\000\036\003" +
+    "\ufff4\006\ufff4\007\ufff4\010\ufff4\016\ufff4\017\ufff4\021\ufff4" +
+    "\022\ufff4\025\ufff4\030\ufff4\035\ufff4\037\ufff4\045\ufff4\046" +
+    "\ufff4\001\002\000\032\007\070\010\065\016\017\017\020" +
+    "\021\016\022\023\025\074\030\026\035\027\037\013\045" +
+    "\014\046\025\001\002\000\036\003\ufff7\006\ufff7\007\ufff7" +
+    "\010\ufff7\016\ufff7\017\ufff7\021\ufff7\022\ufff7\025\ufff7\030" +
+    "\ufff7\035\ufff7\037\ufff7\045\ufff7\046\ufff7\001\002\000\036" +
+    "\003\ufff2\006\ufff2\007\ufff2\010\ufff2\016\ufff2\017\ufff2\021" +
+    "\ufff2\022\ufff2\025\ufff2\030\ufff2\035\ufff2\037\ufff2\045\ufff2" +
+    "\046\ufff2\001\002\000\004\046\101\001\002\000\036\003" +
+    "\uffea\006\uffea\007\uffea\010\uffea\016\uffea\017\uffea\021\uffea" +
+    "\022\uffea\025\uffea\030\uffea\035\uffea\037\uffea\045\uffea\046" +
+    "\uffea\001\002\000\040\003\uffec\006\uffec\007\uffec\010\uffec" +
+    "\016\uffec\017\uffec\021\uffec\022\uffec\025\uffec\030\uffec\035" +
+    "\uffec\037\uffec\042\122\045\uffec\046\uffec\001\002\000\036" +
+    "\003\uffeb\006\uffeb\007\uffeb\010\uffeb\016\uffeb\017\uffeb\021" +
+    "\uffeb\022\uffeb\025\uffeb\030\uffeb\035\uffeb\037\uffeb\045\uffeb" +
+    "\046\uffeb\001\002\000\006\041\uffd2\042\uffd2\001\002\000" +
+    "\006\041\125\042\126\001\002\000\004\046\130\001\002" +
+    "\000\024\016\017\017\020\021\016\022\023\030\026\035" +
+    "\027\037\013\045\014\046\025\001\002\000\054\003\uffdc" +
+    "\006\uffdc\007\uffdc\010\uffdc\016\uffdc\017\uffdc\021\uffdc\022" +
+    "\uffdc\023\uffdc\025\uffdc\026\033\027\035\030\uffdc\031\031" +
+    "\032\034\035\uffdc\036\uffdc\037\uffdc\042\uffdc\045\uffdc\046" +
+    "\uffdc\001\002\000\006\041\uffd3\042\uffd3\001\002\000\006" +
+    "\041\125\042\132\001\002\000\024\016\017\017\020\021" +
+    "\016\022\023\030\026\035\027\037\013\045\014\046\025" +
+    "\001\002\000\054\003\uffdd\006\uffdd\007\uffdd\010\uffdd\016" +
+    "\uffdd\017\uffdd\021\uffdd\022\uffdd\023\uffdd\025\uffdd\026\033" +
+    "\027\035\030\uffdd\031\031\032\034\035\uffdd\036\uffdd\037" +
+    "\uffdd\042\uffdd\045\uffdd\046\uffdd\001\002\000\010\037\013" +
+    "\045\014\046\046\001\002\000\010\037\013\045\014\046" +
+    "\046\001\002\000\010\037\013\045\014\046\046\001\002" +
+    "\000\010\037\013\045\014\046\046\001\002\000\010\037" +
+    "\013\045\014\046\046\001\002\000\062\003\uffda\006\uffda" +
+    "\007\uffda\010\uffda\014\052\015\051\016\uffda\017\uffda\021" +
+    "\uffda\022\uffda\023\uffda\025\uffda\026\uffda\027\uffda\030\uffda" +
+    "\031\uffda\032\uffda\035\uffda\036\uffda\037\uffda\042\uffda\044" +
+    "\050\045\uffda\046\uffda\001\002\000\062\003\uffd7\006\uffd7" +
+    "\007\uffd7\010\uffd7\014\052\015\051\016\uffd7\017\uffd7\021" +
+    "\uffd7\022\uffd7\023\uffd7\025\uffd7\026\uffd7\027\uffd7\030\uffd7" +
+    "\031\uffd7\032\uffd7\035\uffd7\036\uffd7\037\uffd7\042\uffd7\044" +
+    "\050\045\uffd7\046\uffd7\001\002\000\062\003\uffd8\006\uffd8" +
+    "\007\uffd8\010\uffd8\014\052\015\051\016\uffd8\017\uffd8\021" +
+    "\uffd8\022\uffd8\023\uffd8\025\uffd8\026\uffd8\027\uffd8\030\uffd8" +
+    "\031\uffd8\032\uffd8\035\uffd8\036\uffd8\037\uffd8\042\uffd8\044" +
+    "\050\045\uffd8\046\uffd8\001\002\000\062\003\uffdb\006\uffdb" +
+    "\007\uffdb\010\uffdb\014\052\015\051\016\uffdb\017\uffdb\021" +
+    "\uffdb\022\uffdb\023\uffdb\025\uffdb\026\uffdb\027\uffdb\030\uffdb" +
+    "\031\uffdb\032\uffdb\035\uffdb\036\uffdb\037\uffdb\042\uffdb\044" +
+    "\050\045\uffdb\046\uffdb\001\002\000\062\003\uffd9\006\uffd9" +
+    "\007\uffd9\010\uffd9\014\052\015\051\016\uffd9\017\uffd9\021" +
+    "\uffd9\022\uffd9\023\uffd9\025\uffd9\026\uffd9\027\uffd9\030\uffd9" +
+    "\031\uffd9\032\uffd9\035\uffd9\036\uffd9\037\uffd9\042\uffd9\044" +
+    "\050\045\uffd9\046\uffd9\001\002\000\006\040\147\041\056" +
+    "\001\002\000\100\003\uffcd\006\uffcd\007\uffcd\010\uffcd\012" +
+    "\uffcd\013\uffcd\014\uffcd\015\uffcd\016\uffcd\017\uffcd\020\uffcd" +
+    "\021\uffcd\022\uffcd\023\uffcd\025\uffcd\026\uffcd\027\uffcd\030" +
+    "\uffcd\031\uffcd\032\uffcd\033\uffcd\034\uffcd\035\uffcd\036\uffcd" +
+    "\037\uffcd\040\uffcd\041\uffcd\042\uffcd\044\uffcd\045\uffcd\046" +
+    "\uffcd\001\002\000\004\042\151\001\002\000\006\002\ufffc" +
+    "\004\ufffc\001\002\000\006\002\uffff\004\uffff\001\002\000" +
+    "\004\002\001\001\002" });
 
   /** Access to parse-action table. */
   public short[][] action_table() {return _action_table;}
@@ -223,45 +291,54 @@ public class LepaParser extends java_cup.runtime.lr_parser {
   /** <code>reduce_goto</code> table. */
   protected static final short[][] _reduce_table = 
     unpackFromStrings(new String[] {
-    "\000\122\000\010\002\003\003\004\004\005\001\001\000" +
-    "\002\001\001\000\004\004\122\001\001\000\002\001\001" +
-    "\000\002\001\001\000\002\001\001\000\012\005\022\010" +
-    "\020\011\016\013\013\001\001\000\010\011\016\012\120" +
-    "\013\043\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\010\011\016\012\101\013\043\001\001" +
-    "\000\002\001\001\000\010\011\016\012\076\013\043\001" +
+    "\000\151\000\010\002\003\003\004\004\005\001\001\000" +
+    "\002\001\001\000\004\004\151\001\001\000\002\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\012\005\023\011\021\012\020\015\014\001\001\000\010" +
+    "\012\046\013\145\015\044\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\004\014\130\001\001" +
+    "\000\004\014\123\001\001\000\002\001\001\000\002\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\012\005\040\010\020\011\016\013" +
-    "\013\001\001\000\012\005\026\010\020\011\016\013\013" +
-    "\001\001\000\002\001\001\000\012\005\037\010\020\011" +
-    "\016\013\013\001\001\000\002\001\001\000\012\005\036" +
-    "\010\020\011\016\013\013\001\001\000\012\005\035\010" +
-    "\020\011\016\013\013\001\001\000\012\005\034\010\020" +
-    "\011\016\013\013\001\001\000\002\001\001\000\002\001" +
+    "\000\012\005\041\011\021\012\020\015\014\001\001\000" +
+    "\012\005\027\011\021\012\020\015\014\001\001\000\002" +
+    "\001\001\000\012\005\040\011\021\012\020\015\014\001" +
+    "\001\000\002\001\001\000\012\005\037\011\021\012\020" +
+    "\015\014\001\001\000\012\005\036\011\021\012\020\015" +
+    "\014\001\001\000\012\005\035\011\021\012\020\015\014" +
+    "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
+    "\001\000\002\001\001\000\002\001\001\000\010\012\046" +
+    "\013\043\015\044\001\001\000\002\001\001\000\002\001" +
+    "\001\000\002\001\001\000\002\001\001\000\006\012\046" +
+    "\015\054\001\001\000\006\012\046\015\053\001\001\000" +
+    "\006\012\046\015\052\001\001\000\002\001\001\000\002" +
+    "\001\001\000\002\001\001\000\006\012\046\015\057\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\010\011\016\012\042\013\043\001\001\000\002\001" +
-    "\001\000\002\001\001\000\002\001\001\000\006\011\016" +
-    "\013\047\001\001\000\002\001\001\000\002\001\001\000" +
-    "\002\001\001\000\002\001\001\000\016\005\053\006\057" +
-    "\007\056\010\020\011\016\013\013\001\001\000\002\001" +
-    "\001\000\002\001\001\000\012\005\073\010\020\011\016" +
-    "\013\013\001\001\000\014\005\053\006\070\010\020\011" +
-    "\016\013\013\001\001\000\002\001\001\000\012\005\061" +
-    "\010\020\011\016\013\013\001\001\000\002\001\001\000" +
-    "\004\014\063\001\001\000\002\001\001\000\002\001\001" +
-    "\000\010\011\016\012\067\013\043\001\001\000\002\001" +
+    "\000\002\001\001\000\020\005\063\006\072\007\066\010" +
+    "\071\011\021\012\020\015\014\001\001\000\002\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\012\005\111\011\021\012\020\015\014\001\001\000\002" +
+    "\001\001\000\016\005\063\006\105\007\066\011\021\012" +
+    "\020\015\014\001\001\000\002\001\001\000\012\005\074" +
+    "\011\021\012\020\015\014\001\001\000\002\001\001\000" +
+    "\004\016\077\001\001\000\002\001\001\000\002\001\001" +
+    "\000\002\001\001\000\010\012\046\013\102\015\044\001" +
     "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\002\001\001\000\004\014\075\001" +
-    "\001\000\002\001\001\000\002\001\001\000\012\005\100" +
-    "\010\020\011\016\013\013\001\001\000\002\001\001\000" +
-    "\002\001\001\000\012\005\103\010\020\011\016\013\013" +
-    "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
-    "\001\000\006\011\016\013\117\001\001\000\006\011\016" +
-    "\013\116\001\001\000\006\011\016\013\115\001\001\000" +
-    "\006\011\016\013\114\001\001\000\006\011\016\013\113" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\002\001\001\000\014" +
+    "\005\063\007\114\011\021\012\020\015\014\001\001\000" +
+    "\002\001\001\000\002\001\001\000\004\016\120\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\002\001\001\000\012" +
+    "\005\126\011\021\012\020\015\014\001\001\000\002\001" +
+    "\001\000\002\001\001\000\002\001\001\000\012\005\132" +
+    "\011\021\012\020\015\014\001\001\000\002\001\001\000" +
+    "\006\012\046\015\144\001\001\000\006\012\046\015\143" +
+    "\001\001\000\006\012\046\015\142\001\001\000\006\012" +
+    "\046\015\141\001\001\000\006\012\046\015\140\001\001" +
+    "\000\002\001\001\000\002\001\001\000\002\001\001\000" +
+    "\002\001\001\000\002\001\001\000\002\001\001\000\002" +
     "\001\001\000\002\001\001\000\002\001\001\000\002\001" +
-    "\001\000\002\001\001\000\002\001\001\000\002\001\001" +
-    "\000\002\001\001\000\002\001\001\000\002\001\001" });
+    "\001\000\002\001\001" });
 
   /** Access to <code>reduce_goto</code> table. */
   public short[][] reduce_table() {return _reduce_table;}
@@ -299,14 +376,63 @@ public class LepaParser extends java_cup.runtime.lr_parser {
   public int error_sym() {return 1;}
 
 
+  
+    // Maps token offsets to lines and columns in error messages; null when unknown
+    private TokenBuffer positions;
+    // Syntax errors found so far; the parse goes on after each one it recovers from
+    private List<SyntaxError> errors = new ArrayList<>();
+    // Theorems parsed so far, leaving out those with syntax errors
+    Program program = new Program();
+
+    public void setPositions(TokenBuffer positions) {
+        this.positions = positions;
+    }
+
+    /** The syntax errors of the parse, in source order. */
+    public List<SyntaxError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * The theorems that parsed. If the parser could not recover from an error, these are
+     * the ones before it.
+     */
+    public Program getProgram() {
+        return program;
+    }
 
     public void report_error(String message, Object info) {
-        System.err.println("Syntax error: " + message);
+        if (positions != null && info instanceof Symbol && ((Symbol) info).left >= 0) {
+            System.err.println("Syntax error at " + positions.describe(((Symbol) info).left) + ": " + message);
+        } else {
+            System.err.println("Syntax error: " + message);
+        }
+    }
+
+    public void syntax_error(Symbol token) {
+        String found = token.sym == sym.EOF ? "end of input"
+                : positions != null ? "'" + positions.getSource().subSequence(token.left, token.right) + "'"
+                : sym.terminalNames[token.sym];
+        int offset = Math.max(token.left, 0);
+        if (positions != null) {
+            errors.add(new SyntaxError("unexpected " + found, offset, positions.line(offset), positions.column(offset)));
+        } else {
+            errors.add(new SyntaxError("unexpected " + found, offset, 0, 0));
+        }
+    }
+
+    public void unrecovered_syntax_error(Symbol token) {
+        // Already recorded by syntax_error; keep the theorems parsed before it
+    }
+
+    /* Recovered once two tokens after the error parse again */
+    protected int error_sync_size() {
+        return 2;
     }
     
-    /* Expecting 2 shift/reduce conflicts */
+    /* Expecting 3 shift/reduce conflicts (generate with -expect 3) */
     public int getExpectedConflicts() {
-        return 2;
+        return 3;
     }
 
 
@@ -370,7 +496,7 @@ class CUP$LepaParser$actions {
 		int tdleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int tdright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		TheoremDecl td = (TheoremDecl)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
-		 tl.addTheorem(td); RESULT = tl; 
+		 if (td != null) tl.addTheorem(td); RESULT = tl; 
               CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("theorem_list",1, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
@@ -382,7 +508,7 @@ class CUP$LepaParser$actions {
 		int tdleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int tdright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		TheoremDecl td = (TheoremDecl)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
-		 Program p = new Program(); p.addTheorem(td); RESULT = p; 
+		 if (td != null) parser.program.addTheorem(td); RESULT = parser.program; 
               CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("theorem_list",1, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
@@ -403,6 +529,11 @@ class CUP$LepaParser$actions {
 		 
                   TheoremDecl theorem = new TheoremDecl(id, f);
                   for (ProofStep step : steps) {
+                      if (step == null) {
+                          // A step with a syntax error leaves the whole theorem out
+                          theorem = null;
+                          break;
+                      }
                       theorem.addProofStep(step);
                   }
                   RESULT = theorem;
@@ -412,7 +543,34 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 5: // proof_steps ::= proof_steps proof_step 
+          case 5: // theorem_decl ::= THEOREM error QED DOT 
+            {
+              TheoremDecl RESULT =null;
+		 RESULT = null; 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("theorem_decl",2, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 6: // theorem_decl ::= THEOREM IDENTIFIER COLON formula DOT PROOF COLON proof_steps error 
+            {
+              TheoremDecl RESULT =null;
+		 RESULT = null; 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("theorem_decl",2, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-8)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 7: // theorem_decl ::= THEOREM IDENTIFIER COLON formula DOT PROOF COLON error 
+            {
+              TheoremDecl RESULT =null;
+		 RESULT = null; 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("theorem_decl",2, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-7)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 8: // proof_steps ::= proof_steps proof_step 
             {
               List<ProofStep> RESULT =null;
 		int psleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
@@ -422,45 +580,102 @@ class CUP$LepaParser$actions {
 		int pright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		ProofStep p = (ProofStep)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 ps.add(p); RESULT = ps; 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_steps",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_steps",6, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 6: // proof_steps ::= proof_step 
+          case 9: // proof_steps ::= proof_step 
             {
               List<ProofStep> RESULT =null;
 		int pleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int pright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		ProofStep p = (ProofStep)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 List<ProofStep> steps = new ArrayList<>(); steps.add(p); RESULT = steps; 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_steps",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_steps",6, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 10: // proof_step ::= IDENTIFIER COLON step_body 
+            {
+              ProofStep RESULT =null;
+		int labelleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
+		int labelright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
+		String label = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
+		int sleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int sright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		ProofStep s = (ProofStep)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 s.setLabel(label); RESULT = s; 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 11: // proof_step ::= step_body 
+            {
+              ProofStep RESULT =null;
+		int sleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int sright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		ProofStep s = (ProofStep)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = s; 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 12: // proof_step ::= error DOT 
+            {
+              ProofStep RESULT =null;
+		 RESULT = null; 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 13: // step_body ::= ASSUME formula DOT 
+            {
+              ProofStep RESULT =null;
+		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
+		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).right;
+		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).value;
+		 RESULT = new ProofStep(f, null, true, false); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 7: // proof_step ::= ASSUME formula 
+          case 14: // step_body ::= ASSUME formula 
             {
               ProofStep RESULT =null;
 		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 RESULT = new ProofStep(f, null, true, false); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 8: // proof_step ::= END 
+          case 15: // step_body ::= END DOT 
             {
               ProofStep RESULT =null;
-		 RESULT = new ProofStep(new BooleanLiteral(true), null, false, false); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+		 RESULT = ProofStep.end(); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 16: // step_body ::= END 
+            {
+              ProofStep RESULT =null;
+		 RESULT = ProofStep.end(); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 9: // proof_step ::= THEREFORE formula BY justification 
+          case 17: // step_body ::= THEREFORE formula BY justification 
             {
               ProofStep RESULT =null;
 		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -468,26 +683,53 @@ class CUP$LepaParser$actions {
 		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
 		int jleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int jright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
-		String j = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
-		 RESULT = new ProofStep(f, j, false, true); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+		Justification j = (Justification)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = new ProofStep(f, j.getRule(), j.getCitations(), false, true); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 18: // step_body ::= THEREFORE formula BY justification DOT 
+            {
+              ProofStep RESULT =null;
+		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)).left;
+		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)).right;
+		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)).value;
+		int jleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
+		int jright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).right;
+		Justification j = (Justification)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).value;
+		 RESULT = new ProofStep(f, j.getRule(), j.getCitations(), false, true); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-4)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 19: // step_body ::= THEREFORE formula DOT 
+            {
+              ProofStep RESULT =null;
+		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
+		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).right;
+		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).value;
+		 RESULT = new ProofStep(f, null, false, true); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 10: // proof_step ::= THEREFORE formula 
+          case 20: // step_body ::= THEREFORE formula 
             {
               ProofStep RESULT =null;
 		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 RESULT = new ProofStep(f, null, false, true); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 11: // proof_step ::= formula BY justification 
+          case 21: // step_body ::= formula BY justification 
             {
               ProofStep RESULT =null;
 		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -495,71 +737,80 @@ class CUP$LepaParser$actions {
 		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
 		int jleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int jright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
-		String j = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
-		 RESULT = new ProofStep(f, j, false, false); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+		Justification j = (Justification)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = new ProofStep(f, j.getRule(), j.getCitations(), false, false); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 12: // proof_step ::= formula 
+          case 22: // step_body ::= formula BY justification DOT 
             {
               ProofStep RESULT =null;
-		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
-		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
-		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
-		 RESULT = new ProofStep(f, null, false, false); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("proof_step",4, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)).left;
+		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)).right;
+		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)).value;
+		int jleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
+		int jright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).right;
+		Justification j = (Justification)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).value;
+		 RESULT = new ProofStep(f, j.getRule(), j.getCitations(), false, false); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 13: // justification ::= IDENTIFIER FROM term_list 
+          case 23: // step_body ::= formula DOT 
             {
-              String RESULT =null;
-		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
-		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
-		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
-		 RESULT = id; /* We'll just use the identifier name for now */ 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("justification",10, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              ProofStep RESULT =null;
+		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
+		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).right;
+		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).value;
+		 RESULT = new ProofStep(f, null, false, false); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 14: // justification ::= IDENTIFIER DOT 
+          case 24: // step_body ::= formula 
             {
-              String RESULT =null;
-		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
-		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).right;
-		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).value;
-		 RESULT = id; 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("justification",10, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              ProofStep RESULT =null;
+		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int fright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		Formula f = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = new ProofStep(f, null, false, false); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("step_body",5, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 15: // justification ::= IDENTIFIER 
+          case 25: // justification ::= IDENTIFIER FROM term_list 
             {
-              String RESULT =null;
-		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
-		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
-		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
-		 RESULT = id; 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("justification",10, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              Justification RESULT =null;
+		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
+		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
+		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
+		int tlleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int tlright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		List<Formula> tl = (List<Formula>)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = new Justification(id, tl); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("justification",12, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 16: // formula ::= TRUE AND TRUE 
+          case 26: // justification ::= IDENTIFIER 
             {
-              Formula RESULT =null;
-		 RESULT = new BinaryOperation(new BooleanLiteral(true), BinaryOperation.Operator.AND, new BooleanLiteral(true)); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("formula",3, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              Justification RESULT =null;
+		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = new Justification(id, new ArrayList<Formula>()); /* Simple justification without FROM */ 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("justification",12, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 17: // formula ::= TRUE 
+          case 27: // formula ::= TRUE 
             {
               Formula RESULT =null;
 		 RESULT = new BooleanLiteral(true); 
@@ -568,7 +819,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 18: // formula ::= FALSE 
+          case 28: // formula ::= FALSE 
             {
               Formula RESULT =null;
 		 RESULT = new BooleanLiteral(false); 
@@ -577,7 +828,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 19: // formula ::= id_term 
+          case 29: // formula ::= id_term 
             {
               Formula RESULT =null;
 		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
@@ -589,7 +840,19 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 20: // formula ::= formula AND formula 
+          case 30: // formula ::= function_call 
+            {
+              Formula RESULT =null;
+		int fcleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int fcright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		Formula fc = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = fc; /* A predicate applied to terms, like P(x) */ 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("formula",3, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 31: // formula ::= formula AND formula 
             {
               Formula RESULT =null;
 		int f1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -604,7 +867,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 21: // formula ::= formula OR formula 
+          case 32: // formula ::= formula OR formula 
             {
               Formula RESULT =null;
 		int f1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -619,7 +882,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 22: // formula ::= formula IMPLIES formula 
+          case 33: // formula ::= formula IMPLIES formula 
             {
               Formula RESULT =null;
 		int f1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -634,7 +897,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 23: // formula ::= formula IFF formula 
+          case 34: // formula ::= formula IFF formula 
             {
               Formula RESULT =null;
 		int f1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -649,7 +912,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 24: // formula ::= NOT formula 
+          case 35: // formula ::= NOT formula 
             {
               Formula RESULT =null;
 		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
@@ -661,55 +924,37 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 25: // formula ::= FORALL term_list DOT formula 
+          case 36: // formula ::= FORALL variable_list DOT formula 
             {
               Formula RESULT =null;
 		int varsleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
 		int varsright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
-		List<Formula> vars = (List<Formula>)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
+		List<Identifier> vars = (List<Identifier>)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
 		int bodyleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int bodyright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		Formula body = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
-		 
-             // Convert term_list to List<Identifier>
-             List<Identifier> identifiers = new ArrayList<>();
-             for (Formula term : vars) {
-                 if (term instanceof Identifier) {
-                     identifiers.add((Identifier) term);
-                 }
-             }
-             RESULT = new Quantifier(Quantifier.Type.FORALL, identifiers, body);
-          
+		 RESULT = new Quantifier(Quantifier.Type.FORALL, vars, body); 
               CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("formula",3, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 26: // formula ::= EXISTS term_list DOT formula 
+          case 37: // formula ::= EXISTS variable_list DOT formula 
             {
               Formula RESULT =null;
 		int varsleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
 		int varsright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
-		List<Formula> vars = (List<Formula>)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
+		List<Identifier> vars = (List<Identifier>)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
 		int bodyleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int bodyright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		Formula body = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
-		 
-             // Convert term_list to List<Identifier>
-             List<Identifier> identifiers = new ArrayList<>();
-             for (Formula term : vars) {
-                 if (term instanceof Identifier) {
-                     identifiers.add((Identifier) term);
-                 }
-             }
-             RESULT = new Quantifier(Quantifier.Type.EXISTS, identifiers, body);
-          
+		 RESULT = new Quantifier(Quantifier.Type.EXISTS, vars, body); 
               CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("formula",3, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 27: // formula ::= term EQ term 
+          case 38: // formula ::= term EQ term 
             {
               Formula RESULT =null;
 		int t1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -724,7 +969,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 28: // formula ::= term NEQ term 
+          case 39: // formula ::= term NEQ term 
             {
               Formula RESULT =null;
 		int t1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -739,7 +984,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 29: // formula ::= term IN term 
+          case 40: // formula ::= term IN term 
             {
               Formula RESULT =null;
 		int t1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -754,7 +999,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 30: // formula ::= term NOTIN term 
+          case 41: // formula ::= term NOTIN term 
             {
               Formula RESULT =null;
 		int t1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -769,7 +1014,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 31: // formula ::= term SUBSET term 
+          case 42: // formula ::= term SUBSET term 
             {
               Formula RESULT =null;
 		int t1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -784,7 +1029,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 32: // formula ::= LPAREN formula RPAREN 
+          case 43: // formula ::= LPAREN formula RPAREN 
             {
               Formula RESULT =null;
 		int fleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
@@ -796,7 +1041,7 @@ class CUP$LepaParser$actions {
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 33: // term_list ::= term_list COMMA term 
+          case 44: // term_list ::= term_list COMMA term 
             {
               List<Formula> RESULT =null;
 		int tlleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
@@ -806,84 +1051,156 @@ class CUP$LepaParser$actions {
 		int tright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		Formula t = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 tl.add(t); RESULT = tl; 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term_list",8, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term_list",9, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 34: // term_list ::= term 
+          case 45: // term_list ::= term 
             {
               List<Formula> RESULT =null;
 		int tleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int tright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		Formula t = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 List<Formula> terms = new ArrayList<>(); terms.add(t); RESULT = terms; 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term_list",8, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term_list",9, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 35: // id_term ::= IDENTIFIER 
+          case 46: // variable_list ::= variable_list COMMA IDENTIFIER 
+            {
+              List<Identifier> RESULT =null;
+		int vlleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
+		int vlright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
+		List<Identifier> vl = (List<Identifier>)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
+		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 vl.add(new Identifier(id)); RESULT = vl; 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("variable_list",10, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 47: // variable_list ::= IDENTIFIER 
+            {
+              List<Identifier> RESULT =null;
+		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 List<Identifier> variables = new ArrayList<>(); variables.add(new Identifier(id)); RESULT = variables; 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("variable_list",10, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 48: // id_term ::= IDENTIFIER 
             {
               Formula RESULT =null;
 		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 RESULT = new Identifier(id); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("id_term",6, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("id_term",7, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 36: // term ::= IDENTIFIER 
+          case 49: // term ::= IDENTIFIER 
             {
               Formula RESULT =null;
 		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int idright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		String id = (String)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 RESULT = new Identifier(id); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",9, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",11, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 37: // term ::= NUMBER 
+          case 50: // term ::= NUMBER 
             {
               Formula RESULT =null;
 		int nleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int nright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		Integer n = (Integer)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 RESULT = new NumberLiteral(n); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",9, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",11, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 38: // term ::= function_call 
+          case 51: // term ::= function_call 
             {
               Formula RESULT =null;
 		int fcleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
 		int fcright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
 		Formula fc = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
 		 RESULT = fc; 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",9, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",11, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 39: // term ::= LBRACE term_list RBRACE 
+          case 52: // term ::= LBRACE term_list RBRACE 
             {
               Formula RESULT =null;
 		int termsleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).left;
 		int termsright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).right;
 		List<Formula> terms = (List<Formula>)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).value;
 		 RESULT = new SetLiteral(terms); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",9, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",11, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 53: // term ::= term UNION term 
+            {
+              Formula RESULT =null;
+		int t1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
+		int t1right = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
+		Formula t1 = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
+		int t2left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int t2right = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		Formula t2 = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = new BinaryOperation(t1, BinaryOperation.Operator.UNION, t2); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",11, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 54: // term ::= term INTERSECT term 
+            {
+              Formula RESULT =null;
+		int t1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
+		int t1right = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
+		Formula t1 = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
+		int t2left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int t2right = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		Formula t2 = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = new BinaryOperation(t1, BinaryOperation.Operator.INTERSECT, t2); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",11, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+            }
+          return CUP$LepaParser$result;
+
+          /*. . . . . . . . . . . . . . . . . . . .*/
+          case 55: // term ::= term SETDIFF term 
+            {
+              Formula RESULT =null;
+		int t1left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).left;
+		int t1right = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).right;
+		Formula t1 = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)).value;
+		int t2left = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).left;
+		int t2right = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()).right;
+		Formula t2 = (Formula)((java_cup.runtime.Symbol) CUP$LepaParser$stack.peek()).value;
+		 RESULT = new BinaryOperation(t1, BinaryOperation.Operator.SETDIFF, t2); 
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("term",11, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-2)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
           /*. . . . . . . . . . . . . . . . . . . .*/
-          case 40: // function_call ::= IDENTIFIER LPAREN term_list RPAREN 
+          case 56: // function_call ::= IDENTIFIER LPAREN term_list RPAREN 
             {
               Formula RESULT =null;
 		int idleft = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)).left;
@@ -893,7 +1210,7 @@ class CUP$LepaParser$actions {
 		int argsright = ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).right;
 		List<Formula> args = (List<Formula>)((java_cup.runtime.Symbol) CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-1)).value;
 		 RESULT = new FunctionCall(id, args); 
-              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("function_call",7, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
+              CUP$LepaParser$result = parser.getSymbolFactory().newSymbol("function_call",8, ((java_cup.runtime.Symbol)CUP$LepaParser$stack.elementAt(CUP$LepaParser$top-3)), ((java_cup.runtime.Symbol)CUP$LepaParser$stack.peek()), RESULT);
             }
           return CUP$LepaParser$result;
 
@@ -0,0 +1,131 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import ast.Program;
+import ast.TheoremDecl;
+
+/**
+ * Parses the theorems of a tokenized source in parallel. Theorems do not depend on each
+ * other syntactically, so the token stream is cut at each 'theorem' keyword and every
+ * block is parsed by its own {@link RecursiveDescentParser} on a ForkJoinPool.
+ *
+ * The theorems are put into the Program in source order. A block that fails to parse is
+ * left out and its {@link SyntaxError}s recorded, so one bad theorem does not stop the rest.
+ */
+public class ParallelParser {
+    // Blocks a worker parses itself rather than splitting further
+    private static final int BATCH_BLOCKS = 32;
+
+    private ForkJoinPool pool;
+    private List<SyntaxError> errors = new ArrayList<>();
+
+    /**
+     * Uses the common ForkJoinPool.
+     */
+    public ParallelParser() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelParser(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Parses every block of the buffer. Syntax errors are collected in
+     * {@link #getErrors()} rather than thrown; a block goes on past its errors as
+     * {@link RecursiveDescentParser#parse(List)} does.
+     */
+    public Program parse(TokenBuffer tokens) {
+        int[] starts = blockStarts(tokens);
+        int blocks = starts.length - 1;
+        TheoremDecl[] theorems = new TheoremDecl[blocks];
+        SyntaxError[][] blockErrors = new SyntaxError[blocks][];
+        if (blocks > 0) {
+            pool.invoke(new ParseBatch(tokens, starts, theorems, blockErrors, 0, blocks));
+        }
+
+        Program program = new Program();
+        errors = new ArrayList<>();
+        for (int i = 0; i < blocks; i++) {
+            if (theorems[i] != null) {
+                program.addTheorem(theorems[i]);
+            }
+            if (blockErrors[i] != null) {
+                errors.addAll(Arrays.asList(blockErrors[i]));
+            }
+        }
+        return program;
+    }
+
+    /** The syntax errors of the last parse, in source order. */
+    public List<SyntaxError> getErrors() {
+        return errors;
+    }
+
+    /**
+     * Token indices where each block starts, followed by the index of the EOF token. Tokens
+     * before the first 'theorem' form a block of their own, which fails to parse.
+     */
+    private static int[] blockStarts(TokenBuffer tokens) {
+        int eof = tokens.size() - 1;
+        int[] starts = new int[16];
+        int count = 0;
+        for (int i = 0; i < eof; i++) {
+            if (i == 0 || tokens.kind(i) == sym.THEOREM) {
+                if (count + 1 == starts.length) {
+                    starts = Arrays.copyOf(starts, starts.length * 2);
+                }
+                starts[count++] = i;
+            }
+        }
+        starts[count++] = eof;
+        return Arrays.copyOf(starts, count);
+    }
+
+    /**
+     * Parses a range of blocks, splitting it so idle workers can steal half.
+     */
+    private static class ParseBatch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private TokenBuffer tokens;
+        private int[] starts;
+        private TheoremDecl[] theorems;
+        private SyntaxError[][] errors;
+        private int from;
+        private int to;
+
+        ParseBatch(TokenBuffer tokens, int[] starts, TheoremDecl[] theorems, SyntaxError[][] errors, int from, int to) {
+            this.tokens = tokens;
+            this.starts = starts;
+            this.theorems = theorems;
+            this.errors = errors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= BATCH_BLOCKS) {
+                for (int block = from; block < to; block++) {
+                    RecursiveDescentParser parser = new RecursiveDescentParser(tokens, starts[block], starts[block + 1]);
+                    List<SyntaxError> found = new ArrayList<>();
+                    List<TheoremDecl> parsed = parser.parse(found).getTheorems();
+                    theorems[block] = parsed.isEmpty() ? null : parsed.get(0);
+                    if (!found.isEmpty()) {
+                        errors[block] = found.toArray(new SyntaxError[0]);
+                    }
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new ParseBatch(tokens, starts, theorems, errors, from, mid),
+                      new ParseBatch(tokens, starts, theorems, errors, mid, to));
+        }
+    }
+}
@@ -0,0 +1,440 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import ast.*;
+
+/**
+ * A hand-written parser for LEPA that builds the same AST as the CUP parser, reading from a
+ * {@link TokenBuffer}.
+ *
+ * Formulas are parsed by precedence climbing. From loosest to tightest: '<->', '->', 'or',
+ * 'and', all left associative as in the CUP grammar, then prefix 'not'. A quantifier's body
+ * extends as far right as it can. Terms have their own levels: 'union' below
+ * 'intersect' and '\'. A formula that starts like a term is read as a term first and
+ * becomes a relation if '=', '!=', 'in', 'notin' or 'subset' follows.
+ */
+public class RecursiveDescentParser {
+    // Binding power of each binary formula operator; 0 for tokens that are not one
+    private static final int IFF_POWER = 1;
+    private static final int IMPLIES_POWER = 2;
+    private static final int OR_POWER = 3;
+    private static final int AND_POWER = 4;
+    private static final int NOT_POWER = 5;
+
+    private TokenBuffer tokens;
+    private int pos;
+    // Index of the token that counts as the end of input
+    private int end;
+    // Where syntax errors go when parsing on past them; null to stop at the first
+    private List<SyntaxError> errors;
+
+    public RecursiveDescentParser(TokenBuffer tokens) {
+        this(tokens, 0, tokens.size() - 1);
+    }
+
+    /**
+     * Parses tokens [from .. to) as if token to were the end of input. Errors keep their
+     * positions in the whole buffer.
+     */
+    public RecursiveDescentParser(TokenBuffer tokens, int from, int to) {
+        this.tokens = tokens;
+        this.pos = from;
+        this.end = to;
+    }
+
+    /**
+     * Parses a whole program: one or more theorems.
+     *
+     * @throws SyntaxError at the first token that does not fit the grammar.
+     */
+    public Program parse() {
+        Program program = new Program();
+        do {
+            program.addTheorem(parseTheorem());
+        } while (peek() != sym.EOF);
+        return program;
+    }
+
+    /**
+     * Parses a whole program, going on after syntax errors so that one pass finds them all.
+     * A bad step is skipped to its closing '.', and a bad theorem header to the next
+     * 'theorem'. Every error is added to errors, and a theorem with an error is left out of
+     * the program.
+     */
+    public Program parse(List<SyntaxError> errors) {
+        this.errors = errors;
+        Program program = new Program();
+        try {
+            do {
+                int found = errors.size();
+                try {
+                    TheoremDecl theorem = parseTheorem();
+                    if (errors.size() == found) {
+                        program.addTheorem(theorem);
+                    }
+                } catch (SyntaxError e) {
+                    errors.add(e);
+                    while (peek() != sym.THEOREM && peek() != sym.EOF) {
+                        pos++;
+                    }
+                }
+            } while (peek() != sym.EOF);
+        } finally {
+            this.errors = null;
+        }
+        return program;
+    }
+
+    /**
+     * Parses one theorem: 'theorem NAME: FORMULA. proof: STEPS qed.'
+     */
+    public TheoremDecl parseTheorem() {
+        expect(sym.THEOREM, "'theorem'");
+        String name = identifier();
+        expect(sym.COLON, "':'");
+        Formula statement = parseFormula(0);
+        expect(sym.DOT, "'.'");
+        expect(sym.PROOF, "'proof'");
+        expect(sym.COLON, "':'");
+
+        TheoremDecl theorem = new TheoremDecl(name, statement);
+        do {
+            if (errors == null) {
+                theorem.addProofStep(parseStep());
+                continue;
+            }
+            if (peek() == sym.THEOREM || peek() == sym.EOF) {
+                throw error(pos, "expected 'qed'");
+            }
+            try {
+                theorem.addProofStep(parseStep());
+            } catch (SyntaxError e) {
+                errors.add(e);
+                skipStep();
+            }
+        } while (peek() != sym.QED);
+        pos++;
+        expect(sym.DOT, "'.'");
+        return theorem;
+    }
+
+    /**
+     * Parses one proof step, with an optional 'LABEL:' in front. As in the CUP grammar the
+     * closing dot is optional.
+     */
+    public ProofStep parseStep() {
+        String label = null;
+        if (peek() == sym.IDENTIFIER && peek(1) == sym.COLON) {
+            label = tokens.identifier(pos);
+            pos += 2;
+        }
+        ProofStep step;
+        switch (peek()) {
+            case sym.ASSUME:
+                pos++;
+                step = new ProofStep(parseFormula(0), null, true, false);
+                break;
+            case sym.END:
+                pos++;
+                step = ProofStep.end();
+                break;
+            case sym.THEREFORE:
+                pos++;
+                step = parseConclusion(true);
+                break;
+            default:
+                step = parseConclusion(false);
+        }
+        if (peek() == sym.DOT) {
+            pos++;
+        }
+        step.setLabel(label);
+        return step;
+    }
+
+    /** A formula with an optional 'by' justification. */
+    private ProofStep parseConclusion(boolean therefore) {
+        Formula formula = parseFormula(0);
+        if (peek() != sym.BY) {
+            return new ProofStep(formula, null, false, therefore);
+        }
+        pos++;
+        String rule = identifier();
+        List<Formula> cited = new ArrayList<>();
+        if (peek() == sym.FROM) {
+            pos++;
+            cited = parseTermList();
+        }
+        Justification justification = new Justification(rule, cited);
+        return new ProofStep(formula, justification.getRule(), justification.getCitations(), false, therefore);
+    }
+
+    /**
+     * Skips past the '.' that ends the current step, stopping early at 'qed' or the next
+     * theorem. The '.' after a quantifier's variables does not end a step.
+     */
+    private void skipStep() {
+        boolean inQuantifier = false;
+        while (true) {
+            switch (peek()) {
+                case sym.FORALL:
+                case sym.EXISTS:
+                    inQuantifier = true;
+                    pos++;
+                    break;
+                case sym.DOT:
+                    pos++;
+                    if (!inQuantifier) {
+                        return;
+                    }
+                    inQuantifier = false;
+                    break;
+                case sym.QED:
+                case sym.THEOREM:
+                case sym.EOF:
+                    return;
+                default:
+                    pos++;
+            }
+        }
+    }
+
+    /**
+     * Checks that every token has been read.
+     *
+     * @throws SyntaxError at the first token left over.
+     */
+    public void expectEnd() {
+        if (peek() != sym.EOF) {
+            throw error(pos, "expected end of input");
+        }
+    }
+
+    /**
+     * Parses a formula whose binary operators all bind tighter than minPower.
+     */
+    public Formula parseFormula(int minPower) {
+        Formula left = parseUnary();
+        while (true) {
+            int kind = peek();
+            int power = binaryPower(kind);
+            if (power == 0 || power <= minPower) {
+                return left;
+            }
+            pos++;
+            // Left associative: the right operand only takes tighter operators
+            Formula right = parseFormula(power);
+            left = new BinaryOperation(left, binaryOperator(kind), right);
+        }
+    }
+
+    private Formula parseUnary() {
+        switch (peek()) {
+            case sym.NOT:
+                pos++;
+                return new UnaryOperation(UnaryOperation.Operator.NOT, parseFormula(NOT_POWER));
+            case sym.FORALL:
+            case sym.EXISTS: {
+                Quantifier.Type type = next() == sym.FORALL ? Quantifier.Type.FORALL : Quantifier.Type.EXISTS;
+                List<Identifier> variables = parseVariableList();
+                expect(sym.DOT, "',' or '.'");
+                return new Quantifier(type, variables, parseFormula(0));
+            }
+            case sym.TRUE:
+                pos++;
+                return new BooleanLiteral(true);
+            case sym.FALSE:
+                pos++;
+                return new BooleanLiteral(false);
+            case sym.LPAREN: {
+                pos++;
+                Formula formula = parseFormula(0);
+                expect(sym.RPAREN, "')'");
+                return formula;
+            }
+            default:
+                return parseRelation();
+        }
+    }
+
+    /**
+     * An identifier or predicate on its own, or a relation between two terms.
+     */
+    private Formula parseRelation() {
+        Formula left = parseTerm(0);
+        BinaryOperation.Operator relation = relationOperator(peek());
+        if (relation == null) {
+            if (left instanceof Identifier || left instanceof FunctionCall) {
+                return left;
+            }
+            throw error(pos, "expected '=', '!=', 'in', 'notin' or 'subset' after a term");
+        }
+        pos++;
+        return new BinaryOperation(left, relation, parseTerm(0));
+    }
+
+    /**
+     * Parses a term whose set operators all bind tighter than minPower: 'union' is 1,
+     * 'intersect' and '\' are 2.
+     */
+    private Formula parseTerm(int minPower) {
+        Formula left = parseTermPrimary();
+        while (true) {
+            int kind = peek();
+            int power = kind == sym.UNION ? 1 : kind == sym.INTERSECT || kind == sym.SETDIFF ? 2 : 0;
+            if (power == 0 || power <= minPower) {
+                return left;
+            }
+            pos++;
+            BinaryOperation.Operator operator = kind == sym.UNION ? BinaryOperation.Operator.UNION
+                    : kind == sym.INTERSECT ? BinaryOperation.Operator.INTERSECT : BinaryOperation.Operator.SETDIFF;
+            left = new BinaryOperation(left, operator, parseTerm(power));
+        }
+    }
+
+    private Formula parseTermPrimary() {
+        switch (peek()) {
+            case sym.IDENTIFIER: {
+                String name = tokens.identifier(pos++);
+                if (peek() != sym.LPAREN) {
+                    return new Identifier(name);
+                }
+                pos++;
+                List<Formula> arguments = parseTermList();
+                expect(sym.RPAREN, "')'");
+                return new FunctionCall(name, arguments);
+            }
+            case sym.NUMBER:
+                return new NumberLiteral(tokens.number(pos++));
+            case sym.LBRACE: {
+                pos++;
+                List<Formula> elements = parseTermList();
+                expect(sym.RBRACE, "'}'");
+                return new SetLiteral(elements);
+            }
+            default:
+                throw error(pos, "expected a formula or term");
+        }
+    }
+
+    /** The names a quantifier binds. Anything else is an error, as in the CUP grammar. */
+    private List<Identifier> parseVariableList() {
+        List<Identifier> variables = new ArrayList<>();
+        variables.add(variable());
+        while (peek() == sym.COMMA) {
+            pos++;
+            variables.add(variable());
+        }
+        return variables;
+    }
+
+    private Identifier variable() {
+        if (peek() != sym.IDENTIFIER) {
+            throw error(pos, "expected a variable name");
+        }
+        return new Identifier(tokens.identifier(pos++));
+    }
+
+    private List<Formula> parseTermList() {
+        List<Formula> terms = new ArrayList<>();
+        terms.add(parseTerm(0));
+        while (peek() == sym.COMMA) {
+            pos++;
+            terms.add(parseTerm(0));
+        }
+        return terms;
+    }
+
+    private static int binaryPower(int kind) {
+        switch (kind) {
+            case sym.IFF:
+                return IFF_POWER;
+            case sym.IMPLIES:
+                return IMPLIES_POWER;
+            case sym.OR:
+                return OR_POWER;
+            case sym.AND:
+                return AND_POWER;
+            default:
+                return 0;
+        }
+    }
+
+    private static BinaryOperation.Operator binaryOperator(int kind) {
+        switch (kind) {
+            case sym.IFF:
+                return BinaryOperation.Operator.IFF;
+            case sym.IMPLIES:
+                return BinaryOperation.Operator.IMPLIES;
+            case sym.OR:
+                return BinaryOperation.Operator.OR;
+            default:
+                return BinaryOperation.Operator.AND;
+        }
+    }
+
+    private static BinaryOperation.Operator relationOperator(int kind) {
+        switch (kind) {
+            case sym.EQ:
+                return BinaryOperation.Operator.EQ;
+            case sym.NEQ:
+                return BinaryOperation.Operator.NEQ;
+            case sym.IN:
+                return BinaryOperation.Operator.IN;
+            case sym.NOTIN:
+                return BinaryOperation.Operator.NOTIN;
+            case sym.SUBSET:
+                return BinaryOperation.Operator.SUBSET;
+            default:
+                return null;
+        }
+    }
+
+    private int peek() {
+        return peek(0);
+    }
+
+    /** The kind of the token ahead tokens after the current one. */
+    private int peek(int ahead) {
+        return pos + ahead >= end ? sym.EOF : tokens.kind(pos + ahead);
+    }
+
+    private int next() {
+        int kind = peek();
+        pos++;
+        return kind;
+    }
+
+    private String identifier() {
+        if (peek() != sym.IDENTIFIER) {
+            throw error(pos, "expected a name");
+        }
+        return tokens.identifier(pos++);
+    }
+
+    private void expect(int kind, String what) {
+        if (peek() != kind) {
+            throw error(pos, "expected " + what);
+        }
+        pos++;
+    }
+
+    private SyntaxError error(int token, String message) {
+        token = Math.min(token, end);
+        int offset = tokens.start(token);
+        String found;
+        switch (tokens.kind(token)) {
+            case sym.EOF:
+                found = "end of input";
+                break;
+            case sym.error:
+                found = SpanLexer.describeError(tokens.text(token));
+                break;
+            default:
+                found = "'" + tokens.text(token) + "'";
+        }
+        return new SyntaxError(message + " but found " + found, offset, tokens.line(offset), tokens.column(offset));
+    }
+}
@@ -0,0 +1,308 @@
+package parser;
+
+import java_cup.runtime.Scanner;
+import java_cup.runtime.Symbol;
+
+/**
+ * A hand-written lexer for the same tokens as {@link LepaLexer} that scans a CharSequence
+ * in place: a String from the REPL or language server, or a {@link ByteSource} over a
+ * memory-mapped file.
+ *
+ * {@link #next()} returns each token's kind and leaves it as a span of the input, read with
+ * {@link #getStart()} and {@link #getLength()}; no String is made unless asked for. As a
+ * CUP {@link Scanner} it returns Symbols whose left and right are the span's offsets.
+ */
+public class SpanLexer implements Scanner {
+    // Keywords by kind and canonical spelling; matched without regard to case
+    private static final int[] KEYWORD_KINDS = {
+        sym.THEOREM, sym.PROOF, sym.QED, sym.ASSUME, sym.END, sym.LET, sym.IN, sym.NOTIN,
+        sym.SUBSET, sym.UNION, sym.INTERSECT, sym.FORALL, sym.EXISTS, sym.TRUE, sym.FALSE,
+        sym.BY, sym.FROM, sym.THEREFORE, sym.AND, sym.OR, sym.NOT
+    };
+    private static final String[] KEYWORDS = {
+        "theorem", "proof", "qed", "assume", "end", "let", "in", "notin",
+        "subset", "union", "intersect", "forall", "exists", "true", "false",
+        "by", "from", "therefore", "and", "or", "not"
+    };
+
+    private CharSequence input;
+    private int pos;
+    private int start;
+    private int length;
+    private int kind = -1;
+    private SymbolTable identifiers;
+    private TokenListener listener;
+
+    public SpanLexer(CharSequence input) {
+        this(input, new SymbolTable());
+    }
+
+    public SpanLexer(CharSequence input, SymbolTable identifiers) {
+        this.input = input;
+        this.identifiers = identifiers;
+    }
+
+    public CharSequence getInput() {
+        return input;
+    }
+
+    /** Continues scanning from the given offset of the input. */
+    public void seek(int offset) {
+        pos = offset;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return identifiers;
+    }
+
+    /**
+     * Sets a listener told about every token returned by {@link #next_token()}, or null.
+     */
+    public void setTokenListener(TokenListener listener) {
+        this.listener = listener;
+    }
+
+    /** Offset of the current token in the input. */
+    public int getStart() {
+        return start;
+    }
+
+    /** Length of the current token. */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Scans the next token and returns its sym constant: sym.EOF at the end of the input,
+     * sym.error for a character no token starts with or a number too large for an int.
+     */
+    public int next() {
+        skipWhitespaceAndComments();
+        start = pos;
+        if (pos >= input.length()) {
+            length = 0;
+            return kind = sym.EOF;
+        }
+        char c = input.charAt(pos);
+        if (isLetter(c) || c == '_') {
+            pos++;
+            while (pos < input.length() && isIdentifierPart(input.charAt(pos))) {
+                pos++;
+            }
+            length = pos - start;
+            return kind = keywordOrIdentifier();
+        }
+        if (isDigit(c)) {
+            long value = 0;
+            while (pos < input.length() && isDigit(input.charAt(pos))) {
+                value = Math.min(value * 10 + (input.charAt(pos) - '0'), Integer.MAX_VALUE + 1L);
+                pos++;
+            }
+            length = pos - start;
+            // A literal too large for an int is an error token, like an unknown character
+            return kind = value > Integer.MAX_VALUE ? sym.error : sym.NUMBER;
+        }
+        pos++;
+        switch (c) {
+            case '-':
+                kind = matches('>') ? sym.IMPLIES : sym.error;
+                break;
+            case '<':
+                kind = matches('-') && matches('>') ? sym.IFF : sym.error;
+                if (kind == sym.error) {
+                    pos = start + 1;
+                }
+                break;
+            case '!':
+                kind = matches('=') ? sym.NEQ : sym.error;
+                break;
+            case '=':
+                kind = sym.EQ;
+                break;
+            case ',':
+                kind = sym.COMMA;
+                break;
+            case '.':
+                kind = sym.DOT;
+                break;
+            case ':':
+                kind = sym.COLON;
+                break;
+            case '(':
+                kind = sym.LPAREN;
+                break;
+            case ')':
+                kind = sym.RPAREN;
+                break;
+            case '{':
+                kind = sym.LBRACE;
+                break;
+            case '}':
+                kind = sym.RBRACE;
+                break;
+            case '\\':
+                kind = sym.SETDIFF;
+                break;
+            default:
+                kind = sym.error;
+        }
+        length = pos - start;
+        return kind;
+    }
+
+    /** The current token's text. Allocates; prefer {@link #identifier()} for names. */
+    public String text() {
+        return input.subSequence(start, start + length).toString();
+    }
+
+    /** The current identifier's spelling, interned in the symbol table. */
+    public String identifier() {
+        return identifiers.intern(input, start, length);
+    }
+
+    /** The current number token's value; {@link #next()} made sure it fits in an int. */
+    public int number() {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            value = value * 10 + (input.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Describes the text of an error token for a message: an unknown character, or a number
+     * too large for an int.
+     */
+    public static String describeError(CharSequence text) {
+        if (text.length() > 0 && isDigit(text.charAt(0))) {
+            return "number " + text + ", which is too large";
+        }
+        return "unknown character '" + text + "'";
+    }
+
+    /**
+     * The value the CUP parser expects for the current token: the interned name of an
+     * identifier, the Integer of a number, and a shared spelling for anything else.
+     */
+    public Object value() {
+        switch (kind) {
+            case sym.IDENTIFIER:
+                return identifier();
+            case sym.NUMBER:
+                return number();
+            default:
+                return spelling(kind);
+        }
+    }
+
+    /**
+     * Returns the next token as a Symbol spanning its offsets. An error token is reported
+     * and ends the input, as an unknown character does for {@link LepaLexer}.
+     */
+    @Override
+    public Symbol next_token() {
+        int next = next();
+        if (next == sym.EOF) {
+            return new Symbol(sym.EOF, start, start);
+        }
+        if (next == sym.error) {
+            System.err.println("Syntax error: " + describeError(text()));
+            return new Symbol(sym.EOF, start, start);
+        }
+        Object value = value();
+        if (listener != null) {
+            listener.tokenScanned(next, value);
+        }
+        return new Symbol(next, start, start + length, value);
+    }
+
+    /** The canonical spelling of a keyword or punctuation kind, or null for other kinds. */
+    public static String spelling(int kind) {
+        for (int i = 0; i < KEYWORD_KINDS.length; i++) {
+            if (KEYWORD_KINDS[i] == kind) {
+                return KEYWORDS[i];
+            }
+        }
+        switch (kind) {
+            case sym.IMPLIES:
+                return "->";
+            case sym.IFF:
+                return "<->";
+            case sym.NEQ:
+                return "!=";
+            case sym.EQ:
+                return "=";
+            case sym.COMMA:
+                return ",";
+            case sym.DOT:
+                return ".";
+            case sym.COLON:
+                return ":";
+            case sym.LPAREN:
+                return "(";
+            case sym.RPAREN:
+                return ")";
+            case sym.LBRACE:
+                return "{";
+            case sym.RBRACE:
+                return "}";
+            case sym.SETDIFF:
+                return "\\";
+            default:
+                return null;
+        }
+    }
+
+    private int keywordOrIdentifier() {
+        for (int k = 0; k < KEYWORDS.length; k++) {
+            String keyword = KEYWORDS[k];
+            if (keyword.length() != length) {
+                continue;
+            }
+            int i = 0;
+            // Setting 0x20 lower-cases a letter and leaves digits alone; '_' matches nothing
+            while (i < length && (input.charAt(start + i) | 0x20) == keyword.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return KEYWORD_KINDS[k];
+            }
+        }
+        return sym.IDENTIFIER;
+    }
+
+    private boolean matches(char expected) {
+        if (pos < input.length() && input.charAt(pos) == expected) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < input.length()) {
+            char c = input.charAt(pos);
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                pos++;
+            } else if (c == '/' && pos + 1 < input.length() && input.charAt(pos + 1) == '/') {
+                while (pos < input.length() && input.charAt(pos) != '\n' && input.charAt(pos) != '\r') {
+                    pos++;
+                }
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return isLetter(c) || isDigit(c) || c == '_';
+    }
+}
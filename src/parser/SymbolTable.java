@@ -0,0 +1,141 @@
+package parser;
+
+import java.util.Arrays;
+
+/**
+ * Interns identifier spellings for the lexers. An identifier is looked up straight from the
+ * lexer's buffer or input, so a String is only allocated the first time a spelling is seen; every
+ * later occurrence returns that same instance.
+ *
+ * Each spelling also gets a small int id, numbered from 0 in order of first appearance, so
+ * token arrays can refer to identifiers without holding Strings.
+ */
+public class SymbolTable {
+    // Open-addressed hash table of ids; -1 marks an empty slot
+    private int[] slots = newSlots(64);
+    private int[] hashes = new int[64];
+    private String[] spellings = new String[16];
+    private int size;
+
+    /**
+     * Returns the interned spelling of chars[start .. start + length).
+     */
+    public String intern(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + chars[i];
+        }
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] >= 0) {
+            String spelling = spellings[slots[slot]];
+            if (hashes[slot] == hash && matches(spelling, chars, start, length)) {
+                return spelling;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return spellings[add(slot, hash, new String(chars, start, length))];
+    }
+
+    /**
+     * Returns the interned spelling of input[start .. start + length).
+     */
+    public String intern(CharSequence input, int start, int length) {
+        return spellings[id(input, start, length)];
+    }
+
+    /**
+     * Returns the id of input[start .. start + length), adding it if it is new.
+     */
+    public int id(CharSequence input, int start, int length) {
+        int hash = 0;
+        for (int i = start; i < start + length; i++) {
+            hash = 31 * hash + input.charAt(i);
+        }
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (slots[slot] >= 0) {
+            int id = slots[slot];
+            if (hashes[slot] == hash && matches(spellings[id], input, start, length)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return add(slot, hash, input.subSequence(start, start + length).toString());
+    }
+
+    /** The spelling with the given id. */
+    public String spelling(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("No identifier with id " + id);
+        }
+        return spellings[id];
+    }
+
+    /** Number of distinct spellings seen. */
+    public int size() {
+        return size;
+    }
+
+    private int add(int slot, int hash, String spelling) {
+        int id = size++;
+        if (id == spellings.length) {
+            spellings = Arrays.copyOf(spellings, id * 2);
+        }
+        spellings[id] = spelling;
+        slots[slot] = id;
+        hashes[slot] = hash;
+        if (size * 2 > slots.length) {
+            grow();
+        }
+        return id;
+    }
+
+    private static boolean matches(String entry, char[] chars, int start, int length) {
+        if (entry.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (entry.charAt(i) != chars[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String entry, CharSequence input, int start, int length) {
+        if (entry.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (entry.charAt(i) != input.charAt(start + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void grow() {
+        int[] oldSlots = slots;
+        int[] oldHashes = hashes;
+        slots = newSlots(oldSlots.length * 2);
+        hashes = new int[oldSlots.length * 2];
+        int mask = slots.length - 1;
+        for (int i = 0; i < oldSlots.length; i++) {
+            if (oldSlots[i] >= 0) {
+                int slot = oldHashes[i] & mask;
+                while (slots[slot] >= 0) {
+                    slot = (slot + 1) & mask;
+                }
+                slots[slot] = oldSlots[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int[] newSlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, -1);
+        return slots;
+    }
+}
@@ -0,0 +1,39 @@
+package parser;
+
+/**
+ * A syntax error found by {@link RecursiveDescentParser}, with the offset, line and column
+ * of the token it was found at.
+ */
+public class SyntaxError extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private String detail;
+    private int offset;
+    private int line;
+    private int column;
+
+    public SyntaxError(String detail, int offset, int line, int column) {
+        super("Syntax error at line " + line + ", column " + column + ": " + detail);
+        this.detail = detail;
+        this.offset = offset;
+        this.line = line;
+        this.column = column;
+    }
+
+    /** The message without its position. */
+    public String getDetail() {
+        return detail;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLine() {
+        return line;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+}
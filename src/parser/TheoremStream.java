@@ -0,0 +1,56 @@
+package parser;
+
+import ast.TheoremDecl;
+
+/**
+ * Reads the theorems of a source one at a time. Each block, from a 'theorem' keyword to the
+ * next, is tokenized and parsed only when it is asked for, and nothing of it is kept
+ * afterwards, so memory does not grow with the size of the source.
+ *
+ * Every block gets a fresh {@link SymbolTable}; identifiers are interned within a theorem
+ * but not across theorems.
+ */
+public class TheoremStream {
+    private CharSequence source;
+    private int offset;
+    private int line = 1;
+    private boolean done;
+
+    public TheoremStream(CharSequence source) {
+        this.source = source;
+    }
+
+    /**
+     * Parses the next theorem, or returns null at the end of the source.
+     *
+     * @throws SyntaxError if the next block does not parse. The stream moves past the
+     *         block, so reading can go on with the theorem after it.
+     */
+    public TheoremDecl next() {
+        if (done) {
+            return null;
+        }
+        TokenBuffer tokens = TokenBuffer.tokenizeBlock(source, offset, line, new SymbolTable());
+        int last = tokens.size() - 1;
+        if (tokens.kind(last) == sym.EOF) {
+            done = true;
+        } else {
+            int next = tokens.start(last);
+            line = tokens.line(next);
+            offset = next;
+        }
+        if (last == 0) {
+            // Nothing but comments and whitespace left
+            return null;
+        }
+        RecursiveDescentParser parser = new RecursiveDescentParser(tokens);
+        TheoremDecl theorem = parser.parseTheorem();
+        parser.expectEnd();
+        return theorem;
+    }
+
+    /** The offset the next block starts at. */
+    public int getOffset() {
+        return offset;
+    }
+}
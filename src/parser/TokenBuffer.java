@@ -0,0 +1,253 @@
+package parser;
+
+import java.util.Arrays;
+
+import java_cup.runtime.ComplexSymbolFactory;
+import java_cup.runtime.Scanner;
+import java_cup.runtime.Symbol;
+
+/**
+ * A whole source tokenized into parallel int arrays: each token's kind, start offset and
+ * length, plus a value that is the identifier's id in the {@link SymbolTable} or the
+ * number's value. No object is kept per token.
+ *
+ * {@link #replay()} feeds the tokens to the CUP parser as Symbols carrying their offsets,
+ * and {@link #describe(int)} turns an offset back into a line and column for diagnostics.
+ */
+public class TokenBuffer {
+    private CharSequence source;
+    private SymbolTable identifiers;
+    private int[] kinds;
+    private int[] starts;
+    private int[] lengths;
+    private int[] values;
+    private int size;
+    // Lines are counted from origin, which is on line originLine, up to limit
+    private int origin;
+    private int originLine = 1;
+    private int limit;
+    private int[] lineStarts;
+
+    private TokenBuffer(CharSequence source, SymbolTable identifiers, int capacity) {
+        this.source = source;
+        this.identifiers = identifiers;
+        this.kinds = new int[capacity];
+        this.starts = new int[capacity];
+        this.lengths = new int[capacity];
+        this.values = new int[capacity];
+        this.limit = source.length();
+    }
+
+    /**
+     * Tokenizes a whole source. The buffer ends with an EOF token. A character no token
+     * starts with, or a number too large for an int, becomes an error token and scanning
+     * goes on after it, so the theorems after it can still be found.
+     */
+    public static TokenBuffer tokenize(CharSequence source) {
+        return tokenize(source, new SymbolTable());
+    }
+
+    public static TokenBuffer tokenize(CharSequence source, SymbolTable identifiers) {
+        // Roughly one token per five characters of typical LEPA
+        TokenBuffer buffer = new TokenBuffer(source, identifiers, Math.max(16, source.length() / 5));
+        SpanLexer lexer = new SpanLexer(source, identifiers);
+        int kind;
+        do {
+            kind = lexer.next();
+            int value = 0;
+            if (kind == sym.IDENTIFIER) {
+                value = identifiers.id(source, lexer.getStart(), lexer.getLength());
+            } else if (kind == sym.NUMBER) {
+                value = lexer.number();
+            }
+            buffer.add(kind, lexer.getStart(), lexer.getLength(), value);
+        } while (kind != sym.EOF);
+        return buffer;
+    }
+
+    /**
+     * Tokenizes one theorem block of a larger source, starting at offset from: its first
+     * token and everything up to the next 'theorem' keyword, which becomes the buffer's last
+     * token in place of EOF. Offsets are in the whole source, and from is on line firstLine.
+     */
+    public static TokenBuffer tokenizeBlock(CharSequence source, int from, int firstLine, SymbolTable identifiers) {
+        TokenBuffer buffer = new TokenBuffer(source, identifiers, 64);
+        SpanLexer lexer = new SpanLexer(source, identifiers);
+        lexer.seek(from);
+        int kind;
+        do {
+            kind = lexer.next();
+            int value = 0;
+            if (kind == sym.IDENTIFIER) {
+                value = identifiers.id(source, lexer.getStart(), lexer.getLength());
+            } else if (kind == sym.NUMBER) {
+                value = lexer.number();
+            }
+            buffer.add(kind, lexer.getStart(), lexer.getLength(), value);
+        } while (kind != sym.EOF && (kind != sym.THEOREM || buffer.size == 1));
+        buffer.origin = from;
+        buffer.originLine = firstLine;
+        buffer.limit = lexer.getStart();
+        return buffer;
+    }
+
+    private void add(int kind, int start, int length, int value) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            values = Arrays.copyOf(values, capacity);
+        }
+        kinds[size] = kind;
+        starts[size] = start;
+        lengths[size] = length;
+        values[size] = value;
+        size++;
+    }
+
+    public CharSequence getSource() {
+        return source;
+    }
+
+    public SymbolTable getSymbolTable() {
+        return identifiers;
+    }
+
+    /** Number of tokens, counting the final EOF. */
+    public int size() {
+        return size;
+    }
+
+    public int kind(int token) {
+        return kinds[token];
+    }
+
+    public int start(int token) {
+        return starts[token];
+    }
+
+    public int length(int token) {
+        return lengths[token];
+    }
+
+    /** The identifier's id in the symbol table. */
+    public int identifierId(int token) {
+        return values[token];
+    }
+
+    /** The identifier's interned spelling. */
+    public String identifier(int token) {
+        return identifiers.spelling(values[token]);
+    }
+
+    public int number(int token) {
+        return values[token];
+    }
+
+    /** The token's text, copied out of the source. */
+    public String text(int token) {
+        return source.subSequence(starts[token], starts[token] + lengths[token]).toString();
+    }
+
+    /**
+     * The value the CUP parser expects for a token, as {@link SpanLexer#value()}.
+     */
+    public Object value(int token) {
+        switch (kinds[token]) {
+            case sym.IDENTIFIER:
+                return identifier(token);
+            case sym.NUMBER:
+                return values[token];
+            default:
+                return SpanLexer.spelling(kinds[token]);
+        }
+    }
+
+    /**
+     * A scanner that hands the tokens to the parser in order, as symbols of a
+     * ComplexSymbolFactory whose left and right are source offsets; the parser must be built
+     * with a ComplexSymbolFactory too. An error token is reported and ends the input, as
+     * an unknown character does for {@link LepaLexer}.
+     */
+    public Scanner replay() {
+        return replay(null);
+    }
+
+    /**
+     * Replays the tokens, telling a listener about each one the parser takes.
+     */
+    public Scanner replay(TokenListener listener) {
+        ComplexSymbolFactory symbols = new ComplexSymbolFactory();
+        int[] lines = lineStarts();
+        return new Scanner() {
+            private int next;
+            // Index in lines of the last offset located; offsets only grow
+            private int line;
+
+            @Override
+            public Symbol next_token() {
+                int token = Math.min(next, size - 1);
+                next++;
+                if (kinds[token] == sym.error) {
+                    System.err.println("Syntax error at " + describe(starts[token]) + ": " + SpanLexer.describeError(text(token)));
+                    next = size;
+                    return symbols.newSymbol("EOF", sym.EOF, location(starts[token]), location(starts[token]));
+                }
+                Object value = value(token);
+                if (listener != null) {
+                    listener.tokenScanned(kinds[token], value);
+                }
+                return symbols.newSymbol(sym.terminalNames[kinds[token]], kinds[token], location(starts[token]),
+                        location(starts[token] + lengths[token]), value);
+            }
+
+            private ComplexSymbolFactory.Location location(int offset) {
+                while (line + 1 < lines.length && lines[line + 1] <= offset) {
+                    line++;
+                }
+                return new ComplexSymbolFactory.Location(line + originLine, offset - lines[line] + 1, offset);
+            }
+        };
+    }
+
+    /** The 1-based line of an offset. */
+    public int line(int offset) {
+        int[] lines = lineStarts();
+        int index = Arrays.binarySearch(lines, offset);
+        return (index >= 0 ? index : -index - 2) + originLine;
+    }
+
+    /** The 1-based column of an offset. */
+    public int column(int offset) {
+        return offset - lineStarts()[line(offset) - originLine] + 1;
+    }
+
+    /** "line L, column C" for an offset. */
+    public String describe(int offset) {
+        return "line " + line(offset) + ", column " + column(offset);
+    }
+
+    // Synchronized so parsers on several threads can report errors from one buffer
+    private synchronized int[] lineStarts() {
+        if (lineStarts == null) {
+            int[] lines = new int[16];
+            int count = 1;
+            // The first line may start before the origin
+            lines[0] = origin;
+            while (lines[0] > 0 && source.charAt(lines[0] - 1) != '\n') {
+                lines[0]--;
+            }
+            for (int i = origin; i < limit; i++) {
+                if (source.charAt(i) == '\n') {
+                    if (count == lines.length) {
+                        lines = Arrays.copyOf(lines, count * 2);
+                    }
+                    lines[count++] = i + 1;
+                }
+            }
+            lineStarts = Arrays.copyOf(lines, count);
+        }
+        return lineStarts;
+    }
+}
@@ -0,0 +1,21 @@
+package parser;
+
+/**
+ * Observes the tokens a {@link LepaLexer} produces. The lexer does no logging of its own;
+ * set a listener to trace tokens while debugging.
+ */
+public interface TokenListener {
+    /**
+     * Prints each token to standard output as it is scanned.
+     */
+    TokenListener TRACE = (kind, value) ->
+            System.out.println(sym.terminalNames[kind] + " token found: " + value);
+
+    /**
+     * Called for every token, just before the lexer returns it.
+     *
+     * @param kind The token's sym constant.
+     * @param value The token's value: its spelling, or an Integer for numbers.
+     */
+    void tokenScanned(int kind, Object value);
+}
@@ -33,8 +33,13 @@ public class LepaRuntime {
     /**
      * Creates a set from a list of elements.
      */
+    @SafeVarargs
     public static <T> Set<T> set(T... elements) {
-        return new HashSet<>(Arrays.asList(elements));
+        Set<T> result = new HashSet<>();
+        for (T element : elements) {
+            result.add(element);
+        }
+        return result;
     }
     
     /**
@@ -0,0 +1,76 @@
+package runtime;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs the theorem verifiers of a generated LEPA program in parallel.
+ *
+ * Theorems form a DAG through the lemmas their proofs cite. Each theorem is verified on a
+ * bounded pool as soon as all the theorems it depends on have finished, so independent
+ * theorems run concurrently. Results are still printed in source order, exactly as the
+ * sequential program would print them.
+ */
+public class LepaScheduler {
+    
+    /**
+     * Verifies every theorem and prints the results in order.
+     *
+     * @param names The theorem names, in source order.
+     * @param dependencies dependencies[i] lists the indices of the theorems theorem i cites;
+     *                     each must be smaller than i.
+     * @param verifiers The verify method of each theorem.
+     */
+    public static void run(String[] names, int[][] dependencies, BooleanSupplier[] verifiers) {
+        int threads = Math.max(1, Math.min(names.length, Runtime.getRuntime().availableProcessors()));
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "lepa-verifier");
+            thread.setDaemon(true);
+            return thread;
+        });
+        
+        try {
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            CompletableFuture<Boolean>[] results = new CompletableFuture[names.length];
+            for (int i = 0; i < names.length; i++) {
+                CompletableFuture<?>[] prerequisites = new CompletableFuture<?>[dependencies[i].length];
+                for (int j = 0; j < prerequisites.length; j++) {
+                    prerequisites[j] = results[dependencies[i][j]];
+                }
+                BooleanSupplier verifier = verifiers[i];
+                // Start once every cited lemma has been verified, whatever its result
+                results[i] = CompletableFuture.allOf(prerequisites)
+                    .handle((ignored, error) -> null)
+                    .thenApplyAsync(ignored -> verifier.getAsBoolean(), pool);
+            }
+            
+            for (int i = 0; i < names.length; i++) {
+                System.out.println("Verifying theorem: " + names[i]);
+                boolean result;
+                try {
+                    result = results[i].join();
+                } catch (CompletionException e) {
+                    // Fail the same way the sequential program would
+                    rethrow(e.getCause());
+                    return;
+                }
+                System.out.println("Result: " + result);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    private static void rethrow(Throwable cause) {
+        if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+    }
+}